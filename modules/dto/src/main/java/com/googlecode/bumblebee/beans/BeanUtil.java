@@ -97,17 +97,7 @@ public class BeanUtil {
 
             return intermediate;
         } else {
-            Method method = null;
-            String intermediate = Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
-
-
-            for (String prefix : ACCESSOR_PREFIXES) {
-                try {
-                    method = object.getClass().getDeclaredMethod(prefix + intermediate);
-                } catch (NoSuchMethodException e) {
-                    // Ignore
-                }
-            }
+            Method method = getAccessor(object.getClass(), propertyName);
 
             if (method == null) {
                 throw new PropertyAccessException("No accessor for property " + object.getClass().getSimpleName() + "." + propertyName + " could be found.");
@@ -132,13 +122,226 @@ public class BeanUtil {
         }
     }
 
+    /**
+     * Evaluates an index or a key on the provided object. Maps are accessed by key, lists, arrays and other
+     * iterables by a numeric index, and any other object by a property name.
+     *
+     * @param object The object that should be indexed.
+     * @param index  The index, key or property name.
+     * @return The indexed value, or <code>null</code> if the index is out of range or the key is not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    public static Object getIndexedValue(@NotNull Object object, @NotNull Object index) {
+        if (object instanceof Map) {
+            return ((Map) object).get(index);
+        } else if (index instanceof Number) {
+            int position = ((Number) index).intValue();
+
+            if (position < 0) {
+                return null;
+            } else if (object instanceof List) {
+                List list = (List) object;
+                return (position < list.size() ? list.get(position) : null);
+            } else if (object.getClass().isArray()) {
+                return (position < Array.getLength(object) ? Array.get(object, position) : null);
+            } else if (object instanceof Iterable) {
+                Iterator iterator = ((Iterable) object).iterator();
+
+                for (int i = 0; i < position && iterator.hasNext(); i++) {
+                    iterator.next();
+                }
+
+                return (iterator.hasNext() ? iterator.next() : null);
+            }
+        } else if (index instanceof String) {
+            return getProperty(object, (String) index);
+        }
+
+        throw new PropertyAccessException("Can't index " + object.getClass().getSimpleName() + " by " + index);
+    }
+
+    /**
+     * Selects a range of the elements of a collection or an array. Arrays are sliced into an array of the
+     * same type and collections into a new list, so the slice doesn't change with the object.
+     *
+     * @param object The collection or array to slice.
+     * @param from   The index of the first element of the slice, inclusive.
+     * @param to     The index of the last element of the slice, exclusive.
+     * @return The selected elements. Bounds that are out of range are clamped to the size of the object.
+     */
+    @SuppressWarnings("unchecked")
+    public static Object slice(@NotNull Object object, int from, int to) {
+        if (object instanceof List) {
+            List list = (List) object;
+            int end = Math.max(Math.min(to, list.size()), 0);
+
+            return new ArrayList(list.subList(Math.min(Math.max(from, 0), end), end));
+        } else if (object.getClass().isArray()) {
+            int end = Math.max(Math.min(to, Array.getLength(object)), 0);
+            int start = Math.min(Math.max(from, 0), end);
+            Object slice = Array.newInstance(object.getClass().getComponentType(), end - start);
+
+            System.arraycopy(object, start, slice, 0, end - start);
+
+            return slice;
+        } else if (object instanceof Iterable) {
+            int size = (object instanceof Collection ? ((Collection) object).size() : to);
+            List slice = new ArrayList(Math.max(Math.min(to, size) - Math.max(from, 0), 0));
+            Iterator iterator = ((Iterable) object).iterator();
+
+            for (int i = 0; i < to && iterator.hasNext(); i++) {
+                Object element = iterator.next();
+
+                if (i >= from) {
+                    slice.add(element);
+                }
+            }
+
+            return slice;
+        }
+
+        throw new PropertyAccessException("Can't slice " + object.getClass().getSimpleName());
+    }
+
+    /**
+     * Locates the accessor of a property. The prefixes are tested in priority order (see
+     * {@link #getProperty(Object, String)}) and accessors declared by super classes are considered
+     * if the type itself does not declare a matching method.
+     *
+     * @param type         The type that declares the property.
+     * @param propertyName The name of the property.
+     * @return The accessor of the property, or <code>null</code> if no accessor could be found.
+     */
+    public static Method getAccessor(@NotNull Class<?> type, @NotEmpty String propertyName) {
+        String intermediate = Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+
+        for (Class<?> declaringType = type; declaringType != null; declaringType = declaringType.getSuperclass()) {
+            for (String prefix : ACCESSOR_PREFIXES) {
+                try {
+                    Method method = declaringType.getDeclaredMethod(prefix + intermediate);
+
+                    if (!method.getReturnType().equals(void.class)) {
+                        return method;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the wrapper type of a primitive type, e.g. <code>java.lang.Integer</code> for <code>int</code>.
+     *
+     * @param primitiveType The primitive type.
+     * @return The corresponding wrapper type.
+     */
+    public static Class<?> getWrapperType(@NotNull Class<?> primitiveType) {
+        if (boolean.class.equals(primitiveType)) {
+            return Boolean.class;
+        } else if (byte.class.equals(primitiveType)) {
+            return Byte.class;
+        } else if (char.class.equals(primitiveType)) {
+            return Character.class;
+        } else if (short.class.equals(primitiveType)) {
+            return Short.class;
+        } else if (int.class.equals(primitiveType)) {
+            return Integer.class;
+        } else if (long.class.equals(primitiveType)) {
+            return Long.class;
+        } else if (float.class.equals(primitiveType)) {
+            return Float.class;
+        } else if (double.class.equals(primitiveType)) {
+            return Double.class;
+        } else {
+            throw new IllegalArgumentException("Type " + primitiveType.getName() + " is not a primitive type");
+        }
+    }
+
+    /**
+     * Returns the primitive type of a wrapper type, e.g. <code>int</code> for <code>java.lang.Integer</code>.
+     *
+     * @param wrapperType The wrapper type.
+     * @return The corresponding primitive type, or <code>null</code> if the type is not a wrapper type.
+     */
+    public static Class<?> getPrimitiveType(@NotNull Class<?> wrapperType) {
+        if (Boolean.class.equals(wrapperType)) {
+            return boolean.class;
+        } else if (Byte.class.equals(wrapperType)) {
+            return byte.class;
+        } else if (Character.class.equals(wrapperType)) {
+            return char.class;
+        } else if (Short.class.equals(wrapperType)) {
+            return short.class;
+        } else if (Integer.class.equals(wrapperType)) {
+            return int.class;
+        } else if (Long.class.equals(wrapperType)) {
+            return long.class;
+        } else if (Float.class.equals(wrapperType)) {
+            return float.class;
+        } else if (Double.class.equals(wrapperType)) {
+            return double.class;
+        } else {
+            return null;
+        }
+    }
+
     public static Object getUnwrappableValue(@NotNull Object value, @NotEmpty String wrapperType) {
-        // TODO Cast if e.g. value is an Integer and wrapperType is Double
+        if (value instanceof Number && !value.getClass().getName().equals(wrapperType)) {
+            // Convert between numeric types, e.g. if the value is a Long and the wrapper type is Integer
+            return convertNumber((Number) value, wrapperType);
+        }
+
         return value;
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Converts a number to another numeric wrapper type, e.g. the <code>long</code> sum of an aggregate
+     * expression to the <code>java.lang.Integer</code> of a property.
+     *
+     * @param number      The number to convert.
+     * @param wrapperType The name of the numeric wrapper type.
+     * @return The converted number, or the number itself if the wrapper type is not numeric.
+     */
+    public static Object convertNumber(@NotNull Number number, @NotEmpty String wrapperType) {
+        if (wrapperType.equals(Byte.class.getName())) {
+            return number.byteValue();
+        } else if (wrapperType.equals(Short.class.getName())) {
+            return number.shortValue();
+        } else if (wrapperType.equals(Integer.class.getName())) {
+            return number.intValue();
+        } else if (wrapperType.equals(Long.class.getName())) {
+            return number.longValue();
+        } else if (wrapperType.equals(Float.class.getName())) {
+            return number.floatValue();
+        } else if (wrapperType.equals(Double.class.getName())) {
+            return number.doubleValue();
+        } else {
+            return number;
+        }
+    }
+
     public static Object copy(Object object, @NotNull Class propertyType, @NotNull Class componentType, @NotNull Assembler assembler) {
+        return copyValue(object, propertyType, componentType, assembler);
+    }
+
+    /**
+     * Copies a value to a property whose elements aren't data objects, e.g. a path that is copied to an
+     * array or a collection by a getter that is compiled for the type of the property.
+     *
+     * @param object        The value to copy.
+     * @param propertyType  The type of the property.
+     * @param componentType The type of the elements of the property.
+     * @return The copy of the value.
+     */
+    public static Object copy(Object object, @NotNull Class propertyType, @NotNull Class componentType) {
+        return copyValue(object, propertyType, componentType, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object object, Class propertyType, Class componentType, Assembler assembler) {
         if (propertyType.isArray()) {
             if (!(object instanceof Collection) && object instanceof Iterable) {
                 object = ((Iterable) object).iterator();
@@ -154,7 +357,7 @@ public class BeanUtil {
                 int index = 0;
 
                 for (Object element : collection) {
-                    Array.set(array, index++, copy(element, componentType, componentType, assembler));
+                    Array.set(array, index++, copyValue(element, componentType, componentType, assembler));
                 }
 
                 return array;
@@ -163,7 +366,7 @@ public class BeanUtil {
                 Object array = Array.newInstance(componentType, length);
 
                 for (int i = 0; i < length; i++) {
-                    Array.set(array, i, copy(Array.get(object, i), componentType, componentType, assembler));
+                    Array.set(array, i, copyValue(Array.get(object, i), componentType, componentType, assembler));
                 }
 
                 return array;
@@ -185,7 +388,7 @@ public class BeanUtil {
                 Collection target = newCollection(propertyType, source.size());
 
                 for (Object element : source) {
-                    Object copy = copy(element, componentType, componentType, assembler);
+                    Object copy = copyValue(element, componentType, componentType, assembler);
 
                     if (!componentType.isInstance(copy)) {
                         throw new AssemblyException("Incompatible element in collection " + source + ": element " + element + " is not assignable to " + componentType.getName());
@@ -209,7 +412,14 @@ public class BeanUtil {
                     return target;
                 }
             }
+        } else if (object instanceof Number && Number.class.isAssignableFrom(propertyType) && !propertyType.isInstance(object)) {
+            object = convertNumber((Number) object, propertyType.getName());
         } else if (propertyType.getAnnotation(DataObject.class) != null && object != null) {
+            if (assembler == null) {
+                throw new IllegalArgumentException("Can't copy " + object.getClass().getName() + " to data object "
+                        + propertyType.getName() + " without an assembler");
+            }
+
             object = assembler.assemble(object, propertyType);
         }
 
@@ -16,6 +16,10 @@ package com.googlecode.bumblebee.dto;
 
 import net.sf.jdpa.NotNull;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Future;
+
 /**
  * An assembler is responsible for assembling a data object given a source object.
  *
@@ -26,9 +30,167 @@ public interface Assembler {
     @NotNull
     public <T> T assemble(Object source, Class<T> dataObjectType);
 
+    /**
+     * Assembles a data object with parameters that can be referenced by the expressions of the data object,
+     * e.g. <code>{0}</code> in <code>prices[{0}]</code>. The parameters are also bound when nested data
+     * objects are assembled.
+     *
+     * @param source         The source object.
+     * @param dataObjectType The type of the data object.
+     * @param parameters     The parameters of the assembly, possibly <code>null</code>.
+     * @return The assembled data object.
+     */
+    @NotNull
+    public <T> T assemble(Object source, Class<T> dataObjectType, Object[] parameters);
+
     @NotNull
     public <T> T assemble(Class<T> dataObjectType, PropertyValue ... properties);
 
+    /**
+     * Assembles a data object per source object. The implementation of the data object is resolved once
+     * for all sources, and the result is sized after the sources if they're a collection.
+     *
+     * @param sources        The source objects, none of which may be <code>null</code>.
+     * @param dataObjectType The type of the data objects.
+     * @return The assembled data objects, in the order of the source objects.
+     */
+    @NotNull
+    public <T> List<T> assembleAll(Iterable<?> sources, Class<T> dataObjectType);
+
+    /**
+     * Assembles a data object per element of an array of source objects.
+     *
+     * @param sources        The source objects, none of which may be <code>null</code>.
+     * @param dataObjectType The type of the data objects.
+     * @return The assembled data objects, in the order of the source objects.
+     * @see #assembleAll(Iterable, Class)
+     */
+    @NotNull
+    public <T> List<T> assembleAll(Object[] sources, Class<T> dataObjectType);
+
+    /**
+     * Assembles a data object per source object with parameters that can be referenced by the expressions
+     * of the data object.
+     *
+     * @param sources        The source objects, none of which may be <code>null</code>.
+     * @param dataObjectType The type of the data objects.
+     * @param parameters     The parameters of the assembly, possibly <code>null</code>.
+     * @return The assembled data objects, in the order of the source objects.
+     * @see #assembleAll(Iterable, Class)
+     */
+    @NotNull
+    public <T> List<T> assembleAll(Iterable<?> sources, Class<T> dataObjectType, Object[] parameters);
+
+    /**
+     * Assembles a data object asynchronously, so that the calling thread isn't blocked while the source
+     * is read, e.g. while lazily loaded relationships of the source are loaded.
+     *
+     * @param source         The source object.
+     * @param dataObjectType The type of the data object.
+     * @return The future data object.
+     */
+    @NotNull
+    public <T> Future<T> assembleAsync(Object source, Class<T> dataObjectType);
+
+    /**
+     * Assembles a data object per source object asynchronously. The data objects are assembled
+     * independently of each other, so that the sources can be read concurrently.
+     *
+     * @param sources        The source objects, none of which may be <code>null</code>.
+     * @param dataObjectType The type of the data objects.
+     * @return The future data objects, in the order of the source objects.
+     */
+    @NotNull
+    public <T> Future<List<T>> assembleAllAsync(Iterable<?> sources, Class<T> dataObjectType);
+
+    /**
+     * Returns an iterator that assembles a data object per source object as it's iterated, so that only
+     * the data object that is being iterated is held in memory. The implementation of the data object is
+     * resolved once, when the iterator is created. Removing a data object removes its source from the
+     * source iterator, if supported.
+     *
+     * @param sources        The source objects, none of which may be <code>null</code>.
+     * @param dataObjectType The type of the data objects.
+     * @return An iterator of the data objects, in the order of the source objects.
+     */
+    @NotNull
+    public <T> Iterator<T> stream(Iterator<?> sources, Class<T> dataObjectType);
+
+    /**
+     * Returns an iterator that lazily assembles a data object per source object with parameters that can
+     * be referenced by the expressions of the data object.
+     *
+     * @param sources        The source objects, none of which may be <code>null</code>.
+     * @param dataObjectType The type of the data objects.
+     * @param parameters     The parameters of the assembly, possibly <code>null</code>.
+     * @return An iterator of the data objects, in the order of the source objects.
+     * @see #stream(Iterator, Class)
+     */
+    @NotNull
+    public <T> Iterator<T> stream(Iterator<?> sources, Class<T> dataObjectType, Object[] parameters);
+
+    /**
+     * Assembles a data object per source object into a columnar list, which holds the values of each property
+     * in an array of its own. The elements of the list are read-only views of a row of the arrays, so the
+     * list only allocates a handful of arrays however many data objects it holds.
+     *
+     * @param sources        The source objects, none of which may be <code>null</code>.
+     * @param dataObjectType The type of the data objects.
+     * @return The assembled data objects, in the order of the source objects.
+     */
+    @NotNull
+    public <T> List<T> assembleColumnar(Iterable<?> sources, Class<T> dataObjectType);
+
+    /**
+     * Assembles a columnar list of data objects with parameters that can be referenced by the expressions
+     * of the data object.
+     *
+     * @param sources        The source objects, none of which may be <code>null</code>.
+     * @param dataObjectType The type of the data objects.
+     * @param parameters     The parameters of the assembly, possibly <code>null</code>.
+     * @return The assembled data objects, in the order of the source objects.
+     * @see #assembleColumnar(Iterable, Class)
+     */
+    @NotNull
+    public <T> List<T> assembleColumnar(Iterable<?> sources, Class<T> dataObjectType, Object[] parameters);
+
+    /**
+     * Assembles a data object whose properties are held off heap, in a record of the provided arena, so
+     * that the heap only holds a small handle per data object. Only data objects whose properties are
+     * primitives or strings can be held off heap. The data object can't be read once the arena is closed.
+     *
+     * @param source         The source object.
+     * @param dataObjectType The type of the data object.
+     * @param arena          The arena that holds the properties of the data object.
+     * @return The assembled data object.
+     */
+    @NotNull
+    public <T> T assembleOffHeap(Object source, Class<T> dataObjectType, OffHeapArena arena);
+
+    /**
+     * Assembles a data object off heap with parameters that can be referenced by the expressions of
+     * the data object.
+     *
+     * @param source         The source object.
+     * @param dataObjectType The type of the data object.
+     * @param arena          The arena that holds the properties of the data object.
+     * @param parameters     The parameters of the assembly, possibly <code>null</code>.
+     * @return The assembled data object.
+     * @see #assembleOffHeap(Object, Class, OffHeapArena)
+     */
+    @NotNull
+    public <T> T assembleOffHeap(Object source, Class<T> dataObjectType, OffHeapArena arena, Object[] parameters);
+
+    /**
+     * Creates a context in which each source object is assembled at most once per data object type. Data
+     * objects assembled through the context, including nested data objects, share the data objects of
+     * sources that have already been assembled, and cyclic references resolve to the same instance.
+     *
+     * @return A new assembly context, intended to be used for a single assembly or batch of assemblies.
+     */
+    @NotNull
+    public AssemblyContext newContext();
+
     @NotNull
     public<T> Class<? extends T> getDataObjectImplementation(Class<T> descriptorType);
 
@@ -0,0 +1,44 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto;
+
+/**
+ * An assembler that assembles each source object at most once per data object type. The data objects
+ * are memoized by the identity of their source objects, so a source that is referenced many times within
+ * an assembly is assembled once, and data objects that reference each other through their sources resolve
+ * to the same instances instead of recursing indefinitely.
+ * <p/>
+ * Data objects that are assembled with parameters are memoized per set of parameters, which are compared
+ * by equality. Their nested data objects are memoized with the same parameters.
+ * <p/>
+ * Columnar, off-heap and asynchronous assemblies are not memoized: they are delegated to the assembler that
+ * created the context, and neither their data objects nor their nested data objects are shared with the
+ * data objects assembled through the context.
+ *
+ * @see Assembler#newContext()
+ */
+public interface AssemblyContext extends Assembler {
+
+    /**
+     * Registers the data object assembled from a source object. The generated data object implementations
+     * register themselves before their properties are initialized, so that nested data objects that refer
+     * back to the source resolve to the data object being assembled.
+     *
+     * @param source     The source object.
+     * @param dataObject The data object assembled from the source object.
+     */
+    public void register(Object source, Object dataObject);
+
+}
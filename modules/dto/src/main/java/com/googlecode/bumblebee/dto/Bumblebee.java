@@ -15,7 +15,11 @@
 package com.googlecode.bumblebee.dto;
 
 import com.googlecode.bumblebee.dto.impl.AssemblerImpl;
+import com.googlecode.bumblebee.dto.impl.ExpressionCompilerImpl;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,11 +29,50 @@ public class Bumblebee {
 
     public static final Assembler DEFAULT_ASSEMBLER = new AssemblerImpl();
 
+    public static final ExpressionCompiler DEFAULT_COMPILER = new ExpressionCompilerImpl();
+
     public static <T> AssembleBuilder<T> assemble(final Class<T> dataObjectClass) {
+        return assemble(dataObjectClass, null, false);
+    }
+
+    private static <T> AssembleBuilder<T> assemble(final Class<T> dataObjectClass, final Object[] parameters, final boolean memoized) {
         return new AssembleBuilder<T>() {
+            public AssembleBuilder<T> with(Object ... values) {
+                return assemble(dataObjectClass, values, memoized);
+            }
+
+            public AssembleBuilder<T> memoized() {
+                return assemble(dataObjectClass, parameters, true);
+            }
+
             @SuppressWarnings("unchecked")
             public <T> T from(Object source) {
-                return (T) DEFAULT_ASSEMBLER.assemble(source, dataObjectClass);
+                return (T) getAssembler().assemble(source, dataObjectClass, parameters);
+            }
+
+            public List<T> allFrom(Iterable<?> sources) {
+                return getAssembler().assembleAll(sources, dataObjectClass, parameters);
+            }
+
+            public List<T> allFrom(Object[] sources) {
+                return getAssembler().assembleAll(Arrays.asList(sources), dataObjectClass, parameters);
+            }
+
+            public Iterator<T> streamFrom(Iterator<?> sources) {
+                return getAssembler().stream(sources, dataObjectClass, parameters);
+            }
+
+            public List<T> columnarFrom(Iterable<?> sources) {
+                return getAssembler().assembleColumnar(sources, dataObjectClass, parameters);
+            }
+
+            public T offHeapFrom(Object source, OffHeapArena arena) {
+                return getAssembler().assembleOffHeap(source, dataObjectClass, arena, parameters);
+            }
+
+            private Assembler getAssembler() {
+                // A memoized assembly gets a context of its own, so nothing is retained between assemblies
+                return (memoized ? DEFAULT_ASSEMBLER.newContext() : DEFAULT_ASSEMBLER);
             }
         };
     }
@@ -42,6 +85,31 @@ public class Bumblebee {
         return new PropertyValue(propertyName, propertyValue);
     }
 
+    /**
+     * Compiles an expression into a reusable getter. The expression language is the same as the one
+     * used by {@link Value}. Getters are cached by the default compiler, so compiling the same expression
+     * repeatedly is cheap, but callers on hot paths should keep a reference to the returned getter.
+     *
+     * @param expression The expression to compile, e.g. <code>userInfo.firstName</code>.
+     * @return A thread safe getter that evaluates the expression.
+     */
+    public static Getter compile(String expression) {
+        return DEFAULT_COMPILER.compile(expression);
+    }
+
+    /**
+     * Compiles an expression into a getter whose values are copied to an array or a collection property.
+     *
+     * @param expression    The expression to compile.
+     * @param targetType    The type of the property.
+     * @param componentType The type of the elements of the property.
+     * @return A thread safe getter that evaluates the expression to a value of the target type.
+     * @see ExpressionCompiler#compile(String, Class, Class)
+     */
+    public static Getter compile(String expression, Class<?> targetType, Class<?> componentType) {
+        return DEFAULT_COMPILER.compile(expression, targetType, componentType);
+    }
+
     @SuppressWarnings("unchecked")
     public static<T> Class<? extends T> implementationOf(Class<T> dataObjectDefinition) {
         return (Class<? extends T>) DEFAULT_ASSEMBLER.getDataObjectImplementation(dataObjectDefinition);
@@ -49,8 +117,72 @@ public class Bumblebee {
 
     public static interface AssembleBuilder<T> {
 
+        /**
+         * Binds the parameters of the assembly, which are referenced by position in the expressions of
+         * the data object, e.g. <code>{0}</code> in <code>prices[{0}]</code>.
+         *
+         * @param parameters The parameters of the assembly.
+         * @return A builder that assembles the data object with the provided parameters.
+         */
+        public AssembleBuilder<T> with(Object ... parameters);
+
+        /**
+         * Assembles each source object at most once per data object type within an assembly, i.e. each call
+         * to <code>from</code>, <code>allFrom</code> or <code>streamFrom</code> assembles through a new
+         * {@link AssemblyContext}. Shared and cyclic references between source objects resolve to the same
+         * data objects.
+         * <p/>
+         * Memoization is opt-in, since the context retains every source object for the duration of the
+         * assembly and a source that is referenced twice is no longer assembled into distinct data objects.
+         * Assemblies with parameters aren't memoized.
+         *
+         * @return A builder that memoizes the data objects of each assembly.
+         * @see Assembler#newContext()
+         */
+        public AssembleBuilder<T> memoized();
+
         public <T> T from(Object source);
 
+        /**
+         * Assembles a data object per source object, resolving the implementation of the data object once.
+         *
+         * @param sources The source objects.
+         * @return The assembled data objects, in the order of the source objects.
+         * @see Assembler#assembleAll(Iterable, Class)
+         */
+        public List<T> allFrom(Iterable<?> sources);
+
+        public List<T> allFrom(Object[] sources);
+
+        /**
+         * Returns an iterator that assembles a data object per source object as it's iterated.
+         *
+         * @param sources The source objects.
+         * @return An iterator of the data objects, in the order of the source objects.
+         * @see Assembler#stream(Iterator, Class)
+         */
+        public Iterator<T> streamFrom(Iterator<?> sources);
+
+        /**
+         * Assembles a data object per source object into a columnar list, whose elements are read-only
+         * views of the properties of the data objects.
+         *
+         * @param sources The source objects.
+         * @return The assembled data objects, in the order of the source objects.
+         * @see Assembler#assembleColumnar(Iterable, Class)
+         */
+        public List<T> columnarFrom(Iterable<?> sources);
+
+        /**
+         * Assembles a data object whose properties are held by an off-heap arena.
+         *
+         * @param source The source object.
+         * @param arena The arena that holds the properties of the data object.
+         * @return The assembled data object.
+         * @see Assembler#assembleOffHeap(Object, Class, OffHeapArena)
+         */
+        public T offHeapFrom(Object source, OffHeapArena arena);
+
     }
 
 }
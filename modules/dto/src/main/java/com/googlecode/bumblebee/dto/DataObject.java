@@ -34,4 +34,51 @@ public @interface DataObject {
      */
     Class<? extends Annotation>[] inheritedAnnotations() default { Annotation.class };
 
+    /**
+     * Defines how the fields of the implementation class are laid out.
+     * @return The layout of the fields of the implementation class.
+     */
+    Layout layout() default Layout.DECLARATION;
+
+    /**
+     * Defines how the values of the properties are stored by the implementation class.
+     * @return The storage of the values of the properties.
+     */
+    Storage storage() default Storage.FIELDS;
+
+    /**
+     * Defines the number of elements from which nested data objects are assembled concurrently, if the
+     * assembler has an executor. Properties whose nested data objects are at least this many are assembled
+     * by separate tasks, which are joined before the data object is returned. <code>0</code>, the default,
+     * assembles all properties by the calling thread.
+     * @return The minimum number of nested data objects of a property that is assembled concurrently.
+     */
+    int concurrencyThreshold() default 0;
+
+    /**
+     * Defines whether or not assembled data objects are interned, i.e. whether data objects that are equal
+     * are replaced by a single canonical instance. The canonical instances are weakly referenced, and the
+     * implementation class of an interned data object doesn't define any mutators, since the instances are
+     * shared by all assemblies.
+     * @return Whether or not assembled data objects are interned.
+     */
+    boolean interned() default false;
+
+    /**
+     * Defines the expression that identifies the source of a data object, e.g. <code>id</code>. Data objects
+     * of sources that are identified are cached by the assembler if it has an
+     * {@link com.googlecode.bumblebee.dto.impl.AssemblyCache assembly cache} and they're {@link #interned interned},
+     * since data objects with mutators can't be shared. An empty expression, the default, doesn't identify the source.
+     * @return The expression of the identity of the source.
+     */
+    String id() default "";
+
+    /**
+     * Defines the expression of the version of the source of a data object, e.g. <code>version</code>. A
+     * cached data object is only reused while the version of its source is unchanged. The version requires
+     * an {@link #id id}.
+     * @return The expression of the version of the source.
+     */
+    String version() default "";
+
 }
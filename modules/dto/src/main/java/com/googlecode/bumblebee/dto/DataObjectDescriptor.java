@@ -37,6 +37,52 @@ public interface DataObjectDescriptor<T> {
     @NotNull
     public Class<? extends Annotation>[] getInheritedAnnotations();
 
+    /**
+     * Returns the layout of the fields of the implementation class of the data object.
+     *
+     * @return The layout of the fields.
+     */
+    @NotNull
+    public Layout getLayout();
+
+    /**
+     * Returns how the values of the properties are stored by the implementation class of the data object.
+     *
+     * @return The storage of the values.
+     */
+    @NotNull
+    public Storage getStorage();
+
+    /**
+     * Returns the number of nested data objects from which a property is assembled concurrently with
+     * the other properties of the data object.
+     *
+     * @return The threshold of concurrent assembly, or <code>0</code> if the data object is assembled sequentially.
+     */
+    public int getConcurrencyThreshold();
+
+    /**
+     * Returns whether or not assembled data objects are replaced by a canonical instance that is equal to
+     * them.
+     *
+     * @return Whether or not the data objects are interned.
+     */
+    public boolean isInterned();
+
+    /**
+     * Returns the expression that identifies the source of a data object.
+     *
+     * @return The expression of the identity of the source, or <code>null</code> if the source isn't identified.
+     */
+    public String getIdExpression();
+
+    /**
+     * Returns the expression of the version of the source of a data object.
+     *
+     * @return The expression of the version of the source, or <code>null</code> if the source isn't versioned.
+     */
+    public String getVersionExpression();
+
     public boolean isAnnotationTypeInherited(Class<? extends Annotation> annotationType);
 
     public boolean isPropertyDefined(String propertyName);
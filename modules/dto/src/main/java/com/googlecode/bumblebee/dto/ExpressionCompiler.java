@@ -0,0 +1,41 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto;
+
+import net.sf.jdpa.NotEmpty;
+import net.sf.jdpa.NotNull;
+
+/**
+ * An expression compiler translates expressions into reusable {@link Getter}s.
+ */
+public interface ExpressionCompiler {
+
+    @NotNull
+    public Getter compile(@NotEmpty String expression);
+
+    /**
+     * Compiles an expression into a getter whose values are copied to a property of the provided type. The
+     * getter evaluates to a collection or an array of the property type, into which paths through
+     * collections or arrays are collected directly.
+     *
+     * @param expression    The expression to compile.
+     * @param targetType    The type of the property, an array or a collection.
+     * @param componentType The type of the elements of the property, which aren't data objects.
+     * @return A getter that evaluates to values of the target type.
+     */
+    @NotNull
+    public Getter compile(@NotEmpty String expression, @NotNull Class<?> targetType, @NotNull Class<?> componentType);
+
+}
@@ -0,0 +1,52 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * A <code>Getter</code> is a compiled expression that extracts a value from a source object. Getters
+ * evaluate the same expressions as {@link Value} and are obtained through {@link Bumblebee#compile(String)}.
+ * Implementations are thread safe and should be reused.
+ */
+public interface Getter {
+
+    /**
+     * Returns the expression that this getter evaluates.
+     *
+     * @return The source expression of the getter.
+     */
+    @NotNull
+    public String getExpression();
+
+    /**
+     * Evaluates the expression against the provided source object.
+     *
+     * @param source The object that the expression should be evaluated against.
+     * @return The value of the expression.
+     */
+    public Object get(@NotNull Object source);
+
+    /**
+     * Evaluates the expression against the provided source object with the provided parameters, which
+     * are referenced by position in the expression, e.g. <code>{0}</code> in <code>prices[{0}]</code>.
+     *
+     * @param source     The object that the expression should be evaluated against.
+     * @param parameters The parameters of the expression.
+     * @return The value of the expression.
+     */
+    public Object get(@NotNull Object source, Object ... parameters);
+
+}
@@ -0,0 +1,40 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto;
+
+/**
+ * Defines how the fields that hold the properties of a data object are laid out in the generated
+ * implementation class.
+ *
+ * @see DataObject#layout()
+ */
+public enum Layout {
+
+    /**
+     * The properties are held by one field each, declared in the order in which the properties are
+     * declared by the data object interface. Properties of super-interfaces follow the properties of
+     * the sub-interface.
+     */
+    DECLARATION,
+
+    /**
+     * The fields are grouped by width, widest first and references last, and <code>boolean</code>
+     * properties are packed into <code>int</code> bit fields. Reduces the footprint of data objects with
+     * several <code>boolean</code> properties. The properties are still ordered by declaration within
+     * each group.
+     */
+    COMPACT
+
+}
@@ -0,0 +1,191 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An arena of off-heap memory that holds the properties of data objects assembled by
+ * {@link Assembler#assembleOffHeap(Object, Class, OffHeapArena)}. The memory is allocated sequentially
+ * from slabs of the {@link OffHeapStore store}, and is released all at once when the arena is closed.
+ * The data objects of a closed arena can't be read anymore.
+ * <p/>
+ * Memory is addressed by the index of the slab in the upper 32 bits and the offset within the slab in
+ * the lower 32 bits. Strings are held as their length followed by their characters, and are referenced
+ * by their address plus one, so that <code>0</code> is <code>null</code>.
+ */
+public class OffHeapArena {
+
+    private static final int ALIGNMENT = 8;
+
+    private static final ByteBuffer[] NO_SLABS = new ByteBuffer[0];
+
+    private OffHeapStore store;
+
+    private volatile ByteBuffer[] slabs = NO_SLABS;
+
+    private volatile boolean open = true;
+
+    private int position = 0;
+
+    private long allocatedBytes = 0;
+
+    OffHeapArena(OffHeapStore store) {
+        this.store = store;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns the amount of memory that is allocated by the arena.
+     *
+     * @return The size of the allocations of the arena, in bytes.
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Closes the arena and returns its slabs to the store.
+     */
+    public synchronized void close() {
+        if (open) {
+            open = false;
+            store.releaseSlabs(slabs);
+            slabs = NO_SLABS;
+        }
+    }
+
+    /**
+     * Allocates memory from the current slab of the arena, or from a new slab if the current slab is full.
+     *
+     * @param size The size of the memory, in bytes.
+     * @return The address of the memory.
+     */
+    public synchronized long allocate(int size) {
+        ByteBuffer[] current = slabs;
+        int offset = position;
+
+        checkOpen();
+
+        if (current.length == 0 || offset + size > current[current.length - 1].capacity()) {
+            ByteBuffer[] newSlabs = new ByteBuffer[current.length + 1];
+
+            System.arraycopy(current, 0, newSlabs, 0, current.length);
+            newSlabs[current.length] = store.allocateSlab(size);
+            slabs = current = newSlabs;
+            offset = 0;
+        }
+
+        position = offset + (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        allocatedBytes += size;
+
+        return ((long) (current.length - 1) << 32) | offset;
+    }
+
+    /**
+     * Returns the slab of an address.
+     *
+     * @param address The address.
+     * @return The slab that holds the memory of the address.
+     */
+    public ByteBuffer getSlab(long address) {
+        checkOpen();
+
+        return slabs[(int) (address >>> 32)];
+    }
+
+    /**
+     * Returns the provided slab if the arena is open, so that reads of the data objects of the arena fail
+     * once it's closed.
+     *
+     * @param slab The slab of a data object.
+     * @return The slab.
+     * @throws IllegalStateException If the arena is closed.
+     */
+    public ByteBuffer checkOpen(ByteBuffer slab) {
+        checkOpen();
+
+        return slab;
+    }
+
+    /**
+     * Copies a string to the arena, and writes its reference to the provided position of a slab.
+     *
+     * @param slab The slab of the reference.
+     * @param position The position of the reference within the slab.
+     * @param value The string, possibly <code>null</code>.
+     */
+    public void putString(ByteBuffer slab, int position, String value) {
+        long address = 0;
+
+        if (value != null) {
+            ByteBuffer target = null;
+            int offset = 0;
+
+            address = allocate(4 + value.length() * 2);
+            target = getSlab(address);
+            offset = (int) address;
+            target.putInt(offset, value.length());
+
+            for (int i = 0; i < value.length(); i++) {
+                target.putChar(offset + 4 + i * 2, value.charAt(i));
+            }
+
+            address++;
+        }
+
+        slab.putLong(position, address);
+    }
+
+    /**
+     * Reads the string that is referenced from the provided position of a slab.
+     *
+     * @param slab The slab of the reference.
+     * @param position The position of the reference within the slab.
+     * @return The string, or <code>null</code> if the reference is <code>null</code>.
+     */
+    public String getString(ByteBuffer slab, int position) {
+        long address = checkOpen(slab).getLong(position);
+        ByteBuffer source = null;
+        int offset = 0;
+        char[] characters = null;
+
+        if (address == 0) {
+            return null;
+        }
+
+        address--;
+        source = getSlab(address);
+        offset = (int) address;
+        characters = new char[source.getInt(offset)];
+
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = source.getChar(offset + 4 + i * 2);
+        }
+
+        return new String(characters);
+    }
+
+    private void checkOpen() {
+        if (!open) {
+            throw new IllegalStateException("Off-heap arena is closed");
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A store of off-heap memory for data objects that are assembled by
+ * {@link Assembler#assembleOffHeap(Object, Class, OffHeapArena)}. The memory is allocated in direct
+ * buffers, slabs, which are handed out to {@link OffHeapArena arenas} and returned to the store when the
+ * arenas are closed, so that they can be reused by new arenas without allocating more direct memory.
+ * <p/>
+ * The store is thread safe.
+ */
+public class OffHeapStore {
+
+    public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+    private int slabSize;
+
+    private List<ByteBuffer> freeSlabs = new ArrayList<ByteBuffer>();
+
+    private long reservedBytes = 0;
+
+    public OffHeapStore() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Creates a store that allocates slabs of the provided size. Larger records are allocated in slabs of
+     * their own, which aren't reused.
+     *
+     * @param slabSize The size of the slabs, in bytes.
+     */
+    public OffHeapStore(int slabSize) {
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("Slab size must be positive: " + slabSize);
+        }
+
+        this.slabSize = slabSize;
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * Creates a new arena that allocates memory from the store.
+     *
+     * @return An open arena.
+     */
+    public OffHeapArena newArena() {
+        return new OffHeapArena(this);
+    }
+
+    /**
+     * Returns the amount of direct memory that is held by the store, including the memory of the
+     * slabs that are in use by open arenas and the free slabs.
+     *
+     * @return The size of the slabs of the store, in bytes.
+     */
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public synchronized int getFreeSlabCount() {
+        return freeSlabs.size();
+    }
+
+    /**
+     * Releases the free slabs of the store. Their direct memory is reclaimed once they're collected.
+     */
+    public synchronized void trim() {
+        for (ByteBuffer slab : freeSlabs) {
+            reservedBytes -= slab.capacity();
+        }
+
+        freeSlabs.clear();
+    }
+
+    /**
+     * Allocates a slab of at least the provided size. Reused slabs are cleared, so that properties that
+     * aren't written by the assembly read as their default values.
+     *
+     * @param minimumSize The minimum size of the slab, in bytes.
+     * @return A slab in the native byte order.
+     */
+    synchronized ByteBuffer allocateSlab(int minimumSize) {
+        ByteBuffer slab = null;
+
+        if (minimumSize <= slabSize && !freeSlabs.isEmpty()) {
+            int i = 0;
+
+            slab = freeSlabs.remove(freeSlabs.size() - 1);
+
+            for (; i + 8 <= slab.capacity(); i += 8) {
+                slab.putLong(i, 0L);
+            }
+
+            for (; i < slab.capacity(); i++) {
+                slab.put(i, (byte) 0);
+            }
+        } else {
+            slab = ByteBuffer.allocateDirect(Math.max(slabSize, minimumSize)).order(ByteOrder.nativeOrder());
+            reservedBytes += slab.capacity();
+        }
+
+        return slab;
+    }
+
+    synchronized void releaseSlabs(ByteBuffer[] slabs) {
+        for (ByteBuffer slab : slabs) {
+            if (slab.capacity() == slabSize) {
+                freeSlabs.add(slab);
+            } else {
+                reservedBytes -= slab.capacity();
+            }
+        }
+    }
+
+}
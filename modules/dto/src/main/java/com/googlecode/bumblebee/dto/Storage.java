@@ -0,0 +1,38 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto;
+
+/**
+ * Defines how the values of the properties of a data object are stored by the generated
+ * implementation class.
+ *
+ * @see DataObject#storage()
+ */
+public enum Storage {
+
+    /**
+     * Every property is held by a field of its own.
+     */
+    FIELDS,
+
+    /**
+     * The properties of reference types are held by an array that only contains the properties that
+     * are set, i.e. not <code>null</code>, and a bitmap of which properties are set. Reduces the
+     * footprint of data objects with many properties of which only a few are set per instance, at the
+     * expense of slower access. Primitive properties are still held by fields.
+     */
+    SPARSE
+
+}
@@ -0,0 +1,147 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Computes an aggregate over the values of another expression, e.g. <code>sum(orders.amount)</code>.
+ * The values are aggregated as they're evaluated, i.e. no intermediate collection is created. Paths
+ * through nested aggregates are flattened, so <code>count(orders.items)</code> is the total number of
+ * items of all orders.
+ */
+public class AggregateExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The supported aggregate functions.
+     */
+    public static enum Function {
+
+        /**
+         * The number of values. A collection or an array counts as its number of elements.
+         */
+        COUNT,
+
+        /**
+         * The sum of the values. The sum of no values is zero.
+         */
+        SUM,
+
+        /**
+         * The smallest of the values, or <code>null</code> if there are no values.
+         */
+        MIN,
+
+        /**
+         * The largest of the values, or <code>null</code> if there are no values.
+         */
+        MAX,
+
+        /**
+         * The arithmetic mean of the values, or <code>null</code> if there are no values.
+         */
+        AVG,
+
+        /**
+         * The number of elements of a collection or an array. The size is read from the collection or
+         * array itself, so the elements are neither iterated nor accessed.
+         */
+        SIZE,
+
+        /**
+         * Whether or not a collection or an array has no elements. A path through nested collections
+         * is empty if none of the nested collections have any elements.
+         */
+        EMPTY;
+
+        /**
+         * Returns the function with the provided name, as it's written in an expression.
+         *
+         * @param name The name of the function, e.g. <code>sum</code>.
+         * @return The function or <code>null</code> if there is no function with the provided name.
+         */
+        public static Function forName(String name) {
+            for (Function function : values()) {
+                if (function.getName().equals(name)) {
+                    return function;
+                }
+            }
+
+            return null;
+        }
+
+        public String getName() {
+            return name().toLowerCase();
+        }
+    }
+
+    private Function function;
+
+    private Expression argument;
+
+    public AggregateExpression(@NotNull Function function, @NotNull Expression argument) {
+        this.function = function;
+        this.argument = argument;
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public Expression getArgument() {
+        return argument;
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitAggregate(this);
+    }
+
+    /**
+     * The minimum, maximum and average of no values is <code>null</code>.
+     *
+     * @return Whether or not the aggregate can evaluate to <code>null</code>.
+     */
+    @Override
+    public boolean isNullSafe() {
+        return function == Function.MIN || function == Function.MAX || function == Function.AVG;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        AggregateExpression that = (AggregateExpression) o;
+
+        if (!argument.equals(that.argument)) return false;
+        if (function != that.function) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = function.hashCode();
+        result = 31 * result + argument.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return function.getName() + "(" + argument + ")";
+    }
+}
@@ -0,0 +1,190 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Applies a binary operator to the results of two expressions, e.g. <code>price - cost</code> or
+ * <code>firstName + ' ' + lastName</code>. Arithmetic and relational operators evaluate to
+ * <code>null</code> if either operand is <code>null</code>. The logical operators short-circuit, i.e.
+ * the right operand is only evaluated if it affects the result, and so does the coalescing operator
+ * <code>?:</code>, which evaluates to the right operand only if the left operand is <code>null</code>.
+ */
+public class BinaryExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The supported binary operators, in order of increasing precedence.
+     */
+    public static enum Operator {
+
+        COALESCE("?:", 1),
+
+        OR("||", 2),
+
+        AND("&&", 3),
+
+        EQUAL("==", 4),
+
+        NOT_EQUAL("!=", 4),
+
+        LESS("<", 5),
+
+        LESS_OR_EQUAL("<=", 5),
+
+        GREATER(">", 5),
+
+        GREATER_OR_EQUAL(">=", 5),
+
+        /**
+         * Adds numbers or concatenates strings, if either operand is a string.
+         */
+        ADD("+", 6),
+
+        SUBTRACT("-", 6),
+
+        MULTIPLY("*", 7),
+
+        DIVIDE("/", 7),
+
+        REMAINDER("%", 7);
+
+        private String symbol;
+
+        private int precedence;
+
+        private Operator(String symbol, int precedence) {
+            this.symbol = symbol;
+            this.precedence = precedence;
+        }
+
+        /**
+         * Returns the operator as it's written in an expression.
+         *
+         * @return The symbol of the operator, e.g. <code>+</code>.
+         */
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public int getPrecedence() {
+            return precedence;
+        }
+
+        /**
+         * Checks whether or not the operator compares its operands by order, e.g. <code>&lt;</code>.
+         *
+         * @return Whether or not this is a relational operator.
+         */
+        public boolean isRelational() {
+            return precedence == LESS.precedence;
+        }
+
+        /**
+         * Checks whether or not the operator computes a number from its operands, e.g. <code>*</code>.
+         *
+         * @return Whether or not this is an arithmetic operator.
+         */
+        public boolean isArithmetic() {
+            return precedence >= ADD.precedence;
+        }
+    }
+
+    private Operator operator;
+
+    private Expression left;
+
+    private Expression right;
+
+    public BinaryExpression(@NotNull Operator operator, @NotNull Expression left, @NotNull Expression right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public Expression getLeft() {
+        return left;
+    }
+
+    public Expression getRight() {
+        return right;
+    }
+
+    @Override
+    public boolean isNullSafe() {
+        switch (operator) {
+            case COALESCE:
+                return right.isNullSafe();
+            case OR:
+            case AND:
+            case EQUAL:
+            case NOT_EQUAL:
+                return false;
+            default:
+                return left.isNullSafe() || right.isNullSafe();
+        }
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitBinary(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        BinaryExpression that = (BinaryExpression) o;
+
+        if (operator != that.operator) return false;
+        if (!left.equals(that.left)) return false;
+        if (!right.equals(that.right)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = operator.hashCode();
+        result = 31 * result + left.hashCode();
+        result = 31 * result + right.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toString(left, false) + " " + operator.getSymbol() + " " + toString(right, true);
+    }
+
+    private String toString(Expression operand, boolean right) {
+        boolean parenthesize = false;
+
+        if (operand instanceof ConditionalExpression) {
+            parenthesize = true;
+        } else if (operand instanceof BinaryExpression) {
+            // Operators are left associative, so an operand on the right needs parentheses at the same precedence
+            int precedence = ((BinaryExpression) operand).getOperator().getPrecedence();
+            parenthesize = (precedence < operator.getPrecedence() || (right && precedence == operator.getPrecedence()));
+        }
+
+        return parenthesize ? "(" + operand + ")" : operand.toString();
+    }
+}
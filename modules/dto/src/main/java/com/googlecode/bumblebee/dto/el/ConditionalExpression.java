@@ -0,0 +1,86 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Evaluates one of two expressions depending on a condition, e.g. <code>active ? 'A' : 'I'</code>.
+ * Only the selected expression is evaluated. A <code>null</code> condition selects the second expression.
+ */
+public class ConditionalExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    private Expression condition;
+
+    private Expression whenTrue;
+
+    private Expression whenFalse;
+
+    public ConditionalExpression(@NotNull Expression condition, @NotNull Expression whenTrue, @NotNull Expression whenFalse) {
+        this.condition = condition;
+        this.whenTrue = whenTrue;
+        this.whenFalse = whenFalse;
+    }
+
+    public Expression getCondition() {
+        return condition;
+    }
+
+    public Expression getWhenTrue() {
+        return whenTrue;
+    }
+
+    public Expression getWhenFalse() {
+        return whenFalse;
+    }
+
+    @Override
+    public boolean isNullSafe() {
+        return whenTrue.isNullSafe() || whenFalse.isNullSafe();
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitConditional(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ConditionalExpression that = (ConditionalExpression) o;
+
+        if (!condition.equals(that.condition)) return false;
+        if (!whenTrue.equals(that.whenTrue)) return false;
+        if (!whenFalse.equals(that.whenFalse)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = condition.hashCode();
+        result = 31 * result + whenTrue.hashCode();
+        result = 31 * result + whenFalse.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return condition + " ? " + whenTrue + " : " + whenFalse;
+    }
+}
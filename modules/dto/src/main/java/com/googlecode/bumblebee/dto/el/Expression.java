@@ -0,0 +1,71 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import com.googlecode.bumblebee.dto.InvalidExpressionException;
+import com.googlecode.bumblebee.dto.el.parser.DTOELParser;
+import com.googlecode.bumblebee.dto.el.parser.ParseException;
+import com.googlecode.bumblebee.dto.el.parser.TokenMgrError;
+import net.sf.jdpa.NotEmpty;
+import net.sf.jdpa.NotNull;
+
+import java.io.Serializable;
+import java.io.StringReader;
+
+/**
+ * Base class of the nodes of a parsed DTO expression. Expressions are produced by the
+ * {@link com.googlecode.bumblebee.dto.el.parser.DTOELParser} and are immutable, which means that
+ * a parsed expression can be shared between threads and cached.
+ */
+public abstract class Expression implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Dispatches this expression to the matching method of the provided visitor.
+     *
+     * @param visitor The visitor that should process the expression.
+     * @return The result of the visitor.
+     */
+    public abstract <R> R accept(@NotNull ExpressionVisitor<R> visitor);
+
+    /**
+     * Checks whether or not this expression can evaluate to <code>null</code> without failing, e.g. if
+     * this expression or any expression it's evaluated on uses null-safe navigation
+     * (<code>userInfo?.firstName</code>), or if it's the minimum of a collection that can be empty.
+     *
+     * @return Whether or not the expression is null-safe.
+     */
+    public boolean isNullSafe() {
+        return false;
+    }
+
+    /**
+     * Parses an expression. The complete text must constitute a valid expression.
+     *
+     * @param text The text of the expression, e.g. <code>userInfo.firstName</code>.
+     * @return The parsed expression.
+     */
+    public static Expression parse(@NotEmpty String text) {
+        try {
+            return new DTOELParser(new StringReader(text)).Input();
+        } catch (ParseException e) {
+            throw new InvalidExpressionException("Failed to parse expression '" + text + "'", e);
+        } catch (TokenMgrError e) {
+            throw new InvalidExpressionException("Failed to parse expression '" + text + "'", e);
+        }
+    }
+
+}
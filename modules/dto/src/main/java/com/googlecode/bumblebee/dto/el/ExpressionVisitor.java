@@ -0,0 +1,46 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+/**
+ * Visitor of the nodes of a parsed DTO expression.
+ *
+ * @param <R> The result type of the visitor.
+ */
+public interface ExpressionVisitor<R> {
+
+    public R visitThis(ThisExpression expression);
+
+    public R visitProperty(PropertyExpression expression);
+
+    public R visitAggregate(AggregateExpression expression);
+
+    public R visitIndex(IndexExpression expression);
+
+    public R visitLiteral(LiteralExpression expression);
+
+    public R visitParameter(ParameterExpression expression);
+
+    public R visitBinary(BinaryExpression expression);
+
+    public R visitUnary(UnaryExpression expression);
+
+    public R visitConditional(ConditionalExpression expression);
+
+    public R visitSlice(SliceExpression expression);
+
+    public R visitTop(TopExpression expression);
+
+}
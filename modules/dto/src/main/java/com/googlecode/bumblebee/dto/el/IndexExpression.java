@@ -0,0 +1,76 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Accesses an element of the result of another expression by index or by key, e.g.
+ * <code>items[0]</code> or <code>attributes['key']</code>. Lists and arrays are indexed by position and
+ * maps by key. An index that is out of range or a key that isn't mapped evaluates to <code>null</code>.
+ */
+public class IndexExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    private Expression target;
+
+    private Expression index;
+
+    public IndexExpression(@NotNull Expression target, @NotNull Expression index) {
+        this.target = target;
+        this.index = index;
+    }
+
+    public Expression getTarget() {
+        return target;
+    }
+
+    public Expression getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean isNullSafe() {
+        return true;
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitIndex(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        IndexExpression that = (IndexExpression) o;
+
+        if (!index.equals(that.index)) return false;
+        if (!target.equals(that.target)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * target.hashCode() + index.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return target + "[" + index + "]";
+    }
+}
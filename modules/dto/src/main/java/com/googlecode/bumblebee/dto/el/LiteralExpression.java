@@ -0,0 +1,88 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * A constant value in an expression, e.g. <code>0</code> in <code>items[0]</code> or <code>'key'</code>
+ * in <code>attributes['key']</code>. String literals are enclosed in single quotes. Integers are
+ * <code>int</code>s unless suffixed with <code>L</code>, and decimals are <code>double</code>s.
+ */
+public class LiteralExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The <code>null</code> literal.
+     */
+    public static final LiteralExpression NULL = new LiteralExpression(null);
+
+    private Object value;
+
+    public LiteralExpression(Object value) {
+        this.value = value;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean isNullSafe() {
+        return value == null;
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitLiteral(this);
+    }
+
+    /**
+     * Returns the value of a string literal as it's written in an expression, i.e. without the enclosing
+     * quotes and with escaped quotes resolved.
+     *
+     * @param image The quoted string literal.
+     * @return The value of the literal.
+     */
+    public static String unquote(@NotNull String image) {
+        return image.substring(1, image.length() - 1).replace("\\'", "'");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LiteralExpression that = (LiteralExpression) o;
+
+        return (value == null ? that.value == null : value.equals(that.value));
+    }
+
+    @Override
+    public int hashCode() {
+        return (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        if (value instanceof String) {
+            return "'" + ((String) value).replace("'", "\\'") + "'";
+        } else if (value instanceof Long) {
+            return value + "L";
+        } else {
+            return String.valueOf(value);
+        }
+    }
+}
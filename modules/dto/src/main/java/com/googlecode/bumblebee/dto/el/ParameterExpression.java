@@ -0,0 +1,61 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Refers to a parameter that is bound when the expression is evaluated, e.g. <code>{0}</code> in
+ * <code>prices[{0}]</code>. Parameters are referenced by their position, so the same compiled expression
+ * can be evaluated with different parameters, e.g. per locale or currency.
+ */
+public class ParameterExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    private int index;
+
+    public ParameterExpression(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Returns the position of the parameter in the parameters of an evaluation.
+     *
+     * @return The index of the parameter.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitParameter(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ParameterExpression && ((ParameterExpression) o).index == index;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + index + "}";
+    }
+}
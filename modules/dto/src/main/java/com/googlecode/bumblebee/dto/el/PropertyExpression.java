@@ -0,0 +1,98 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotEmpty;
+import net.sf.jdpa.NotNull;
+
+/**
+ * Evaluates a bean property on the result of another expression, e.g. <code>firstName</code>
+ * in <code>userInfo.firstName</code>. A null-safe property expression (<code>userInfo?.firstName</code>)
+ * evaluates to <code>null</code> if the target is <code>null</code>, rather than failing.
+ */
+public class PropertyExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    private Expression target;
+
+    private String property;
+
+    private boolean nullSafeNavigation = false;
+
+    public PropertyExpression(@NotNull Expression target, @NotEmpty String property) {
+        this(target, property, false);
+    }
+
+    public PropertyExpression(@NotNull Expression target, @NotEmpty String property, boolean nullSafeNavigation) {
+        this.target = target;
+        this.property = property;
+        this.nullSafeNavigation = nullSafeNavigation;
+    }
+
+    public Expression getTarget() {
+        return target;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Checks whether or not the property is accessed with the null-safe operator, i.e. whether
+     * or not a <code>null</code> target short-circuits the evaluation.
+     *
+     * @return Whether or not the property is navigated null-safely.
+     */
+    public boolean isNullSafeNavigation() {
+        return nullSafeNavigation;
+    }
+
+    @Override
+    public boolean isNullSafe() {
+        return nullSafeNavigation || target.isNullSafe();
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitProperty(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PropertyExpression that = (PropertyExpression) o;
+
+        if (nullSafeNavigation != that.nullSafeNavigation) return false;
+        if (!property.equals(that.property)) return false;
+        if (!target.equals(that.target)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = target.hashCode();
+        result = 31 * result + property.hashCode();
+        result = 31 * result + (nullSafeNavigation ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return target instanceof ThisExpression ? property : target + (nullSafeNavigation ? "?." : ".") + property;
+    }
+}
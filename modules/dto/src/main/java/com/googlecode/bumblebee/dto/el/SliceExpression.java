@@ -0,0 +1,82 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Selects a range of the elements of a list, an array or another collection, e.g. the first five
+ * orders in <code>orders[0..5]</code>. The lower bound is inclusive and the upper bound exclusive.
+ * Bounds that are out of range are clamped to the size of the target, so a slice never fails.
+ */
+public class SliceExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    private Expression target;
+
+    private int from;
+
+    private int to;
+
+    public SliceExpression(@NotNull Expression target, int from, int to) {
+        this.target = target;
+        this.from = from;
+        this.to = to;
+    }
+
+    public Expression getTarget() {
+        return target;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitSlice(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SliceExpression that = (SliceExpression) o;
+
+        if (from != that.from) return false;
+        if (to != that.to) return false;
+        if (!target.equals(that.target)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = target.hashCode();
+        result = 31 * result + from;
+        result = 31 * result + to;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return target + "[" + from + ".." + to + "]";
+    }
+}
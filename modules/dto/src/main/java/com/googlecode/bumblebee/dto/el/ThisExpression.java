@@ -0,0 +1,54 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Refers to the source object that an expression is evaluated against. This is the implicit
+ * target of the first property of a path, e.g. <code>userInfo</code> in <code>userInfo.firstName</code>.
+ */
+public final class ThisExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final ThisExpression INSTANCE = new ThisExpression();
+
+    private ThisExpression() {
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitThis(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ThisExpression;
+    }
+
+    @Override
+    public int hashCode() {
+        return ThisExpression.class.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "this";
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,88 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Selects the elements with the largest keys from the values of another expression, e.g. the five
+ * latest orders in <code>orders top 5 by date</code>. The key is a path that is evaluated against each
+ * element. The selected elements are ordered by descending key; elements with a <code>null</code> key
+ * are only selected if there aren't enough other elements.
+ */
+public class TopExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    private Expression target;
+
+    private int limit;
+
+    private Expression key;
+
+    public TopExpression(@NotNull Expression target, int limit, @NotNull Expression key) {
+        this.target = target;
+        this.limit = limit;
+        this.key = key;
+    }
+
+    public Expression getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the maximum number of elements that are selected.
+     *
+     * @return The number of elements.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public Expression getKey() {
+        return key;
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitTop(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TopExpression that = (TopExpression) o;
+
+        if (limit != that.limit) return false;
+        if (!key.equals(that.key)) return false;
+        if (!target.equals(that.target)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = target.hashCode();
+        result = 31 * result + limit;
+        result = 31 * result + key.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return target + " top " + limit + " by " + key;
+    }
+}
@@ -0,0 +1,96 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.el;
+
+import net.sf.jdpa.NotNull;
+
+/**
+ * Applies a unary operator to the result of another expression, e.g. <code>-amount</code> or
+ * <code>!active</code>.
+ */
+public class UnaryExpression extends Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The supported unary operators.
+     */
+    public static enum Operator {
+
+        NEGATE("-"),
+
+        NOT("!");
+
+        private String symbol;
+
+        private Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private Operator operator;
+
+    private Expression operand;
+
+    public UnaryExpression(@NotNull Operator operator, @NotNull Expression operand) {
+        this.operator = operator;
+        this.operand = operand;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public Expression getOperand() {
+        return operand;
+    }
+
+    @Override
+    public boolean isNullSafe() {
+        return operator == Operator.NEGATE && operand.isNullSafe();
+    }
+
+    public <R> R accept(@NotNull ExpressionVisitor<R> visitor) {
+        return visitor.visitUnary(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        UnaryExpression that = (UnaryExpression) o;
+
+        if (operator != that.operator) return false;
+        if (!operand.equals(that.operand)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * operator.hashCode() + operand.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return operator.getSymbol() + (operand instanceof BinaryExpression || operand instanceof ConditionalExpression
+                ? "(" + operand + ")" : operand.toString());
+    }
+}
@@ -1,29 +1,378 @@
 /* Generated By:JavaCC: Do not edit this line. DTOELParser.java */
 package com.googlecode.bumblebee.dto.el.parser;
 
-import com.googlecode.bumblebee.beans.BeanUtil;
-import static net.sf.jdpa.cg.Code.*;
-import net.sf.jdpa.cg.model.Expression;
+import com.googlecode.bumblebee.dto.el.*;
 
 /**
  * @author Andreas Nilsson
  */
 public final class DTOELParser implements DTOELParserConstants {
 
+    /**
+     * Checks whether or not the provided token is an identifier with the provided image. Keywords that
+     * only have a meaning at certain positions aren't reserved, so they can still be used as property names.
+     */
+    private boolean isKeyword(Token token, String keyword) {
+        return token.kind == IDENTIFIER && token.image.equals(keyword);
+    }
+
+    /**
+     * Parses the digits of an integer token. The token matches any number of digits, so a number that
+     * doesn't fit an <code>int</code> is rejected here.
+     */
+    private int parseInt(Token token, String digits) throws ParseException {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            throw new ParseException("Integer " + digits + " is out of range at column " + token.beginColumn);
+        }
+    }
+
+    /**
+     * Checks whether the next tokens are a minus and an integer literal that isn't followed by a selector.
+     * The minus is folded into the literal, so that the smallest values of <code>int</code> and
+     * <code>long</code> can be written as literals.
+     */
+    private boolean isNegativeLiteral() {
+        Token next = getToken(3);
+
+        return getToken(1).kind == MINUS && (getToken(2).kind == INTEGER || getToken(2).kind == LONG)
+        && next.kind != DOT && next.kind != SAFE_DOT && next.kind != LBRACKET && !isKeyword(next, "top");
+    }
+
+    private long parseLong(Token token, String digits) throws ParseException {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            throw new ParseException("Long " + digits + " is out of range at column " + token.beginColumn);
+        }
+    }
+
+    final public Expression Input() throws ParseException {
+        Expression expression = null;
+        expression = Expression();
+        jj_consume_token(0);
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
     final public Expression Expression() throws ParseException {
         Expression expression = null;
-        Token token = null;
-        expression = Operand();
+        Expression whenTrue = null;
+        Expression whenFalse = null;
+        expression = Coalesce();
+        if (jj_2_1(2)) {
+            jj_consume_token(QUESTION);
+            whenTrue = Expression();
+            jj_consume_token(COLON);
+            whenFalse = Expression();
+            expression = new ConditionalExpression(expression, whenTrue, whenFalse);
+        } else {
+            ;
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Coalesce() throws ParseException {
+        Expression expression = null;
+        Expression right = null;
+        expression = Or();
         label_1:
         while (true) {
-            if (jj_2_1(2)) {
+            if (jj_2_2(2)) {
                 ;
             } else {
                 break label_1;
             }
-            jj_consume_token(DOT);
+            jj_consume_token(ELVIS);
+            right = Or();
+            expression = new BinaryExpression(BinaryExpression.Operator.COALESCE, expression, right);
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Or() throws ParseException {
+        Expression expression = null;
+        Expression right = null;
+        expression = And();
+        label_2:
+        while (true) {
+            if (jj_2_3(2)) {
+                ;
+            } else {
+                break label_2;
+            }
+            jj_consume_token(OR);
+            right = And();
+            expression = new BinaryExpression(BinaryExpression.Operator.OR, expression, right);
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression And() throws ParseException {
+        Expression expression = null;
+        Expression right = null;
+        expression = Equality();
+        label_3:
+        while (true) {
+            if (jj_2_4(2)) {
+                ;
+            } else {
+                break label_3;
+            }
+            jj_consume_token(AND);
+            right = Equality();
+            expression = new BinaryExpression(BinaryExpression.Operator.AND, expression, right);
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Equality() throws ParseException {
+        Expression expression = null;
+        Expression right = null;
+        BinaryExpression.Operator operator = null;
+        expression = Relational();
+        label_4:
+        while (true) {
+            if (jj_2_5(2)) {
+                ;
+            } else {
+                break label_4;
+            }
+            if (jj_2_6(2)) {
+                jj_consume_token(EQ);
+                operator = BinaryExpression.Operator.EQUAL;
+            } else if (jj_2_7(2)) {
+                jj_consume_token(NE);
+                operator = BinaryExpression.Operator.NOT_EQUAL;
+            } else {
+                jj_consume_token(-1);
+                throw new ParseException();
+            }
+            right = Relational();
+            expression = new BinaryExpression(operator, expression, right);
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Relational() throws ParseException {
+        Expression expression = null;
+        Expression right = null;
+        BinaryExpression.Operator operator = null;
+        expression = Additive();
+        label_5:
+        while (true) {
+            if (jj_2_8(2)) {
+                ;
+            } else {
+                break label_5;
+            }
+            if (jj_2_9(2)) {
+                jj_consume_token(LT);
+                operator = BinaryExpression.Operator.LESS;
+            } else if (jj_2_10(2)) {
+                jj_consume_token(LE);
+                operator = BinaryExpression.Operator.LESS_OR_EQUAL;
+            } else if (jj_2_11(2)) {
+                jj_consume_token(GT);
+                operator = BinaryExpression.Operator.GREATER;
+            } else if (jj_2_12(2)) {
+                jj_consume_token(GE);
+                operator = BinaryExpression.Operator.GREATER_OR_EQUAL;
+            } else {
+                jj_consume_token(-1);
+                throw new ParseException();
+            }
+            right = Additive();
+            expression = new BinaryExpression(operator, expression, right);
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Additive() throws ParseException {
+        Expression expression = null;
+        Expression right = null;
+        BinaryExpression.Operator operator = null;
+        expression = Multiplicative();
+        label_6:
+        while (true) {
+            if (jj_2_13(2)) {
+                ;
+            } else {
+                break label_6;
+            }
+            if (jj_2_14(2)) {
+                jj_consume_token(PLUS);
+                operator = BinaryExpression.Operator.ADD;
+            } else if (jj_2_15(2)) {
+                jj_consume_token(MINUS);
+                operator = BinaryExpression.Operator.SUBTRACT;
+            } else {
+                jj_consume_token(-1);
+                throw new ParseException();
+            }
+            right = Multiplicative();
+            expression = new BinaryExpression(operator, expression, right);
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Multiplicative() throws ParseException {
+        Expression expression = null;
+        Expression right = null;
+        BinaryExpression.Operator operator = null;
+        expression = Unary();
+        label_7:
+        while (true) {
+            if (jj_2_16(2)) {
+                ;
+            } else {
+                break label_7;
+            }
+            if (jj_2_17(2)) {
+                jj_consume_token(STAR);
+                operator = BinaryExpression.Operator.MULTIPLY;
+            } else if (jj_2_18(2)) {
+                jj_consume_token(SLASH);
+                operator = BinaryExpression.Operator.DIVIDE;
+            } else if (jj_2_19(2)) {
+                jj_consume_token(PERCENT);
+                operator = BinaryExpression.Operator.REMAINDER;
+            } else {
+                jj_consume_token(-1);
+                throw new ParseException();
+            }
+            right = Unary();
+            expression = new BinaryExpression(operator, expression, right);
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Unary() throws ParseException {
+        Expression expression = null;
+        Token token = null;
+        if (isNegativeLiteral()) {
+            jj_consume_token(MINUS);
+            if (jj_2_20(2)) {
+                token = jj_consume_token(INTEGER);
+                expression = new LiteralExpression(Integer.valueOf(parseInt(token, "-" + token.image)));
+            } else if (jj_2_21(2)) {
+                token = jj_consume_token(LONG);
+                expression = new LiteralExpression(Long.valueOf(parseLong(token, "-" + token.image.substring(0, token.image.length() - 1))));
+            } else {
+                jj_consume_token(-1);
+                throw new ParseException();
+            }
+        } else if (jj_2_22(2)) {
+            jj_consume_token(MINUS);
+            expression = Unary();
+            expression = new UnaryExpression(UnaryExpression.Operator.NEGATE, expression);
+        } else if (jj_2_23(2)) {
+            jj_consume_token(NOT);
+            expression = Unary();
+            expression = new UnaryExpression(UnaryExpression.Operator.NOT, expression);
+        } else if (jj_2_24(2)) {
+            expression = Selection();
+        } else {
+            jj_consume_token(-1);
+            throw new ParseException();
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Selection() throws ParseException {
+        Expression expression = null;
+        Expression key = null;
+        Token token = null;
+        Token limit = null;
+        expression = Path();
+        if (isKeyword(getToken(1), "top")) {
+            jj_consume_token(IDENTIFIER);
+            limit = jj_consume_token(INTEGER);
             token = jj_consume_token(IDENTIFIER);
-            expression = call("getProperty").of(BeanUtil.class).with(expression, constant(token.image));
+            if (!isKeyword(token, "by")) {
+                {
+                    if (true) throw new ParseException("Expected 'by' at column " + token.beginColumn);
+                }
+            }
+            key = Path();
+            expression = new TopExpression(expression, parseInt(limit, limit.image), key);
+        } else {
+            ;
+        }
+        {
+            if (true) return expression;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Path() throws ParseException {
+        Expression expression = null;
+        Expression index = null;
+        Token token = null;
+        Token from = null;
+        Token to = null;
+        expression = Operand();
+        label_8:
+        while (true) {
+            if (jj_2_25(2)) {
+                ;
+            } else {
+                break label_8;
+            }
+            if (jj_2_26(2)) {
+                jj_consume_token(DOT);
+                token = jj_consume_token(IDENTIFIER);
+                expression = new PropertyExpression(expression, token.image);
+            } else if (jj_2_27(2)) {
+                jj_consume_token(SAFE_DOT);
+                token = jj_consume_token(IDENTIFIER);
+                expression = new PropertyExpression(expression, token.image, true);
+            } else if (jj_2_28(3)) {
+                jj_consume_token(LBRACKET);
+                from = jj_consume_token(INTEGER);
+                jj_consume_token(RANGE);
+                to = jj_consume_token(INTEGER);
+                jj_consume_token(RBRACKET);
+                expression = new SliceExpression(expression, parseInt(from, from.image), parseInt(to, to.image));
+            } else if (jj_2_29(2)) {
+                jj_consume_token(LBRACKET);
+                index = Expression();
+                jj_consume_token(RBRACKET);
+                expression = new IndexExpression(expression, index);
+            } else {
+                jj_consume_token(-1);
+                throw new ParseException();
+            }
         }
         {
             if (true) return expression;
@@ -33,42 +382,1111 @@ public final class DTOELParser implements DTOELParserConstants {
 
     final public Expression Operand() throws ParseException {
         Expression expression = null;
-        expression = Reference();
+        if (jj_2_30(2)) {
+            expression = Aggregate();
+        } else if (jj_2_31(2)) {
+            expression = Reference();
+        } else if (jj_2_32(2)) {
+            expression = Parameter();
+        } else if (jj_2_33(2)) {
+            expression = Literal();
+        } else if (jj_2_34(2)) {
+            jj_consume_token(THIS);
+            expression = ThisExpression.INSTANCE;
+        } else if (jj_2_35(2)) {
+            jj_consume_token(LPAREN);
+            expression = Expression();
+            jj_consume_token(RPAREN);
+        } else {
+            jj_consume_token(-1);
+            throw new ParseException();
+        }
         {
             if (true) return expression;
         }
         throw new Error("Missing return statement in function");
     }
 
+    final public Expression Aggregate() throws ParseException {
+        Token token = null;
+        Expression argument = null;
+        token = jj_consume_token(IDENTIFIER);
+        jj_consume_token(LPAREN);
+        argument = Expression();
+        jj_consume_token(RPAREN);
+        AggregateExpression.Function function = AggregateExpression.Function.forName(token.image);
+
+        if (function == null) {
+            {
+                if (true) throw new ParseException("Unknown function '" + token.image + "' at column " + token.beginColumn);
+            }
+        }
+
+        {
+            if (true) return new AggregateExpression(function, argument);
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Literal() throws ParseException {
+        Token token = null;
+        Expression literal = null;
+        if (jj_2_36(2)) {
+            token = jj_consume_token(INTEGER);
+            literal = new LiteralExpression(Integer.valueOf(parseInt(token, token.image)));
+        } else if (jj_2_37(2)) {
+            token = jj_consume_token(LONG);
+            literal = new LiteralExpression(Long.valueOf(parseLong(token, token.image.substring(0, token.image.length() - 1))));
+        } else if (jj_2_38(2)) {
+            token = jj_consume_token(DECIMAL);
+            literal = new LiteralExpression(Double.valueOf(token.image));
+        } else if (jj_2_39(2)) {
+            token = jj_consume_token(STRING);
+            literal = new LiteralExpression(LiteralExpression.unquote(token.image));
+        } else if (jj_2_40(2)) {
+            jj_consume_token(TRUE);
+            literal = new LiteralExpression(Boolean.TRUE);
+        } else if (jj_2_41(2)) {
+            jj_consume_token(FALSE);
+            literal = new LiteralExpression(Boolean.FALSE);
+        } else if (jj_2_42(2)) {
+            jj_consume_token(NULL);
+            literal = LiteralExpression.NULL;
+        } else {
+            jj_consume_token(-1);
+            throw new ParseException();
+        }
+        {
+            if (true) return literal;
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final public Expression Parameter() throws ParseException {
+        Token token = null;
+        token = jj_consume_token(PARAMETER);
+        {
+            if (true) return new ParameterExpression(parseInt(token, token.image.substring(1, token.image.length() - 1)));
+        }
+        throw new Error("Missing return statement in function");
+    }
+
     final public Expression Reference() throws ParseException {
         Token token = null;
         token = jj_consume_token(IDENTIFIER);
         {
-            if (true) return call("getProperty").of(BeanUtil.class).with($(0), constant(token.image));
+            if (true) return new PropertyExpression(ThisExpression.INSTANCE, token.image);
+        }
+        throw new Error("Missing return statement in function");
+    }
+
+    final private boolean jj_2_1(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_1();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(0, xla);
+        }
+    }
+
+    final private boolean jj_2_2(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_2();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(1, xla);
+        }
+    }
+
+    final private boolean jj_2_3(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_3();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(2, xla);
+        }
+    }
+
+    final private boolean jj_2_4(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_4();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(3, xla);
+        }
+    }
+
+    final private boolean jj_2_5(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_5();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(4, xla);
+        }
+    }
+
+    final private boolean jj_2_6(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_6();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(5, xla);
+        }
+    }
+
+    final private boolean jj_2_7(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_7();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(6, xla);
+        }
+    }
+
+    final private boolean jj_2_8(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_8();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(7, xla);
+        }
+    }
+
+    final private boolean jj_2_9(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_9();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(8, xla);
+        }
+    }
+
+    final private boolean jj_2_10(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_10();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(9, xla);
+        }
+    }
+
+    final private boolean jj_2_11(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_11();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(10, xla);
+        }
+    }
+
+    final private boolean jj_2_12(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_12();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(11, xla);
+        }
+    }
+
+    final private boolean jj_2_13(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_13();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(12, xla);
+        }
+    }
+
+    final private boolean jj_2_14(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_14();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(13, xla);
+        }
+    }
+
+    final private boolean jj_2_15(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_15();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(14, xla);
+        }
+    }
+
+    final private boolean jj_2_16(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_16();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(15, xla);
+        }
+    }
+
+    final private boolean jj_2_17(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_17();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(16, xla);
+        }
+    }
+
+    final private boolean jj_2_18(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_18();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(17, xla);
+        }
+    }
+
+    final private boolean jj_2_19(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_19();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(18, xla);
+        }
+    }
+
+    final private boolean jj_2_20(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_20();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(19, xla);
+        }
+    }
+
+    final private boolean jj_2_21(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_21();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(20, xla);
+        }
+    }
+
+    final private boolean jj_2_22(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_22();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(21, xla);
+        }
+    }
+
+    final private boolean jj_2_23(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_23();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(22, xla);
+        }
+    }
+
+    final private boolean jj_2_24(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_24();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(23, xla);
+        }
+    }
+
+    final private boolean jj_2_25(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_25();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(24, xla);
+        }
+    }
+
+    final private boolean jj_2_26(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_26();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(25, xla);
+        }
+    }
+
+    final private boolean jj_2_27(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_27();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(26, xla);
+        }
+    }
+
+    final private boolean jj_2_28(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_28();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(27, xla);
+        }
+    }
+
+    final private boolean jj_2_29(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_29();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(28, xla);
+        }
+    }
+
+    final private boolean jj_2_30(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_30();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(29, xla);
+        }
+    }
+
+    final private boolean jj_2_31(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_31();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(30, xla);
+        }
+    }
+
+    final private boolean jj_2_32(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_32();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(31, xla);
+        }
+    }
+
+    final private boolean jj_2_33(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_33();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(32, xla);
+        }
+    }
+
+    final private boolean jj_2_34(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_34();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(33, xla);
+        }
+    }
+
+    final private boolean jj_2_35(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_35();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(34, xla);
+        }
+    }
+
+    final private boolean jj_2_36(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_36();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(35, xla);
+        }
+    }
+
+    final private boolean jj_2_37(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_37();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(36, xla);
+        }
+    }
+
+    final private boolean jj_2_38(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_38();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(37, xla);
+        }
+    }
+
+    final private boolean jj_2_39(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_39();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(38, xla);
+        }
+    }
+
+    final private boolean jj_2_40(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_40();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(39, xla);
+        }
+    }
+
+    final private boolean jj_2_41(int xla) {
+        jj_la = xla;
+        jj_lastpos = jj_scanpos = token;
+        try {
+            return !jj_3_41();
+        }
+        catch (LookaheadSuccess ls) {
+            return true;
+        }
+        finally {
+            jj_save(40, xla);
         }
-        throw new Error("Missing return statement in function");
     }
 
-    final private boolean jj_2_1(int xla) {
+    final private boolean jj_2_42(int xla) {
         jj_la = xla;
         jj_lastpos = jj_scanpos = token;
         try {
-            return !jj_3_1();
+            return !jj_3_42();
         }
         catch (LookaheadSuccess ls) {
             return true;
         }
         finally {
-            jj_save(0, xla);
+            jj_save(41, xla);
+        }
+    }
+
+    final private boolean jj_3_24() {
+        if (jj_3R_17()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_38() {
+        if (jj_scan_token(DECIMAL)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_4() {
+        if (jj_scan_token(AND)) return true;
+        if (jj_3R_12()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_23() {
+        if (jj_scan_token(NOT)) return true;
+        if (jj_3R_16()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_37() {
+        if (jj_scan_token(LONG)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_21() {
+        if (jj_scan_token(LONG)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_22() {
+        if (jj_scan_token(MINUS)) return true;
+        if (jj_3R_16()) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_11() {
+        if (jj_3R_12()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_36() {
+        if (jj_scan_token(INTEGER)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_20() {
+        if (jj_scan_token(INTEGER)) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_21() {
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_36()) {
+            jj_scanpos = xsp;
+            if (jj_3_37()) {
+                jj_scanpos = xsp;
+                if (jj_3_38()) {
+                    jj_scanpos = xsp;
+                    if (jj_3_39()) {
+                        jj_scanpos = xsp;
+                        if (jj_3_40()) {
+                            jj_scanpos = xsp;
+                            if (jj_3_41()) {
+                                jj_scanpos = xsp;
+                                if (jj_3_42()) return true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    final private boolean jj_3R_23() {
+        if (jj_scan_token(MINUS)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_3() {
+        if (jj_scan_token(OR)) return true;
+        if (jj_3R_11()) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_16() {
+        Token xsp;
+        xsp = jj_scanpos;
+        lookingAhead = true;
+        jj_semLA = isNegativeLiteral();
+        lookingAhead = false;
+        if (!jj_semLA || jj_3R_23()) {
+            jj_scanpos = xsp;
+            if (jj_3_22()) {
+                jj_scanpos = xsp;
+                if (jj_3_23()) {
+                    jj_scanpos = xsp;
+                    if (jj_3_24()) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    final private boolean jj_3R_10() {
+        if (jj_3R_11()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_19() {
+        if (jj_scan_token(PERCENT)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_18() {
+        if (jj_scan_token(SLASH)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_17() {
+        if (jj_scan_token(STAR)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_2() {
+        if (jj_scan_token(ELVIS)) return true;
+        if (jj_3R_10()) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_18() {
+        if (jj_scan_token(IDENTIFIER)) return true;
+        if (jj_scan_token(LPAREN)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_16() {
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_17()) {
+            jj_scanpos = xsp;
+            if (jj_3_18()) {
+                jj_scanpos = xsp;
+                if (jj_3_19()) return true;
+            }
         }
+        if (jj_3R_16()) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_22() {
+        if (jj_3R_10()) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_15() {
+        if (jj_3R_16()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_35() {
+        if (jj_scan_token(LPAREN)) return true;
+        if (jj_3R_9()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_34() {
+        if (jj_scan_token(THIS)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_33() {
+        if (jj_3R_21()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_32() {
+        if (jj_3R_20()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_31() {
+        if (jj_3R_19()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_30() {
+        if (jj_3R_18()) return true;
+        return false;
     }
 
     final private boolean jj_3_1() {
+        if (jj_scan_token(QUESTION)) return true;
+        if (jj_3R_9()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_15() {
+        if (jj_scan_token(MINUS)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_14() {
+        if (jj_scan_token(PLUS)) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_26() {
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_30()) {
+            jj_scanpos = xsp;
+            if (jj_3_31()) {
+                jj_scanpos = xsp;
+                if (jj_3_32()) {
+                    jj_scanpos = xsp;
+                    if (jj_3_33()) {
+                        jj_scanpos = xsp;
+                        if (jj_3_34()) {
+                            jj_scanpos = xsp;
+                            if (jj_3_35()) return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    final private boolean jj_3R_9() {
+        if (jj_3R_22()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_13() {
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_14()) {
+            jj_scanpos = xsp;
+            if (jj_3_15()) return true;
+        }
+        if (jj_3R_15()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_29() {
+        if (jj_scan_token(LBRACKET)) return true;
+        if (jj_3R_9()) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_14() {
+        if (jj_3R_15()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_28() {
+        if (jj_scan_token(LBRACKET)) return true;
+        if (jj_scan_token(INTEGER)) return true;
+        if (jj_scan_token(RANGE)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_27() {
+        if (jj_scan_token(SAFE_DOT)) return true;
+        if (jj_scan_token(IDENTIFIER)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_12() {
+        if (jj_scan_token(GE)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_11() {
+        if (jj_scan_token(GT)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_25() {
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_26()) {
+            jj_scanpos = xsp;
+            if (jj_3_27()) {
+                jj_scanpos = xsp;
+                if (jj_3_28()) {
+                    jj_scanpos = xsp;
+                    if (jj_3_29()) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    final private boolean jj_3_26() {
         if (jj_scan_token(DOT)) return true;
         if (jj_scan_token(IDENTIFIER)) return true;
         return false;
     }
 
+    final private boolean jj_3_10() {
+        if (jj_scan_token(LE)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_9() {
+        if (jj_scan_token(LT)) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_24() {
+        if (jj_3R_26()) return true;
+        Token xsp;
+        while (true) {
+            xsp = jj_scanpos;
+            if (jj_3_25()) {
+                jj_scanpos = xsp;
+                break;
+            }
+        }
+        return false;
+    }
+
+    final private boolean jj_3_8() {
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_9()) {
+            jj_scanpos = xsp;
+            if (jj_3_10()) {
+                jj_scanpos = xsp;
+                if (jj_3_11()) {
+                    jj_scanpos = xsp;
+                    if (jj_3_12()) return true;
+                }
+            }
+        }
+        if (jj_3R_14()) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_19() {
+        if (jj_scan_token(IDENTIFIER)) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_13() {
+        if (jj_3R_14()) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_20() {
+        if (jj_scan_token(PARAMETER)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_7() {
+        if (jj_scan_token(NE)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_6() {
+        if (jj_scan_token(EQ)) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_25() {
+        if (jj_scan_token(IDENTIFIER)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_5() {
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3_6()) {
+            jj_scanpos = xsp;
+            if (jj_3_7()) return true;
+        }
+        if (jj_3R_13()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_42() {
+        if (jj_scan_token(NULL)) return true;
+        return false;
+    }
+
+    final private boolean jj_3R_17() {
+        if (jj_3R_24()) return true;
+        Token xsp;
+        xsp = jj_scanpos;
+        if (jj_3R_25()) jj_scanpos = xsp;
+        return false;
+    }
+
+    final private boolean jj_3R_12() {
+        if (jj_3R_13()) return true;
+        return false;
+    }
+
+    final private boolean jj_3_41() {
+        if (jj_scan_token(FALSE)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_40() {
+        if (jj_scan_token(TRUE)) return true;
+        return false;
+    }
+
+    final private boolean jj_3_39() {
+        if (jj_scan_token(STRING)) return true;
+        return false;
+    }
+
     public DTOELParserTokenManager token_source;
     SimpleCharStream jj_input_stream;
     public Token token, jj_nt;
@@ -80,16 +1498,22 @@ public final class DTOELParser implements DTOELParserConstants {
     private int jj_gen;
     final private int[] jj_la1 = new int[0];
     static private int[] jj_la1_0;
+    static private int[] jj_la1_1;
 
     static {
         jj_la1_0();
+        jj_la1_1();
     }
 
     private static void jj_la1_0() {
         jj_la1_0 = new int[]{};
     }
 
-    final private JJCalls[] jj_2_rtns = new JJCalls[1];
+    private static void jj_la1_1() {
+        jj_la1_1 = new int[]{};
+    }
+
+    final private JJCalls[] jj_2_rtns = new JJCalls[42];
     private boolean jj_rescan = false;
     private int jj_gc = 0;
 
@@ -281,8 +1705,8 @@ public final class DTOELParser implements DTOELParserConstants {
 
     public ParseException generateParseException() {
         jj_expentries.removeAllElements();
-        boolean[] la1tokens = new boolean[15];
-        for (int i = 0; i < 15; i++) {
+        boolean[] la1tokens = new boolean[40];
+        for (int i = 0; i < 40; i++) {
             la1tokens[i] = false;
         }
         if (jj_kind >= 0) {
@@ -295,10 +1719,13 @@ public final class DTOELParser implements DTOELParserConstants {
                     if ((jj_la1_0[i] & (1 << j)) != 0) {
                         la1tokens[j] = true;
                     }
+                    if ((jj_la1_1[i] & (1 << j)) != 0) {
+                        la1tokens[32+j] = true;
+                    }
                 }
             }
         }
-        for (int i = 0; i < 15; i++) {
+        for (int i = 0; i < 40; i++) {
             if (la1tokens[i]) {
                 jj_expentry = new int[1];
                 jj_expentry[0] = i;
@@ -323,7 +1750,7 @@ public final class DTOELParser implements DTOELParserConstants {
 
     final private void jj_rescan_token() {
         jj_rescan = true;
-        for (int i = 0; i < 1; i++) {
+        for (int i = 0; i < 42; i++) {
             try {
                 JJCalls p = jj_2_rtns[i];
                 do {
@@ -334,6 +1761,129 @@ public final class DTOELParser implements DTOELParserConstants {
                             case 0:
                                 jj_3_1();
                                 break;
+                            case 1:
+                                jj_3_2();
+                                break;
+                            case 2:
+                                jj_3_3();
+                                break;
+                            case 3:
+                                jj_3_4();
+                                break;
+                            case 4:
+                                jj_3_5();
+                                break;
+                            case 5:
+                                jj_3_6();
+                                break;
+                            case 6:
+                                jj_3_7();
+                                break;
+                            case 7:
+                                jj_3_8();
+                                break;
+                            case 8:
+                                jj_3_9();
+                                break;
+                            case 9:
+                                jj_3_10();
+                                break;
+                            case 10:
+                                jj_3_11();
+                                break;
+                            case 11:
+                                jj_3_12();
+                                break;
+                            case 12:
+                                jj_3_13();
+                                break;
+                            case 13:
+                                jj_3_14();
+                                break;
+                            case 14:
+                                jj_3_15();
+                                break;
+                            case 15:
+                                jj_3_16();
+                                break;
+                            case 16:
+                                jj_3_17();
+                                break;
+                            case 17:
+                                jj_3_18();
+                                break;
+                            case 18:
+                                jj_3_19();
+                                break;
+                            case 19:
+                                jj_3_20();
+                                break;
+                            case 20:
+                                jj_3_21();
+                                break;
+                            case 21:
+                                jj_3_22();
+                                break;
+                            case 22:
+                                jj_3_23();
+                                break;
+                            case 23:
+                                jj_3_24();
+                                break;
+                            case 24:
+                                jj_3_25();
+                                break;
+                            case 25:
+                                jj_3_26();
+                                break;
+                            case 26:
+                                jj_3_27();
+                                break;
+                            case 27:
+                                jj_3_28();
+                                break;
+                            case 28:
+                                jj_3_29();
+                                break;
+                            case 29:
+                                jj_3_30();
+                                break;
+                            case 30:
+                                jj_3_31();
+                                break;
+                            case 31:
+                                jj_3_32();
+                                break;
+                            case 32:
+                                jj_3_33();
+                                break;
+                            case 33:
+                                jj_3_34();
+                                break;
+                            case 34:
+                                jj_3_35();
+                                break;
+                            case 35:
+                                jj_3_36();
+                                break;
+                            case 36:
+                                jj_3_37();
+                                break;
+                            case 37:
+                                jj_3_38();
+                                break;
+                            case 38:
+                                jj_3_39();
+                                break;
+                            case 39:
+                                jj_3_40();
+                                break;
+                            case 40:
+                                jj_3_41();
+                                break;
+                            case 41:
+                                jj_3_42();
+                                break;
                         }
                     }
                     p = p.next;
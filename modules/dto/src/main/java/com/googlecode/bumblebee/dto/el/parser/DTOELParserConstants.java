@@ -6,13 +6,38 @@ public interface DTOELParserConstants {
     int EOF = 0;
     int THIS = 6;
     int DOT = 7;
-    int NULL = 8;
-    int LONG = 9;
-    int INTEGER = 10;
-    int DECIMAL = 11;
-    int IDENTIFIER = 12;
-    int STRING = 13;
-    int PARAMETER = 14;
+    int SAFE_DOT = 8;
+    int LPAREN = 9;
+    int RPAREN = 10;
+    int LBRACKET = 11;
+    int RBRACKET = 12;
+    int RANGE = 13;
+    int NULL = 14;
+    int TRUE = 15;
+    int FALSE = 16;
+    int PLUS = 17;
+    int MINUS = 18;
+    int STAR = 19;
+    int SLASH = 20;
+    int PERCENT = 21;
+    int EQ = 22;
+    int NE = 23;
+    int LT = 24;
+    int LE = 25;
+    int GT = 26;
+    int GE = 27;
+    int AND = 28;
+    int OR = 29;
+    int NOT = 30;
+    int QUESTION = 31;
+    int COLON = 32;
+    int ELVIS = 33;
+    int LONG = 34;
+    int INTEGER = 35;
+    int DECIMAL = 36;
+    int IDENTIFIER = 37;
+    int STRING = 38;
+    int PARAMETER = 39;
 
     int DEFAULT = 0;
 
@@ -25,7 +50,32 @@ public interface DTOELParserConstants {
             "\"\\f\"",
             "\"this\"",
             "\".\"",
+            "\"?.\"",
+            "\"(\"",
+            "\")\"",
+            "\"[\"",
+            "\"]\"",
+            "\"..\"",
             "\"null\"",
+            "\"true\"",
+            "\"false\"",
+            "\"+\"",
+            "\"-\"",
+            "\"*\"",
+            "\"/\"",
+            "\"%\"",
+            "\"==\"",
+            "\"!=\"",
+            "\"<\"",
+            "\"<=\"",
+            "\">\"",
+            "\">=\"",
+            "\"&&\"",
+            "\"||\"",
+            "\"!\"",
+            "\"?\"",
+            "\":\"",
+            "\"?:\"",
             "<LONG>",
             "<INTEGER>",
             "<DECIMAL>",
@@ -11,27 +11,36 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
     private final int jjStopStringLiteralDfa_0(int pos, long active0) {
         switch (pos) {
             case 0:
-                if ((active0 & 0x140L) != 0L) {
-                    jjmatchedKind = 12;
+                if ((active0 & 0x1c040L) != 0L) {
+                    jjmatchedKind = 37;
                     return 2;
                 }
-                if ((active0 & 0x80L) != 0L)
+                if ((active0 & 0x2080L) != 0L)
                     return 1;
                 return -1;
             case 1:
-                if ((active0 & 0x140L) != 0L) {
-                    jjmatchedKind = 12;
+                if ((active0 & 0x1c040L) != 0L) {
+                    jjmatchedKind = 37;
                     jjmatchedPos = 1;
                     return 2;
                 }
                 return -1;
             case 2:
-                if ((active0 & 0x140L) != 0L) {
-                    jjmatchedKind = 12;
+                if ((active0 & 0x1c040L) != 0L) {
+                    jjmatchedKind = 37;
                     jjmatchedPos = 2;
                     return 2;
                 }
                 return -1;
+            case 3:
+                if ((active0 & 0x10000L) != 0L) {
+                    jjmatchedKind = 37;
+                    jjmatchedPos = 3;
+                    return 2;
+                }
+                if ((active0 & 0xc040L) != 0L)
+                    return 2;
+                return -1;
             default:
                 return -1;
         }
@@ -61,12 +70,53 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
 
     private final int jjMoveStringLiteralDfa0_0() {
         switch (curChar) {
+            case 33:
+                jjmatchedKind = 30;
+                return jjMoveStringLiteralDfa1_0(0x800000L);
+            case 37:
+                return jjStopAtPos(0, 21);
+            case 38:
+                return jjMoveStringLiteralDfa1_0(0x10000000L);
+            case 40:
+                return jjStopAtPos(0, 9);
+            case 41:
+                return jjStopAtPos(0, 10);
+            case 42:
+                return jjStopAtPos(0, 19);
+            case 43:
+                return jjStopAtPos(0, 17);
+            case 45:
+                return jjStopAtPos(0, 18);
             case 46:
-                return jjStartNfaWithStates_0(0, 7, 1);
+                jjmatchedKind = 7;
+                return jjMoveStringLiteralDfa1_0(0x2000L);
+            case 47:
+                return jjStopAtPos(0, 20);
+            case 58:
+                return jjStopAtPos(0, 32);
+            case 60:
+                jjmatchedKind = 24;
+                return jjMoveStringLiteralDfa1_0(0x2000000L);
+            case 61:
+                return jjMoveStringLiteralDfa1_0(0x400000L);
+            case 62:
+                jjmatchedKind = 26;
+                return jjMoveStringLiteralDfa1_0(0x8000000L);
+            case 63:
+                jjmatchedKind = 31;
+                return jjMoveStringLiteralDfa1_0(0x200000100L);
+            case 91:
+                return jjStopAtPos(0, 11);
+            case 93:
+                return jjStopAtPos(0, 12);
+            case 102:
+                return jjMoveStringLiteralDfa1_0(0x10000L);
             case 110:
-                return jjMoveStringLiteralDfa1_0(0x100L);
+                return jjMoveStringLiteralDfa1_0(0x4000L);
             case 116:
-                return jjMoveStringLiteralDfa1_0(0x40L);
+                return jjMoveStringLiteralDfa1_0(0x8040L);
+            case 124:
+                return jjMoveStringLiteralDfa1_0(0x20000000L);
             default:
                 return jjMoveNfa_0(3, 0);
         }
@@ -81,10 +131,42 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
             return 1;
         }
         switch (curChar) {
+            case 38:
+                if ((active0 & 0x10000000L) != 0L)
+                    return jjStopAtPos(1, 28);
+                break;
+            case 46:
+                if ((active0 & 0x100L) != 0L)
+                    return jjStopAtPos(1, 8);
+                else if ((active0 & 0x2000L) != 0L)
+                    return jjStopAtPos(1, 13);
+                break;
+            case 58:
+                if ((active0 & 0x200000000L) != 0L)
+                    return jjStopAtPos(1, 33);
+                break;
+            case 61:
+                if ((active0 & 0x400000L) != 0L)
+                    return jjStopAtPos(1, 22);
+                else if ((active0 & 0x800000L) != 0L)
+                    return jjStopAtPos(1, 23);
+                else if ((active0 & 0x2000000L) != 0L)
+                    return jjStopAtPos(1, 25);
+                else if ((active0 & 0x8000000L) != 0L)
+                    return jjStopAtPos(1, 27);
+                break;
+            case 97:
+                return jjMoveStringLiteralDfa2_0(active0, 0x10000L);
             case 104:
                 return jjMoveStringLiteralDfa2_0(active0, 0x40L);
+            case 114:
+                return jjMoveStringLiteralDfa2_0(active0, 0x8000L);
             case 117:
-                return jjMoveStringLiteralDfa2_0(active0, 0x100L);
+                return jjMoveStringLiteralDfa2_0(active0, 0x4000L);
+            case 124:
+                if ((active0 & 0x20000000L) != 0L)
+                    return jjStopAtPos(1, 29);
+                break;
             default:
                 break;
         }
@@ -105,7 +187,9 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
             case 105:
                 return jjMoveStringLiteralDfa3_0(active0, 0x40L);
             case 108:
-                return jjMoveStringLiteralDfa3_0(active0, 0x100L);
+                return jjMoveStringLiteralDfa3_0(active0, 0x14000L);
+            case 117:
+                return jjMoveStringLiteralDfa3_0(active0, 0x8000L);
             default:
                 break;
         }
@@ -123,20 +207,45 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
             return 3;
         }
         switch (curChar) {
+            case 101:
+                if ((active0 & 0x8000L) != 0L)
+                    return jjStartNfaWithStates_0(3, 15, 2);
+                break;
             case 108:
-                if ((active0 & 0x100L) != 0L)
-                    return jjStartNfaWithStates_0(3, 8, 2);
+                if ((active0 & 0x4000L) != 0L)
+                    return jjStartNfaWithStates_0(3, 14, 2);
                 break;
             case 115:
                 if ((active0 & 0x40L) != 0L)
                     return jjStartNfaWithStates_0(3, 6, 2);
-                break;
+                return jjMoveStringLiteralDfa4_0(active0, 0x10000L);
             default:
                 break;
         }
         return jjStartNfa_0(2, active0);
     }
 
+    private final int jjMoveStringLiteralDfa4_0(long old0, long active0) {
+        if (((active0 &= old0)) == 0L)
+            return jjStartNfa_0(2, old0);
+        try {
+            curChar = input_stream.readChar();
+        }
+        catch (java.io.IOException e) {
+            jjStopStringLiteralDfa_0(3, active0);
+            return 4;
+        }
+        switch (curChar) {
+            case 101:
+                if ((active0 & 0x10000L) != 0L)
+                    return jjStartNfaWithStates_0(4, 16, 2);
+                break;
+            default:
+                break;
+        }
+        return jjStartNfa_0(3, active0);
+    }
+
     private final void jjCheckNAdd(int state) {
         if (jjrounds[state] != jjround) {
             jjstateSet[jjnewStateCnt++] = state;
@@ -307,14 +416,14 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                     switch (jjstateSet[--i]) {
                         case 3:
                             if ((0x3ff000000000000L & l) != 0L) {
-                                if (kind > 10)
-                                    kind = 10;
+                                if (kind > 35)
+                                    kind = 35;
                                 jjCheckNAddStates(0, 4);
                             } else if (curChar == 39)
                                 jjCheckNAddStates(5, 7);
                             else if (curChar == 36) {
-                                if (kind > 12)
-                                    kind = 12;
+                                if (kind > 37)
+                                    kind = 37;
                                 jjCheckNAdd(2);
                             } else if (curChar == 46)
                                 jjCheckNAdd(1);
@@ -326,15 +435,15 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                         case 1:
                             if ((0x3ff000000000000L & l) == 0L)
                                 break;
-                            if (kind > 11)
-                                kind = 11;
+                            if (kind > 36)
+                                kind = 36;
                             jjCheckNAdd(1);
                             break;
                         case 2:
                             if (curChar != 36)
                                 break;
-                            if (kind > 12)
-                                kind = 12;
+                            if (kind > 37)
+                                kind = 37;
                             jjCheckNAdd(2);
                             break;
                         case 4:
@@ -346,8 +455,8 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                                 jjCheckNAddStates(5, 7);
                             break;
                         case 7:
-                            if (curChar == 39 && kind > 13)
-                                kind = 13;
+                            if (curChar == 39 && kind > 38)
+                                kind = 38;
                             break;
                         case 9:
                             if ((0x3ff000000000000L & l) != 0L)
@@ -356,8 +465,8 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                         case 11:
                             if ((0x3ff000000000000L & l) == 0L)
                                 break;
-                            if (kind > 10)
-                                kind = 10;
+                            if (kind > 35)
+                                kind = 35;
                             jjCheckNAddStates(0, 4);
                             break;
                         case 12:
@@ -367,8 +476,8 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                         case 14:
                             if ((0x3ff000000000000L & l) == 0L)
                                 break;
-                            if (kind > 10)
-                                kind = 10;
+                            if (kind > 35)
+                                kind = 35;
                             jjCheckNAdd(14);
                             break;
                         case 15:
@@ -386,8 +495,8 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                     switch (jjstateSet[--i]) {
                         case 3:
                             if ((0x7fffffe87fffffeL & l) != 0L) {
-                                if (kind > 12)
-                                    kind = 12;
+                                if (kind > 37)
+                                    kind = 37;
                                 jjCheckNAdd(2);
                             } else if (curChar == 123)
                                 jjstateSet[jjnewStateCnt++] = 9;
@@ -395,8 +504,8 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                         case 2:
                             if ((0x7fffffe87fffffeL & l) == 0L)
                                 break;
-                            if (kind > 12)
-                                kind = 12;
+                            if (kind > 37)
+                                kind = 37;
                             jjCheckNAdd(2);
                             break;
                         case 4:
@@ -411,12 +520,12 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                                 jjstateSet[jjnewStateCnt++] = 9;
                             break;
                         case 10:
-                            if (curChar == 125 && kind > 14)
-                                kind = 14;
+                            if (curChar == 125 && kind > 39)
+                                kind = 39;
                             break;
                         case 13:
-                            if ((0x100000001000L & l) != 0L && kind > 9)
-                                kind = 9;
+                            if ((0x100000001000L & l) != 0L && kind > 34)
+                                kind = 34;
                             break;
                         default:
                             break;
@@ -435,8 +544,8 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
                         case 2:
                             if (!jjCanMove_0(hiByte, i1, i2, l1, l2))
                                 break;
-                            if (kind > 12)
-                                kind = 12;
+                            if (kind > 37)
+                                kind = 37;
                             jjCheckNAdd(2);
                             break;
                         case 4:
@@ -568,13 +677,16 @@ public class DTOELParserTokenManager implements DTOELParserConstants {
     }
 
     public static final String[] jjstrLiteralImages = {
-            "", null, null, null, null, null, "\164\150\151\163", "\56",
-            "\156\165\154\154", null, null, null, null, null, null,};
+            "", null, null, null, null, null, "\164\150\151\163", "\56", "\77\56", "\50",
+            "\51", "\133", "\135", "\56\56", "\156\165\154\154", "\164\162\165\145",
+            "\146\141\154\163\145", "\53", "\55", "\52", "\57", "\45", "\75\75", "\41\75", "\74", "\74\75", "\76",
+            "\76\75", "\46\46", "\174\174", "\41", "\77", "\72", "\77\72", null, null, null, null,
+            null, null,};
     public static final String[] lexStateNames = {
             "DEFAULT",
     };
     static final long[] jjtoToken = {
-            0x7fc1L,
+            0xffffffffc1L,
     };
     static final long[] jjtoSkip = {
             0x3eL,
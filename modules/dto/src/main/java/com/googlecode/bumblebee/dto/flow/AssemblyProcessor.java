@@ -0,0 +1,336 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto.flow;
+
+import com.googlecode.bumblebee.dto.Assembler;
+import net.sf.jdpa.NotNull;
+
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A processor that assembles a data object per source that it receives, and sends the data objects
+ * downstream in the order of the sources. Sources are only requested from upstream as the downstream
+ * subscriber requests data objects, and at most <code>window</code> sources are requested ahead, so a
+ * slow subscriber never causes more than <code>window</code> sources or data objects to be buffered.
+ * <p/>
+ * The data objects are assembled by the thread that delivers the sources, unless an executor is
+ * provided, in which case up to <code>window</code> sources are assembled concurrently. The processor
+ * accepts a single subscriber, and a single upstream subscription.
+ */
+public class AssemblyProcessor<T> implements Flow.Processor<Object, T> {
+
+    public static final int DEFAULT_WINDOW = 16;
+
+    private Assembler assembler;
+
+    private Class<T> dataObjectType;
+
+    private Executor executor;
+
+    private int window;
+
+    private final Object lock = new Object();
+
+    private Flow.Subscription upstream = null;
+
+    private Flow.Subscriber<? super T> downstream = null;
+
+    /**
+     * The sources that are received but whose data objects aren't sent, in the order they're received.
+     */
+    private LinkedList<Assembly> pending = new LinkedList<Assembly>();
+
+    private long demand = 0;
+
+    private long requested = 0;
+
+    private boolean completed = false;
+
+    private Throwable failure = null;
+
+    private boolean failedUpstream = false;
+
+    private boolean terminated = false;
+
+    private boolean draining = false;
+
+    private boolean missed = false;
+
+    public AssemblyProcessor(@NotNull Assembler assembler, @NotNull Class<T> dataObjectType) {
+        this(assembler, dataObjectType, null, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates a processor that assembles data objects of the provided type.
+     *
+     * @param assembler The assembler of the data objects.
+     * @param dataObjectType The type of the data objects.
+     * @param executor The executor that assembles the data objects, or <code>null</code> to assemble them
+     *                 by the thread that delivers the sources.
+     * @param window The maximum number of sources that are requested but whose data objects aren't sent.
+     */
+    public AssemblyProcessor(@NotNull Assembler assembler, @NotNull Class<T> dataObjectType, Executor executor, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+
+        this.assembler = assembler;
+        this.dataObjectType = dataObjectType;
+        this.executor = executor;
+        this.window = window;
+    }
+
+    public void subscribe(@NotNull final Flow.Subscriber<? super T> subscriber) {
+        boolean accepted = false;
+
+        synchronized (lock) {
+            if (downstream == null) {
+                downstream = subscriber;
+                accepted = true;
+            }
+        }
+
+        if (!accepted) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                }
+
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Assembly processor of " + dataObjectType.getName() + " is already subscribed to"));
+            return;
+        }
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+            public void request(long n) {
+                synchronized (lock) {
+                    if (n <= 0 && failure == null) {
+                        failure = new IllegalArgumentException("Number of requested data objects must be positive: " + n);
+                    } else if (n > 0) {
+                        demand = (demand + n < 0 ? Long.MAX_VALUE : demand + n);
+                    }
+                }
+
+                drain();
+            }
+
+            public void cancel() {
+                Flow.Subscription subscription = null;
+
+                synchronized (lock) {
+                    if (!terminated) {
+                        terminated = true;
+                        pending.clear();
+                        subscription = upstream;
+                    }
+                }
+
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        });
+
+        drain();
+    }
+
+    public void onSubscribe(@NotNull Flow.Subscription subscription) {
+        boolean accepted = false;
+
+        synchronized (lock) {
+            if (upstream == null && !terminated) {
+                upstream = subscription;
+                accepted = true;
+            }
+        }
+
+        if (accepted) {
+            drain();
+        } else {
+            subscription.cancel();
+        }
+    }
+
+    public void onNext(@NotNull Object source) {
+        Assembly assembly = new Assembly(source);
+
+        synchronized (lock) {
+            if (terminated) {
+                return;
+            }
+
+            requested = Math.max(0, requested - 1);
+            pending.add(assembly);
+        }
+
+        if (executor == null) {
+            assembly.run();
+        } else {
+            try {
+                executor.execute(assembly);
+            } catch (RejectedExecutionException e) {
+                assembly.fail(e);
+            }
+        }
+    }
+
+    public void onError(@NotNull Throwable throwable) {
+        synchronized (lock) {
+            if (failure == null) {
+                failure = throwable;
+                failedUpstream = true;
+            }
+        }
+
+        drain();
+    }
+
+    public void onComplete() {
+        synchronized (lock) {
+            completed = true;
+        }
+
+        drain();
+    }
+
+    /**
+     * Sends the assembled data objects downstream, in order and as far as they're requested, and requests
+     * more sources from upstream. Only one thread drains at a time; a thread that finds another thread
+     * draining leaves it to drain once more.
+     */
+    private void drain() {
+        synchronized (lock) {
+            if (draining) {
+                missed = true;
+                return;
+            }
+
+            draining = true;
+        }
+
+        for (;;) {
+            Flow.Subscriber<? super T> subscriber = null;
+            Flow.Subscription subscription = null;
+            Throwable error = null;
+            boolean upstreamFailed = false;
+            boolean complete = false;
+            T dataObject = null;
+            long request = 0;
+
+            synchronized (lock) {
+                Assembly head = pending.peek();
+
+                subscriber = downstream;
+                subscription = upstream;
+
+                if (terminated || subscriber == null) {
+                    draining = false;
+                    return;
+                }
+
+                if (head != null && head.done && head.error != null) {
+                    error = head.error;
+                } else if (failure != null) {
+                    error = failure;
+                    upstreamFailed = failedUpstream;
+                } else if (head != null && head.done && demand > 0) {
+                    pending.removeFirst();
+                    dataObject = head.dataObject;
+                    demand--;
+                } else if (head == null && completed) {
+                    complete = true;
+                } else {
+                    long outstanding = pending.size() + requested;
+                    long target = Math.min(window, demand);
+
+                    if (subscription != null && target > outstanding) {
+                        request = target - outstanding;
+                        requested += request;
+                    } else if (missed) {
+                        missed = false;
+                        continue;
+                    } else {
+                        draining = false;
+                        return;
+                    }
+                }
+
+                if (error != null || complete) {
+                    terminated = true;
+                    pending.clear();
+                }
+            }
+
+            if (error != null) {
+                if (!upstreamFailed && subscription != null) {
+                    subscription.cancel();
+                }
+
+                subscriber.onError(error);
+            } else if (complete) {
+                subscriber.onComplete();
+            } else if (dataObject != null) {
+                subscriber.onNext(dataObject);
+            } else if (request > 0) {
+                subscription.request(request);
+            }
+        }
+    }
+
+    /**
+     * The assembly of a data object from a source.
+     */
+    private class Assembly implements Runnable {
+
+        private Object source;
+
+        private T dataObject = null;
+
+        private Throwable error = null;
+
+        private volatile boolean done = false;
+
+        private Assembly(Object source) {
+            this.source = source;
+        }
+
+        public void run() {
+            try {
+                dataObject = assembler.assemble(source, dataObjectType);
+            } catch (Throwable e) {
+                // Errors are delivered downstream as well, otherwise the assembly would be done without a result
+                error = e;
+            } finally {
+                source = null;
+                done = true;
+            }
+
+            drain();
+        }
+
+        private void fail(Throwable e) {
+            error = e;
+            source = null;
+            done = true;
+            drain();
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto.flow;
+
+/**
+ * The interfaces of flow-controlled streams, in which subscribers request the number of items that
+ * publishers may send them. The interfaces mirror <code>java.util.concurrent.Flow</code> of later Java
+ * versions and the Reactive Streams specification, so that they can be bridged to either by trivial
+ * adapters.
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * A producer of items that are received by subscribers.
+     */
+    public static interface Publisher<T> {
+
+        /**
+         * Adds a subscriber, which is passed a {@link Subscription} before any items are sent to it.
+         *
+         * @param subscriber The subscriber.
+         */
+        public void subscribe(Subscriber<? super T> subscriber);
+
+    }
+
+    /**
+     * A receiver of the items of a publisher.
+     */
+    public static interface Subscriber<T> {
+
+        public void onSubscribe(Subscription subscription);
+
+        public void onNext(T item);
+
+        public void onError(Throwable throwable);
+
+        public void onComplete();
+
+    }
+
+    /**
+     * The link between a publisher and a subscriber, through which the subscriber requests items.
+     */
+    public static interface Subscription {
+
+        /**
+         * Adds the provided number of items to the number of items that the publisher may send.
+         *
+         * @param n The number of items, which must be positive.
+         */
+        public void request(long n);
+
+        public void cancel();
+
+    }
+
+    /**
+     * A stage that is both a subscriber and a publisher.
+     */
+    public static interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+
+}
@@ -15,21 +15,26 @@
 package com.googlecode.bumblebee.dto.impl;
 
 import com.googlecode.bumblebee.beans.BeanUtil;
+import com.googlecode.bumblebee.beans.PropertyAccessException;
 import com.googlecode.bumblebee.dto.*;
-import com.googlecode.bumblebee.dto.el.parser.DTOELParser;
-import com.googlecode.bumblebee.dto.el.parser.ParseException;
+import com.googlecode.bumblebee.dto.el.Expression;
+import com.googlecode.bumblebee.dto.el.ThisExpression;
 import javassist.*;
 import net.sf.jdpa.NotNull;
-import static net.sf.jdpa.cg.Code.*;
-import net.sf.jdpa.cg.model.Expression;
-import net.sf.jdpa.cg.model.Statement;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import java.io.File;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.net.URLClassLoader;
@@ -48,32 +53,660 @@ public class AssemblerImpl implements Assembler {
 
     private static final Logger LOG = LoggerFactory.getLogger(AssemblerImpl.class);
 
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10000;
+
+    public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 1000;
+
     private Map<Class<?>, Class<?>> dataObjectImplementations
             = new HashMap<Class<?>, Class<?>>();
 
     private ReadWriteLock dataObjectImplementationLock = new ReentrantReadWriteLock();
 
+    private Map<Class<?>, Class<?>> columnarImplementations = new HashMap<Class<?>, Class<?>>();
+
+    private Map<Class<?>, Class<?>> offHeapImplementations = new HashMap<Class<?>, Class<?>>();
+
+    private Map<Class<?>, InternPool> internPools = new ConcurrentHashMap<Class<?>, InternPool>();
+
+    private Map<Class<?>, Map<String, Integer>> methodSizes = new ConcurrentHashMap<Class<?>, Map<String, Integer>>();
+
+    private int maxMethodSize = DataObjectImplementationBuilder.HUGE_METHOD_LIMIT;
+
+    private ExecutorService executor = null;
+
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    private int parallelChunkSize = DEFAULT_PARALLEL_CHUNK_SIZE;
+
+    private ExecutorService asyncExecutor = null;
+
+    private int asyncPoolSize = Runtime.getRuntime().availableProcessors();
+
+    private AssemblyCache cache = null;
+
+    private Map<Class<?>, Getter[]> cacheKeyGetters = new ConcurrentHashMap<Class<?>, Getter[]>();
+
+    private ExpressionCompilerImpl expressionCompiler = new ExpressionCompilerImpl();
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor of parallel bulk assembly. If an executor is set, {@link #assembleAll(Iterable, Class, Object[])}
+     * splits collections of at least {@link #setParallelThreshold threshold} sources into chunks that are
+     * assembled by the executor. The order of the data objects is the order of the sources either way. Chunks
+     * that the executor hasn't started, or has rejected, by the time they're joined are assembled by the
+     * calling thread, so an executor that is bounded and shared with other work can't stall the assembly.
+     * <p/>
+     * The sources of a parallel assembly are read by several threads, one thread per source. The sources must
+     * therefore not be modified while they're assembled, and the objects that are reachable from several
+     * sources must be safe to read concurrently. The collection of sources is copied before the assembly.
+     *
+     * @param executor The executor of parallel assembly, or <code>null</code> to always assemble sequentially.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public AssemblyCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the cache of assembled data objects. If a cache is set, {@link #assemble(Object, Class)} reuses
+     * the data objects of sources that are {@link DataObject#id identified} by their data object type and
+     * that have the same {@link DataObject#version version} as when they were cached, including nested data
+     * objects. Only {@link DataObject#interned interned} data objects are cached, since they're the only data
+     * objects without mutators and are shared anyway; the cached data objects are interned when they're
+     * assembled. Assemblies with parameters, bulk assemblies and streams always assemble their data objects.
+     *
+     * @param cache The cache of assembled data objects, or <code>null</code> to always assemble.
+     */
+    public void setCache(AssemblyCache cache) {
+        this.cache = cache;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the number of sources below which bulk assembly is sequential even if an
+     * {@link #setExecutor executor} is set. Defaults to {@link #DEFAULT_PARALLEL_THRESHOLD}.
+     *
+     * @param parallelThreshold The minimum number of sources of a parallel assembly.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + parallelThreshold);
+        }
+
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns the executor of asynchronous assembly. Unless an executor is set, the executor creates a
+     * virtual thread per assembly if the JVM supports virtual threads, and otherwise runs the assemblies on
+     * a fixed number of daemon platform threads, see {@link #setAsyncPoolSize}. Assemblies that are submitted
+     * while all platform threads are busy are queued.
+     *
+     * @return The executor of asynchronous assembly.
+     */
+    public synchronized ExecutorService getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = createAsyncExecutor();
+        }
+
+        return asyncExecutor;
+    }
+
+    /**
+     * Sets the executor of {@link #assembleAsync asynchronous assembly}.
+     *
+     * @param asyncExecutor The executor of asynchronous assembly, or <code>null</code> for the default executor.
+     */
+    public synchronized void setAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public synchronized int getAsyncPoolSize() {
+        return asyncPoolSize;
+    }
+
+    /**
+     * Sets the number of platform threads of the default executor of asynchronous assembly, which is used if
+     * the JVM doesn't support virtual threads. Defaults to the number of available processors. The size only
+     * applies to a default executor that is created after it has been set.
+     *
+     * @param asyncPoolSize The maximum number of concurrent asynchronous assemblies on platform threads.
+     */
+    public synchronized void setAsyncPoolSize(int asyncPoolSize) {
+        if (asyncPoolSize <= 0) {
+            throw new IllegalArgumentException("Async pool size must be positive: " + asyncPoolSize);
+        }
+
+        this.asyncPoolSize = asyncPoolSize;
+    }
+
+    private ExecutorService createAsyncExecutor() {
+        // Virtual threads are looked up reflectively, since they're only available on Java 21 and later
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            LOG.debug("Virtual threads are not supported; asynchronous assembly uses platform threads");
+        } catch (Exception e) {
+            LOG.warn("Failed to create virtual thread executor; asynchronous assembly uses platform threads", e);
+        }
+
+        // The number of platform threads is bounded, since each of them is expensive
+        return Executors.newFixedThreadPool(asyncPoolSize, new ThreadFactory() {
+
+            private int count = 0;
+
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "bumblebee-assembly-" + (++count));
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+
+        });
+    }
+
+    public int getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+
+    /**
+     * Sets the number of sources that are assembled by each task of a parallel assembly. Defaults to
+     * {@link #DEFAULT_PARALLEL_CHUNK_SIZE}.
+     *
+     * @param parallelChunkSize The number of sources per task.
+     */
+    public void setParallelChunkSize(int parallelChunkSize) {
+        if (parallelChunkSize <= 0) {
+            throw new IllegalArgumentException("Parallel chunk size must be positive: " + parallelChunkSize);
+        }
+
+        this.parallelChunkSize = parallelChunkSize;
+    }
+
+    public int getMaxMethodSize() {
+        return maxMethodSize;
+    }
+
+    /**
+     * Sets the size of the bytecode above which the initialization of the properties of a generated
+     * implementation class is split into several methods. Defaults to
+     * {@link DataObjectImplementationBuilder#HUGE_METHOD_LIMIT}, so that HotSpot compiles the generated
+     * methods. Only affects implementation classes that are generated after the call.
+     *
+     * @param maxMethodSize The maximum size of a generated method, in bytes.
+     */
+    public void setMaxMethodSize(int maxMethodSize) {
+        if (maxMethodSize <= 0 || maxMethodSize > DataObjectImplementationBuilder.MAX_METHOD_SIZE) {
+            throw new IllegalArgumentException("Maximum method size must be within 1 and "
+                    + DataObjectImplementationBuilder.MAX_METHOD_SIZE + ": " + maxMethodSize);
+        }
+
+        this.maxMethodSize = maxMethodSize;
+    }
+
+    /**
+     * Returns the size of the bytecode of each method of the implementation class of a data object,
+     * generating the class if necessary. The methods are identified by name and descriptor, e.g.
+     * <code>&lt;init&gt;(Ljava/lang/Object;Lcom/googlecode/bumblebee/dto/Assembler;)V</code>. The report is
+     * empty if the implementation class wasn't generated by this assembler.
+     *
+     * @param descriptorType The type of the data object.
+     * @return The size of the bytecode of each method, in the order in which the methods are declared.
+     */
+    public Map<String, Integer> getMethodSizes(@NotNull Class<?> descriptorType) {
+        Map<String, Integer> sizes = null;
+
+        getDataObjectImplementation(descriptorType);
+        sizes = methodSizes.get(descriptorType);
+
+        return (sizes == null ? Collections.<String, Integer>emptyMap() : sizes);
+    }
+
     @SuppressWarnings("unchecked")
     public <T> T assemble(@NotNull Object source, @NotNull Class<T> dataObjectType) {
-        return createDataObjectInstance(dataObjectType, new Class[] { Object.class, Assembler.class }, new Object[] { source, this });
+        AssemblyCache cache = this.cache;
+        Getter[] keyGetters = null;
+        Object id = null;
+        Object version = null;
+        T dataObject = null;
+
+        if (cache != null) {
+            keyGetters = getCacheKeyGetters(dataObjectType);
+
+            if (keyGetters.length > 0) {
+                id = keyGetters[0].get(source);
+                version = (keyGetters.length > 1 ? keyGetters[1].get(source) : null);
+            }
+
+            if (id != null) {
+                dataObject = (T) cache.get(dataObjectType, id, version);
+
+                if (dataObject != null) {
+                    return dataObject;
+                }
+            }
+        }
+
+        dataObject = createDataObjectInstance(dataObjectType, new Class[] { Object.class, Assembler.class }, new Object[] { source, this });
+
+        if (id != null) {
+            cache.put(dataObjectType, id, version, dataObject);
+        }
+
+        return dataObject;
+    }
+
+    /**
+     * Returns the getters of the {@link DataObject#id id} and the {@link DataObject#version version} of the
+     * sources of a data object type, in that order. The getters are compiled once per data object type.
+     *
+     * @param dataObjectType The type of the data object.
+     * @return The getters of the id and the version, if any, or an empty array if the sources aren't identified
+     * or the data objects have mutators.
+     */
+    private Getter[] getCacheKeyGetters(Class<?> dataObjectType) {
+        Getter[] keyGetters = cacheKeyGetters.get(dataObjectType);
+
+        if (keyGetters == null) {
+            DataObjectDescriptor<?> descriptor = new DataObjectDescriptorFactoryImpl().createDataObjectDescriptor(dataObjectType);
+
+            if (descriptor.getIdExpression() == null || !descriptor.isInterned()) {
+                keyGetters = new Getter[0];
+            } else if (descriptor.getVersionExpression() == null) {
+                keyGetters = new Getter[] { expressionCompiler.compile(descriptor.getIdExpression()) };
+            } else {
+                keyGetters = new Getter[] { expressionCompiler.compile(descriptor.getIdExpression()),
+                        expressionCompiler.compile(descriptor.getVersionExpression()) };
+            }
+
+            cacheKeyGetters.put(dataObjectType, keyGetters);
+        }
+
+        return keyGetters;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T assemble(@NotNull Object source, @NotNull Class<T> dataObjectType, Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return assemble(source, dataObjectType);
+        }
+
+        // Nested data objects are assembled through an assembler that binds the same parameters
+        return createDataObjectInstance(dataObjectType, new Class[] { Object.class, Assembler.class, Object[].class },
+                new Object[] { source, new ParameterizedAssembler(this, parameters), parameters });
     }
 
     public <T> T assemble(@NotNull Class<T> dataObjectType, PropertyValue ... properties) {
         return createDataObjectInstance(dataObjectType, new Class[] { PropertyValue[].class, Assembler.class }, new Object[] { properties, this });
     }
 
+    public AssemblyContext newContext() {
+        return new AssemblyContextImpl(this);
+    }
+
+    public <T> List<T> assembleAll(@NotNull Iterable<?> sources, @NotNull Class<T> dataObjectType) {
+        return assembleAll(sources, dataObjectType, null);
+    }
+
+    public <T> List<T> assembleAll(@NotNull Object[] sources, @NotNull Class<T> dataObjectType) {
+        return assembleAll(Arrays.asList(sources), dataObjectType, null);
+    }
+
+    public <T> List<T> assembleAll(@NotNull Iterable<?> sources, @NotNull Class<T> dataObjectType, Object[] parameters) {
+        List<T> dataObjects = (sources instanceof Collection ? new ArrayList<T>(((Collection<?>) sources).size()) : new ArrayList<T>());
+
+        // The implementation and its constructor are resolved once for all sources
+        Constructor constructor = getConversionConstructor(dataObjectType, parameters);
+        Object[] args = getConversionArguments(parameters);
+
+        if (executor != null && sources instanceof Collection && ((Collection<?>) sources).size() >= parallelThreshold) {
+            return assembleAllInParallel(new ArrayList<Object>((Collection<?>) sources), dataObjectType, constructor, args);
+        }
+
+        for (Object source : sources) {
+            if (source == null) {
+                throw new IllegalArgumentException("Source " + dataObjects.size() + " of " + dataObjectType.getName() + " is null");
+            }
+
+            args[0] = source;
+            dataObjects.add(intern(AssemblerImpl.<T>createInstance(constructor, args)));
+        }
+
+        return dataObjects;
+    }
+
+    public <T> Future<T> assembleAsync(@NotNull Object source, @NotNull Class<T> dataObjectType) {
+        return assembleAsync(source, dataObjectType, null, getAsyncExecutor());
+    }
+
+    public <T> Future<List<T>> assembleAllAsync(@NotNull Iterable<?> sources, @NotNull Class<T> dataObjectType) {
+        return assembleAllAsync(sources, dataObjectType, null);
+    }
+
+    private <T> Future<List<T>> assembleAllAsync(Iterable<?> sources, Class<T> dataObjectType, Object[] parameters) {
+        List<Future<T>> dataObjects = new ArrayList<Future<T>>();
+        ExecutorService executor = getAsyncExecutor();
+
+        // The implementation is resolved up front, rather than by the first assemblies to run
+        getDataObjectImplementation(dataObjectType);
+
+        for (Object source : sources) {
+            if (source == null) {
+                for (Future<T> dataObject : dataObjects) {
+                    dataObject.cancel(false);
+                }
+
+                throw new IllegalArgumentException("Source " + dataObjects.size() + " of " + dataObjectType.getName() + " is null");
+            }
+
+            dataObjects.add(assembleAsync(source, dataObjectType, parameters, executor));
+        }
+
+        return new FutureList<T>(dataObjects);
+    }
+
+    private <T> Future<T> assembleAsync(final Object source, final Class<T> dataObjectType, final Object[] parameters,
+                                        ExecutorService executor) {
+        return executor.submit(new Callable<T>() {
+            public T call() {
+                return assemble(source, dataObjectType, parameters);
+            }
+        });
+    }
+
+    public <T> Iterator<T> stream(@NotNull Iterator<?> sources, @NotNull Class<T> dataObjectType) {
+        return stream(sources, dataObjectType, null);
+    }
+
+    public <T> Iterator<T> stream(@NotNull final Iterator<?> sources, @NotNull final Class<T> dataObjectType, Object[] parameters) {
+        final Constructor constructor = getConversionConstructor(dataObjectType, parameters);
+        final Object[] args = getConversionArguments(parameters);
+
+        return new Iterator<T>() {
+
+            private int index = 0;
+
+            public boolean hasNext() {
+                return sources.hasNext();
+            }
+
+            public T next() {
+                Object source = sources.next();
+
+                if (source == null) {
+                    throw new IllegalArgumentException("Source " + index + " of " + dataObjectType.getName() + " is null");
+                }
+
+                index++;
+                args[0] = source;
+
+                try {
+                    return intern(AssemblerImpl.<T>createInstance(constructor, args));
+                } finally {
+                    // The iterator doesn't retain the source once it's assembled
+                    args[0] = null;
+                }
+            }
+
+            public void remove() {
+                sources.remove();
+            }
+
+        };
+    }
+
+    private Constructor getConversionConstructor(Class<?> dataObjectType, Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return getConstructor(getDataObjectImplementation(dataObjectType), new Class[] { Object.class, Assembler.class });
+        } else {
+            return getConstructor(getDataObjectImplementation(dataObjectType), new Class[] { Object.class, Assembler.class, Object[].class });
+        }
+    }
+
+    /**
+     * Returns the executor of an assembler, if it's an assembler of this type.
+     *
+     * @param assembler The assembler.
+     * @return The {@link #setExecutor executor} of the assembler, or <code>null</code> if it has none.
+     */
+    static ExecutorService getExecutor(Assembler assembler) {
+        if (assembler instanceof ParameterizedAssembler) {
+            assembler = ((ParameterizedAssembler) assembler).assembler;
+        } else if (assembler instanceof AssemblyContextImpl) {
+            assembler = ((AssemblyContextImpl) assembler).getAssembler();
+        }
+
+        return (assembler instanceof AssemblerImpl ? ((AssemblerImpl) assembler).getExecutor() : null);
+    }
+
+    /**
+     * Returns an assembler that assembles data objects with the parameters of an assembly.
+     *
+     * @param parameters The parameters of the assembly.
+     * @return This assembler if there are no parameters, otherwise an assembler that binds the parameters.
+     */
+    Assembler bind(Object[] parameters) {
+        return (parameters == null || parameters.length == 0 ? this : new ParameterizedAssembler(this, parameters));
+    }
+
+    /**
+     * Returns the arguments of the constructor returned by {@link #getConversionConstructor}, with the
+     * source left to be set as the first argument.
+     */
+    private Object[] getConversionArguments(Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return new Object[] { null, this };
+        } else {
+            // Nested data objects are assembled through an assembler that binds the same parameters
+            return new Object[] { null, new ParameterizedAssembler(this, parameters), parameters };
+        }
+    }
+
     @SuppressWarnings("unchecked")
+    private <T> List<T> assembleAllInParallel(final List<Object> sources, final Class<T> dataObjectType,
+                                              final Constructor constructor, final Object[] args) {
+        final Object[] dataObjects = new Object[sources.size()];
+        List<FutureTask<Object>> chunks = new ArrayList<FutureTask<Object>>(sources.size() / parallelChunkSize + 1);
+
+        for (int start = 0; start < sources.size(); start += parallelChunkSize) {
+            final int from = start;
+            final int to = Math.min(start + parallelChunkSize, sources.size());
+            FutureTask<Object> chunk = new FutureTask<Object>(new Runnable() {
+                public void run() {
+                    Object[] chunkArgs = args.clone();
+
+                    for (int i = from; i < to; i++) {
+                        if (sources.get(i) == null) {
+                            throw new IllegalArgumentException("Source " + i + " of " + dataObjectType.getName() + " is null");
+                        }
+
+                        chunkArgs[0] = sources.get(i);
+                        dataObjects[i] = intern(createInstance(constructor, chunkArgs));
+                    }
+                }
+            }, null);
+
+            chunks.add(chunk);
+
+            try {
+                executor.execute(chunk);
+            } catch (RejectedExecutionException e) {
+                // The chunk is run by the calling thread when it's joined
+            }
+        }
+
+        try {
+            for (FutureTask<Object> chunk : chunks) {
+                // The calling thread runs the chunks that the executor hasn't started, so the assembly completes
+                // even if the executor is saturated, e.g. by the assembly that is calling this one. Running a
+                // chunk that is already started or done has no effect.
+                chunk.run();
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssemblyException("Interrupted while assembling " + sources.size() + " instances of " + dataObjectType.getName(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new AssemblyException("Failed to assemble " + sources.size() + " instances of " + dataObjectType.getName(), e.getCause());
+            }
+        } finally {
+            // Chunks that haven't started are of no use once a chunk has failed
+            for (FutureTask<Object> chunk : chunks) {
+                chunk.cancel(false);
+            }
+        }
+
+        return new ArrayList<T>((List<T>) Arrays.asList(dataObjects));
+    }
+
+    public <T> List<T> assembleColumnar(@NotNull Iterable<?> sources, @NotNull Class<T> dataObjectType) {
+        return assembleColumnar(sources, dataObjectType, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> assembleColumnar(@NotNull Iterable<?> sources, @NotNull Class<T> dataObjectType, Object[] parameters) {
+        Class<?> columnarImplementationClass = getColumnarImplementation(dataObjectType);
+        ColumnarList<T> columns = null;
+
+        try {
+            columns = (ColumnarList<T>) columnarImplementationClass.newInstance();
+        } catch (InstantiationException e) {
+            throw new DataObjectGenerationException("The columnar implementation class could not be instantiated. " +
+                    "Check the stack trace for more information.", e);
+        } catch (IllegalAccessException e) {
+            throw new DataObjectGenerationException("The generated columnar implementation class did not define a public constructor", e);
+        }
+
+        if (parameters == null || parameters.length == 0) {
+            columns.assembleAll(sources, this, null);
+        } else {
+            columns.assembleAll(sources, new ParameterizedAssembler(this, parameters), parameters);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Returns the columnar implementation of a data object, generating it if necessary.
+     *
+     * @param descriptorType The type of the data object.
+     * @return A subclass of {@link ColumnarList} whose elements implement the data object.
+     */
+    public Class<?> getColumnarImplementation(@NotNull Class<?> descriptorType) {
+        Class<?> columnarImplementation = null;
+
+        synchronized (columnarImplementations) {
+            columnarImplementation = columnarImplementations.get(descriptorType);
+
+            if (columnarImplementation == null) {
+                try {
+                    columnarImplementation = Class.forName(DataObjectImplementationBuilder.getColumnarImplementationClassName(descriptorType));
+                } catch (ClassNotFoundException e) {
+                    columnarImplementation = createColumnarImplementation(descriptorType);
+                }
+
+                columnarImplementations.put(descriptorType, columnarImplementation);
+            }
+        }
+
+        return columnarImplementation;
+    }
+
+    public <T> T assembleOffHeap(@NotNull Object source, @NotNull Class<T> dataObjectType, @NotNull OffHeapArena arena) {
+        return assembleOffHeap(source, dataObjectType, arena, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T assembleOffHeap(@NotNull Object source, @NotNull Class<T> dataObjectType, @NotNull OffHeapArena arena, Object[] parameters) {
+        Class<?>[] signature = new Class[] { Object.class, Assembler.class, Object[].class, OffHeapArena.class };
+
+        if (parameters == null || parameters.length == 0) {
+            return (T) createInstance(getOffHeapImplementation(dataObjectType), signature, new Object[] { source, this, null, arena });
+        } else {
+            return (T) createInstance(getOffHeapImplementation(dataObjectType), signature,
+                    new Object[] { source, new ParameterizedAssembler(this, parameters), parameters, arena });
+        }
+    }
+
+    /**
+     * Returns the off-heap implementation of a data object, generating it if necessary.
+     *
+     * @param descriptorType The type of the data object.
+     * @return An implementation of the data object that holds its properties in an {@link OffHeapArena}.
+     */
+    public Class<?> getOffHeapImplementation(@NotNull Class<?> descriptorType) {
+        Class<?> offHeapImplementation = null;
+
+        synchronized (offHeapImplementations) {
+            offHeapImplementation = offHeapImplementations.get(descriptorType);
+
+            if (offHeapImplementation == null) {
+                try {
+                    offHeapImplementation = Class.forName(DataObjectImplementationBuilder.getOffHeapImplementationClassName(descriptorType));
+                } catch (ClassNotFoundException e) {
+                    offHeapImplementation = createOffHeapImplementation(descriptorType);
+                }
+
+                offHeapImplementations.put(descriptorType, offHeapImplementation);
+            }
+        }
+
+        return offHeapImplementation;
+    }
+
     protected <T> T createDataObjectInstance(Class<T> dataObjectType, Class[] signature, Object[] args) {
-        Class<?> dataObjectImplementationClass = getDataObjectImplementation(dataObjectType);
-        Constructor constructor = null;
+        return intern(AssemblerImpl.<T>createInstance(getDataObjectImplementation(dataObjectType), signature, args));
+    }
+
+    private static boolean isInterned(Class<?> descriptorType) {
+        DataObject dataObjectAnnotation = descriptorType.getAnnotation(DataObject.class);
+
+        return (dataObjectAnnotation != null && dataObjectAnnotation.interned());
+    }
 
+    /**
+     * Returns the canonical instance of a data object, if its type is {@link DataObject#interned interned}.
+     *
+     * @param dataObject The assembled data object.
+     * @return The canonical data object that is equal to the data object, or the data object itself if
+     * its type isn't interned.
+     */
+    private <T> T intern(T dataObject) {
+        InternPool internPool = internPools.get(dataObject.getClass());
+
+        return (internPool == null ? dataObject : internPool.intern(dataObject));
+    }
+
+    private static <T> T createInstance(Class<?> dataObjectImplementationClass, Class[] signature, Object[] args) {
+        return AssemblerImpl.<T>createInstance(getConstructor(dataObjectImplementationClass, signature), args);
+    }
+
+    private static Constructor getConstructor(Class<?> dataObjectImplementationClass, Class[] signature) {
         try {
-            constructor = dataObjectImplementationClass.getDeclaredConstructor(signature);
+            return dataObjectImplementationClass.getDeclaredConstructor(signature);
         } catch (NoSuchMethodException e) {
             throw new AssemblyException("The generated data object implementation class '" + dataObjectImplementationClass.getName() +
                     "' is not valid. No constructor (java.lang.Object, org.tools4j.dto.Assembler) was defined", e);
         }
+    }
 
+    @SuppressWarnings("unchecked")
+    private static <T> T createInstance(Constructor constructor, Object[] args) {
         try {
             return (T) constructor.newInstance(args);
         } catch (InstantiationException e) {
@@ -114,6 +747,11 @@ public class AssemblerImpl implements Assembler {
                             dataObjectImplementation = (Class<? extends T>) createDataObjectImplementation(descriptorType);
                         }
 
+                        // The implementation may have been generated by another assembler, which has a pool of its own
+                        if (isInterned(descriptorType)) {
+                            internPools.put(dataObjectImplementation, new InternPool());
+                        }
+
                         dataObjectImplementations.put(descriptorType, dataObjectImplementation);
                     }
                 } finally {
@@ -134,110 +772,378 @@ public class AssemblerImpl implements Assembler {
         CtClass ctClass = implementationBuilder.newDataObjectImplementation(descriptorType);
         DataObjectDescriptor<?> descriptor = new DataObjectDescriptorFactoryImpl().createDataObjectDescriptor(descriptorType); // TODO Generify
         List<ValueDescriptor> valueDescriptors = descriptor.getValueDescriptors();
-        List<CtMethod> initializers = new ArrayList<CtMethod>(valueDescriptors.size());
+        List<Expression> expressions = parseExpressions(descriptorType, valueDescriptors);
+        List<String> initializers = null;
+        ExpressionTrie trie = null;
+        FieldLayout layout = null;
+        Class<?> implementationClass = null;
+        Map<String, Integer> sizes = null;
 
         implementationBuilder.addInterface(ctClass, descriptorType);
         implementationBuilder.transferTypeAnnotations(descriptor, ctClass);
 
+        // Declare the fields up front, so that they are declared in the order defined by the layout
+        layout = new FieldLayout(valueDescriptors, descriptor.getLayout(), descriptor.getStorage());
+        implementationBuilder.addFields(ctClass, layout);
+
         for (ValueDescriptor value : valueDescriptors) {
-            Class<?> propertyType = value.getPropertyType();
-            DTOELParser parser = null;
-            Expression expression = null;
-            Statement statement = null;
-            InputStream in = null;
-            CtField ctField = null;
             CtMethod ctAccessor = null;
             CtMethod ctMutator = null;
 
+            // Create an accessor for the field, or one that decodes the property if it isn't held by a field of its own
+            if (!layout.hasField(value.getProperty())) {
+                ctAccessor = implementationBuilder.addAccessorCode(ctClass, value.getAccessor().getName(), value.getPropertyType(),
+                        layout.getReadCode("this", value.getProperty()));
+            } else {
+                ctAccessor = implementationBuilder.addAccessor(ctClass, value.getAccessor().getName(), value.getProperty());
+            }
+
+            // Create a mutator if the data object is not marked as immutable
+            if (!descriptor.isInterned()) {
+                ctMutator = implementationBuilder.addMutator(ctClass, value, layout);
+            }
+
+            // Transfer annotations from the interface to the implementation class
+            implementationBuilder.transferMethodAnnotations(descriptor, ctClass, value.getAccessor(), ctAccessor);
+        }
+
+        // Prefixes that are shared by several properties are evaluated once by the constructor
+        trie = new ExpressionTrie(expressions);
+        initializers = createInitializers(implementationBuilder, ctClass, valueDescriptors, expressions, trie, layout,
+                descriptor.getConcurrencyThreshold());
+
+        implementationBuilder.addDefaultConstructor(ctClass);
+        implementationBuilder.addBuilderConstructor(ctClass, layout);
+        implementationBuilder.addConversionConstructor(ctClass, initializers, trie);
+
+        implementationBuilder.addEqualsMethod(ctClass, layout);
+        implementationBuilder.addHashCodeMethod(ctClass, layout);
+
+        try {
+            implementationClass = ctClass.toClass();
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Compilation of data object implementation class failed. " +
+                    "Check the stack trace for more information.", e);
+        }
+
+        sizes = implementationBuilder.getMethodSizes(ctClass);
+        methodSizes.put(descriptorType, sizes);
+
+        for (Map.Entry<String, Integer> size : sizes.entrySet()) {
+            if (size.getValue() > DataObjectImplementationBuilder.HUGE_METHOD_LIMIT) {
+                LOG.warn("Method " + size.getKey() + " of " + ctClass.getName() + " is " + size.getValue()
+                        + " bytes and won't be compiled by HotSpot unless -XX:-DontCompileHugeMethods is specified");
+            }
+        }
+
+        return implementationClass;
+    }
+
+    /**
+     * Generates the columnar implementation of a data object, and the view that is the element type of
+     * the columnar implementation.
+     *
+     * @param descriptorType The type of the data object.
+     * @return The columnar implementation class.
+     */
+    protected Class<?> createColumnarImplementation(Class<?> descriptorType) {
+        ClassPool classPool = getClassPool();
+        DataObjectImplementationBuilder implementationBuilder = getDataObjectImplementationBuilder(classPool);
+        DataObjectDescriptor<?> descriptor = new DataObjectDescriptorFactoryImpl().createDataObjectDescriptor(descriptorType);
+        List<ValueDescriptor> valueDescriptors = descriptor.getValueDescriptors();
+        List<Expression> expressions = parseExpressions(descriptorType, valueDescriptors);
+        ExpressionTrie trie = new ExpressionTrie(expressions);
+        ColumnLayout layout = new ColumnLayout(valueDescriptors);
+        CtClass columnarClass = implementationBuilder.newColumnarImplementation(descriptorType);
+        CtClass viewClass = implementationBuilder.newViewImplementation(descriptorType);
+        Class<?> columnarImplementation = null;
+
+        implementationBuilder.addFields(columnarClass, layout);
+        implementationBuilder.addInterface(viewClass, descriptorType);
+        implementationBuilder.transferTypeAnnotations(descriptor, viewClass);
+        implementationBuilder.addViewConstructor(viewClass, columnarClass);
+
+        for (ValueDescriptor value : valueDescriptors) {
+            CtMethod ctAccessor = implementationBuilder.addAccessorCode(viewClass, value.getAccessor().getName(), value.getPropertyType(),
+                    layout.getReadCode("this", value.getProperty()));
+
+            implementationBuilder.transferMethodAnnotations(descriptor, viewClass, value.getAccessor(), ctAccessor);
+        }
+
+        implementationBuilder.addEqualsMethod(viewClass, valueDescriptors, layout);
+        implementationBuilder.addHashCodeMethod(viewClass, valueDescriptors, layout);
+        implementationBuilder.addColumnarMethods(columnarClass, viewClass, layout,
+                createInitializers(implementationBuilder, columnarClass, valueDescriptors, expressions, trie, layout, 0), trie);
+
+        try {
+            columnarImplementation = columnarClass.toClass();
+            viewClass.toClass();
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Compilation of columnar implementation class failed. " +
+                    "Check the stack trace for more information.", e);
+        }
+
+        return columnarImplementation;
+    }
+
+    /**
+     * Generates the off-heap implementation of a data object, which holds its properties in a record of
+     * an {@link OffHeapArena}.
+     *
+     * @param descriptorType The type of the data object.
+     * @return The off-heap implementation class.
+     */
+    protected Class<?> createOffHeapImplementation(Class<?> descriptorType) {
+        ClassPool classPool = getClassPool();
+        DataObjectImplementationBuilder implementationBuilder = getDataObjectImplementationBuilder(classPool);
+        DataObjectDescriptor<?> descriptor = new DataObjectDescriptorFactoryImpl().createDataObjectDescriptor(descriptorType);
+        List<ValueDescriptor> valueDescriptors = descriptor.getValueDescriptors();
+        List<Expression> expressions = parseExpressions(descriptorType, valueDescriptors);
+        ExpressionTrie trie = new ExpressionTrie(expressions);
+        OffHeapLayout layout = new OffHeapLayout(valueDescriptors);
+        CtClass ctClass = implementationBuilder.newOffHeapImplementation(descriptorType);
+
+        implementationBuilder.addInterface(ctClass, descriptorType);
+        implementationBuilder.transferTypeAnnotations(descriptor, ctClass);
+
+        // The constructor declares the fields that the accessors read the record through
+        implementationBuilder.addOffHeapConstructor(ctClass, layout,
+                createInitializers(implementationBuilder, ctClass, valueDescriptors, expressions, trie, layout, 0), trie);
+
+        for (ValueDescriptor value : valueDescriptors) {
+            CtMethod ctAccessor = implementationBuilder.addAccessorCode(ctClass, value.getAccessor().getName(), value.getPropertyType(),
+                    layout.getReadCode("this", value.getProperty()));
+
+            implementationBuilder.transferMethodAnnotations(descriptor, ctClass, value.getAccessor(), ctAccessor);
+        }
+
+        implementationBuilder.addEqualsMethod(ctClass, valueDescriptors, layout);
+        implementationBuilder.addHashCodeMethod(ctClass, valueDescriptors, layout);
+
+        try {
+            return ctClass.toClass();
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Compilation of off-heap implementation class failed. " +
+                    "Check the stack trace for more information.", e);
+        }
+    }
+
+    private static List<Expression> parseExpressions(Class<?> descriptorType, List<ValueDescriptor> valueDescriptors) {
+        List<Expression> expressions = new ArrayList<Expression>(valueDescriptors.size());
+
+        for (ValueDescriptor value : valueDescriptors) {
             try {
-                in = new ByteArrayInputStream(value.getExpression().getBytes());
-                parser = new DTOELParser(in, "UTF-8");
-                expression = parser.Expression();
-            } catch (ParseException e) {
+                expressions.add(Expression.parse(value.getExpression()));
+            } catch (InvalidExpressionException e) {
                 throw new DataObjectGenerationException("Failed to compile expression " + value.getExpression() +
                         " while generating implementation class for " + descriptorType.getName(), e);
             }
+        }
 
-            // Create a new field to hold the value
-            ctField = implementationBuilder.addField(ctClass, propertyType, value.getProperty());
+        return expressions;
+    }
 
-            // Create an accessor for the field
-            ctAccessor = implementationBuilder.addAccessor(ctClass, value.getAccessor().getName(), value.getProperty());
+    /**
+     * Creates the statements that initialize the properties of a data object from the source, the
+     * assembler and the parameters of the assembly, passed as <code>$1</code>, <code>$2</code> and
+     * <code>$3</code>. The getters of the expressions are added to the class that declares the statements.
+     *
+     * @param implementationBuilder The builder of the class.
+     * @param ctClass The class that declares the statements.
+     * @param valueDescriptors The properties of the data object.
+     * @param expressions The parsed expressions of the properties.
+     * @param trie The trie of the expressions, whose shared prefixes are evaluated before the statements.
+     * @param layout The layout that writes the properties.
+     * @param concurrencyThreshold The number of nested data objects from which properties are assembled
+     *                             concurrently, or <code>0</code> to assemble all properties sequentially.
+     * @return The statements, one per property, except that the properties that are assembled concurrently
+     *         are initialized by a single statement, preceded and followed by the statements that the layout
+     *         requires to initialize the properties, if any.
+     */
+    protected List<String> createInitializers(DataObjectImplementationBuilder implementationBuilder, CtClass ctClass,
+                                              List<ValueDescriptor> valueDescriptors, List<Expression> expressions,
+                                              ExpressionTrie trie, FieldLayout layout, int concurrencyThreshold) {
+        List<String> initializers = new ArrayList<String>(valueDescriptors.size());
+        List<Integer> concurrentProperties = new ArrayList<Integer>();
+        StringBuilder concurrentValues = new StringBuilder();
+        StringBuilder concurrentWrites = new StringBuilder();
 
-            // Create a mutator if the data object is not marked as immutable
-            ctMutator = implementationBuilder.addMutator(ctClass, value);
+        // Nested data objects are only assembled concurrently if there are several properties to assemble at once
+        if (concurrencyThreshold > 0) {
+            for (int i = 0; i < valueDescriptors.size(); i++) {
+                if (DataObjectImplementationBuilder.getComponentType(valueDescriptors.get(i)).isAnnotationPresent(DataObject.class)) {
+                    concurrentProperties.add(i);
+                }
+            }
 
-            // Transfer annotations from the interface to the implementation class
-            implementationBuilder.transferMethodAnnotations(descriptor, ctClass, value.getAccessor(), ctAccessor);
+            if (concurrentProperties.size() < 2) {
+                concurrentProperties.clear();
+            }
+        }
+
+        if (layout.getInitializationCode("this").length() > 0) {
+            initializers.add(layout.getInitializationCode("this"));
+        }
+
+        for (int i = 0; i < valueDescriptors.size(); i++) {
+            ValueDescriptor value = valueDescriptors.get(i);
+            Class<?> propertyType = value.getPropertyType();
+            String statement = null;
+            String check = "";
+            String valueCode = null;
+            String source = "$1";
+            boolean describeSource = true;
+            Expression expression = expressions.get(i);
+            Expression relativeExpression = trie.getRelativeExpression(i);
+            ExpressionTrie.Prefix prefix = trie.getPrefix(i);
+            Class<?> componentType = propertyType;
+            boolean collected = false;
+
+            if (Collection.class.isAssignableFrom(propertyType)) {
+                componentType = BeanUtil.getCollectionComponentType(value.getAccessor().getGenericReturnType().toString());
+            } else if (propertyType.isArray()) {
+                componentType = propertyType.getComponentType();
+            }
+
+            // The getters of arrays and collections of plain values evaluate to a value of the property type, so the
+            // elements of a path are collected into the property directly rather than copied from an intermediate result
+            if ((propertyType.isArray() || Collection.class.isAssignableFrom(propertyType)) && !concurrentProperties.contains(i)
+                    && (prefix == null || !(relativeExpression instanceof ThisExpression))) {
+                collected = ExpressionCodeGenerator.isCollectable(propertyType, componentType);
+            }
+
+            if (prefix == null) {
+                // Create a static getter that evaluates the expression against the source object
+                valueCode = DataObjectImplementationBuilder.getGetterCall(collected
+                        ? implementationBuilder.addGetterField(ctClass, value.getProperty(), value.getExpression(), propertyType, componentType)
+                        : implementationBuilder.addGetterField(ctClass, value.getProperty(), value.getExpression()), "$1");
+            } else if (!(relativeExpression instanceof ThisExpression)) {
+                // The property is initialized from the value of the prefix, so the getter evaluates the remainder of the path
+                source = DataObjectImplementationBuilder.getPrefixVariable(prefix);
+                valueCode = "(" + ExpressionTrie.class.getName() + ".isAggregate(" + source + ") ? "
+                        + DataObjectImplementationBuilder.getGetterCall(collected
+                        ? implementationBuilder.addPathGetterField(ctClass, value.getProperty(), value.getExpression(), propertyType, componentType)
+                        : implementationBuilder.addPathGetterField(ctClass, value.getProperty(), value.getExpression()), "$1") + " : "
+                        + DataObjectImplementationBuilder.getGetterCall(collected
+                        ? implementationBuilder.addGetterField(ctClass, value.getProperty(), relativeExpression.toString(), propertyType, componentType)
+                        : implementationBuilder.addGetterField(ctClass, value.getProperty(), relativeExpression.toString()), source) + ")";
+
+                if (trie.isNullSafeNavigation(i)) {
+                    valueCode = "(" + source + " == null ? null : " + valueCode + ")";
+                } else {
+                    check = "if (" + source + " == null) throw new " + PropertyAccessException.class.getName() + "("
+                            + ExpressionCodeGenerator.literal("Expression '" + prefix.getExpression() + "' evaluates to null") + ");";
+                }
+            } else {
+                // The value of the prefix is the value of the property, so there's no source to describe if it's null
+                valueCode = DataObjectImplementationBuilder.getPrefixVariable(prefix);
+                describeSource = false;
+            }
 
             if (propertyType.isPrimitive()) {
                 // Figure out the corresponding wrapper type for the primitive
-                String wrapperType = getWrapperType(propertyType.getName());
-
-                // Unbox the wrapper type so it's assignable to the primitive field. If BeanUtil.getUnwrappableType
-                // causes an IllegalArgumentException, the source value is null. This should cause an exception, since
-                // we can't unbox a null value. So simply catch the exception and rethrow a nicer exception.
-
-                statement =
-                    $try(
-                        set(value.getProperty()).of($this()).to(
-                            unbox(cast(
-                                call("getUnwrappableValue").of(BeanUtil.class).with(expression, constant(wrapperType))
-                            ).to(wrapperType), wrapperType)
-                        )
-                    ).$catch(IllegalArgumentException.class.getName(), "e",
-                        $throw($new(AssemblyException.class, cat(constant("Failed to assemble property '" +
-                                    value.getProperty() + "': expression evaluates to null: '" + value.getExpression() +
-                                    "' on "), call("getClass").of($(0)))))
-                    );
+                String wrapperType = BeanUtil.getWrapperType(propertyType).getName();
+                String assignment = layout.getInitializationWriteCode("this", value.getProperty(), "((" + wrapperType + ") " + BeanUtil.class.getName() +
+                        ".getUnwrappableValue(value, \"" + wrapperType + "\"))." + propertyType.getName() + "Value()");
+
+                if (expression.isNullSafe()) {
+                    // A null-safe expression that evaluates to null leaves the default value of the primitive
+                    statement = "java.lang.Object value = " + valueCode + ";" +
+                            "if (value != null) {" + assignment + "}";
+                } else {
+                    // Unbox the wrapper type so it's assignable to the primitive field. A null value can't be
+                    // unboxed, so fail with a descriptive exception if the expression evaluates to null.
+                    String message = "Failed to assemble property '" + value.getProperty() +
+                            "': expression evaluates to null: '" + value.getExpression() + "'";
+
+                    statement = "java.lang.Object value = " + valueCode + ";" +
+                            "if (value == null) throw new " + AssemblyException.class.getName() + "(" +
+                            (describeSource ? ExpressionCodeGenerator.literal(message + " on ") + " + " + source + ".getClass()"
+                                    : ExpressionCodeGenerator.literal(message)) + ");" +
+                            assignment;
+                }
             } else {
-                Class<?> componentType = propertyType;
                 String propertyTypeImage = getTypeImage(propertyType);
-                String componentTypeImage = null;
 
-                if (Collection.class.isAssignableFrom(propertyType)) {
-                    componentType = BeanUtil.getCollectionComponentType(value.getAccessor().getGenericReturnType().toString());
-                } else if (propertyType.isArray()) {
-                    componentType = propertyType.getComponentType();
-                }
+                if (collected) {
+                    String assignment = layout.getInitializationWriteCode("this", value.getProperty(), "(" + propertyTypeImage + ") value");
+
+                    if (expression.isNullSafe()) {
+                        statement = "java.lang.Object value = " + valueCode + ";" +
+                                "if (value != null) {" + assignment + "}";
+                    } else {
+                        // A null value fails as it does when it's copied
+                        statement = "java.lang.Object value = " + valueCode + ";" +
+                                "if (value == null) value = " + BeanUtil.class.getName() + ".copy(null, " + propertyTypeImage + ".class, " +
+                                getTypeImage(componentType) + ".class, $2);" + assignment;
+                    }
+                } else if (concurrentProperties.contains(i)) {
+                    // The value is evaluated with the other concurrent properties, and copied by ConcurrentCopy
+                    int n = concurrentProperties.indexOf(i);
+                    String copy = "(" + propertyTypeImage + ") copies[" + n + "]";
+
+                    concurrentValues.append(check)
+                            .append("values[").append(n).append("] = ").append(valueCode).append(";")
+                            .append("types[").append(n).append("] = ").append(propertyTypeImage).append(".class;")
+                            .append("componentTypes[").append(n).append("] = ").append(getTypeImage(componentType)).append(".class;")
+                            .append("nullSafe[").append(n).append("] = ").append(expression.isNullSafe()).append(";");
 
-                componentTypeImage = getTypeImage(componentType);
+                    if (expression.isNullSafe()) {
+                        concurrentWrites.append("if (copies[").append(n).append("] != null) {")
+                                .append(layout.getInitializationWriteCode("this", value.getProperty(), copy)).append("}");
+                    } else {
+                        concurrentWrites.append(layout.getInitializationWriteCode("this", value.getProperty(), copy));
+                    }
 
-                statement = set(value.getProperty()).of($this()).to(
-                    cast(
-                        call("copy").of(BeanUtil.class).with(expression, $("class").of(propertyTypeImage), $("class").of(componentTypeImage), $(1))
-                    ).to(getTypeImage(value.getPropertyType()))
-                );
+                    continue;
+                } else if (expression.isNullSafe()) {
+                    // Null values can't be copied to arrays and collections, so leave the property unset
+                    statement = "java.lang.Object value = " + valueCode + ";" +
+                            "if (value != null) {" +
+                            layout.getInitializationWriteCode("this", value.getProperty(), "(" + propertyTypeImage + ") " + BeanUtil.class.getName() +
+                                    ".copy(value, " + propertyTypeImage + ".class, " + getTypeImage(componentType) + ".class, $2)") +
+                            "}";
+                } else {
+                    statement = layout.getInitializationWriteCode("this", value.getProperty(), "(" + propertyTypeImage + ") " + BeanUtil.class.getName() +
+                            ".copy(" + valueCode + ", " + propertyTypeImage + ".class, " +
+                            getTypeImage(componentType) + ".class, $2)");
+                }
             }
 
-            // Add an initializer to the implementation class
-            initializers.add(implementationBuilder.addInitializer(ctClass, value.getProperty(), statement));
+            // The initialization is inlined into the constructor
+            initializers.add(check + statement);
         }
 
-        implementationBuilder.addDefaultConstructor(ctClass);
-        implementationBuilder.addBuilderConstructor(ctClass);
-        implementationBuilder.addConversionConstructor(ctClass, initializers);
+        if (!concurrentProperties.isEmpty()) {
+            int count = concurrentProperties.size();
 
-        implementationBuilder.addEqualsMethod(ctClass, valueDescriptors);
+            initializers.add("java.lang.Object[] values = new java.lang.Object[" + count + "];" +
+                    "java.lang.Class[] types = new java.lang.Class[" + count + "];" +
+                    "java.lang.Class[] componentTypes = new java.lang.Class[" + count + "];" +
+                    "boolean[] nullSafe = new boolean[" + count + "];" +
+                    concurrentValues +
+                    "java.lang.Object[] copies = " + ConcurrentCopy.class.getName() +
+                    ".copyAll(values, types, componentTypes, nullSafe, $2, " + concurrencyThreshold + ");" +
+                    concurrentWrites);
+        }
 
-        try {
-            return ctClass.toClass();
-        } catch (CannotCompileException e) {
-            throw new DataObjectGenerationException("Compilation of data object implementation class failed. " +
-                    "Check the stack trace for more information.", e);
+        if (layout.getCompletionCode("this").length() > 0) {
+            initializers.add(layout.getCompletionCode("this"));
         }
+
+        return initializers;
     }
 
     protected String getTypeImage(Class<?> type) {
-        if (type.isArray()) {
-            return getTypeImage(type.getComponentType()) + "[]";
-        } else {
-            return type.getName();
-        }
+        return ExpressionCodeGenerator.getTypeImage(type);
     }
 
     protected DataObjectImplementationBuilder getDataObjectImplementationBuilder(ClassPool classPool) {
-        return new DataObjectImplementationBuilder(classPool);
+        DataObjectImplementationBuilder implementationBuilder = new DataObjectImplementationBuilder(classPool);
+
+        implementationBuilder.setMaxMethodSize(maxMethodSize);
+
+        return implementationBuilder;
     }
 
     protected ClassPool getClassPool() {    
@@ -269,4 +1175,84 @@ public class AssemblerImpl implements Assembler {
         return classPool;
     }
 
+    /**
+     * An assembler that binds the parameters of an assembly, so that the parameters are available when
+     * nested data objects are assembled.
+     */
+    private static class ParameterizedAssembler implements Assembler {
+
+        private AssemblerImpl assembler;
+
+        private Object[] parameters;
+
+        private ParameterizedAssembler(AssemblerImpl assembler, Object[] parameters) {
+            this.assembler = assembler;
+            this.parameters = parameters;
+        }
+
+        public <T> T assemble(Object source, Class<T> dataObjectType) {
+            return assembler.assemble(source, dataObjectType, parameters);
+        }
+
+        public <T> T assemble(Object source, Class<T> dataObjectType, Object[] parameters) {
+            return assembler.assemble(source, dataObjectType, parameters);
+        }
+
+        public <T> T assemble(Class<T> dataObjectType, PropertyValue... properties) {
+            return assembler.assemble(dataObjectType, properties);
+        }
+
+        public <T> List<T> assembleAll(Iterable<?> sources, Class<T> dataObjectType) {
+            return assembler.assembleAll(sources, dataObjectType, parameters);
+        }
+
+        public <T> List<T> assembleAll(Object[] sources, Class<T> dataObjectType) {
+            return assembler.assembleAll(Arrays.asList(sources), dataObjectType, parameters);
+        }
+
+        public <T> List<T> assembleAll(Iterable<?> sources, Class<T> dataObjectType, Object[] parameters) {
+            return assembler.assembleAll(sources, dataObjectType, parameters);
+        }
+
+        public <T> Future<T> assembleAsync(Object source, Class<T> dataObjectType) {
+            return assembler.assembleAsync(source, dataObjectType, parameters, assembler.getAsyncExecutor());
+        }
+
+        public <T> Future<List<T>> assembleAllAsync(Iterable<?> sources, Class<T> dataObjectType) {
+            return assembler.assembleAllAsync(sources, dataObjectType, parameters);
+        }
+
+        public <T> Iterator<T> stream(Iterator<?> sources, Class<T> dataObjectType) {
+            return assembler.stream(sources, dataObjectType, parameters);
+        }
+
+        public <T> Iterator<T> stream(Iterator<?> sources, Class<T> dataObjectType, Object[] parameters) {
+            return assembler.stream(sources, dataObjectType, parameters);
+        }
+
+        public <T> List<T> assembleColumnar(Iterable<?> sources, Class<T> dataObjectType) {
+            return assembler.assembleColumnar(sources, dataObjectType, parameters);
+        }
+
+        public <T> List<T> assembleColumnar(Iterable<?> sources, Class<T> dataObjectType, Object[] parameters) {
+            return assembler.assembleColumnar(sources, dataObjectType, parameters);
+        }
+
+        public <T> T assembleOffHeap(Object source, Class<T> dataObjectType, OffHeapArena arena) {
+            return assembler.assembleOffHeap(source, dataObjectType, arena, parameters);
+        }
+
+        public <T> T assembleOffHeap(Object source, Class<T> dataObjectType, OffHeapArena arena, Object[] parameters) {
+            return assembler.assembleOffHeap(source, dataObjectType, arena, parameters);
+        }
+
+        public AssemblyContext newContext() {
+            return assembler.newContext();
+        }
+
+        public <T> Class<? extends T> getDataObjectImplementation(Class<T> descriptorType) {
+            return assembler.getDataObjectImplementation(descriptorType);
+        }
+    }
+
 }
@@ -0,0 +1,269 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import net.sf.jdpa.NotNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded cache of assembled data objects, keyed by the type of the data object and the identity of its
+ * source. Each entry holds the version of the source it was assembled from, and is only reused as long as
+ * the version of the source is unchanged.
+ * <p/>
+ * The cache is a segmented LRU: new entries are admitted to a probationary segment, and are promoted to a
+ * protected segment when they're read again. Entries are evicted from the probationary segment first, so
+ * entries that are read repeatedly survive scans of entries that are read once. Entries also expire once
+ * they've been cached for longer than the time to live, if any.
+ * <p/>
+ * The cache is synchronized and may be shared between assemblers and threads.
+ */
+public class AssemblyCache {
+
+    private static final int PROTECTED_PERCENTAGE = 80;
+
+    private int maximumSize;
+
+    private int protectedSize;
+
+    private long timeToLive;
+
+    private Map<Key, Entry> probationary = new LinkedHashMap<Key, Entry>(16, 0.75F, true);
+
+    private Map<Key, Entry> protectedEntries = new LinkedHashMap<Key, Entry>(16, 0.75F, true);
+
+    private long hitCount = 0;
+
+    private long missCount = 0;
+
+    private long evictionCount = 0;
+
+    private long expirationCount = 0;
+
+    /**
+     * Creates a cache whose entries don't expire.
+     *
+     * @param maximumSize The maximum number of entries of the cache.
+     */
+    public AssemblyCache(int maximumSize) {
+        this(maximumSize, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a cache whose entries expire after a time to live.
+     *
+     * @param maximumSize The maximum number of entries of the cache.
+     * @param timeToLive  The time that entries are reused after they're cached, or <code>0</code> if they don't expire.
+     * @param unit        The unit of the time to live.
+     */
+    public AssemblyCache(int maximumSize, long timeToLive, @NotNull TimeUnit unit) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("Time to live must not be negative: " + timeToLive);
+        }
+
+        this.maximumSize = maximumSize;
+        this.protectedSize = (int) ((long) maximumSize * PROTECTED_PERCENTAGE / 100);
+        this.timeToLive = unit.toNanos(timeToLive);
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the data object assembled from a source, provided that it was assembled from the same
+     * version of the source and hasn't expired.
+     *
+     * @param dataObjectType The type of the data object.
+     * @param id             The identity of the source.
+     * @param version        The version of the source, possibly <code>null</code>.
+     * @return The cached data object, or <code>null</code> if none is cached.
+     */
+    public synchronized Object get(@NotNull Class<?> dataObjectType, @NotNull Object id, Object version) {
+        Key key = new Key(dataObjectType, id);
+        Entry entry = probationary.remove(key);
+
+        if (entry == null) {
+            entry = protectedEntries.remove(key);
+        }
+
+        // Stale and expired entries are dropped, since they would be replaced by the data object that is assembled instead
+        if (entry == null || !isValid(entry, version)) {
+            missCount++;
+            return null;
+        }
+
+        // The entry has been read since it was admitted, so it becomes the newest protected entry
+        protect(key, entry);
+        hitCount++;
+
+        return entry.dataObject;
+    }
+
+    /**
+     * Caches the data object assembled from a version of a source, replacing any data object that was
+     * assembled from the source before.
+     *
+     * @param dataObjectType The type of the data object.
+     * @param id             The identity of the source.
+     * @param version        The version of the source, possibly <code>null</code>.
+     * @param dataObject     The data object.
+     */
+    public synchronized void put(@NotNull Class<?> dataObjectType, @NotNull Object id, Object version, @NotNull Object dataObject) {
+        Key key = new Key(dataObjectType, id);
+        Entry entry = new Entry(version, dataObject, System.nanoTime());
+
+        if (protectedEntries.containsKey(key)) {
+            protectedEntries.put(key, entry);
+            return;
+        }
+
+        probationary.put(key, entry);
+
+        while (probationary.size() + protectedEntries.size() > maximumSize) {
+            evictEldest(probationary.isEmpty() ? protectedEntries : probationary);
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Removes the data object assembled from a source, e.g. when the source is changed without
+     * changing its version.
+     *
+     * @param dataObjectType The type of the data object.
+     * @param id             The identity of the source.
+     */
+    public synchronized void invalidate(@NotNull Class<?> dataObjectType, @NotNull Object id) {
+        Key key = new Key(dataObjectType, id);
+
+        if (probationary.remove(key) == null) {
+            protectedEntries.remove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        probationary.clear();
+        protectedEntries.clear();
+    }
+
+    public synchronized int size() {
+        return probationary.size() + protectedEntries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of entries that have been evicted to bound the size of the cache.
+     *
+     * @return The number of evicted entries.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of entries that have been removed because they had expired.
+     *
+     * @return The number of expired entries.
+     */
+    public synchronized long getExpirationCount() {
+        return expirationCount;
+    }
+
+    private boolean isValid(Entry entry, Object version) {
+        if (timeToLive > 0 && System.nanoTime() - entry.cachedAt >= timeToLive) {
+            expirationCount++;
+            return false;
+        }
+
+        return (version == null ? entry.version == null : version.equals(entry.version));
+    }
+
+    private void protect(Key key, Entry entry) {
+        protectedEntries.put(key, entry);
+
+        // Entries that are demoted from the protected segment get another chance as the newest probationary entries
+        while (protectedEntries.size() > protectedSize) {
+            Iterator<Map.Entry<Key, Entry>> eldest = protectedEntries.entrySet().iterator();
+            Map.Entry<Key, Entry> demoted = eldest.next();
+
+            eldest.remove();
+            probationary.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private static void evictEldest(Map<Key, Entry> segment) {
+        Iterator<Key> eldest = segment.keySet().iterator();
+
+        eldest.next();
+        eldest.remove();
+    }
+
+    private static final class Key {
+
+        private final Class<?> dataObjectType;
+
+        private final Object id;
+
+        private Key(Class<?> dataObjectType, Object id) {
+            this.dataObjectType = dataObjectType;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key that = (Key) o;
+
+            return dataObjectType == that.dataObjectType && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * dataObjectType.hashCode() + id.hashCode();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object version;
+
+        private final Object dataObject;
+
+        private final long cachedAt;
+
+        private Entry(Object version, Object dataObject, long cachedAt) {
+            this.version = version;
+            this.dataObject = dataObject;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+}
@@ -0,0 +1,290 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.Assembler;
+import com.googlecode.bumblebee.dto.AssemblyContext;
+import com.googlecode.bumblebee.dto.AssemblyException;
+import com.googlecode.bumblebee.dto.OffHeapArena;
+import com.googlecode.bumblebee.dto.PropertyValue;
+import net.sf.jdpa.NotNull;
+
+import java.util.*;
+import java.util.concurrent.Future;
+
+/**
+ * An assembly context that memoizes the data objects it assembles per implementation class and identity
+ * of the source object. The data objects are constructed with the context as their assembler, so nested
+ * data objects are memoized as well. The context may be shared by the threads that assemble nested data
+ * objects concurrently: a source is only assembled by the first thread that requests it, and the other
+ * threads wait until its data object has registered itself. The registered data object may still be
+ * initializing its properties, as it is for a cyclic reference within a single thread.
+ * <p/>
+ * Data objects that are assembled with parameters are memoized by a context per set of parameters, which
+ * is the assembler of their nested data objects. The contexts are retained by the context that the
+ * {@link AssemblerImpl#newContext() assembler} created.
+ */
+class AssemblyContextImpl implements AssemblyContext {
+
+    private AssemblerImpl assembler;
+
+    private AssemblyContextImpl root;
+
+    private Object[] parameters;
+
+    private Assembler delegate;
+
+    private Map<Class<?>, Class<?>> implementations = new HashMap<Class<?>, Class<?>>();
+
+    private Map<Class<?>, Map<Object, Assembly>> assemblies = new HashMap<Class<?>, Map<Object, Assembly>>();
+
+    private Map<List<Object>, AssemblyContextImpl> parameterizedContexts = new HashMap<List<Object>, AssemblyContextImpl>();
+
+    AssemblyContextImpl(AssemblerImpl assembler) {
+        this(assembler, null, null);
+    }
+
+    private AssemblyContextImpl(AssemblerImpl assembler, AssemblyContextImpl root, Object[] parameters) {
+        this.assembler = assembler;
+        this.root = (root == null ? this : root);
+        this.parameters = parameters;
+        this.delegate = assembler.bind(parameters);
+    }
+
+    AssemblerImpl getAssembler() {
+        return assembler;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T assemble(@NotNull Object source, @NotNull Class<T> dataObjectType) {
+        Class<?> implementation = getImplementation(dataObjectType);
+        Object dataObject = null;
+
+        synchronized (this) {
+            Assembly assembly = lookup(implementation, source);
+
+            // Another thread is assembling the source, but its data object hasn't registered itself yet
+            while (assembly != null && assembly.dataObject == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AssemblyException("Interrupted while waiting for the assembly of " + dataObjectType.getName(), e);
+                }
+
+                assembly = lookup(implementation, source);
+            }
+
+            if (assembly != null) {
+                return (T) assembly.dataObject;
+            }
+
+            // Claim the source, so it's only assembled by this thread
+            getAssemblies(implementation).put(source, new Assembly());
+        }
+
+        try {
+            if (parameters == null) {
+                dataObject = assembler.createDataObjectInstance(dataObjectType, new Class[] { Object.class, Assembler.class },
+                        new Object[] { source, this });
+            } else {
+                dataObject = assembler.createDataObjectInstance(dataObjectType, new Class[] { Object.class, Assembler.class, Object[].class },
+                        new Object[] { source, this, parameters });
+            }
+        } catch (RuntimeException e) {
+            // Don't retain a data object that failed to initialize after registering itself
+            forget(implementation, source);
+            throw e;
+        }
+
+        register(source, dataObject);
+
+        return (T) dataObject;
+    }
+
+    public <T> T assemble(@NotNull Object source, @NotNull Class<T> dataObjectType, Object[] parameters) {
+        return root.getContext(parameters).assemble(source, dataObjectType);
+    }
+
+    public <T> T assemble(@NotNull Class<T> dataObjectType, PropertyValue... properties) {
+        return assembler.assemble(dataObjectType, properties);
+    }
+
+    public <T> List<T> assembleAll(@NotNull Iterable<?> sources, @NotNull Class<T> dataObjectType) {
+        List<T> dataObjects = (sources instanceof Collection ? new ArrayList<T>(((Collection<?>) sources).size()) : new ArrayList<T>());
+
+        for (Object source : sources) {
+            if (source == null) {
+                throw new IllegalArgumentException("Source objects must not be null");
+            }
+
+            dataObjects.add(assemble(source, dataObjectType));
+        }
+
+        return dataObjects;
+    }
+
+    public <T> List<T> assembleAll(@NotNull Object[] sources, @NotNull Class<T> dataObjectType) {
+        return assembleAll(Arrays.asList(sources), dataObjectType);
+    }
+
+    public <T> List<T> assembleAll(@NotNull Iterable<?> sources, @NotNull Class<T> dataObjectType, Object[] parameters) {
+        return root.getContext(parameters).assembleAll(sources, dataObjectType);
+    }
+
+    public <T> Future<T> assembleAsync(Object source, Class<T> dataObjectType) {
+        return delegate.assembleAsync(source, dataObjectType);
+    }
+
+    public <T> Future<List<T>> assembleAllAsync(Iterable<?> sources, Class<T> dataObjectType) {
+        return delegate.assembleAllAsync(sources, dataObjectType);
+    }
+
+    public <T> Iterator<T> stream(@NotNull final Iterator<?> sources, @NotNull final Class<T> dataObjectType) {
+        return new Iterator<T>() {
+
+            public boolean hasNext() {
+                return sources.hasNext();
+            }
+
+            public T next() {
+                Object source = sources.next();
+
+                if (source == null) {
+                    throw new IllegalArgumentException("Source objects must not be null");
+                }
+
+                return assemble(source, dataObjectType);
+            }
+
+            public void remove() {
+                sources.remove();
+            }
+
+        };
+    }
+
+    public <T> Iterator<T> stream(@NotNull Iterator<?> sources, @NotNull Class<T> dataObjectType, Object[] parameters) {
+        return root.getContext(parameters).stream(sources, dataObjectType);
+    }
+
+    public <T> List<T> assembleColumnar(Iterable<?> sources, Class<T> dataObjectType) {
+        return delegate.assembleColumnar(sources, dataObjectType);
+    }
+
+    public <T> List<T> assembleColumnar(Iterable<?> sources, Class<T> dataObjectType, Object[] parameters) {
+        return assembler.assembleColumnar(sources, dataObjectType, parameters);
+    }
+
+    public <T> T assembleOffHeap(Object source, Class<T> dataObjectType, OffHeapArena arena) {
+        return delegate.assembleOffHeap(source, dataObjectType, arena);
+    }
+
+    public <T> T assembleOffHeap(Object source, Class<T> dataObjectType, OffHeapArena arena, Object[] parameters) {
+        return assembler.assembleOffHeap(source, dataObjectType, arena, parameters);
+    }
+
+    public AssemblyContext newContext() {
+        return assembler.newContext();
+    }
+
+    public <T> Class<? extends T> getDataObjectImplementation(Class<T> descriptorType) {
+        return assembler.getDataObjectImplementation(descriptorType);
+    }
+
+    public synchronized void register(@NotNull Object source, @NotNull Object dataObject) {
+        Map<Object, Assembly> implementationAssemblies = getAssemblies(dataObject.getClass());
+        Assembly assembly = implementationAssemblies.get(source);
+
+        if (assembly == null) {
+            assembly = new Assembly();
+            implementationAssemblies.put(source, assembly);
+        }
+
+        assembly.dataObject = dataObject;
+        notifyAll();
+    }
+
+    /**
+     * Returns the context that memoizes the data objects assembled with a set of parameters.
+     *
+     * @param parameters The parameters of the assembly.
+     * @return This context if there are no parameters, otherwise the context of the parameters.
+     */
+    private synchronized AssemblyContextImpl getContext(Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return this;
+        }
+
+        List<Object> key = new ArrayList<Object>(Arrays.asList(parameters));
+        AssemblyContextImpl context = parameterizedContexts.get(key);
+
+        if (context == null) {
+            context = new AssemblyContextImpl(assembler, this, key.toArray());
+            parameterizedContexts.put(key, context);
+        }
+
+        return context;
+    }
+
+    private Map<Object, Assembly> getAssemblies(Class<?> implementation) {
+        Map<Object, Assembly> implementationAssemblies = assemblies.get(implementation);
+
+        if (implementationAssemblies == null) {
+            implementationAssemblies = new IdentityHashMap<Object, Assembly>();
+            assemblies.put(implementation, implementationAssemblies);
+        }
+
+        return implementationAssemblies;
+    }
+
+    private synchronized Class<?> getImplementation(Class<?> dataObjectType) {
+        Class<?> implementation = implementations.get(dataObjectType);
+
+        if (implementation == null) {
+            implementation = assembler.getDataObjectImplementation(dataObjectType);
+            implementations.put(dataObjectType, implementation);
+        }
+
+        return implementation;
+    }
+
+    private synchronized Assembly lookup(Class<?> implementation, Object source) {
+        Map<Object, Assembly> implementationAssemblies = assemblies.get(implementation);
+
+        return (implementationAssemblies == null ? null : implementationAssemblies.get(source));
+    }
+
+    private synchronized void forget(Class<?> implementation, Object source) {
+        Map<Object, Assembly> implementationAssemblies = assemblies.get(implementation);
+
+        if (implementationAssemblies != null) {
+            implementationAssemblies.remove(source);
+        }
+
+        // Threads that wait for the data object assemble the source themselves
+        notifyAll();
+    }
+
+    /**
+     * The assembly of a source object, which is claimed by a thread before its data object is constructed.
+     */
+    private static class Assembly {
+
+        private Object dataObject;
+
+    }
+
+}
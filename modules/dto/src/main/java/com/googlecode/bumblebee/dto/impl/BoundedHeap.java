@@ -0,0 +1,153 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selects the elements with the largest keys from a sequence of elements, without sorting or copying
+ * the entire sequence. The heap holds at most <code>capacity</code> elements and the element with the
+ * smallest key is evicted when a larger key is offered, so selecting the top <i>n</i> of <i>m</i>
+ * elements takes <i>O(m log n)</i> time and <i>O(n)</i> space. Keys are compared as
+ * {@link Comparable}s and <code>null</code> keys are smaller than all other keys.
+ * <p/>
+ * The heap is used by generated code to evaluate <code>top</code> expressions, e.g.
+ * <code>orders top 5 by date</code>.
+ */
+public class BoundedHeap {
+
+    private Object[] keys;
+
+    private Object[] elements;
+
+    private int size = 0;
+
+    public BoundedHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+
+        this.keys = new Object[capacity];
+        this.elements = new Object[capacity];
+    }
+
+    /**
+     * Offers an element to the heap. The element is retained if the heap isn't full or if its key is
+     * larger than the smallest key of the heap.
+     *
+     * @param key     The key of the element.
+     * @param element The element.
+     */
+    public void offer(Object key, Object element) {
+        if (size < keys.length) {
+            keys[size] = key;
+            elements[size] = element;
+            siftUp(size++);
+        } else if (size > 0 && compare(key, keys[0]) > 0) {
+            keys[0] = key;
+            elements[0] = element;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all elements from the heap and returns them ordered by descending key.
+     *
+     * @return The elements with the largest keys.
+     */
+    public List<Object> toList() {
+        Object[] result = new Object[size];
+
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = elements[0];
+            size--;
+            keys[0] = keys[size];
+            elements[0] = elements[size];
+            keys[size] = null;
+            elements[size] = null;
+            siftDown(0);
+        }
+
+        List<Object> list = new ArrayList<Object>(result.length);
+
+        for (Object element : result) {
+            list.add(element);
+        }
+
+        return list;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+
+            if (compare(keys[index], keys[parent]) >= 0) {
+                break;
+            }
+
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+
+            if (left < size && compare(keys[left], keys[smallest]) < 0) {
+                smallest = left;
+            }
+
+            if (right < size && compare(keys[right], keys[smallest]) < 0) {
+                smallest = right;
+            }
+
+            if (smallest == index) {
+                break;
+            }
+
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Object key = keys[i];
+        Object element = elements[i];
+
+        keys[i] = keys[j];
+        elements[i] = elements[j];
+        keys[j] = key;
+        elements[j] = element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object key1, Object key2) {
+        if (key1 == null) {
+            return (key2 == null ? 0 : -1);
+        } else if (key2 == null) {
+            return 1;
+        } else {
+            return ((Comparable) key1).compareTo(key2);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.Layout;
+import com.googlecode.bumblebee.dto.ValueDescriptor;
+import net.sf.jdpa.NotNull;
+
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * The layout of a {@link ColumnarList columnar} data object implementation, where each property is held
+ * by an array. The properties are written by the columnar implementation, to the row given by its
+ * <code>size</code>, and are read by the views, from the row given by their <code>index</code>.
+ */
+public class ColumnLayout extends FieldLayout {
+
+    private static final String COLUMN_PREFIX = "column_";
+
+    private Map<String, Class<?>> columns = new LinkedHashMap<String, Class<?>>();
+
+    public ColumnLayout(@NotNull List<ValueDescriptor> values) {
+        super(values, Layout.DECLARATION);
+
+        for (ValueDescriptor value : values) {
+            columns.put(COLUMN_PREFIX + value.getProperty(), Array.newInstance(value.getPropertyType(), 0).getClass());
+        }
+    }
+
+    /**
+     * Returns the columns of the columnar implementation, named after the properties.
+     *
+     * @return The array types of the columns by name.
+     */
+    @Override
+    public Map<String, Class<?>> getFields() {
+        return Collections.unmodifiableMap(columns);
+    }
+
+    @Override
+    public List<ValueDescriptor> getEncodedProperties() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * The views don't hold the properties, so no property is held by a field of its own.
+     */
+    @Override
+    public boolean hasField(@NotNull String property) {
+        return false;
+    }
+
+    @Override
+    public boolean isValueArray(@NotNull String field) {
+        return false;
+    }
+
+    /**
+     * Returns an expression that reads a property from the row of a view.
+     *
+     * @param target The expression that evaluates to the view, e.g. <code>this</code>.
+     * @param property The name of the property.
+     * @return An expression that evaluates to the value of the property.
+     */
+    @Override
+    public String getReadCode(@NotNull String target, @NotNull String property) {
+        return target + ".columns." + COLUMN_PREFIX + property + "[" + target + ".index]";
+    }
+
+    /**
+     * Returns a statement that writes a property to the row of the columnar implementation that is
+     * being assembled.
+     *
+     * @param target The expression that evaluates to the columnar implementation, e.g. <code>this</code>.
+     * @param property The name of the property.
+     * @param value An expression that evaluates to the value of the property.
+     * @return A statement that assigns the value to the property.
+     */
+    @Override
+    public String getWriteCode(@NotNull String target, @NotNull String property, @NotNull String value) {
+        return target + "." + COLUMN_PREFIX + property + "[" + target + ".size] = " + value + ";";
+    }
+
+}
@@ -0,0 +1,118 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.Assembler;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Base class of the generated columnar implementations of data objects. Each property of the data
+ * object is held by an array, a column, with one element per assembled source. The elements of the
+ * list are views of a row of the columns, which are created when the elements are accessed.
+ * <p/>
+ * The list is unmodifiable once it has been assembled, and isn't safe for assembly by several threads.
+ *
+ * @see com.googlecode.bumblebee.dto.Assembler#assembleColumnar
+ */
+public abstract class ColumnarList<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The number of assembled rows, which is also the row that is assembled by {@link #assembleRow}.
+     */
+    protected int size = 0;
+
+    private int capacity = 0;
+
+    /**
+     * Assembles a row for each of the sources. The columns are sized after the number of sources if the
+     * sources are a collection, and are trimmed to the number of rows when all sources are assembled.
+     *
+     * @param sources The source objects.
+     * @param assembler The assembler of nested data objects.
+     * @param parameters The parameters of the assembly, possibly <code>null</code>.
+     */
+    public void assembleAll(Iterable<?> sources, Assembler assembler, Object[] parameters) {
+        if (sources instanceof Collection) {
+            ensureCapacity(size + ((Collection<?>) sources).size());
+        }
+
+        for (Object source : sources) {
+            if (source == null) {
+                throw new IllegalArgumentException("Row " + size + " of columnar data object: source is null");
+            }
+
+            if (size == capacity) {
+                ensureCapacity(Math.max(DEFAULT_CAPACITY, capacity * 2));
+            }
+
+            assembleRow(source, assembler, parameters);
+            size++;
+        }
+
+        if (capacity > size) {
+            resize(size);
+            capacity = size;
+        }
+    }
+
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return createView(index);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > capacity) {
+            resize(minimumCapacity);
+            capacity = minimumCapacity;
+        }
+    }
+
+    /**
+     * Resizes the columns, keeping the assembled rows.
+     *
+     * @param capacity The new length of the columns, at least {@link #size}.
+     */
+    protected abstract void resize(int capacity);
+
+    /**
+     * Assembles the row {@link #size} of the columns from a source object.
+     *
+     * @param source The source object.
+     * @param assembler The assembler of nested data objects.
+     * @param parameters The parameters of the assembly, possibly <code>null</code>.
+     */
+    protected abstract void assembleRow(Object source, Assembler assembler, Object[] parameters);
+
+    /**
+     * Creates a view of a row of the columns.
+     *
+     * @param index The index of the row.
+     * @return A data object that reads its properties from the row.
+     */
+    protected abstract T createView(int index);
+
+}
@@ -0,0 +1,154 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.Getter;
+import com.googlecode.bumblebee.dto.el.Expression;
+import net.sf.jdpa.NotEmpty;
+import net.sf.jdpa.NotNull;
+
+/**
+ * The getter returned by {@link ExpressionCompilerImpl#compile(String)}. The expression is compiled
+ * into a specialized getter for each source class it's evaluated against. The specializations of the
+ * last few source classes are kept in a local cache, so the lookup in the compiler is skipped as long as
+ * the getter is evaluated against objects of a few classes, e.g. entities and their proxies.
+ */
+public class CompiledExpression implements Getter {
+
+    private ExpressionCompilerImpl compiler;
+
+    private String expression;
+
+    private Expression parsedExpression;
+
+    private Class<?> targetType;
+
+    private Class<?> componentType;
+
+    private static final int MAX_SPECIALIZATIONS = 8;
+
+    private volatile Specialization[] specializations = new Specialization[0];
+
+    public CompiledExpression(@NotNull ExpressionCompilerImpl compiler, @NotEmpty String expression, @NotNull Expression parsedExpression) {
+        this.compiler = compiler;
+        this.expression = expression;
+        this.parsedExpression = parsedExpression;
+    }
+
+    public CompiledExpression(@NotNull ExpressionCompilerImpl compiler, @NotEmpty String expression, @NotNull Expression parsedExpression,
+                              @NotNull Class<?> targetType, @NotNull Class<?> componentType) {
+        this(compiler, expression, parsedExpression);
+        this.targetType = targetType;
+        this.componentType = componentType;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public Expression getParsedExpression() {
+        return parsedExpression;
+    }
+
+    /**
+     * Returns the type of the property that the values of the expression are copied to.
+     *
+     * @return The target type, or <code>null</code> if the values are returned as they're evaluated.
+     */
+    public Class<?> getTargetType() {
+        return targetType;
+    }
+
+    public Class<?> getComponentType() {
+        return componentType;
+    }
+
+    /**
+     * Returns the key of the getters of this expression, which includes the target type if there is one.
+     *
+     * @return The expression and the target type.
+     */
+    public String getKey() {
+        return getKey(expression, targetType, componentType);
+    }
+
+    static String getKey(String expression, Class<?> targetType, Class<?> componentType) {
+        return (targetType == null ? expression : expression + " -> " + targetType.getName() + "<" + componentType.getName() + ">");
+    }
+
+    public Object get(@NotNull Object source) {
+        return get(source, (Object[]) null);
+    }
+
+    public Object get(@NotNull Object source, Object ... parameters) {
+        Class<?> sourceType = source.getClass();
+        Specialization[] specializations = this.specializations;
+
+        for (Specialization specialization : specializations) {
+            if (specialization.sourceType == sourceType) {
+                return specialization.getter.get(source, parameters);
+            }
+        }
+
+        return specialize(sourceType, specializations).getter.get(source, parameters);
+    }
+
+    /**
+     * Returns the getter that is specialized for a source class.
+     *
+     * @param sourceType The class of the source objects.
+     * @return The generated getter for the source class.
+     */
+    public Getter getSpecialization(@NotNull Class<?> sourceType) {
+        return compiler.getGetter(this, sourceType);
+    }
+
+    /**
+     * Adds the specialization of a source class to the local cache. The oldest specialization is dropped
+     * if the cache is full; its getter is still cached by the compiler.
+     */
+    private Specialization specialize(Class<?> sourceType, Specialization[] specializations) {
+        Specialization specialization = new Specialization(sourceType, compiler.getGetter(this, sourceType));
+        int retained = Math.min(specializations.length, MAX_SPECIALIZATIONS - 1);
+        Specialization[] updated = new Specialization[retained + 1];
+
+        // Concurrent updates may drop each other's specializations, which only costs another lookup
+        updated[0] = specialization;
+        System.arraycopy(specializations, 0, updated, 1, retained);
+        this.specializations = updated;
+
+        return specialization;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression{" +
+                "expression='" + expression + '\'' +
+                (targetType == null ? "" : ", targetType=" + targetType.getName() + ", componentType=" + componentType.getName()) +
+                '}';
+    }
+
+    private static final class Specialization {
+
+        private final Class<?> sourceType;
+
+        private final Getter getter;
+
+        private Specialization(Class<?> sourceType, Getter getter) {
+            this.sourceType = sourceType;
+            this.getter = getter;
+        }
+    }
+}
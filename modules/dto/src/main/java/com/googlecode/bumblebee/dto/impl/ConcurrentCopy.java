@@ -0,0 +1,147 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.beans.BeanUtil;
+import com.googlecode.bumblebee.dto.Assembler;
+import com.googlecode.bumblebee.dto.AssemblyException;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Copies the nested data objects of several properties of a data object concurrently, for data objects
+ * with a {@link com.googlecode.bumblebee.dto.DataObject#concurrencyThreshold concurrency threshold}. The
+ * properties with at least as many nested data objects as the threshold are copied by tasks of the
+ * {@link AssemblerImpl#setExecutor executor} of the assembler, except the last of them, which is copied by
+ * the calling thread along with the smaller properties. The tasks are joined before the copies are
+ * returned, and tasks that haven't been started by then are run by the calling thread, so that nested
+ * concurrent assemblies can't starve a bounded executor.
+ *
+ * @see BeanUtil#copy
+ */
+public class ConcurrentCopy {
+
+    private ConcurrentCopy() {
+    }
+
+    /**
+     * Copies the values of properties as by {@link BeanUtil#copy}.
+     *
+     * @param values The values of the properties.
+     * @param types The types of the properties.
+     * @param componentTypes The types of the elements of the properties.
+     * @param nullSafe Whether each value is left <code>null</code>, rather than copied, if it's <code>null</code>.
+     * @param assembler The assembler of the nested data objects.
+     * @param threshold The number of nested data objects from which a property is copied concurrently.
+     * @return The copies of the values, in the order of the values.
+     */
+    public static Object[] copyAll(final Object[] values, final Class[] types, final Class[] componentTypes, boolean[] nullSafe,
+                                   final Assembler assembler, int threshold) {
+        final Object[] copies = new Object[values.length];
+        ExecutorService executor = AssemblerImpl.getExecutor(assembler);
+        List<Integer> concurrentValues = new ArrayList<Integer>();
+        List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>();
+
+        if (executor != null) {
+            for (int i = 0; i < values.length; i++) {
+                if (getSize(values[i]) >= threshold) {
+                    concurrentValues.add(i);
+                }
+            }
+        }
+
+        try {
+            for (int i = 0; i < concurrentValues.size() - 1; i++) {
+                final int index = concurrentValues.get(i);
+                FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+                    public Object call() {
+                        return BeanUtil.copy(values[index], types[index], componentTypes[index], assembler);
+                    }
+                });
+
+                tasks.add(task);
+
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // The task is run by the calling thread when it's joined
+                }
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                int concurrentIndex = concurrentValues.indexOf(i);
+                boolean forked = (concurrentIndex >= 0 && concurrentIndex < tasks.size());
+
+                if (!forked && !(values[i] == null && nullSafe[i])) {
+                    copies[i] = BeanUtil.copy(values[i], types[i], componentTypes[i], assembler);
+                }
+            }
+
+            for (int i = 0; i < tasks.size(); i++) {
+                FutureTask<Object> task = tasks.get(i);
+
+                // Running a task that is already started or done has no effect
+                task.run();
+                copies[concurrentValues.get(i)] = task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssemblyException("Interrupted while assembling nested data objects", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new AssemblyException("Failed to assemble nested data objects", e.getCause());
+            }
+        } finally {
+            for (FutureTask<Object> task : tasks) {
+                task.cancel(false);
+            }
+        }
+
+        return copies;
+    }
+
+    /**
+     * Returns the number of nested data objects of a value. Iterables and iterators that aren't collections
+     * are assumed to be large, since their size isn't known without iterating them.
+     */
+    private static int getSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        } else if (value.getClass().isArray()) {
+            return Array.getLength(value);
+        } else if (value instanceof Iterable || value instanceof Iterator) {
+            return Integer.MAX_VALUE;
+        } else {
+            return 1;
+        }
+    }
+
+}
@@ -17,10 +17,16 @@ package com.googlecode.bumblebee.dto.impl;
 import com.googlecode.bumblebee.beans.BeanUtil;
 import com.googlecode.bumblebee.beans.InvalidAccessorException;
 import com.googlecode.bumblebee.dto.*;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.MethodInfo;
 import net.sf.jdpa.NotNull;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.lang.annotation.Annotation;
+import java.util.*;
 
 /**
  * @author Andreas Nilsson
@@ -50,7 +56,7 @@ public class DataObjectDescriptorFactoryImpl implements DataObjectDescriptorFact
     }
 
     protected void scanInterface(DataObjectDescriptorImpl descriptor, Class<?> dataObjectClass) {
-        for (Method method : dataObjectClass.getDeclaredMethods()) {
+        for (Method method : getDeclaredMethods(dataObjectClass)) {
             Value value = method.getAnnotation(Value.class);
 
             if (value == null) {
@@ -84,9 +90,92 @@ public class DataObjectDescriptorFactoryImpl implements DataObjectDescriptorFact
     }
 
     protected void scanTypeAnnotations(DataObjectDescriptorImpl descriptor, Class<?> dataObjectClass) {
-        for (Class<? extends Annotation> annotationType : dataObjectClass.getAnnotation(DataObject.class).inheritedAnnotations()) {
+        DataObject dataObjectAnnotation = dataObjectClass.getAnnotation(DataObject.class);
+
+        for (Class<? extends Annotation> annotationType : dataObjectAnnotation.inheritedAnnotations()) {
             descriptor.addInheritedAnnotation(annotationType);
         }
+
+        descriptor.setLayout(dataObjectAnnotation.layout());
+        descriptor.setStorage(dataObjectAnnotation.storage());
+
+        try {
+            descriptor.setConcurrencyThreshold(dataObjectAnnotation.concurrencyThreshold());
+        } catch (IllegalArgumentException e) {
+            throw new DataObjectValidationException("Invalid concurrency threshold of " + descriptor.getObjectType().getName(), e);
+        }
+
+        descriptor.setInterned(dataObjectAnnotation.interned());
+
+        if (dataObjectAnnotation.id().length() > 0) {
+            descriptor.setIdExpression(dataObjectAnnotation.id());
+        }
+
+        if (dataObjectAnnotation.version().length() > 0) {
+            if (descriptor.getIdExpression() == null) {
+                throw new DataObjectValidationException("The version of " + descriptor.getObjectType().getName() + " requires an id");
+            }
+
+            descriptor.setVersionExpression(dataObjectAnnotation.version());
+        }
+    }
+
+    /**
+     * Returns the methods declared by a data object interface in the order in which they are declared.
+     * Reflection doesn't define the order of the methods, so the order is read from the class file of
+     * the interface. The methods are ordered by name if the class file isn't available.
+     *
+     * @param dataObjectClass The data object interface.
+     * @return The declared methods of the interface.
+     */
+    protected Method[] getDeclaredMethods(Class<?> dataObjectClass) {
+        Method[] methods = dataObjectClass.getDeclaredMethods();
+        final Map<String, Integer> order = new HashMap<String, Integer>();
+        ClassLoader classLoader = dataObjectClass.getClassLoader();
+        InputStream in = null;
+
+        if (classLoader == null) {
+            classLoader = ClassLoader.getSystemClassLoader();
+        }
+
+        in = classLoader.getResourceAsStream(dataObjectClass.getName().replace('.', '/') + ".class");
+
+        if (in != null) {
+            try {
+                for (Object method : new ClassFile(new DataInputStream(in)).getMethods()) {
+                    String name = ((MethodInfo) method).getName();
+
+                    if (!order.containsKey(name)) {
+                        order.put(name, order.size());
+                    }
+                }
+            } catch (IOException e) {
+                order.clear();
+            } finally {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Ignore, the class file has been read
+                }
+            }
+        }
+
+        Arrays.sort(methods, new Comparator<Method>() {
+            public int compare(Method method1, Method method2) {
+                Integer index1 = order.get(method1.getName());
+                Integer index2 = order.get(method2.getName());
+
+                if (index1 != null && index2 != null) {
+                    return index1.compareTo(index2);
+                } else if (index1 != null || index2 != null) {
+                    return (index1 != null ? -1 : 1);
+                } else {
+                    return method1.getName().compareTo(method2.getName());
+                }
+            }
+        });
+
+        return methods;
     }
 
 }
@@ -15,6 +15,8 @@
 package com.googlecode.bumblebee.dto.impl;
 
 import com.googlecode.bumblebee.dto.DataObjectDescriptor;
+import com.googlecode.bumblebee.dto.Layout;
+import com.googlecode.bumblebee.dto.Storage;
 import com.googlecode.bumblebee.dto.ValueDescriptor;
 import net.sf.jdpa.NotNull;
 
@@ -29,10 +31,22 @@ public class DataObjectDescriptorImpl<T> implements DataObjectDescriptor<T>, Ser
 
     public Class<T> objectType = null;
 
-    private Map<String, ValueDescriptorImpl> valueDescriptors = new HashMap<String, ValueDescriptorImpl>();
+    private Map<String, ValueDescriptorImpl> valueDescriptors = new LinkedHashMap<String, ValueDescriptorImpl>();
 
     private Set<Class<? extends Annotation>> inheritedAnnotations = new LinkedHashSet<Class<? extends Annotation>>();
 
+    private Layout layout = Layout.DECLARATION;
+
+    private Storage storage = Storage.FIELDS;
+
+    private int concurrencyThreshold = 0;
+
+    private boolean interned = false;
+
+    private String idExpression = null;
+
+    private String versionExpression = null;
+
     public DataObjectDescriptorImpl(@NotNull Class<T> objectType) {
         this.objectType = objectType;
     }
@@ -50,6 +64,58 @@ public class DataObjectDescriptorImpl<T> implements DataObjectDescriptor<T>, Ser
         return inheritedAnnotations.toArray(new Class[inheritedAnnotations.size()]);
     }
 
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public void setLayout(@NotNull Layout layout) {
+        this.layout = layout;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public void setStorage(@NotNull Storage storage) {
+        this.storage = storage;
+    }
+
+    public int getConcurrencyThreshold() {
+        return concurrencyThreshold;
+    }
+
+    public void setConcurrencyThreshold(int concurrencyThreshold) {
+        if (concurrencyThreshold < 0) {
+            throw new IllegalArgumentException("Concurrency threshold must not be negative: " + concurrencyThreshold);
+        }
+
+        this.concurrencyThreshold = concurrencyThreshold;
+    }
+
+    public boolean isInterned() {
+        return interned;
+    }
+
+    public void setInterned(boolean interned) {
+        this.interned = interned;
+    }
+
+    public String getIdExpression() {
+        return idExpression;
+    }
+
+    public void setIdExpression(String idExpression) {
+        this.idExpression = idExpression;
+    }
+
+    public String getVersionExpression() {
+        return versionExpression;
+    }
+
+    public void setVersionExpression(String versionExpression) {
+        this.versionExpression = versionExpression;
+    }
+
     public boolean isAnnotationTypeInherited(@NotNull Class<? extends Annotation> annotationType) {
         for (Class<? extends Annotation> inheritedAnnotationType : inheritedAnnotations) {
             if (inheritedAnnotationType.isAssignableFrom(annotationType)) {
@@ -82,6 +148,12 @@ public class DataObjectDescriptorImpl<T> implements DataObjectDescriptor<T>, Ser
         if (!inheritedAnnotations.equals(that.inheritedAnnotations)) return false;
         if (!objectType.equals(that.objectType)) return false;
         if (!valueDescriptors.equals(that.valueDescriptors)) return false;
+        if (layout != that.layout) return false;
+        if (storage != that.storage) return false;
+        if (concurrencyThreshold != that.concurrencyThreshold) return false;
+        if (interned != that.interned) return false;
+        if (idExpression != null ? !idExpression.equals(that.idExpression) : that.idExpression != null) return false;
+        if (versionExpression != null ? !versionExpression.equals(that.versionExpression) : that.versionExpression != null) return false;
 
         return true;
     }
@@ -91,6 +163,12 @@ public class DataObjectDescriptorImpl<T> implements DataObjectDescriptor<T>, Ser
         int result = objectType.hashCode();
         result = 31 * result + valueDescriptors.hashCode();
         result = 31 * result + inheritedAnnotations.hashCode();
+        result = 31 * result + layout.hashCode();
+        result = 31 * result + storage.hashCode();
+        result = 31 * result + concurrencyThreshold;
+        result = 31 * result + (interned ? 1 : 0);
+        result = 31 * result + (idExpression != null ? idExpression.hashCode() : 0);
+        result = 31 * result + (versionExpression != null ? versionExpression.hashCode() : 0);
         return result;
     }
 
@@ -100,6 +178,12 @@ public class DataObjectDescriptorImpl<T> implements DataObjectDescriptor<T>, Ser
                 "objectType=" + objectType +
                 ", valueDescriptors=" + valueDescriptors +
                 ", inheritedAnnotations=" + inheritedAnnotations +
+                ", layout=" + layout +
+                ", storage=" + storage +
+                ", concurrencyThreshold=" + concurrencyThreshold +
+                ", interned=" + interned +
+                ", idExpression='" + idExpression + '\'' +
+                ", versionExpression='" + versionExpression + '\'' +
                 '}';
     }
 }
@@ -14,10 +14,13 @@
 
 package com.googlecode.bumblebee.dto.impl;
 
+import com.googlecode.bumblebee.beans.BeanUtil;
+import com.googlecode.bumblebee.beans.PropertyAccessException;
 import com.googlecode.bumblebee.dto.*;
 import javassist.*;
 import javassist.bytecode.AnnotationsAttribute;
 import javassist.bytecode.ClassFile;
+import javassist.bytecode.MethodInfo;
 import net.sf.jdpa.NotEmpty;
 import net.sf.jdpa.NotNull;
 import net.sf.jdpa.Pointcut;
@@ -25,6 +28,7 @@ import static net.sf.jdpa.cg.Code.*;
 import net.sf.jdpa.cg.model.Statement;
 import net.sf.jdpa.javassist.JavassistEmitter;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
@@ -34,12 +38,44 @@ import java.lang.reflect.Method;
  */
 public class DataObjectImplementationBuilder {
 
+    /**
+     * The maximum size of the bytecode of a method, as defined by the class file format.
+     */
+    public static final int MAX_METHOD_SIZE = 65535;
+
+    /**
+     * The size of the bytecode of a method above which HotSpot doesn't compile the method
+     * (<code>-XX:HugeMethodLimit</code>).
+     */
+    public static final int HUGE_METHOD_LIMIT = 8000;
+
     private ClassPool classPool = null;
 
+    private int maxMethodSize = HUGE_METHOD_LIMIT;
+
     public DataObjectImplementationBuilder(@NotNull ClassPool classPool) {
         this.classPool = classPool;
     }
 
+    public int getMaxMethodSize() {
+        return maxMethodSize;
+    }
+
+    /**
+     * Sets the size of the bytecode above which the initialization of the properties is split into
+     * several methods. A single property whose initialization exceeds the size is still initialized
+     * by a method of its own, as long as the method is within {@link #MAX_METHOD_SIZE}.
+     *
+     * @param maxMethodSize The maximum size of a generated method, in bytes.
+     */
+    public void setMaxMethodSize(int maxMethodSize) {
+        if (maxMethodSize <= 0 || maxMethodSize > MAX_METHOD_SIZE) {
+            throw new IllegalArgumentException("Maximum method size must be within 1 and " + MAX_METHOD_SIZE + ": " + maxMethodSize);
+        }
+
+        this.maxMethodSize = maxMethodSize;
+    }
+
     /**
      * Creates a new intermediate data object implementation class for the provided type. The
      * type is expected to be a valid data object class as is defined by
@@ -50,17 +86,86 @@ public class DataObjectImplementationBuilder {
      * @return An intermediate implementation class for the provided data object.
      */
     public CtClass newDataObjectImplementation(@NotNull Class<?> objectType) {
-        return classPool.makeClass(getImplementationClassName(objectType));
+        CtClass implementationClass = classPool.makeClass(getImplementationClassName(objectType));
+
+        // The implementation classes aren't extended, which allows calls to their methods to be bound statically
+        implementationClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+
+        return implementationClass;
     }
 
     public static String getImplementationClassName(@NotNull Class<?> objectType) {
+        return getGeneratedClassName(objectType, "Impl");
+    }
+
+    /**
+     * Creates a new intermediate {@link ColumnarList columnar} implementation class for the provided type.
+     * The class holds the properties of the data objects in arrays, and its elements are views that are
+     * created by {@link #newViewImplementation}.
+     *
+     * @param objectType The type of the data object.
+     * @return An intermediate columnar implementation class for the provided data object.
+     */
+    public CtClass newColumnarImplementation(@NotNull Class<?> objectType) {
+        CtClass columnarClass = null;
+
+        try {
+            columnarClass = classPool.makeClass(getColumnarImplementationClassName(objectType), classPool.get(ColumnarList.class.getName()));
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class file for " + ColumnarList.class.getName(), e);
+        }
+
+        columnarClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+
+        return columnarClass;
+    }
+
+    /**
+     * Creates a new intermediate view implementation class for the provided type, i.e. a data object that
+     * reads its properties from a row of a columnar implementation.
+     *
+     * @param objectType The type of the data object.
+     * @return An intermediate view implementation class for the provided data object.
+     */
+    public CtClass newViewImplementation(@NotNull Class<?> objectType) {
+        CtClass viewClass = classPool.makeClass(getGeneratedClassName(objectType, "View"));
+
+        viewClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+
+        return viewClass;
+    }
+
+    /**
+     * Creates a new intermediate off-heap implementation class for the provided type, i.e. a data object
+     * that reads its properties from a record in an {@link OffHeapArena arena}.
+     *
+     * @param objectType The type of the data object.
+     * @return An intermediate off-heap implementation class for the provided data object.
+     */
+    public CtClass newOffHeapImplementation(@NotNull Class<?> objectType) {
+        CtClass offHeapClass = classPool.makeClass(getOffHeapImplementationClassName(objectType));
+
+        offHeapClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+
+        return offHeapClass;
+    }
+
+    public static String getOffHeapImplementationClassName(@NotNull Class<?> objectType) {
+        return getGeneratedClassName(objectType, "OffHeap");
+    }
+
+    public static String getColumnarImplementationClassName(@NotNull Class<?> objectType) {
+        return getGeneratedClassName(objectType, "Columns");
+    }
+
+    private static String getGeneratedClassName(Class<?> objectType, String suffix) {
         String className = objectType.getName();
         int n = className.lastIndexOf('.');
 
         if (n == -1) {
-            return "Bumblebee" + className + "Impl";
+            return "Bumblebee" + className + suffix;
         } else {
-            return className.substring(0, n) + ".Bumblebee" + className.substring(n + 1) + "Impl";
+            return className.substring(0, n) + ".Bumblebee" + className.substring(n + 1) + suffix;
         }
     }
 
@@ -101,6 +206,18 @@ public class DataObjectImplementationBuilder {
         return ctField;
     }
 
+    /**
+     * Adds the fields of a layout to an implementation class, in the order defined by the layout.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param layout The layout of the fields.
+     */
+    public void addFields(@NotNull CtClass implementationClass, @NotNull FieldLayout layout) {
+        for (Map.Entry<String, Class<?>> field : layout.getFields().entrySet()) {
+            addField(implementationClass, field.getValue(), field.getKey());
+        }
+    }
+
     public CtMethod addAccessor(@NotNull CtClass implementationClass, @NotEmpty String methodName, @NotEmpty String fieldName) {
         CtField field = null;
         CtMethod accessor = null;
@@ -114,6 +231,7 @@ public class DataObjectImplementationBuilder {
 
         try {
             accessor = CtNewMethod.getter(methodName, field);
+            accessor.setModifiers(accessor.getModifiers() | Modifier.FINAL);
         } catch (CannotCompileException e) {
             throw new DataObjectGenerationException("Failed to compile accessor " + methodName + " for field " +
                     implementationClass.getName() + "." + field.getName(), e);
@@ -129,9 +247,47 @@ public class DataObjectImplementationBuilder {
         return accessor;
     }
 
+    /**
+     * Adds an accessor that returns the value of an expression, e.g. a property that is packed into
+     * a bit field.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param methodName The name of the accessor.
+     * @param returnType The type of the property.
+     * @param code The expression that evaluates to the value of the property.
+     * @return The accessor.
+     */
+    public CtMethod addAccessorCode(@NotNull CtClass implementationClass, @NotEmpty String methodName,
+                                    @NotNull Class<?> returnType, @NotEmpty String code) {
+        CtMethod accessor = null;
+
+        try {
+            accessor = CtNewMethod.make(Modifier.PUBLIC | Modifier.FINAL, classPool.get(returnType.getName()), methodName,
+                    new CtClass[0], new CtClass[0], "{ return " + code + "; }", implementationClass);
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class file for " + returnType.getName(), e);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to compile accessor " + implementationClass.getName() + "."
+                    + methodName + ": " + code, e);
+        }
+
+        try {
+            implementationClass.addMethod(accessor);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Accessor " + implementationClass.getName() + "." +
+                    methodName + " could not be added; compilation failed", e);
+        }
+
+        return accessor;
+    }
+
     public CtMethod addMutator(@NotNull CtClass implementationClass, @NotNull ValueDescriptor value) {
+        return addMutator(implementationClass, value, new FieldLayout(Collections.singletonList(value), Layout.DECLARATION));
+    }
+
+    public CtMethod addMutator(@NotNull CtClass implementationClass, @NotNull ValueDescriptor value, @NotNull FieldLayout layout) {
         String setterName = "set" + Character.toUpperCase(value.getProperty().charAt(0)) + value.getProperty().substring(1);
-        String methodBody = "{ this." + value.getProperty() + " = $1; }";
+        String methodBody = "{ " + layout.getWriteCode("this", value.getProperty(), "$1") + " }";
         CtClass ctParameter = null;
         CtMethod ctSetter = null;
 
@@ -143,7 +299,7 @@ public class DataObjectImplementationBuilder {
 
 
         try {
-            ctSetter = CtNewMethod.make(CtClass.voidType, setterName, new CtClass[]{ctParameter},
+            ctSetter = CtNewMethod.make(Modifier.PUBLIC | Modifier.FINAL, CtClass.voidType, setterName, new CtClass[]{ctParameter},
                     new CtClass[0], methodBody, implementationClass);
         } catch (CannotCompileException e) {
             throw new DataObjectGenerationException("Failed to create setter for property " + value.getProperty(), e);
@@ -159,12 +315,18 @@ public class DataObjectImplementationBuilder {
     }
 
     public CtMethod addInitializer(@NotNull CtClass implementationClass, @NotEmpty String fieldName, @NotNull Statement statement) {
+        CtMethod method = newInitializer(implementationClass, fieldName);
+        JavassistEmitter emitter = new JavassistEmitter(classPool, method, Pointcut.BEFORE);
+
+        return addInitializer(implementationClass, fieldName, method, emitter.generateCode(statement) + ";");
+    }
+
+    private CtMethod newInitializer(CtClass implementationClass, String fieldName) {
         String methodName = "init_" + fieldName;
         CtClass ctObject = null;
         CtClass ctAssembler = null;
+        CtClass ctParameters = null;
         CtMethod method = null;
-        JavassistEmitter emitter = null;
-        String body = null;
 
         try {
             implementationClass.getField(fieldName);
@@ -185,14 +347,21 @@ public class DataObjectImplementationBuilder {
             throw new DataObjectGenerationException("Failed to locate class file for " + Assembler.class.getName(), e);
         }
 
-        method = new CtMethod(CtClass.voidType, methodName, new CtClass[]{ctObject, ctAssembler}, implementationClass);
-        emitter = new JavassistEmitter(classPool, method, Pointcut.BEFORE);
-
-        // Start working on the real method body. This should replace the empty body define earlier.
-        body = "{ " + emitter.generateCode(statement) + "; }";
+        try {
+            ctParameters = classPool.get(Object[].class.getName());
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class file for java.lang.Object[]", e);
+        }
 
+        method = new CtMethod(CtClass.voidType, methodName, new CtClass[]{ctObject, ctAssembler, ctParameters}, implementationClass);
         method.setModifiers(Modifier.PRIVATE);
 
+        return method;
+    }
+
+    private CtMethod addInitializer(CtClass implementationClass, String fieldName, CtMethod method, String code) {
+        String body = "{ " + code + " }";
+
         try {
             method.setBody(body);
         } catch (CannotCompileException e) {
@@ -209,7 +378,129 @@ public class DataObjectImplementationBuilder {
         return method;
     }
 
+    /**
+     * Adds a static field that holds a compiled {@link Getter} for the expression of a property. The getter
+     * is created through {@link Bumblebee#compile(String)} when the implementation class is initialized.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param propertyName The property whose value the getter extracts.
+     * @param expression The expression of the property.
+     * @return The getter field.
+     */
+    public CtField addGetterField(@NotNull CtClass implementationClass, @NotEmpty String propertyName, @NotEmpty String expression) {
+        return addStaticGetterField(implementationClass, "getter_" + propertyName, expression, null, null);
+    }
+
+    /**
+     * Adds a static field that holds a compiled {@link Getter} for the expression of an array or a collection
+     * property. The getter is created through {@link Bumblebee#compile(String, Class, Class)}, so it evaluates
+     * to a value of the property type that doesn't have to be copied.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param propertyName The property whose value the getter extracts.
+     * @param expression The expression of the property.
+     * @param propertyType The type of the property.
+     * @param componentType The type of the elements of the property.
+     * @return The getter field.
+     */
+    public CtField addGetterField(@NotNull CtClass implementationClass, @NotEmpty String propertyName, @NotEmpty String expression,
+                                  @NotNull Class<?> propertyType, @NotNull Class<?> componentType) {
+        return addStaticGetterField(implementationClass, "getter_" + propertyName, expression, propertyType, componentType);
+    }
+
+    /**
+     * Adds a static field that holds a compiled {@link Getter} for a prefix that is shared by the expressions
+     * of several properties. The getter evaluates the prefix relative to the prefix that encloses it.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param prefix The shared prefix.
+     * @return The getter field.
+     */
+    public CtField addPrefixGetterField(@NotNull CtClass implementationClass, @NotNull ExpressionTrie.Prefix prefix) {
+        return addStaticGetterField(implementationClass, "prefix_" + prefix.getIndex(), prefix.getRelativeExpression().toString(), null, null);
+    }
+
+    /**
+     * Adds a static field that holds a compiled {@link Getter} for the whole path of an expression that is
+     * otherwise evaluated relative to a shared prefix. The getter is used if the prefix evaluates to an
+     * {@link ExpressionTrie#isAggregate aggregate}, which the path is flattened through.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param name The name of the property or prefix that the getter evaluates.
+     * @param expression The whole path.
+     * @return The getter field.
+     */
+    public CtField addPathGetterField(@NotNull CtClass implementationClass, @NotEmpty String name, @NotEmpty String expression) {
+        return addStaticGetterField(implementationClass, "path_" + name, expression, null, null);
+    }
+
+    /**
+     * Adds a static field that holds a compiled {@link Getter} for the whole path of the expression of an
+     * array or a collection property, which evaluates to a value of the property type.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param name The name of the property.
+     * @param expression The whole path.
+     * @param propertyType The type of the property.
+     * @param componentType The type of the elements of the property.
+     * @return The getter field.
+     * @see #addGetterField(CtClass, String, String, Class, Class)
+     */
+    public CtField addPathGetterField(@NotNull CtClass implementationClass, @NotEmpty String name, @NotEmpty String expression,
+                                      @NotNull Class<?> propertyType, @NotNull Class<?> componentType) {
+        return addStaticGetterField(implementationClass, "path_" + name, expression, propertyType, componentType);
+    }
+
+    /**
+     * Returns the code that evaluates the getter held by a getter field against a source object. The
+     * getter is bound to the class of the source object first, so the call site sees a single getter class.
+     *
+     * @param getterField The getter field.
+     * @param source The code of the source object, e.g. <code>$1</code>.
+     * @return The code of the call.
+     */
+    public static String getGetterCall(@NotNull CtField getterField, @NotEmpty String source) {
+        return getterField.getName() + ".bind(" + source + ").get(" + source + ", $3)";
+    }
+
+    private CtField addStaticGetterField(CtClass implementationClass, String fieldName, String expression,
+                                         Class<?> propertyType, Class<?> componentType) {
+        CtClass ctGetter = null;
+        CtField ctField = null;
+
+        try {
+            ctGetter = classPool.get(GetterSite.class.getName());
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class file for " + GetterSite.class.getName(), e);
+        }
+
+        try {
+            ctField = new CtField(ctGetter, fieldName, implementationClass);
+            ctField.setModifiers(Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL);
+            implementationClass.addField(ctField, "new " + GetterSite.class.getName() + "(" + Bumblebee.class.getName() + ".compile("
+                    + ExpressionCodeGenerator.literal(expression) + (propertyType == null ? "" : ", "
+                    + ExpressionCodeGenerator.getTypeImage(propertyType) + ".class, " + ExpressionCodeGenerator.getTypeImage(componentType) + ".class") + "))");
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to add getter field " + fieldName + " for expression '"
+                    + expression + "' to class " + implementationClass.getName(), e);
+        }
+
+        return ctField;
+    }
+
     public CtConstructor addBuilderConstructor(@NotNull CtClass implementationClass) {
+        return addBuilderConstructor(implementationClass, new FieldLayout(Collections.<ValueDescriptor>emptyList(), Layout.DECLARATION));
+    }
+
+    /**
+     * Adds the constructor that assembles a data object from property values. The properties are
+     * assigned reflectively, except for the properties that aren't held by fields of their own.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param layout The layout of the fields of the implementation class.
+     * @return The constructor <code>(PropertyValue[], Assembler)</code>.
+     */
+    public CtConstructor addBuilderConstructor(@NotNull CtClass implementationClass, @NotNull FieldLayout layout) {
         CtConstructor constructor = null;
         CtClass ctAssembler = null;
         CtClass ctPropertyValueArray = null;
@@ -233,8 +524,31 @@ public class DataObjectImplementationBuilder {
             throw new DataObjectGenerationException("Failed to generate constructor (PropertyValue[], Assembler)");
         }
 
+        statementBuffer.append("{").append(layout.getInitializationCode("this"));
         statementBuffer.append("for (int i = 0; i < $1.length; i++) {");
         statementBuffer.append("com.googlecode.bumblebee.dto.PropertyValue propertyValue = $1[i];");
+
+        for (ValueDescriptor value : layout.getEncodedProperties()) {
+            String propertyValue = null;
+
+            if (value.getPropertyType().isPrimitive()) {
+                String wrapperType = BeanUtil.getWrapperType(value.getPropertyType()).getName();
+
+                propertyValue = "((" + wrapperType + ") com.googlecode.bumblebee.beans.BeanUtil.copy(propertyValue.getPropertyValue(), "
+                        + wrapperType + ".TYPE, " + wrapperType + ".TYPE, $2))." + value.getPropertyType().getName() + "Value()";
+            } else {
+                String typeImage = ExpressionCodeGenerator.getTypeImage(value.getPropertyType());
+
+                propertyValue = "(" + typeImage + ") com.googlecode.bumblebee.beans.BeanUtil.copy(propertyValue.getPropertyValue(), "
+                        + typeImage + ".class, " + ExpressionCodeGenerator.getTypeImage(getComponentType(value)) + ".class, $2)";
+            }
+
+            statementBuffer.append("if (propertyValue.getPropertyName().equals(").append(ExpressionCodeGenerator.literal(value.getProperty())).append(")) {");
+            statementBuffer.append(layout.getInitializationWriteCode("this", value.getProperty(), propertyValue));
+            statementBuffer.append("continue;");
+            statementBuffer.append("}");
+        }
+
         statementBuffer.append("try {");
         statementBuffer.append("java.lang.reflect.Field field = getClass().getDeclaredField(propertyValue.getPropertyName());");
         statementBuffer.append("java.lang.Class componentType = com.googlecode.bumblebee.beans.BeanUtil.getComponentTypeOfProperty(getClass(), propertyValue.getPropertyName());");
@@ -244,6 +558,7 @@ public class DataObjectImplementationBuilder {
         statementBuffer.append("throw new com.googlecode.bumblebee.dto.DataObjectGenerationException(\"Failed to set property \" + propertyValue.getPropertyName(), e);");
         statementBuffer.append("}");
         statementBuffer.append("}");
+        statementBuffer.append(layout.getCompletionCode("this")).append("}");
 
         try {
             constructor.setBody(statementBuffer.toString());
@@ -260,13 +575,67 @@ public class DataObjectImplementationBuilder {
         return constructor;
     }
 
+    /**
+     * Returns the type of the elements of a collection or array property, or the type of any other property.
+     *
+     * @param value The property.
+     * @return The type of the elements of the property.
+     */
+    static Class<?> getComponentType(ValueDescriptor value) {
+        if (Collection.class.isAssignableFrom(value.getPropertyType())) {
+            return BeanUtil.getCollectionComponentType(value.getAccessor().getGenericReturnType().toString());
+        } else if (value.getPropertyType().isArray()) {
+            return value.getPropertyType().getComponentType();
+        } else {
+            return value.getPropertyType();
+        }
+    }
+
+    /**
+     * Adds the constructors that assemble a data object from a source object. The constructor
+     * <code>(Object, Assembler, Object[])</code> passes the source, the assembler and the parameters of the
+     * assembly to the initializers, and <code>(Object, Assembler)</code> delegates to it without parameters.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param initializers The initializers of the properties.
+     * @return The constructor that accepts the parameters of the assembly.
+     */
     public CtConstructor addConversionConstructor(@NotNull CtClass implementationClass, @NotNull Collection<CtMethod> initializers) {
+        List<String> statements = new ArrayList<String>(initializers.size());
+
+        for (CtMethod initializer : initializers) {
+            statements.add(initializer.getName() + "($1, $2, $3);");
+        }
+
+        return addConversionConstructor(implementationClass, statements, null);
+    }
+
+    /**
+     * Adds the constructors that assemble a data object from a source object, with the initialization of
+     * the properties inlined into the constructor. The statements are evaluated with the source, the
+     * assembler and the parameters of the assembly as <code>$1</code>, <code>$2</code> and <code>$3</code>.
+     * <p/>
+     * The prefixes that are shared by the expressions of the properties are evaluated once, before the
+     * properties are initialized, and are assigned to the locals named by {@link #getPrefixVariable}. A
+     * prefix that encloses other prefixes must not evaluate to <code>null</code>, since the enclosed
+     * prefixes are navigated without null-safety.
+     * <p/>
+     * The statements are only moved to separate methods if the constructor would exceed the
+     * {@link #setMaxMethodSize maximum method size}. If the assembler is an {@link AssemblyContext}, the
+     * data object registers itself with the context before any property is initialized.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param statements The statements that initialize the properties, one per property.
+     * @param trie The trie of the expressions of the properties, or <code>null</code> if no prefixes are shared.
+     * @return The constructor that accepts the parameters of the assembly.
+     */
+    public CtConstructor addConversionConstructor(@NotNull CtClass implementationClass, @NotNull List<String> statements, ExpressionTrie trie) {
         CtConstructor constructor = null;
+        CtConstructor delegatingConstructor = null;
         CtClass ctObject = null;
         CtClass ctAssembler = null;
-        JavassistEmitter emitter = null;
-        String body = null;
-        List<Statement> statements = new ArrayList<Statement>(initializers.size());
+        CtClass ctParameters = null;
+        List<ExpressionTrie.Prefix> prefixes = (trie == null ? Collections.<ExpressionTrie.Prefix>emptyList() : trie.getPrefixes());
 
         try {
             ctObject = classPool.get(Object.class.getName());
@@ -281,38 +650,261 @@ public class DataObjectImplementationBuilder {
         }
 
         try {
-            constructor = CtNewConstructor.make(new CtClass[]{ctObject, ctAssembler}, new CtClass[]{}, implementationClass);
+            ctParameters = classPool.get(Object[].class.getName());
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class file for java.lang.Object[]", e);
+        }
+
+        try {
+            constructor = CtNewConstructor.make(new CtClass[]{ctObject, ctAssembler, ctParameters}, new CtClass[]{}, implementationClass);
         } catch (CannotCompileException e) {
             throw new DataObjectGenerationException("Constructor " + implementationClass.getSimpleName() + "(java.lang.Object) could not be created", e);
         }
 
-        emitter = new JavassistEmitter(classPool, constructor, Pointcut.BEFORE);
+        // The data object is registered with an assembly context before the properties are initialized,
+        // so that nested data objects that refer back to the source resolve to this data object
+        setInitializationBody(implementationClass, constructor, "if ($2 instanceof " + AssemblyContext.class.getName() + ") (("
+                + AssemblyContext.class.getName() + ") $2).register($1, this);", statements, prefixes);
 
-        for (CtMethod initializer : initializers) {
-            statements.add(call(initializer.getName()).with($(0), $(1)));
+        try {
+            implementationClass.addConstructor(constructor);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Constructor could not be added to data object implementation class. See stack trace for details.", e);
         }
 
-        if (initializers.isEmpty()) {
+        try {
+            delegatingConstructor = CtNewConstructor.make(new CtClass[]{ctObject, ctAssembler}, new CtClass[]{},
+                    "{ this($1, $2, (java.lang.Object[]) null); }", implementationClass);
+            implementationClass.addConstructor(delegatingConstructor);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Constructor " + implementationClass.getSimpleName() + "(java.lang.Object, "
+                    + Assembler.class.getName() + ") could not be created", e);
+        }
+
+        return constructor;
+    }
+
+    /**
+     * Sets the body of a method or constructor that initializes the properties of a data object from
+     * the source, the assembler and the parameters of the assembly, passed as <code>$1</code>,
+     * <code>$2</code> and <code>$3</code>. The shared prefixes are evaluated first, and the statements are
+     * moved to separate methods if the body would exceed the {@link #setMaxMethodSize maximum method size}.
+     *
+     * @param implementationClass The class currently being constructed.
+     * @param behavior The method or constructor.
+     * @param preamble The statements that precede the evaluation of the prefixes.
+     * @param statements The statements that initialize the properties.
+     * @param prefixes The shared prefixes.
+     */
+    private void setInitializationBody(CtClass implementationClass, CtBehavior behavior, String preamble,
+                                       List<String> statements, List<ExpressionTrie.Prefix> prefixes) {
+        StringBuilder prologue = new StringBuilder(preamble);
+        StringBuilder body = new StringBuilder();
+
+        for (ExpressionTrie.Prefix prefix : prefixes) {
+            String variable = getPrefixVariable(prefix);
+
+            if (prefix.getParent() == null) {
+                prologue.append("java.lang.Object ").append(variable).append(" = ")
+                        .append(getGetterCall(addPrefixGetterField(implementationClass, prefix), "$1")).append(";");
+            } else {
+                String parent = getPrefixVariable(prefix.getParent());
+
+                // A prefix is flattened through an aggregate by evaluating its whole path against the source
+                prologue.append("java.lang.Object ").append(variable).append(" = ")
+                        .append(ExpressionTrie.class.getName()).append(".isAggregate(").append(parent).append(") ? ")
+                        .append(getGetterCall(addPathGetterField(implementationClass, variable, prefix.getExpression().toString()), "$1"))
+                        .append(" : ")
+                        .append(getGetterCall(addPrefixGetterField(implementationClass, prefix), parent)).append(";");
+            }
+
+            if (prefix.hasNestedPrefixes()) {
+                prologue.append("if (").append(variable).append(" == null) throw new ")
+                        .append(PropertyAccessException.class.getName()).append("(")
+                        .append(ExpressionCodeGenerator.literal("Expression '" + prefix.getExpression() + "' evaluates to null"))
+                        .append(");");
+            }
+        }
+
+        if (statements.isEmpty() && behavior instanceof CtConstructor) {
             // Javassist will generate a default call to a super constructor with the same constructor if
             // no body is defined. Add an explicit call to the super-constructor to avoid this.
-            body = "super();";
+            body.append("super();").append(preamble);
         } else {
-            body = emitter.generateCode(body(statements.toArray(new Statement[statements.size()])));
+            body.append(prologue).append(getBlocks(statements));
         }
 
         try {
-            constructor.setBody("{ " + body + " }");
+            behavior.setBody("{ " + body + " }");
+
+            int codeLength = getCodeLength(behavior);
+
+            if (codeLength > maxMethodSize) {
+                body.setLength(0);
+                body.append(prologue).append(addInitializerMethods(implementationClass, statements, prefixes,
+                        Math.max(2, (codeLength + maxMethodSize - 1) / maxMethodSize)));
+                behavior.setBody("{ " + body + " }");
+            }
         } catch (CannotCompileException e) {
-            throw new DataObjectGenerationException("Failed to generate constructor for data object implementation class. Body is not valid: " + body, e);
+            throw new DataObjectGenerationException("Failed to generate " + behavior.getName() + " for "
+                    + implementationClass.getName() + ". Body is not valid: " + body, e);
         }
+    }
+
+    /**
+     * Returns the name of the local that holds the value of a shared prefix in the conversion constructor.
+     *
+     * @param prefix The shared prefix.
+     * @return The name of the local.
+     */
+    public static String getPrefixVariable(@NotNull ExpressionTrie.Prefix prefix) {
+        return "prefix" + prefix.getIndex();
+    }
+
+    /**
+     * Moves the initialization of the properties to private methods, each of which is within the maximum
+     * method size. The statements are divided into the fewest number of methods of balanced size, starting
+     * with the estimated number of methods. The values of the shared prefixes are passed to the methods in
+     * an array.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param statements The statements that initialize the properties.
+     * @param prefixes The shared prefixes.
+     * @param count The estimated number of methods.
+     * @return The code that calls the initializer methods.
+     */
+    private String addInitializerMethods(CtClass implementationClass, List<String> statements, List<ExpressionTrie.Prefix> prefixes, int count) {
+        StringBuilder prologue = new StringBuilder();
+        StringBuilder calls = new StringBuilder("java.lang.Object[] prefixes = new java.lang.Object[" + prefixes.size() + "];");
+        List<CtMethod> methods = new ArrayList<CtMethod>();
+        CtClass[] parameterTypes = null;
 
         try {
-            implementationClass.addConstructor(constructor);
-        } catch (CannotCompileException e) {
-            throw new DataObjectGenerationException("Constructor could not be added to data object implementation class. See stack trace for details.", e);
+            parameterTypes = new CtClass[]{classPool.get(Object.class.getName()), classPool.get(Assembler.class.getName()),
+                    classPool.get(Object[].class.getName()), classPool.get(Object[].class.getName())};
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class files for initializer parameters", e);
         }
 
-        return constructor;
+        for (ExpressionTrie.Prefix prefix : prefixes) {
+            prologue.append("java.lang.Object ").append(getPrefixVariable(prefix)).append(" = $4[").append(prefix.getIndex()).append("];");
+            calls.append("prefixes[").append(prefix.getIndex()).append("] = ").append(getPrefixVariable(prefix)).append(';');
+        }
+
+        for (count = Math.min(count, statements.size()); methods.isEmpty(); count++) {
+            for (List<String> chunk : getChunks(statements, count)) {
+                CtMethod method = new CtMethod(CtClass.voidType, "init_" + methods.size(), parameterTypes, implementationClass);
+                int codeLength = 0;
+
+                try {
+                    method.setModifiers(Modifier.PRIVATE | Modifier.FINAL);
+                    method.setBody("{ " + prologue + getBlocks(chunk) + " }");
+                } catch (CannotCompileException e) {
+                    throw new DataObjectGenerationException("Failed to generate initializer for " + implementationClass.getName(), e);
+                }
+
+                codeLength = getCodeLength(method);
+
+                if (codeLength > MAX_METHOD_SIZE || (codeLength > maxMethodSize && chunk.size() > 1)) {
+                    if (count >= statements.size()) {
+                        throw new DataObjectGenerationException("The initialization of a property of " + implementationClass.getName()
+                                + " exceeds the maximum size of a method");
+                    }
+
+                    methods.clear();
+                    break;
+                }
+
+                methods.add(method);
+            }
+        }
+
+        for (CtMethod method : methods) {
+            try {
+                implementationClass.addMethod(method);
+            } catch (CannotCompileException e) {
+                throw new DataObjectGenerationException("Failed to add initializer " + method.getName() + " to " + implementationClass.getName(), e);
+            }
+
+            calls.append(method.getName()).append("($1, $2, $3, prefixes);");
+        }
+
+        return calls.toString();
+    }
+
+    /**
+     * Divides statements into consecutive chunks of about the same size. The length of the source of a
+     * statement is used as an estimate of the size of its bytecode.
+     *
+     * @param statements The statements.
+     * @param count The number of chunks, at most the number of statements.
+     * @return The chunks, none of which are empty.
+     */
+    private static List<List<String>> getChunks(List<String> statements, int count) {
+        List<List<String>> chunks = new ArrayList<List<String>>(count);
+        long total = 0;
+        long length = 0;
+        int start = 0;
+
+        for (String statement : statements) {
+            total += statement.length();
+        }
+
+        for (int i = 0; i < statements.size() && chunks.size() < count - 1; i++) {
+            length += statements.get(i).length();
+
+            // Close the chunk when it reaches its share of the total, leaving a statement for each remaining chunk
+            if (length * count >= total * (chunks.size() + 1) || statements.size() - i - 1 == count - chunks.size() - 1) {
+                chunks.add(statements.subList(start, i + 1));
+                start = i + 1;
+            }
+        }
+
+        chunks.add(statements.subList(start, statements.size()));
+
+        return chunks;
+    }
+
+    /**
+     * Returns the size of the bytecode of the methods and constructors of an implementation class, in the
+     * order in which they are declared. The methods are identified by name and descriptor, e.g.
+     * <code>&lt;init&gt;(Ljava/lang/Object;)V</code>.
+     *
+     * @param implementationClass The implementation class.
+     * @return The size of the bytecode of each method that has code.
+     */
+    public Map<String, Integer> getMethodSizes(@NotNull CtClass implementationClass) {
+        Map<String, Integer> methodSizes = new LinkedHashMap<String, Integer>();
+
+        for (Object method : implementationClass.getClassFile2().getMethods()) {
+            MethodInfo methodInfo = (MethodInfo) method;
+
+            if (methodInfo.getCodeAttribute() != null) {
+                methodSizes.put(methodInfo.getName() + methodInfo.getDescriptor(), methodInfo.getCodeAttribute().getCodeLength());
+            }
+        }
+
+        return Collections.unmodifiableMap(methodSizes);
+    }
+
+    /**
+     * Encloses each statement in a block, so that the locals of the statements don't conflict.
+     *
+     * @param statements The statements.
+     * @return The blocks.
+     */
+    private static String getBlocks(List<String> statements) {
+        StringBuilder blocks = new StringBuilder();
+
+        for (String statement : statements) {
+            blocks.append("{").append(statement).append("}");
+        }
+
+        return blocks.toString();
+    }
+
+    private static int getCodeLength(CtBehavior behavior) {
+        return behavior.getMethodInfo().getCodeAttribute().getCodeLength();
     }
 
     public CtConstructor addDefaultConstructor(CtClass implementationClass) {
@@ -334,6 +926,241 @@ public class DataObjectImplementationBuilder {
     }
 
     public CtMethod addEqualsMethod(CtClass implementationClass, List<ValueDescriptor> values) {
+        return addEqualsMethod(implementationClass, new FieldLayout(values, Layout.DECLARATION));
+    }
+
+    /**
+     * Adds the fields and the constructor of a view, which reads its properties from the row
+     * <code>index</code> of the columnar implementation <code>columns</code>.
+     *
+     * @param viewClass The view implementation class currently being constructed.
+     * @param columnarClass The columnar implementation class.
+     * @return The constructor <code>(columns, int)</code>.
+     */
+    public CtConstructor addViewConstructor(@NotNull CtClass viewClass, @NotNull CtClass columnarClass) {
+        CtConstructor constructor = null;
+
+        try {
+            CtField columns = new CtField(columnarClass, "columns", viewClass);
+            CtField index = new CtField(CtClass.intType, "index", viewClass);
+
+            columns.setModifiers(Modifier.PRIVATE | Modifier.FINAL);
+            index.setModifiers(Modifier.PRIVATE | Modifier.FINAL);
+            viewClass.addField(columns);
+            viewClass.addField(index);
+
+            constructor = CtNewConstructor.make(new CtClass[]{columnarClass, CtClass.intType}, new CtClass[0],
+                    "{ this.columns = $1; this.index = $2; }", viewClass);
+            viewClass.addConstructor(constructor);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to add constructor to view " + viewClass.getName(), e);
+        }
+
+        return constructor;
+    }
+
+    /**
+     * Adds the methods of a {@link ColumnarList columnar} implementation class: a public default
+     * constructor, the resizing of the columns, the assembly of a row and the creation of views.
+     *
+     * @param columnarClass The columnar implementation class currently being constructed.
+     * @param viewClass The view implementation class.
+     * @param layout The layout of the columns.
+     * @param statements The statements that initialize the properties of a row, one per property.
+     * @param trie The trie of the expressions of the properties, or <code>null</code> if no prefixes are shared.
+     */
+    public void addColumnarMethods(@NotNull CtClass columnarClass, @NotNull CtClass viewClass, @NotNull ColumnLayout layout,
+                                   @NotNull List<String> statements, ExpressionTrie trie) {
+        StringBuilder resize = new StringBuilder("{");
+        CtMethod assembleRow = null;
+
+        for (Map.Entry<String, Class<?>> column : layout.getFields().entrySet()) {
+            resize.append("{ ").append(ExpressionCodeGenerator.getTypeImage(column.getValue())).append(" column = ")
+                    .append(getArrayCreation(column.getValue().getComponentType(), "$1")).append(";")
+                    .append("if (this.").append(column.getKey()).append(" != null) java.lang.System.arraycopy(this.")
+                    .append(column.getKey()).append(", 0, column, 0, this.size);")
+                    .append("this.").append(column.getKey()).append(" = column; }");
+        }
+
+        resize.append("}");
+
+        try {
+            columnarClass.addConstructor(CtNewConstructor.make(new CtClass[0], new CtClass[0], "{ super(); }", columnarClass));
+            columnarClass.addMethod(CtNewMethod.make(Modifier.PROTECTED | Modifier.FINAL, CtClass.voidType, "resize",
+                    new CtClass[]{CtClass.intType}, new CtClass[0], resize.toString(), columnarClass));
+            columnarClass.addMethod(CtNewMethod.make(Modifier.PROTECTED | Modifier.FINAL, classPool.get(Object.class.getName()), "createView",
+                    new CtClass[]{CtClass.intType}, new CtClass[0], "{ return new " + viewClass.getName() + "(this, $1); }", columnarClass));
+
+            assembleRow = new CtMethod(CtClass.voidType, "assembleRow", new CtClass[]{classPool.get(Object.class.getName()),
+                    classPool.get(Assembler.class.getName()), classPool.get(Object[].class.getName())}, columnarClass);
+            assembleRow.setModifiers(Modifier.PROTECTED | Modifier.FINAL);
+            setInitializationBody(columnarClass, assembleRow, "", statements,
+                    trie == null ? Collections.<ExpressionTrie.Prefix>emptyList() : trie.getPrefixes());
+            columnarClass.addMethod(assembleRow);
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class files for columnar implementation " + columnarClass.getName(), e);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to add methods to columnar implementation " + columnarClass.getName()
+                    + ": " + resize, e);
+        }
+    }
+
+    /**
+     * Adds the fields and the constructor of an off-heap implementation class. The implementation holds
+     * the arena, the slab and the offset of its record, which is allocated by the constructor
+     * <code>(java.lang.Object, Assembler, java.lang.Object[], OffHeapArena)</code> before the properties are
+     * written to it.
+     *
+     * @param implementationClass The off-heap implementation class currently being constructed.
+     * @param layout The layout of the record.
+     * @param statements The statements that write the properties to the record, one per property.
+     * @param trie The trie of the expressions of the properties, or <code>null</code> if no prefixes are shared.
+     * @return The constructor.
+     */
+    public CtConstructor addOffHeapConstructor(@NotNull CtClass implementationClass, @NotNull OffHeapLayout layout,
+                                               @NotNull List<String> statements, ExpressionTrie trie) {
+        CtConstructor constructor = null;
+
+        try {
+            CtClass ctArena = classPool.get(OffHeapArena.class.getName());
+            CtField arena = new CtField(ctArena, "arena", implementationClass);
+            CtField slab = new CtField(classPool.get(ByteBuffer.class.getName()), "slab", implementationClass);
+            CtField offset = new CtField(CtClass.intType, "offset", implementationClass);
+
+            for (CtField field : new CtField[] { arena, slab, offset }) {
+                field.setModifiers(Modifier.PRIVATE | Modifier.FINAL);
+                implementationClass.addField(field);
+            }
+
+            constructor = CtNewConstructor.make(new CtClass[]{classPool.get(Object.class.getName()),
+                    classPool.get(Assembler.class.getName()), classPool.get(Object[].class.getName()), ctArena},
+                    new CtClass[0], implementationClass);
+            setInitializationBody(implementationClass, constructor, "this.arena = $4;" +
+                    "long address = $4.allocate(" + layout.getRecordSize() + ");" +
+                    "this.slab = $4.getSlab(address);" +
+                    "this.offset = (int) address;", statements,
+                    trie == null ? Collections.<ExpressionTrie.Prefix>emptyList() : trie.getPrefixes());
+            implementationClass.addConstructor(constructor);
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class files for off-heap implementation " + implementationClass.getName(), e);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to add constructor to off-heap implementation " + implementationClass.getName(), e);
+        }
+
+        return constructor;
+    }
+
+    private static String getArrayCreation(Class<?> componentType, String length) {
+        StringBuilder dimensions = new StringBuilder("[").append(length).append("]");
+
+        while (componentType.isArray()) {
+            dimensions.append("[]");
+            componentType = componentType.getComponentType();
+        }
+
+        return "new " + ExpressionCodeGenerator.getTypeImage(componentType) + dimensions;
+    }
+
+    /**
+     * Adds an <code>equals</code> method that compares the properties of data objects as they're read by
+     * the layout, e.g. the properties of views.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param values The properties of the data object.
+     * @param layout The layout that reads the properties.
+     * @return The <code>equals</code> method.
+     */
+    public CtMethod addEqualsMethod(@NotNull CtClass implementationClass, @NotNull List<ValueDescriptor> values, @NotNull FieldLayout layout) {
+        StringBuilder body = new StringBuilder();
+        CtMethod ctEquals = null;
+
+        body.append("{");
+        body.append("if ($1 == null || !getClass().equals($1.getClass())) return false;");
+        body.append(implementationClass.getName()).append(" that = (").append(implementationClass.getName()).append(") $1;");
+
+        for (ValueDescriptor value : values) {
+            String left = layout.getReadCode("this", value.getProperty());
+            String right = layout.getReadCode("that", value.getProperty());
+
+            if (value.getPropertyType().isPrimitive()) {
+                body.append("if (").append(left).append(" != ").append(right).append(") return false;");
+            } else {
+                body.append("{ java.lang.Object left = ").append(left).append("; java.lang.Object right = ").append(right).append(";");
+
+                if (value.getPropertyType().isArray()) {
+                    body.append("if (!java.util.Arrays.deepEquals(new java.lang.Object[]{left}, new java.lang.Object[]{right})) return false; }");
+                } else {
+                    body.append("if (left == null ? right != null : !left.equals(right)) return false; }");
+                }
+            }
+        }
+
+        body.append("return true;");
+        body.append("}");
+
+        try {
+            ctEquals = CtNewMethod.make(CtClass.booleanType, "equals", new CtClass[]{classPool.get(Object.class.getName())},
+                    new CtClass[0], body.toString(), implementationClass);
+            implementationClass.addMethod(ctEquals);
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class file for java.lang.Object", e);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to create equals method: " + body, e);
+        }
+
+        return ctEquals;
+    }
+
+    /**
+     * Adds a <code>hashCode</code> method that is consistent with the <code>equals</code> method added by
+     * {@link #addEqualsMethod(CtClass, List, FieldLayout)}, i.e. that hashes the properties as they're read
+     * by the layout.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param values The properties of the data object.
+     * @param layout The layout that reads the properties.
+     * @return The <code>hashCode</code> method.
+     */
+    public CtMethod addHashCodeMethod(@NotNull CtClass implementationClass, @NotNull List<ValueDescriptor> values, @NotNull FieldLayout layout) {
+        StringBuilder body = new StringBuilder();
+        CtMethod ctHashCode = null;
+
+        body.append("{ int result = 0;");
+
+        for (ValueDescriptor value : values) {
+            String read = layout.getReadCode("this", value.getProperty());
+
+            if (value.getPropertyType().isPrimitive()) {
+                body.append("result = 31 * result + ").append(getHashCode(read, value.getPropertyType())).append(";");
+            } else if (value.getPropertyType().isArray()) {
+                body.append("result = 31 * result + java.util.Arrays.deepHashCode(new java.lang.Object[]{").append(read).append("});");
+            } else {
+                body.append("{ java.lang.Object value = ").append(read).append(";")
+                        .append("result = 31 * result + (value == null ? 0 : value.hashCode()); }");
+            }
+        }
+
+        body.append("return result; }");
+
+        try {
+            ctHashCode = CtNewMethod.make(CtClass.intType, "hashCode", new CtClass[0], new CtClass[0], body.toString(), implementationClass);
+            implementationClass.addMethod(ctHashCode);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to create hashCode method: " + body, e);
+        }
+
+        return ctHashCode;
+    }
+
+    /**
+     * Adds an <code>equals</code> method that compares the fields of the layout, so that packed properties
+     * are compared by their bit fields.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param layout The layout of the fields of the implementation class.
+     * @return The <code>equals</code> method.
+     */
+    public CtMethod addEqualsMethod(CtClass implementationClass, FieldLayout layout) {
         CtClass ctObject = null;
         StringBuilder body = new StringBuilder();
         CtMethod ctEquals = null;
@@ -348,21 +1175,22 @@ public class DataObjectImplementationBuilder {
         body.append("if ($1 == null || !getClass().equals($1.getClass())) return false;");
         body.append(implementationClass.getName()).append(" that = (").append(implementationClass.getName()).append(") $1;");
 
-        for (ValueDescriptor value : values) {
-            if (value.getPropertyType().isPrimitive()) {
-                body.append("if (this.").append(value.getProperty()).append("!=that.").append(value.getProperty()).append(") return false;");
-            } else if (value.getPropertyType().isArray()) {
-                body.append("if (this.").append(value.getProperty()).append("==null && that.")
-                        .append(value.getProperty()).append("!=null || this.")
-                        .append(value.getProperty()).append(" != null && !java.util.Arrays.equals(this.")
-                        .append(value.getProperty()).append(", that.")
-                        .append(value.getProperty()).append(")) return false;");
+        for (Map.Entry<String, Class<?>> field : layout.getFields().entrySet()) {
+            if (field.getValue().isPrimitive()) {
+                body.append("if (this.").append(field.getKey()).append("!=that.").append(field.getKey()).append(") return false;");
+            } else if (field.getValue().isArray()) {
+                body.append("if (this.").append(field.getKey()).append("==null && that.")
+                        .append(field.getKey()).append("!=null || this.")
+                        .append(field.getKey()).append(" != null && !java.util.Arrays.")
+                        .append(layout.isValueArray(field.getKey()) ? "deepEquals" : "equals").append("(this.")
+                        .append(field.getKey()).append(", that.")
+                        .append(field.getKey()).append(")) return false;");
             } else {
-                body.append("if (this.").append(value.getProperty()).append("==null && that.")
-                        .append(value.getProperty()).append("!=null || this.")
-                        .append(value.getProperty()).append(" != null && !this.")
-                        .append(value.getProperty()).append(".equals(that.")
-                        .append(value.getProperty()).append(")) return false;");
+                body.append("if (this.").append(field.getKey()).append("==null && that.")
+                        .append(field.getKey()).append("!=null || this.")
+                        .append(field.getKey()).append(" != null && !this.")
+                        .append(field.getKey()).append(".equals(that.")
+                        .append(field.getKey()).append(")) return false;");
             }
         }
 
@@ -384,6 +1212,64 @@ public class DataObjectImplementationBuilder {
         return ctEquals;
     }
 
+    /**
+     * Adds a <code>hashCode</code> method that is consistent with the <code>equals</code> method added by
+     * {@link #addEqualsMethod(CtClass, FieldLayout)}, i.e. that hashes the fields of the layout.
+     *
+     * @param implementationClass The implementation class currently being constructed.
+     * @param layout The layout of the fields of the implementation class.
+     * @return The <code>hashCode</code> method.
+     */
+    public CtMethod addHashCodeMethod(@NotNull CtClass implementationClass, @NotNull FieldLayout layout) {
+        StringBuilder body = new StringBuilder();
+        CtMethod ctHashCode = null;
+
+        body.append("{ int result = 0;");
+
+        for (Map.Entry<String, Class<?>> field : layout.getFields().entrySet()) {
+            String read = "this." + field.getKey();
+
+            if (field.getValue().isPrimitive()) {
+                body.append("result = 31 * result + ").append(getHashCode(read, field.getValue())).append(";");
+            } else if (field.getValue().isArray()) {
+                body.append("result = 31 * result + (").append(read).append(" == null ? 0 : java.util.Arrays.")
+                        .append(layout.isValueArray(field.getKey()) ? "deepHashCode" : "hashCode").append("(").append(read).append("));");
+            } else {
+                body.append("result = 31 * result + (").append(read).append(" == null ? 0 : ").append(read).append(".hashCode());");
+            }
+        }
+
+        body.append("return result; }");
+
+        try {
+            ctHashCode = CtNewMethod.make(CtClass.intType, "hashCode", new CtClass[0], new CtClass[0], body.toString(), implementationClass);
+            implementationClass.addMethod(ctHashCode);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to create hashCode method: " + body, e);
+        }
+
+        return ctHashCode;
+    }
+
+    /**
+     * Returns the code that hashes a primitive value. Zeros of floating point values hash alike, since
+     * <code>0.0 == -0.0</code>.
+     */
+    private static String getHashCode(String value, Class<?> type) {
+        if (type == boolean.class) {
+            return "(" + value + " ? 1231 : 1237)";
+        } else if (type == long.class) {
+            return "(int) (" + value + " ^ (" + value + " >>> 32))";
+        } else if (type == float.class) {
+            return "(" + value + " == 0.0f ? 0 : java.lang.Float.floatToIntBits(" + value + "))";
+        } else if (type == double.class) {
+            return "(" + value + " == 0.0d ? 0 : (int) (java.lang.Double.doubleToLongBits(" + value
+                    + ") ^ (java.lang.Double.doubleToLongBits(" + value + ") >>> 32)))";
+        } else {
+            return "(int) " + value;
+        }
+    }
+
     /**
      * Transfers annotations from an interface to the implementation class. Some APIs, such as JAXB, requires
      * annotations to be available on the implementation class. This method ensures that the annotations placed
@@ -0,0 +1,1808 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.beans.BeanUtil;
+import com.googlecode.bumblebee.dto.InvalidExpressionException;
+import com.googlecode.bumblebee.dto.el.*;
+import net.sf.jdpa.NotEmpty;
+import net.sf.jdpa.NotNull;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Generates javassist source code that evaluates an expression against a source object of a known
+ * type. Accessors are invoked directly whenever the static type of the target is known and the accessor
+ * is publicly accessible. Otherwise, e.g. for values of an unknown type or for non-public accessors, the
+ * generated code falls back to {@link BeanUtil#getProperty(Object, String)}.
+ * <p/>
+ * The generated code is a sequence of statements that assign intermediate values to local variables.
+ * Reference values are stored in variables of type <code>java.lang.Object</code> and are cast to the
+ * declaring type of the accessor when they are dereferenced.
+ * <p/>
+ * Null-safe navigation is compiled into a null check of the target that guards the remaining
+ * statements of the expression. If the target is <code>null</code> the guarded statements are skipped
+ * and the result of the expression is <code>null</code>; no exception is created on that path.
+ * <p/>
+ * Paths that traverse collections or arrays are fused into nested loops, i.e. the remainder of the path
+ * is evaluated per element and the values are added directly to a single result collection. Paths
+ * through nested aggregates are flattened, e.g. <code>orders.items.name</code> evaluates to the names
+ * of all items of all orders, so the result is only presized if the path traverses a single aggregate.
+ * The element types of collections are resolved from the generic return types of the accessors.
+ * <p/>
+ * An expression can also be generated {@link #setTarget into} the type of the property it's copied to,
+ * in which case the loops add the converted elements to a collection or an array of that type rather
+ * than to an intermediate result collection.
+ * <p/>
+ * Aggregate functions are evaluated in the loops of their argument. The accumulators are primitive
+ * locals that are declared before the outermost loop, so no intermediate collection is created. Null
+ * values on the path of the argument of an aggregate function or a <code>top</code> selection are skipped
+ * by guards rather than checked, as described by the {@link com.googlecode.bumblebee.dto.el package}. The
+ * size of a collection or an array is read from the collection or array, e.g. <code>size(orders)</code>
+ * is compiled into a single call to <code>size()</code>.
+ * <p/>
+ * Lists and arrays that are indexed by a number, e.g. a literal or a parameter, are accessed directly and
+ * maps are accessed by key. The index is range checked by a guard, so an index that is out of range yields <code>null</code>,
+ * as does a key that isn't mapped or a target that is <code>null</code>.
+ * <p/>
+ * Slices of lists copy the range of the source list into a new list, so the result doesn't change with the
+ * source. A <code>top</code> selection offers each element to a {@link BoundedHeap} that retains only the
+ * selected elements, so neither slices nor top selections copy the elements that aren't selected.
+ * <p/>
+ * Operators are compiled into primitive arithmetic and comparisons if the types of both operands are
+ * numeric primitives or their wrappers. Numbers of other types, e.g. <code>java.math.BigDecimal</code>
+ * or values of an unknown type, are computed by {@link Operators}. Concatenations are flattened into a
+ * single <code>java.lang.StringBuilder</code> that is presized to the length of the operands, so no
+ * intermediate strings are created. The logical operators, the conditional operator and the coalescing
+ * operator only evaluate the operands that affect the result.
+ */
+public class ExpressionCodeGenerator implements ExpressionVisitor<ExpressionCodeGenerator.Value> {
+
+    private Class<?> sourceType = null;
+
+    private String source = null;
+
+    private String parameters = null;
+
+    private String variablePrefix = "v";
+
+    private StringBuilder code = new StringBuilder();
+
+    private int variableCount = 0;
+
+    private List<Block> blocks = new ArrayList<Block>();
+
+    private Class<?> targetType = null;
+
+    private Class<?> targetComponentType = null;
+
+    private boolean ignoringNulls = false;
+
+    /**
+     * Creates a new code generator.
+     *
+     * @param sourceType The type of the source object.
+     * @param source     The code that references the source object, e.g. <code>$1</code>.
+     */
+    public ExpressionCodeGenerator(@NotNull Class<?> sourceType, @NotEmpty String source) {
+        this.sourceType = sourceType;
+        this.source = source;
+    }
+
+    public void setVariablePrefix(@NotEmpty String variablePrefix) {
+        this.variablePrefix = variablePrefix;
+    }
+
+    /**
+     * Sets the code that references the parameters of the evaluation, e.g. <code>$2</code>. Expressions
+     * that refer to parameters are rejected unless the parameters are available.
+     *
+     * @param parameters The code that references the parameter array.
+     */
+    public void setParameters(@NotEmpty String parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * Sets the type of the property that the value of the next generated expression is copied to. Loops
+     * of the expression add their values to a collection or an array of the target type, converting the
+     * elements to the component type as {@link BeanUtil#copy} does. Other values are copied by
+     * {@link BeanUtil#copy(Object, Class, Class)}, so the value of the expression is always of the target type.
+     *
+     * @param targetType    The type of the property, which must be {@link #isCollectable collectable}.
+     * @param componentType The type of the elements of the property.
+     */
+    public void setTarget(@NotNull Class<?> targetType, @NotNull Class<?> componentType) {
+        if (!isCollectable(targetType, componentType)) {
+            throw new IllegalArgumentException("Values can't be collected into " + getTypeImage(targetType)
+                    + " of " + getTypeImage(componentType));
+        }
+
+        this.targetType = targetType;
+        this.targetComponentType = componentType;
+    }
+
+    /**
+     * Checks whether or not the elements of a path can be collected into a property of the provided type by
+     * the generated code, i.e. if the property is an array or a collection that can be instantiated and the
+     * elements don't need to be assembled or copied themselves.
+     *
+     * @param type          The type of the property.
+     * @param componentType The type of the elements of the property.
+     * @return Whether or not the generated code can collect the elements into the property.
+     */
+    public static boolean isCollectable(@NotNull Class<?> type, @NotNull Class<?> componentType) {
+        if (componentType.isArray() || Collection.class.isAssignableFrom(componentType) || !isAccessible(componentType)
+                || componentType.isAnnotationPresent(com.googlecode.bumblebee.dto.DataObject.class)) {
+            return false;
+        } else if (type.isArray()) {
+            return type.getComponentType().equals(componentType);
+        } else {
+            return getCollectionClass(type) != null;
+        }
+    }
+
+    /**
+     * Returns the class that is instantiated for a collection property of the provided type.
+     *
+     * @param type The type of the property.
+     * @return The class of the collection, or <code>null</code> if no collection of the type can be created.
+     */
+    protected static Class<?> getCollectionClass(Class<?> type) {
+        if (type.equals(Collection.class) || type.equals(List.class)) {
+            return ArrayList.class;
+        } else if (type.equals(Set.class)) {
+            return HashSet.class;
+        } else if (!Collection.class.isAssignableFrom(type) || type.isInterface() || Modifier.isAbstract(type.getModifiers())
+                || !isAccessible(type)) {
+            return null;
+        }
+
+        try {
+            return (Modifier.isPublic(type.getConstructor().getModifiers()) ? type : null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Generates the statements that evaluate the provided expression. The statements are appended to
+     * the code of this generator.
+     *
+     * @param expression The expression to generate code for.
+     * @return The value holding the result of the expression.
+     */
+    public Value generate(@NotNull Expression expression) {
+        int depth = blocks.size();
+        Class<?> targetType = this.targetType;
+        Value value = null;
+
+        // Only the outermost expression is generated into the target, not its operands
+        this.targetType = null;
+        value = expression.accept(this);
+
+        // Null-safe guards inside the innermost loop yield null if any of the targets is null
+        int innermostLoop = blocks.size() - 1;
+
+        while (innermostLoop >= depth && !blocks.get(innermostLoop).isLoop()) {
+            innermostLoop--;
+        }
+
+        value = closeGuards(value, innermostLoop + 1);
+
+        // All loops add to a result collection that is declared before the outermost loop, which
+        // flattens nested aggregates. Sets evaluate to sets, other aggregates to lists.
+        for (int i = depth; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+
+            if (block.isLoop()) {
+                Value aggregate = block.getAggregate();
+                String result = variablePrefix + (variableCount++);
+                List<Value> aggregates = getLoopAggregates(i);
+                // The number of values is only known if there's a single loop
+                String size = (aggregates.size() == 1 ? getSizeCode(aggregate) : "");
+                Class<?> resultType = null;
+
+                if (targetType != null && isCollectable(targetType, aggregates)) {
+                    value = (targetType.isArray() ? collectIntoArray(i, value, targetType, size)
+                            : collectIntoCollection(i, value, targetType, size));
+                    targetType = null;
+                    break;
+                }
+
+                if (Set.class.isAssignableFrom(aggregate.getType())) {
+                    resultType = HashSet.class;
+                    code.insert(block.getStart(), "java.util.Collection " + result + " = new java.util.HashSet(" + size + ");");
+                } else if (aggregate.getType().isArray() || List.class.isAssignableFrom(aggregate.getType())) {
+                    resultType = ArrayList.class;
+                    code.insert(block.getStart(), "java.util.Collection " + result + " = new java.util.ArrayList(" + size + ");");
+                } else {
+                    resultType = Collection.class;
+                    code.insert(block.getStart(), "java.util.Collection " + result + " = null;"
+                            + "if (" + aggregate.getName() + " instanceof java.util.Set) " + result + " = new java.util.HashSet(" + size + ");"
+                            + "else " + result + " = new java.util.ArrayList(" + size + ");");
+                }
+
+                code.append(result).append(".add(").append(box(value)).append(");");
+                closeBlocks(i);
+                value = new Value(result, resultType, false);
+                break;
+            }
+        }
+
+        value = closeGuards(value, depth);
+
+        if (targetType != null) {
+            // The value isn't collected by a loop, so it's copied to the target type
+            String copy = variablePrefix + (variableCount++);
+
+            code.append("java.lang.Object ").append(copy).append(" = null;");
+
+            if (value.isNullable()) {
+                code.append("if (").append(value.getName()).append(" != null) ");
+            }
+
+            code.append(copy).append(" = com.googlecode.bumblebee.beans.BeanUtil.copy(").append(box(value)).append(", ")
+                    .append(getTypeImage(targetType)).append(".class, ").append(getTypeImage(targetComponentType)).append(".class);");
+            value = new Value(copy, targetType, value.isNullable());
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the aggregates of the loops that are open from the provided block.
+     *
+     * @param index The index of the outermost block.
+     * @return The iterated aggregates, outermost first.
+     */
+    private List<Value> getLoopAggregates(int index) {
+        List<Value> aggregates = new ArrayList<Value>();
+
+        for (Block block : blocks.subList(index, blocks.size())) {
+            if (block.isLoop()) {
+                aggregates.add(block.getAggregate());
+            }
+        }
+
+        return aggregates;
+    }
+
+    /**
+     * Checks whether or not the values of loops over the provided aggregates can be collected into the
+     * target type. Values of sets are only collected into sets, since they'd otherwise lose the distinctness
+     * of the intermediate result.
+     *
+     * @param targetType The type of the property.
+     * @param aggregates The aggregates of the loops.
+     * @return Whether or not the values can be added to the target directly.
+     */
+    private boolean isCollectable(Class<?> targetType, List<Value> aggregates) {
+        if (!targetType.isArray() && Set.class.isAssignableFrom(getCollectionClass(targetType))) {
+            return true;
+        }
+
+        for (Value aggregate : aggregates) {
+            if (!aggregate.getType().isArray() && !List.class.isAssignableFrom(aggregate.getType())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the value computed in a loop to a collection of the target type, which is declared before the
+     * outermost loop. Elements are converted as by {@link BeanUtil#copy}. The loops are closed.
+     *
+     * @param index      The index of the outermost loop.
+     * @param value      The value of an element.
+     * @param targetType The type of the collection property.
+     * @param size       The number of elements, or an empty string if unknown.
+     * @return The collection.
+     */
+    protected Value collectIntoCollection(int index, Value value, Class<?> targetType, String size) {
+        Class<?> collectionClass = getCollectionClass(targetType);
+        String result = variablePrefix + (variableCount++);
+        String element = null;
+
+        if (!collectionClass.equals(ArrayList.class) && !collectionClass.equals(HashSet.class)) {
+            size = "";
+        }
+
+        code.insert(blocks.get(index).getStart(), "java.util.Collection " + result + " = new " + getTypeImage(collectionClass) + "(" + size + ");");
+
+        if (value.isPrimitive() && targetComponentType.isAssignableFrom(BeanUtil.getWrapperType(value.getType()))) {
+            element = box(value);
+        } else {
+            element = convertElement(value, targetComponentType);
+            code.append("if (!(").append(element).append(" instanceof ").append(getTypeImage(targetComponentType))
+                    .append(")) throw new ").append(com.googlecode.bumblebee.dto.AssemblyException.class.getName())
+                    .append("(\"Incompatible element in collection: element \" + ").append(element)
+                    .append(" + \" is not assignable to ").append(targetComponentType.getName()).append("\");");
+        }
+
+        code.append(result).append(".add(").append(element).append(");");
+        closeBlocks(index);
+
+        return new Value(result, targetType, false);
+    }
+
+    /**
+     * Stores the value computed in a loop in an array of the target type, which is declared before the
+     * outermost loop. The array is grown as needed and trimmed to the number of elements after the loop,
+     * unless the number of elements is known. Elements are converted as by {@link BeanUtil#copy}. The
+     * loops are closed.
+     *
+     * @param index      The index of the outermost loop.
+     * @param value      The value of an element.
+     * @param targetType The array type of the property.
+     * @param size       The number of elements, or an empty string if unknown.
+     * @return The array.
+     */
+    protected Value collectIntoArray(int index, Value value, Class<?> targetType, String size) {
+        Class<?> componentType = targetType.getComponentType();
+        String componentImage = getTypeImage(componentType);
+        String arrayImage = getTypeImage(targetType);
+        String result = variablePrefix + (variableCount++);
+        String count = variablePrefix + (variableCount++);
+        String copy = variablePrefix + (variableCount++);
+        Class<?> primitiveType = (value.isPrimitive() ? value.getType() : BeanUtil.getPrimitiveType(value.getType()));
+
+        code.insert(blocks.get(index).getStart(), arrayImage + " " + result + " = new " + componentImage + "["
+                + (size.length() == 0 ? "16" : size) + "];int " + count + " = 0;");
+
+        if (size.length() == 0) {
+            code.append("if (").append(count).append(" == ").append(result).append(".length) {")
+                    .append(arrayImage).append(' ').append(copy).append(" = new ").append(componentImage).append('[')
+                    .append(count).append(" * 2];java.lang.System.arraycopy(").append(result).append(", 0, ")
+                    .append(copy).append(", 0, ").append(count).append(");").append(result).append(" = ").append(copy).append(";}");
+        }
+
+        if (!componentType.isPrimitive()) {
+            String element = convertElement(value, componentType);
+
+            if (!componentType.isAssignableFrom(value.isPrimitive() ? BeanUtil.getWrapperType(value.getType()) : value.getType())) {
+                code.append("if (").append(element).append(" != null && !(").append(element).append(" instanceof ")
+                        .append(componentImage).append(")) throw new java.lang.IllegalArgumentException(\"argument type mismatch\");");
+            }
+
+            code.append(result).append('[').append(count).append("++] = (").append(componentImage).append(") ").append(element).append(';');
+        } else if (primitiveType != null && isWidening(primitiveType, componentType)) {
+            String element = value.getName();
+
+            if (!value.isPrimitive()) {
+                element = "((" + getTypeImage(value.getType()) + ") " + value.getName() + ")." + primitiveType.getName() + "Value()";
+
+                if (value.isNullable()) {
+                    code.append("if (").append(value.getName()).append(" == null) throw new java.lang.IllegalArgumentException();");
+                }
+            }
+
+            code.append(result).append('[').append(count).append("++] = (").append(componentImage).append(") ").append(element).append(';');
+        } else {
+            // Stores values of other types as reflection does, e.g. values of an unknown type
+            code.append("java.lang.reflect.Array.set(").append(result).append(", ").append(count).append("++, ")
+                    .append(box(value)).append(");");
+        }
+
+        closeBlocks(index);
+
+        if (size.length() == 0) {
+            copy = variablePrefix + (variableCount++);
+            code.append("if (").append(count).append(" != ").append(result).append(".length) {")
+                    .append(arrayImage).append(' ').append(copy).append(" = new ").append(componentImage).append('[')
+                    .append(count).append("];java.lang.System.arraycopy(").append(result).append(", 0, ")
+                    .append(copy).append(", 0, ").append(count).append(");").append(result).append(" = ").append(copy).append(";}");
+        }
+
+        return new Value(result, targetType, false);
+    }
+
+    /**
+     * Converts a value that is added to a collection or an array to the component type as
+     * {@link BeanUtil#copy} does, i.e. numbers are converted to the numeric wrapper type of the component.
+     *
+     * @param value         The value of the element.
+     * @param componentType The component type of the collection or the array.
+     * @return The name of the local that holds the converted element.
+     */
+    protected String convertElement(Value value, Class<?> componentType) {
+        String element = variablePrefix + (variableCount++);
+
+        code.append("java.lang.Object ").append(element).append(" = ").append(box(value)).append(';');
+
+        if (Number.class.isAssignableFrom(componentType) && !componentType.isAssignableFrom(value.getType())
+                && isNumeric(value.getType())) {
+            code.append("if (").append(element).append(" instanceof java.lang.Number && !(").append(element)
+                    .append(" instanceof ").append(getTypeImage(componentType)).append(")) ").append(element)
+                    .append(" = com.googlecode.bumblebee.beans.BeanUtil.convertNumber((java.lang.Number) ").append(element)
+                    .append(", ").append(literal(componentType.getName())).append(");");
+        }
+
+        return element;
+    }
+
+    /**
+     * Checks whether or not a primitive of one type can be stored in an array of another primitive type,
+     * i.e. if the types are the same or the conversion is a widening primitive conversion.
+     *
+     * @param type          The type of the value.
+     * @param componentType The component type of the array.
+     * @return Whether or not the value can be stored without reflection.
+     */
+    protected static boolean isWidening(Class<?> type, Class<?> componentType) {
+        List<Class<?>> numericTypes = Arrays.<Class<?>>asList(byte.class, short.class, int.class, long.class, float.class, double.class);
+
+        if (type.equals(componentType)) {
+            return true;
+        } else if (type.equals(char.class)) {
+            return numericTypes.indexOf(componentType) >= numericTypes.indexOf(int.class);
+        } else {
+            return numericTypes.contains(type) && numericTypes.indexOf(componentType) > numericTypes.indexOf(type);
+        }
+    }
+
+    /**
+     * Returns the statements generated so far.
+     *
+     * @return The generated code.
+     */
+    public String getCode() {
+        return code.toString();
+    }
+
+    public Value visitThis(ThisExpression expression) {
+        return new Value(source, sourceType, false);
+    }
+
+    public Value visitProperty(PropertyExpression expression) {
+        Value target = expression.getTarget().accept(this);
+        Method accessor = null;
+
+        if (expression.isNullSafeNavigation() || ignoringNulls) {
+            guardNotNull(target);
+        } else {
+            checkNotNull(target, "Expression '" + expression.getTarget() + "' evaluates to null");
+        }
+
+        if (!target.isPrimitive() && isAggregate(target.getType())) {
+            // Evaluate the property of each element of the aggregate
+            target = iterate(target);
+
+            if (expression.isNullSafeNavigation() || ignoringNulls) {
+                guardNotNull(target);
+            } else {
+                checkNotNull(target, "Expression '" + expression.getTarget() + "' contains null elements");
+            }
+        }
+
+        if (!target.isPrimitive()) {
+            accessor = getPublicAccessor(target.getType(), expression.getProperty());
+        }
+
+        if (accessor == null) {
+            // The accessor can't be invoked directly; fall back to reflection
+            return assign(Object.class, "com.googlecode.bumblebee.beans.BeanUtil.getProperty(" + box(target)
+                    + ", " + literal(expression.getProperty()) + ")", true);
+        } else {
+            Value value = assign(accessor.getReturnType(), "((" + getTypeImage(accessor.getDeclaringClass()) + ") "
+                    + target.getName() + ")." + accessor.getName() + "()", true);
+
+            value.setElementType(getElementType(accessor.getGenericReturnType()));
+
+            return value;
+        }
+    }
+
+    public Value visitAggregate(AggregateExpression expression) {
+        int depth = blocks.size();
+        int start = code.length();
+        Value value = evaluateIgnoringNulls(expression.getArgument());
+        Aggregation aggregation = new Aggregation(variablePrefix + (variableCount++));
+        Value result = null;
+
+        // Null values are ignored by all aggregates
+        guardNotNull(value);
+
+        if (expression.getFunction() == AggregateExpression.Function.COUNT
+                || expression.getFunction() == AggregateExpression.Function.SIZE) {
+            result = count(value, aggregation);
+        } else if (expression.getFunction() == AggregateExpression.Function.EMPTY) {
+            String empty = variablePrefix + (variableCount++);
+
+            aggregation.complete("boolean " + empty + " = (" + count(value, aggregation).getName() + " == 0);");
+            result = new Value(empty, boolean.class, false);
+        } else {
+            if (!value.isPrimitive() && isAggregate(value.getType())) {
+                value = iterate(value);
+                guardNotNull(value);
+            }
+
+            switch (expression.getFunction()) {
+                case SUM:
+                    result = sum(expression, value, aggregation);
+                    break;
+                case AVG:
+                    result = average(expression, value, aggregation);
+                    break;
+                default:
+                    result = extreme(expression, value, aggregation);
+            }
+        }
+
+        // The accumulators are declared before the first loop and the result is computed after the last
+        code.insert(start, aggregation.getDeclarations());
+        closeBlocks(depth);
+        code.append(aggregation.getCompletion());
+
+        return result;
+    }
+
+    /**
+     * Evaluates the argument of an aggregate function or a <code>top</code> selection. Null values on
+     * the path of the argument are skipped rather than dereferenced, as if it used null-safe navigation.
+     *
+     * @param expression The argument.
+     * @return The value of the argument.
+     */
+    protected Value evaluateIgnoringNulls(Expression expression) {
+        return visit(expression, true);
+    }
+
+    private Value visit(Expression expression, boolean ignoreNulls) {
+        boolean currentIgnoringNulls = ignoringNulls;
+
+        ignoringNulls = ignoreNulls;
+
+        try {
+            return expression.accept(this);
+        } finally {
+            ignoringNulls = currentIgnoringNulls;
+        }
+    }
+
+    public Value visitIndex(IndexExpression expression) {
+        Value target = expression.getTarget().accept(this);
+        Value index = null;
+        Value value = null;
+        Class<?> type = null;
+
+        // A null target is indexed as if it were empty
+        guardNotNull(target);
+
+        index = visit(expression.getIndex(), false);
+        type = target.getType();
+        checkNotNull(index, "Index '" + expression.getIndex() + "' evaluates to null");
+
+        if (Map.class.isAssignableFrom(type)) {
+            value = assign(target.getElementType(), "((java.util.Map) " + target.getName() + ").get("
+                    + box(index) + ")", true);
+        } else if ((type.isArray() || List.class.isAssignableFrom(type)) && isNumeric(index.getType())) {
+            String position = (index.getType().equals(int.class) ? index.getName()
+                    : assign(int.class, index.isPrimitive() ? "(int) " + index.getName() : unbox(index, int.class), false).getName());
+
+            // An index that is out of range evaluates to null
+            guard(position + " >= 0 && " + position + " < " + getSizeCode(target));
+
+            if (type.isArray()) {
+                value = assign(type.getComponentType(), "((" + getArrayTypeImage(type) + ") " + target.getName()
+                        + ")[" + position + "]", true);
+            } else {
+                value = assign(target.getElementType(), "((java.util.List) " + target.getName() + ").get("
+                        + position + ")", true);
+            }
+        } else {
+            // The type of the target or of the index isn't known; fall back to reflection
+            value = assign(Object.class, "com.googlecode.bumblebee.beans.BeanUtil.getIndexedValue(" + box(target)
+                    + ", " + box(index) + ")", true);
+        }
+
+        // A missing element short-circuits the remainder of the path
+        guardNotNull(value);
+
+        return (value.isNullable() ? new Value(value.getName(), value.getType(), false) : value);
+    }
+
+    public Value visitLiteral(LiteralExpression expression) {
+        Object value = expression.getValue();
+
+        if (value == null) {
+            return assign(Object.class, "null", true);
+        } else if (value instanceof Integer) {
+            return new Value(value.toString(), int.class, false);
+        } else if (value instanceof Long) {
+            return new Value(value + "L", long.class, false);
+        } else if (value instanceof Double) {
+            return new Value(value + "D", double.class, false);
+        } else if (value instanceof Boolean) {
+            return new Value(value.toString(), boolean.class, false);
+        } else if (value instanceof String) {
+            return new Value(literal((String) value), String.class, false);
+        } else {
+            throw new InvalidExpressionException("Unsupported literal " + value + " of type " + value.getClass().getName());
+        }
+    }
+
+    public Value visitParameter(ParameterExpression expression) {
+        if (parameters == null) {
+            throw new InvalidExpressionException("Parameters can't be used in expression '" + expression + "'");
+        }
+
+        code.append("if (").append(parameters).append(" == null || ").append(parameters).append(".length <= ")
+                .append(expression.getIndex()).append(") throw new java.lang.IllegalArgumentException(")
+                .append(literal("Parameter " + expression + " is not bound")).append(");");
+
+        return assign(Object.class, parameters + "[" + expression.getIndex() + "]", true);
+    }
+
+    public Value visitSlice(SliceExpression expression) {
+        Value target = expression.getTarget().accept(this);
+        Class<?> type = target.getType();
+        Value value = null;
+
+        // A null target is sliced as if it were empty
+        String ifNull = (target.isNullable() ? target.getName() + " == null ? " : null);
+
+        if (List.class.isAssignableFrom(type)) {
+            // Only the range is copied; a view would expose the source list
+            Value end = assign(int.class, (ifNull == null ? "" : ifNull + "0 : ") + "java.lang.Math.min("
+                    + expression.getTo() + ", " + getSizeCode(target) + ")", false);
+
+            value = assign(List.class, (ifNull == null ? "" : ifNull + "(java.lang.Object) java.util.Collections.EMPTY_LIST : (java.lang.Object) ")
+                    + "new java.util.ArrayList(((java.util.List) " + target.getName() + ").subList(java.lang.Math.min("
+                    + expression.getFrom() + ", " + end.getName() + "), " + end.getName() + "))", false);
+        } else {
+            String empty = (type.isArray() ? "java.lang.reflect.Array.newInstance(" + getTypeImage(type.getComponentType())
+                    + ".class, 0)" : "java.util.Collections.EMPTY_LIST");
+
+            value = assign(type.isArray() ? type : (Collection.class.isAssignableFrom(type) ? List.class : Object.class),
+                    (ifNull == null ? "" : ifNull + "(java.lang.Object) " + empty + " : (java.lang.Object) ")
+                            + "com.googlecode.bumblebee.beans.BeanUtil.slice(" + target.getName() + ", " + expression.getFrom()
+                            + ", " + expression.getTo() + ")", false);
+        }
+
+        if (!type.isArray()) {
+            value.setElementType(target.getElementType());
+        }
+
+        return value;
+    }
+
+    public Value visitTop(TopExpression expression) {
+        int depth = blocks.size();
+        int start = code.length();
+        Value value = evaluateIgnoringNulls(expression.getTarget());
+        String heap = variablePrefix + (variableCount++);
+        Class<?> elementType = null;
+        Value key = null;
+
+        // Null values are ignored, as by the aggregate functions
+        guardNotNull(value);
+
+        if (!value.isPrimitive() && isAggregate(value.getType())) {
+            value = iterate(value);
+            guardNotNull(value);
+        }
+
+        elementType = (value.isPrimitive() ? BeanUtil.getWrapperType(value.getType()) : value.getType());
+        key = generateKey(expression, value);
+
+        // Only the selected elements are retained by the heap; the remaining elements are never copied
+        code.append(heap).append(".offer(").append(box(key)).append(", ").append(box(value)).append(");");
+        code.insert(start, BoundedHeap.class.getName() + " " + heap + " = new " + BoundedHeap.class.getName()
+                + "(" + expression.getLimit() + ");");
+        closeBlocks(depth);
+
+        Value result = assign(List.class, heap + ".toList()", false);
+        result.setElementType(elementType);
+
+        return result;
+    }
+
+    /**
+     * Generates the code that evaluates the key of a <code>top</code> expression against an element.
+     *
+     * @param expression The top expression.
+     * @param element    The element the key is evaluated against.
+     * @return The key, <code>null</code> if a null-safe key path is interrupted.
+     */
+    protected Value generateKey(TopExpression expression, Value element) {
+        Class<?> currentSourceType = sourceType;
+        String currentSource = source;
+        int depth = blocks.size();
+        Value key = null;
+
+        sourceType = element.getType();
+        source = element.getName();
+
+        try {
+            key = visit(expression.getKey(), false);
+        } finally {
+            sourceType = currentSourceType;
+            source = currentSource;
+        }
+
+        for (int i = depth; i < blocks.size(); i++) {
+            if (blocks.get(i).isLoop()) {
+                throw new InvalidExpressionException("The key of expression '" + expression + "' evaluates to multiple values");
+            }
+        }
+
+        return closeGuards(key, depth);
+    }
+
+    public Value visitBinary(BinaryExpression expression) {
+        Value[] operands = null;
+
+        switch (expression.getOperator()) {
+            case COALESCE:
+                return coalesce(expression);
+            case AND:
+            case OR:
+                return logical(expression);
+            case ADD:
+                return add(expression);
+            case EQUAL:
+            case NOT_EQUAL:
+                operands = evaluateOperands(expression, expression.getLeft(), expression.getRight());
+                return equality(expression, operands[0], operands[1]);
+            default:
+                operands = evaluateOperands(expression, expression.getLeft(), expression.getRight());
+
+                if (expression.getOperator().isRelational()) {
+                    return compare(expression, operands[0], operands[1]);
+                } else {
+                    return arithmetic(expression, expression.getOperator(), operands[0], operands[1]);
+                }
+        }
+    }
+
+    public Value visitUnary(UnaryExpression expression) {
+        Value operand = evaluate(expression.getOperand());
+        Class<?> type = null;
+
+        if (expression.getOperator() == UnaryExpression.Operator.NOT) {
+            return assign(boolean.class, "!" + toBoolean(expression, operand), false);
+        }
+
+        checkNumeric(expression, operand);
+        guardNotNull(operand);
+        type = getPromotedType(operand, operand);
+
+        if (type != null) {
+            return assign(type, "-(" + getOperandCode(operand, type) + ")", false);
+        } else if (BigDecimal.class.equals(operand.getType())) {
+            return assign(BigDecimal.class, "((java.math.BigDecimal) " + operand.getName() + ").negate()", false);
+        } else {
+            return assign(Object.class, Operators.class.getName() + ".negate(" + operand.getName() + ")", false);
+        }
+    }
+
+    public Value visitConditional(ConditionalExpression expression) {
+        Value condition = evaluate(expression.getCondition());
+        int start = code.length();
+        int end = 0;
+        Value whenTrue = null;
+
+        // Only the selected branch is evaluated
+        code.append("if (").append(toBoolean(expression, condition)).append(") {");
+        whenTrue = generate(expression.getWhenTrue());
+        end = code.length();
+        code.append("} else {");
+
+        return join(start, whenTrue, end, generate(expression.getWhenFalse()));
+    }
+
+    /**
+     * Generates the code of a coalescing expression. The right operand is only evaluated if the left
+     * operand is <code>null</code>, and it's not evaluated at all if the left operand can't be
+     * <code>null</code>.
+     *
+     * @param expression The coalescing expression.
+     * @return The value of the left operand, or the value of the right operand if the left is <code>null</code>.
+     */
+    protected Value coalesce(BinaryExpression expression) {
+        Value left = evaluate(expression.getLeft());
+        int start = code.length();
+        int end = 0;
+
+        if (!left.isNullable()) {
+            return left;
+        }
+
+        code.append("if (").append(left.getName()).append(" != null) {");
+        end = code.length();
+        code.append("} else {");
+
+        return join(start, new Value(left.getName(), left.getType(), false), end, generate(expression.getRight()));
+    }
+
+    /**
+     * Generates the code of a logical operator. The right operand is only evaluated if the left operand
+     * doesn't determine the result. Operands that are <code>null</code> are <code>false</code>.
+     *
+     * @param expression The <code>&&</code> or <code>||</code> expression.
+     * @return The boolean result.
+     */
+    protected Value logical(BinaryExpression expression) {
+        Value left = evaluate(expression.getLeft());
+        Value result = assign(boolean.class, toBoolean(expression, left), false);
+        Value right = null;
+
+        code.append("if (").append(expression.getOperator() == BinaryExpression.Operator.OR ? "!" : "")
+                .append(result.getName()).append(") {");
+        right = generate(expression.getRight());
+        code.append(result.getName()).append(" = ").append(toBoolean(expression, right)).append(";}");
+
+        return result;
+    }
+
+    /**
+     * Generates the code of an addition. A chain of additions that involves a string is compiled into a
+     * single concatenation; the operands that precede the first string are added as numbers, as in Java.
+     *
+     * @param expression The addition.
+     * @return The sum or the concatenated string.
+     */
+    protected Value add(BinaryExpression expression) {
+        LinkedList<Expression> parts = new LinkedList<Expression>();
+        Expression part = expression;
+        Value[] operands = null;
+        Value value = null;
+
+        // Additions are left associative, so a chain of additions is nested in the left operands
+        while (part instanceof BinaryExpression && ((BinaryExpression) part).getOperator() == BinaryExpression.Operator.ADD) {
+            parts.addFirst(((BinaryExpression) part).getRight());
+            part = ((BinaryExpression) part).getLeft();
+        }
+
+        parts.addFirst(part);
+        operands = evaluateOperands(expression, parts.toArray(new Expression[parts.size()]));
+        value = operands[0];
+
+        for (int i = 1; i < operands.length; i++) {
+            if (String.class.equals(value.getType()) || String.class.equals(operands[i].getType())) {
+                List<Value> strings = new ArrayList<Value>(Arrays.asList(operands).subList(i, operands.length));
+
+                strings.add(0, value);
+
+                return concatenate(strings);
+            }
+
+            value = arithmetic(expression, BinaryExpression.Operator.ADD, value, operands[i]);
+        }
+
+        return value;
+    }
+
+    /**
+     * Generates a concatenation of the provided values. The buffer is presized to the length of the
+     * literals and strings; <code>null</code> values are omitted.
+     *
+     * @param parts The values to concatenate.
+     * @return The concatenated string.
+     */
+    protected Value concatenate(List<Value> parts) {
+        String buffer = variablePrefix + (variableCount++);
+        StringBuilder capacity = new StringBuilder();
+        int length = 0;
+
+        for (Value part : parts) {
+            if (!String.class.equals(part.getType())) {
+                length += 16;
+            } else if (part.getName().startsWith("\"")) {
+                length += part.getName().length() - 2;
+            } else if (part.isNullable()) {
+                capacity.append(" + (").append(part.getName()).append(" == null ? 0 : ((java.lang.String) ")
+                        .append(part.getName()).append(").length())");
+            } else {
+                capacity.append(" + ((java.lang.String) ").append(part.getName()).append(").length()");
+            }
+        }
+
+        code.append("java.lang.StringBuilder ").append(buffer).append(" = new java.lang.StringBuilder(")
+                .append(length).append(capacity).append(");");
+
+        for (Value part : parts) {
+            if (part.isNullable()) {
+                code.append("if (").append(part.getName()).append(" != null) ");
+            }
+
+            code.append(buffer).append(".append(");
+
+            if (String.class.equals(part.getType()) && !part.getName().startsWith("\"")) {
+                code.append("(java.lang.String) ");
+            }
+
+            code.append(part.getName()).append(");");
+        }
+
+        return assign(String.class, buffer + ".toString()", false);
+    }
+
+    /**
+     * Generates the code of an arithmetic operator. Operands that are <code>null</code> short-circuit
+     * the remainder of the expression, i.e. the result is <code>null</code>.
+     *
+     * @param expression The expression that is compiled.
+     * @param operator   The arithmetic operator.
+     * @param left       The left operand.
+     * @param right      The right operand.
+     * @return The result of the operator.
+     */
+    protected Value arithmetic(Expression expression, BinaryExpression.Operator operator, Value left, Value right) {
+        Class<?> type = getPromotedType(left, right);
+        String method = operator.name().toLowerCase();
+
+        checkNumeric(expression, left);
+        checkNumeric(expression, right);
+        guardNotNull(left);
+        guardNotNull(right);
+
+        if (type != null) {
+            return assign(type, getOperandCode(left, type) + " " + operator.getSymbol() + " "
+                    + getOperandCode(right, type), false);
+        } else if (BigDecimal.class.equals(left.getType()) && BigDecimal.class.equals(right.getType())) {
+            return assign(BigDecimal.class, "((java.math.BigDecimal) " + left.getName() + ")." + method
+                    + "((java.math.BigDecimal) " + right.getName()
+                    + (operator == BinaryExpression.Operator.DIVIDE ? ", java.math.MathContext.DECIMAL128)" : ")"), false);
+        } else {
+            return assign(Object.class, Operators.class.getName() + "." + method + "(" + box(left) + ", "
+                    + box(right) + ")", false);
+        }
+    }
+
+    /**
+     * Generates the code of a relational operator. Operands that are <code>null</code> short-circuit
+     * the remainder of the expression, i.e. the result is <code>null</code>.
+     *
+     * @param expression The relational expression.
+     * @param left       The left operand.
+     * @param right      The right operand.
+     * @return The boolean result.
+     */
+    protected Value compare(BinaryExpression expression, Value left, Value right) {
+        Class<?> type = getPromotedType(left, right);
+        String operator = " " + expression.getOperator().getSymbol() + " ";
+
+        guardNotNull(left);
+        guardNotNull(right);
+
+        if (type != null) {
+            return assign(boolean.class, getOperandCode(left, type) + operator + getOperandCode(right, type), false);
+        } else if (BigDecimal.class.equals(left.getType()) && BigDecimal.class.equals(right.getType())) {
+            return assign(boolean.class, "((java.math.BigDecimal) " + left.getName() + ").compareTo((java.math.BigDecimal) "
+                    + right.getName() + ")" + operator + "0", false);
+        } else {
+            checkComparable(expression, left, right);
+
+            return assign(boolean.class, Operators.class.getName() + ".compare(" + box(left) + ", " + box(right) + ", "
+                    + literal(expression.toString()) + ")" + operator + "0", false);
+        }
+    }
+
+    /**
+     * Checks whether or not the values of a relational operator can be compared, if their types are known.
+     * Numbers can only be compared to numbers, and other values must be comparable to values of the
+     * type of the other operand. Values of unknown types are checked by {@link Operators#compare}.
+     *
+     * @param expression The relational expression.
+     * @param left       The left operand.
+     * @param right      The right operand.
+     */
+    protected void checkComparable(BinaryExpression expression, Value left, Value right) {
+        Class<?> leftType = (left.isPrimitive() ? BeanUtil.getWrapperType(left.getType()) : left.getType());
+        Class<?> rightType = (right.isPrimitive() ? BeanUtil.getWrapperType(right.getType()) : right.getType());
+        boolean comparable = true;
+
+        if (leftType.equals(Object.class) || rightType.equals(Object.class)) {
+            return;
+        } else if (Number.class.isAssignableFrom(leftType) || Number.class.isAssignableFrom(rightType)) {
+            comparable = Number.class.isAssignableFrom(leftType) && Number.class.isAssignableFrom(rightType);
+        } else if (!leftType.isInterface() && !rightType.isInterface()) {
+            comparable = Comparable.class.isAssignableFrom(leftType)
+                    && (leftType.isAssignableFrom(rightType) || rightType.isAssignableFrom(leftType));
+        }
+
+        if (!comparable) {
+            throw new InvalidExpressionException("Expression '" + expression + "' can't compare values of type "
+                    + leftType.getName() + " and " + rightType.getName());
+        }
+    }
+
+    /**
+     * Generates the code of an equality operator. Numbers are equal if their values are equal and
+     * <code>null</code> is only equal to <code>null</code>.
+     *
+     * @param expression The equality expression.
+     * @param left       The left operand.
+     * @param right      The right operand.
+     * @return The boolean result.
+     */
+    protected Value equality(BinaryExpression expression, Value left, Value right) {
+        Class<?> type = getPromotedType(left, right);
+        boolean equal = (expression.getOperator() == BinaryExpression.Operator.EQUAL);
+
+        if (left.isNullable() || right.isNullable()) {
+            type = null;
+        } else if (type == null && left.getType().equals(boolean.class) && right.getType().equals(boolean.class)) {
+            type = boolean.class;
+        }
+
+        if (type != null) {
+            return assign(boolean.class, getOperandCode(left, type) + (equal ? " == " : " != ")
+                    + getOperandCode(right, type), false);
+        } else {
+            return assign(boolean.class, (equal ? "" : "!") + Operators.class.getName() + ".equal(" + box(left) + ", "
+                    + box(right) + ")", false);
+        }
+    }
+
+    /**
+     * Evaluates an operand of an operator. The null-safe guards of the operand are closed, so an operand
+     * that is interrupted evaluates to <code>null</code> rather than short-circuiting the operator. Loops
+     * remain open, i.e. the operator is applied to each element.
+     *
+     * @param expression The operand.
+     * @return The value of the operand.
+     */
+    protected Value evaluate(Expression expression) {
+        int depth = blocks.size();
+        Value value = expression.accept(this);
+        int innermostLoop = blocks.size() - 1;
+
+        while (innermostLoop >= depth && !blocks.get(innermostLoop).isLoop()) {
+            innermostLoop--;
+        }
+
+        return closeGuards(value, innermostLoop + 1);
+    }
+
+    /**
+     * Evaluates the operands of an operator in order. At most one of the operands may evaluate to
+     * multiple values, since the operator is applied element-wise.
+     *
+     * @param expression The expression the operands belong to.
+     * @param operands   The operands.
+     * @return The values of the operands.
+     */
+    protected Value[] evaluateOperands(Expression expression, Expression ... operands) {
+        Value[] values = new Value[operands.length];
+        boolean aggregate = false;
+
+        for (int i = 0; i < operands.length; i++) {
+            int depth = blocks.size();
+
+            values[i] = evaluate(operands[i]);
+
+            if (blocks.size() > depth) {
+                if (aggregate) {
+                    throw new InvalidExpressionException("More than one operand of expression '" + expression
+                            + "' evaluates to multiple values");
+                }
+
+                aggregate = true;
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Completes a branch that assigns either of two values to a result. The first branch has been
+     * generated between the provided offsets and the second branch is still open.
+     *
+     * @param start  The offset of the branch, where the result is declared.
+     * @param first  The value of the first branch.
+     * @param end    The end offset of the first branch, where the first value is assigned.
+     * @param second The value of the second branch.
+     * @return The result of the branch.
+     */
+    protected Value join(int start, Value first, int end, Value second) {
+        String name = variablePrefix + (variableCount++);
+        Class<?> type = null;
+        Value result = null;
+
+        if (!first.isNullable() && !second.isNullable()) {
+            type = getPromotedType(first, second);
+
+            if (type == null && boolean.class.equals(getPrimitiveType(first)) && boolean.class.equals(getPrimitiveType(second))) {
+                type = boolean.class;
+            }
+        }
+
+        if (type == null) {
+            // Reference values keep their type only if both branches agree on it
+            Class<?> firstType = (first.isPrimitive() ? BeanUtil.getWrapperType(first.getType()) : first.getType());
+            Class<?> secondType = (second.isPrimitive() ? BeanUtil.getWrapperType(second.getType()) : second.getType());
+
+            type = (firstType.equals(secondType) ? firstType : Object.class);
+            result = new Value(name, type, first.isNullable() || second.isNullable());
+
+            if (first.getElementType().equals(second.getElementType())) {
+                result.setElementType(first.getElementType());
+            }
+
+            code.insert(end, name + " = " + box(first) + ";");
+            code.append(name).append(" = ").append(box(second)).append(";}");
+            code.insert(start, "java.lang.Object " + name + " = null;");
+        } else {
+            result = new Value(name, type, false);
+            code.insert(end, name + " = " + getOperandCode(first, type) + ";");
+            code.append(name).append(" = ").append(getOperandCode(second, type)).append(";}");
+            code.insert(start, type.getName() + " " + name + " = " + (type.equals(boolean.class) ? "false" : "(" + type.getName() + ") 0") + ";");
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the type that numeric operands are promoted to, as by the binary numeric promotion of Java.
+     *
+     * @param left  The left operand.
+     * @param right The right operand.
+     * @return The primitive type of the operation, or <code>null</code> if either operand isn't a
+     *         numeric primitive or a wrapper of one.
+     */
+    protected Class<?> getPromotedType(Value left, Value right) {
+        Class<?> leftType = getPrimitiveType(left);
+        Class<?> rightType = getPrimitiveType(right);
+
+        if (leftType == null || rightType == null || !isNumeric(leftType) || !isNumeric(rightType)) {
+            return null;
+        } else if (leftType.equals(double.class) || rightType.equals(double.class)) {
+            return double.class;
+        } else if (leftType.equals(float.class) || rightType.equals(float.class)) {
+            return float.class;
+        } else if (leftType.equals(long.class) || rightType.equals(long.class)) {
+            return long.class;
+        } else {
+            return int.class;
+        }
+    }
+
+    protected Class<?> getPrimitiveType(Value value) {
+        return (value.isPrimitive() ? value.getType() : BeanUtil.getPrimitiveType(value.getType()));
+    }
+
+    /**
+     * Returns code that evaluates to the provided value as a primitive of the provided type.
+     *
+     * @param value A primitive or a non-null wrapper.
+     * @param type  The primitive type.
+     * @return The converted value.
+     */
+    protected String getOperandCode(Value value, Class<?> type) {
+        if (!value.isPrimitive()) {
+            return type.equals(boolean.class) ? "((java.lang.Boolean) " + value.getName() + ").booleanValue()" : unbox(value, type);
+        } else if (value.getType().equals(type)) {
+            return value.getName();
+        } else {
+            return "((" + type.getName() + ") " + value.getName() + ")";
+        }
+    }
+
+    /**
+     * Returns code that evaluates to the provided value as a <code>boolean</code>. A <code>null</code>
+     * value is <code>false</code>.
+     *
+     * @param expression The expression that requires the boolean.
+     * @param value      The value.
+     * @return The value as a boolean.
+     */
+    protected String toBoolean(Expression expression, Value value) {
+        if (value.getType().equals(boolean.class)) {
+            return value.getName();
+        } else if (!value.getType().equals(Boolean.class) && !value.getType().equals(Object.class)) {
+            throw new InvalidExpressionException("Expression '" + expression + "' requires a boolean, but got a value of type "
+                    + value.getType().getName());
+        } else if (value.isNullable()) {
+            return "(" + value.getName() + " != null && ((java.lang.Boolean) " + value.getName() + ").booleanValue())";
+        } else {
+            return "((java.lang.Boolean) " + value.getName() + ").booleanValue()";
+        }
+    }
+
+    protected void checkNumeric(Expression expression, Value value) {
+        if (!isNumeric(value.getType())) {
+            throw new InvalidExpressionException("Expression '" + expression + "' requires a number, but got a value of type "
+                    + value.getType().getName());
+        }
+    }
+
+    protected Value count(Value value, Aggregation aggregation) {
+        String count = aggregation.getAccumulator();
+
+        aggregation.declare("int " + count + " = 0;");
+
+        if (!value.isPrimitive() && isAggregate(value.getType())) {
+            // The size of a collection is known without iterating it
+            code.append(count).append(" += ").append(getSizeCode(value)).append(';');
+        } else if (value.getType().equals(Object.class)) {
+            code.append("if (").append(value.getName()).append(" instanceof java.util.Collection) ")
+                    .append(count).append(" += ((java.util.Collection) ").append(value.getName()).append(").size();")
+                    .append("else if (").append(value.getName()).append(".getClass().isArray()) ")
+                    .append(count).append(" += java.lang.reflect.Array.getLength(").append(value.getName()).append(");")
+                    .append("else ").append(count).append("++;");
+        } else {
+            code.append(count).append("++;");
+        }
+
+        return new Value(count, int.class, false);
+    }
+
+    protected Value sum(AggregateExpression expression, Value value, Aggregation aggregation) {
+        String sum = aggregation.getAccumulator();
+
+        if (BigDecimal.class.equals(value.getType())) {
+            aggregation.declare("java.math.BigDecimal " + sum + " = java.math.BigDecimal.ZERO;");
+            code.append(sum).append(" = ").append(sum).append(".add((java.math.BigDecimal) ").append(value.getName()).append(");");
+
+            return new Value(sum, BigDecimal.class, false);
+        } else {
+            // Integral values are summed as long, other numbers as double
+            Class<?> type = getNumericType(expression, value);
+            Class<?> sumType = (type.equals(float.class) || type.equals(double.class) ? double.class : long.class);
+
+            aggregation.declare(sumType.getName() + " " + sum + " = 0;");
+            code.append(sum).append(" += ").append(unbox(value, type)).append(';');
+
+            return new Value(sum, sumType, false);
+        }
+    }
+
+    protected Value average(AggregateExpression expression, Value value, Aggregation aggregation) {
+        String sum = aggregation.getAccumulator();
+        String count = variablePrefix + (variableCount++);
+        String result = variablePrefix + (variableCount++);
+        Class<?> resultType = null;
+
+        if (BigDecimal.class.equals(value.getType())) {
+            resultType = BigDecimal.class;
+            aggregation.declare("java.math.BigDecimal " + sum + " = java.math.BigDecimal.ZERO;");
+            code.append(sum).append(" = ").append(sum).append(".add((java.math.BigDecimal) ").append(value.getName()).append(");");
+            aggregation.complete("if (" + count + " > 0) " + result + " = " + sum + ".divide(java.math.BigDecimal.valueOf((long) "
+                    + count + "), java.math.MathContext.DECIMAL128);");
+        } else {
+            resultType = Double.class;
+            aggregation.declare("double " + sum + " = 0;");
+            code.append(sum).append(" += ").append(unbox(value, getNumericType(expression, value))).append(';');
+            aggregation.complete("if (" + count + " > 0) " + result + " = java.lang.Double.valueOf(" + sum + " / " + count + ");");
+        }
+
+        aggregation.declare("int " + count + " = 0;");
+        aggregation.declare("java.lang.Object " + result + " = null;");
+        code.append(count).append("++;");
+
+        return new Value(result, resultType, true);
+    }
+
+    protected Value extreme(AggregateExpression expression, Value value, Aggregation aggregation) {
+        String extreme = aggregation.getAccumulator();
+        String operator = (expression.getFunction() == AggregateExpression.Function.MIN ? " < " : " > ");
+        Class<?> type = (value.isPrimitive() ? value.getType() : BeanUtil.getPrimitiveType(value.getType()));
+
+        if (type == null || type.equals(boolean.class)) {
+            // Values that aren't primitives are compared as java.lang.Comparable
+            aggregation.declare("java.lang.Object " + extreme + " = null;");
+            code.append("if (").append(extreme).append(" == null || ((java.lang.Comparable) ").append(value.getName())
+                    .append(").compareTo(").append(extreme).append(')').append(operator).append("0) ")
+                    .append(extreme).append(" = ").append(value.getName()).append(';');
+
+            return new Value(extreme, value.getType(), true);
+        } else {
+            // The primitive accumulator is boxed once all values have been compared
+            String found = variablePrefix + (variableCount++);
+            String result = variablePrefix + (variableCount++);
+            Value element = assign(type, unbox(value, type), false);
+
+            aggregation.declare(type.getName() + " " + extreme + " = (" + type.getName() + ") 0;");
+            aggregation.declare("boolean " + found + " = false;");
+            aggregation.declare("java.lang.Object " + result + " = null;");
+            code.append("if (!").append(found).append(" || ").append(element.getName()).append(operator).append(extreme)
+                    .append(") {").append(extreme).append(" = ").append(element.getName()).append(';')
+                    .append(found).append(" = true;}");
+            aggregation.complete("if (" + found + ") " + result + " = "
+                    + box(new Value(extreme, type, false)) + ";");
+
+            return new Value(result, BeanUtil.getWrapperType(type), true);
+        }
+    }
+
+    /**
+     * Returns the primitive type that the values of a sum or an average are accumulated as.
+     *
+     * @param expression The aggregate expression.
+     * @param value      The value that is aggregated.
+     * @return The primitive type of the value, or <code>double</code> for numbers of other types.
+     */
+    protected Class<?> getNumericType(AggregateExpression expression, Value value) {
+        Class<?> type = (value.isPrimitive() ? value.getType() : BeanUtil.getPrimitiveType(value.getType()));
+
+        if (type != null && !type.equals(boolean.class)) {
+            return type;
+        } else if (value.getType().equals(Object.class) || Number.class.isAssignableFrom(value.getType())) {
+            return double.class;
+        } else {
+            throw new InvalidExpressionException("Can't compute the " + expression.getFunction().getName()
+                    + " of values of type " + value.getType().getName() + " in expression '" + expression + "'");
+        }
+    }
+
+    /**
+     * Returns code that evaluates to the provided value as a primitive.
+     *
+     * @param value The value, either a primitive or a number.
+     * @param type  The primitive type.
+     * @return The value as a primitive.
+     */
+    protected String unbox(Value value, Class<?> type) {
+        if (value.isPrimitive()) {
+            return value.getName();
+        } else if (type.equals(char.class)) {
+            return "((java.lang.Character) " + value.getName() + ").charValue()";
+        } else {
+            return "((java.lang.Number) " + value.getName() + ")." + type.getName() + "Value()";
+        }
+    }
+
+    /**
+     * Returns code that evaluates to the provided value as an object, i.e. primitives are boxed.
+     *
+     * @param value The value to box.
+     * @return An expression that returns the value as an object.
+     */
+    public String box(@NotNull Value value) {
+        if (value.isPrimitive()) {
+            return getTypeImage(BeanUtil.getWrapperType(value.getType())) + ".valueOf(" + value.getName() + ")";
+        } else {
+            return value.getName();
+        }
+    }
+
+    protected Value assign(Class<?> type, String valueCode, boolean nullable) {
+        String name = variablePrefix + (variableCount++);
+
+        if (type.isPrimitive()) {
+            code.append(type.getName()).append(' ').append(name).append(" = ").append(valueCode).append(';');
+            return new Value(name, type, false);
+        } else {
+            code.append("java.lang.Object ").append(name).append(" = ").append(valueCode).append(';');
+            return new Value(name, type, nullable);
+        }
+    }
+
+    protected void checkNotNull(Value value, String message) {
+        if (value.isNullable()) {
+            code.append("if (").append(value.getName()).append(" == null) throw new ")
+                    .append(com.googlecode.bumblebee.beans.PropertyAccessException.class.getName())
+                    .append('(').append(literal(message)).append(");");
+        }
+    }
+
+    /**
+     * Opens a block that is only executed if the provided value isn't <code>null</code>. The block is
+     * closed by {@link #generate(Expression)} once the value of the expression has been assigned.
+     *
+     * @param value The value to check.
+     */
+    protected void guardNotNull(Value value) {
+        if (value.isNullable()) {
+            guard(value.getName() + " != null");
+        }
+    }
+
+    /**
+     * Opens a block that is only executed if the provided condition holds. The value of the expression
+     * is <code>null</code> if the condition doesn't hold.
+     *
+     * @param condition The condition of the block.
+     */
+    protected void guard(String condition) {
+        blocks.add(new Block(code.length(), null));
+        code.append("if (").append(condition).append(") {");
+    }
+
+    /**
+     * Opens a loop over the elements of an aggregate. The loop is closed by {@link #generate(Expression)},
+     * which adds the values computed in the loop to the result collection of the expression.
+     *
+     * @param aggregate The collection or array to iterate.
+     * @return The current element of the loop.
+     */
+    protected Value iterate(Value aggregate) {
+        Class<?> type = aggregate.getType();
+
+        blocks.add(new Block(code.length(), aggregate));
+
+        if (type.isArray()) {
+            String index = variablePrefix + (variableCount++);
+
+            code.append("for (int ").append(index).append(" = 0; ").append(index).append(" < ")
+                    .append(getSizeCode(aggregate)).append("; ").append(index).append("++) {");
+
+            return assign(type.getComponentType(), "((" + getArrayTypeImage(type) + ") " + aggregate.getName()
+                    + ")[" + index + "]", true);
+        } else {
+            String iterator = variablePrefix + (variableCount++);
+
+            code.append("java.util.Iterator ").append(iterator).append(" = ((java.util.Collection) ")
+                    .append(aggregate.getName()).append(").iterator();")
+                    .append("while (").append(iterator).append(".hasNext()) {");
+
+            return assign(aggregate.getElementType(), iterator + ".next()", true);
+        }
+    }
+
+    /**
+     * Returns code that evaluates to the number of elements of an aggregate.
+     *
+     * @param aggregate A collection or array.
+     * @return The size of the aggregate.
+     */
+    protected String getSizeCode(Value aggregate) {
+        if (aggregate.getType().isArray()) {
+            return "((" + getArrayTypeImage(aggregate.getType()) + ") " + aggregate.getName() + ").length";
+        } else {
+            return "((java.util.Collection) " + aggregate.getName() + ").size()";
+        }
+    }
+
+    /**
+     * Closes the null-safe guards from the provided index. The result of the guarded statements is
+     * declared before the outermost of the guards and is <code>null</code> unless all guards passed.
+     *
+     * @param value The value computed inside the guards.
+     * @param index The index of the outermost guard that should be closed.
+     * @return The value of the guarded statements.
+     */
+    protected Value closeGuards(Value value, int index) {
+        if (index >= blocks.size()) {
+            return value;
+        }
+
+        String name = variablePrefix + (variableCount++);
+
+        code.insert(blocks.get(index).getStart(), "java.lang.Object " + name + " = null;");
+        code.append(name).append(" = ").append(box(value)).append(';');
+        closeBlocks(index);
+
+        return new Value(name, value.isPrimitive() ? BeanUtil.getWrapperType(value.getType()) : value.getType(), true);
+    }
+
+    protected void closeBlocks(int index) {
+        while (blocks.size() > index) {
+            blocks.remove(blocks.size() - 1);
+            code.append('}');
+        }
+    }
+
+    /**
+     * Checks whether or not values of the provided type may be numbers, i.e. if the type is a numeric
+     * primitive, a number or an object of unknown type.
+     *
+     * @param type The type to check.
+     * @return Whether or not the values are possibly numeric.
+     */
+    protected boolean isNumeric(Class<?> type) {
+        if (type.isPrimitive()) {
+            return !type.equals(boolean.class) && !type.equals(char.class);
+        } else {
+            return type.equals(Object.class) || Number.class.isAssignableFrom(type);
+        }
+    }
+
+    /**
+     * Checks whether or not the property paths through the provided type are evaluated element-wise,
+     * i.e. if the type is a collection or an array.
+     *
+     * @param type The type to check.
+     * @return Whether or not the type is an aggregate of values.
+     */
+    protected boolean isAggregate(Class<?> type) {
+        return type.isArray() || Collection.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Resolves the type of the elements of an aggregate from its generic type, e.g. <code>Order</code>
+     * for <code>List&lt;Order&gt;</code>. The element type of a map is the type of its values.
+     *
+     * @param type The generic type of the aggregate or map.
+     * @return The element type, or <code>java.lang.Object</code> if it can't be resolved.
+     */
+    protected Class<?> getElementType(Type type) {
+        if (type instanceof Class && ((Class<?>) type).isArray()) {
+            return ((Class<?>) type).getComponentType();
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            Class<?> rawType = (Class<?>) parameterizedType.getRawType();
+            Type elementType = null;
+
+            if (Collection.class.isAssignableFrom(rawType) && arguments.length == 1) {
+                elementType = arguments[0];
+            } else if (Map.class.isAssignableFrom(rawType) && arguments.length == 2) {
+                elementType = arguments[1];
+            }
+
+            if (elementType instanceof Class) {
+                return (Class<?>) elementType;
+            } else if (elementType instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) elementType).getRawType();
+            }
+        }
+
+        return Object.class;
+    }
+
+    /**
+     * Returns the type an array should be cast to before its elements are accessed. Arrays of
+     * references are accessed as <code>java.lang.Object[]</code>, since the component type may not be
+     * accessible from the generated code.
+     *
+     * @param arrayType The type of the array.
+     * @return The image of the array type.
+     */
+    protected static String getArrayTypeImage(Class<?> arrayType) {
+        return arrayType.getComponentType().isPrimitive() ? getTypeImage(arrayType) : "java.lang.Object[]";
+    }
+
+    /**
+     * Returns an accessor for a property that can be invoked from generated code, i.e. a public method
+     * of a public type.
+     *
+     * @param type     The type that declares the property.
+     * @param property The property name.
+     * @return A public accessor or <code>null</code> if no accessor is accessible.
+     */
+    protected Method getPublicAccessor(Class<?> type, String property) {
+        Method accessor = BeanUtil.getAccessor(type, property);
+
+        if (accessor == null || !Modifier.isPublic(accessor.getModifiers())) {
+            return null;
+        } else if (isAccessible(accessor.getDeclaringClass())) {
+            return accessor;
+        } else {
+            // The accessor is declared by a type that is not public, e.g. a private inner class.
+            // Look for a public declaration of the method in a super class or an interface.
+            return getPublicDeclaration(type, accessor.getName());
+        }
+    }
+
+    protected Method getPublicDeclaration(Class<?> type, String methodName) {
+        for (Class<?> currentType = type; currentType != null; currentType = currentType.getSuperclass()) {
+            if (isAccessible(currentType)) {
+                try {
+                    Method method = currentType.getMethod(methodName);
+
+                    if (isAccessible(method.getDeclaringClass())) {
+                        return method;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // Ignore
+                }
+            }
+
+            for (Class<?> interfaceType : currentType.getInterfaces()) {
+                Method method = getPublicDeclaration(interfaceType, methodName);
+
+                if (method != null) {
+                    return method;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    protected static boolean isAccessible(Class<?> type) {
+        for (Class<?> currentType = type; currentType != null; currentType = currentType.getDeclaringClass()) {
+            if (!Modifier.isPublic(currentType.getModifiers())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static String getTypeImage(@NotNull Class<?> type) {
+        if (type.isArray()) {
+            return getTypeImage(type.getComponentType()) + "[]";
+        } else {
+            return type.getName();
+        }
+    }
+
+    /**
+     * Creates a java string literal for the provided string.
+     *
+     * @param string The string to quote.
+     * @return A string literal.
+     */
+    public static String literal(@NotNull String string) {
+        StringBuilder buffer = new StringBuilder(string.length() + 2);
+
+        buffer.append('"');
+
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    buffer.append(c);
+            }
+        }
+
+        buffer.append('"');
+
+        return buffer.toString();
+    }
+
+    /**
+     * A value computed by generated code.
+     */
+    public static class Value {
+
+        private String name;
+
+        private Class<?> type;
+
+        private boolean nullable;
+
+        private Class<?> elementType = Object.class;
+
+        public Value(@NotEmpty String name, @NotNull Class<?> type, boolean nullable) {
+            this.name = name;
+            this.type = type;
+            this.nullable = nullable;
+
+            if (type.isArray()) {
+                this.elementType = type.getComponentType();
+            }
+        }
+
+        /**
+         * Returns the code that references the value, typically the name of a local variable.
+         *
+         * @return The value reference.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the static type of the value. Values of reference types are stored as
+         * <code>java.lang.Object</code> and must be cast to this type before they're dereferenced.
+         *
+         * @return The static type of the value.
+         */
+        public Class<?> getType() {
+            return type;
+        }
+
+        public boolean isPrimitive() {
+            return type.isPrimitive();
+        }
+
+        public boolean isNullable() {
+            return nullable;
+        }
+
+        /**
+         * Returns the type of the elements if the value is a collection or an array.
+         *
+         * @return The element type, <code>java.lang.Object</code> if unknown.
+         */
+        public Class<?> getElementType() {
+            return elementType;
+        }
+
+        public void setElementType(@NotNull Class<?> elementType) {
+            this.elementType = elementType;
+        }
+    }
+
+    /**
+     * The code of an aggregate function that is generated outside of the loops of its argument, i.e. the
+     * declarations of the accumulators and the computation of the result.
+     */
+    protected static class Aggregation {
+
+        private String accumulator;
+
+        private StringBuilder declarations = new StringBuilder();
+
+        private StringBuilder completion = new StringBuilder();
+
+        public Aggregation(@NotEmpty String accumulator) {
+            this.accumulator = accumulator;
+        }
+
+        public String getAccumulator() {
+            return accumulator;
+        }
+
+        public void declare(@NotEmpty String declaration) {
+            declarations.append(declaration);
+        }
+
+        public void complete(@NotEmpty String statement) {
+            completion.append(statement);
+        }
+
+        public String getDeclarations() {
+            return declarations.toString();
+        }
+
+        public String getCompletion() {
+            return completion.toString();
+        }
+    }
+
+    /**
+     * A block of generated code that is still open, i.e. a null-safe guard or a loop over an aggregate.
+     */
+    private static class Block {
+
+        private int start;
+
+        private Value aggregate;
+
+        private Block(int start, Value aggregate) {
+            this.start = start;
+            this.aggregate = aggregate;
+        }
+
+        /**
+         * Returns the offset of the block in the generated code. Declarations that should be visible
+         * after the block has been closed are inserted at this offset.
+         *
+         * @return The start offset of the block.
+         */
+        public int getStart() {
+            return start;
+        }
+
+        public Value getAggregate() {
+            return aggregate;
+        }
+
+        public boolean isLoop() {
+            return aggregate != null;
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.DataObjectGenerationException;
+import com.googlecode.bumblebee.dto.ExpressionCompiler;
+import com.googlecode.bumblebee.dto.Getter;
+import com.googlecode.bumblebee.dto.el.Expression;
+import javassist.*;
+import net.sf.jdpa.NotEmpty;
+import net.sf.jdpa.NotNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default expression compiler. Expressions are compiled into getter classes that are specialized for
+ * a single source class, which allows accessors to be invoked directly rather than through reflection.
+ * The parsed expressions are kept in a bounded cache. The specialized getters are kept per source class
+ * and expression, and the getters of the least recently used source classes are evicted once getters
+ * have been generated for more source classes than the source type cache holds. The cache doesn't
+ * reference the source classes weakly, since the getters reference them; it should be sized to hold the
+ * source classes of an application, as the getters of an evicted source class are generated again when
+ * they're requested.
+ */
+public class ExpressionCompilerImpl implements ExpressionCompiler {
+
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    public static final int DEFAULT_SOURCE_TYPE_CACHE_SIZE = 256;
+
+    private static final String GETTER_CLASS_PREFIX = "com.googlecode.bumblebee.dto.impl.BumblebeeGetter";
+
+    private static final AtomicInteger GETTER_SEQUENCE = new AtomicInteger();
+
+    private Map<String, CompiledExpression> expressions = null;
+
+    private Map<Class<?>, Map<String, Getter>> getters = null;
+
+    private final Object generationLock = new Object();
+
+    public ExpressionCompilerImpl() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public ExpressionCompilerImpl(int cacheSize) {
+        this(cacheSize, DEFAULT_SOURCE_TYPE_CACHE_SIZE);
+    }
+
+    public ExpressionCompilerImpl(int cacheSize, int sourceTypeCacheSize) {
+        this.expressions = Collections.synchronizedMap(new LRUCache<String, CompiledExpression>(cacheSize));
+        this.getters = new LRUCache<Class<?>, Map<String, Getter>>(sourceTypeCacheSize);
+    }
+
+    public Getter compile(@NotEmpty String expression) {
+        CompiledExpression compiledExpression = expressions.get(expression);
+
+        if (compiledExpression == null) {
+            compiledExpression = new CompiledExpression(this, expression, Expression.parse(expression));
+            expressions.put(expression, compiledExpression);
+        }
+
+        return compiledExpression;
+    }
+
+    public Getter compile(@NotEmpty String expression, @NotNull Class<?> targetType, @NotNull Class<?> componentType) {
+        String key = CompiledExpression.getKey(expression, targetType, componentType);
+        CompiledExpression compiledExpression = expressions.get(key);
+
+        if (!ExpressionCodeGenerator.isCollectable(targetType, componentType)) {
+            throw new IllegalArgumentException("Expression '" + expression + "' can't be compiled for properties of type "
+                    + ExpressionCodeGenerator.getTypeImage(targetType) + " with elements of type " + componentType.getName());
+        }
+
+        if (compiledExpression == null) {
+            compiledExpression = new CompiledExpression(this, expression, Expression.parse(expression), targetType, componentType);
+            expressions.put(key, compiledExpression);
+        }
+
+        return compiledExpression;
+    }
+
+    /**
+     * Returns the getter that evaluates an expression against objects of a particular class. The getter
+     * is generated on first request, and is reused for as long as the source class is cached.
+     *
+     * @param expression The expression that should be evaluated.
+     * @param sourceType The class of the source objects.
+     * @return A getter specialized for the provided source class.
+     */
+    public Getter getGetter(@NotNull CompiledExpression expression, @NotNull Class<?> sourceType) {
+        synchronized (generationLock) {
+            Map<String, Getter> sourceTypeGetters = getters.get(sourceType);
+            Getter getter = null;
+
+            if (sourceTypeGetters == null) {
+                sourceTypeGetters = new HashMap<String, Getter>();
+                getters.put(sourceType, sourceTypeGetters);
+            }
+
+            getter = sourceTypeGetters.get(expression.getKey());
+
+            if (getter == null) {
+                getter = createGetter(expression, sourceType);
+                sourceTypeGetters.put(expression.getKey(), getter);
+            }
+
+            return getter;
+        }
+    }
+
+    /**
+     * Returns the number of generated getters that are cached.
+     *
+     * @return The number of generated getters.
+     */
+    public int getGetterCount() {
+        int count = 0;
+
+        synchronized (generationLock) {
+            for (Map<String, Getter> sourceTypeGetters : getters.values()) {
+                count += sourceTypeGetters.size();
+            }
+        }
+
+        return count;
+    }
+
+    protected Getter createGetter(CompiledExpression expression, Class<?> sourceType) {
+        ClassPool classPool = getClassPool(sourceType);
+        CtClass ctClass = classPool.makeClass(GETTER_CLASS_PREFIX + GETTER_SEQUENCE.incrementAndGet());
+        ExpressionCodeGenerator generator = new ExpressionCodeGenerator(sourceType, "$1");
+        ExpressionCodeGenerator.Value value = null;
+        String body = null;
+
+        generator.setParameters("$2");
+
+        if (expression.getTargetType() != null) {
+            generator.setTarget(expression.getTargetType(), expression.getComponentType());
+
+            if (!expression.getComponentType().isPrimitive()) {
+                classPool.appendClassPath(new ClassClassPath(expression.getComponentType()));
+            }
+        }
+
+        value = generator.generate(expression.getParsedExpression());
+        body = "{ " + generator.getCode() + " return " + generator.box(value) + "; }";
+
+        try {
+            ctClass.addInterface(classPool.get(Getter.class.getName()));
+            ctClass.addMethod(CtNewMethod.make("public java.lang.String getExpression() { return "
+                    + ExpressionCodeGenerator.literal(expression.getExpression()) + "; }", ctClass));
+            ctClass.addMethod(CtNewMethod.make("public java.lang.Object get(java.lang.Object source, "
+                    + "java.lang.Object[] parameters) " + body, ctClass));
+            ctClass.addMethod(CtNewMethod.make("public java.lang.Object get(java.lang.Object source) "
+                    + "{ return get($1, (java.lang.Object[]) null); }", ctClass));
+        } catch (NotFoundException e) {
+            throw new DataObjectGenerationException("Failed to locate class file for " + Getter.class.getName(), e);
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Failed to compile getter for expression '" + expression.getExpression()
+                    + "' on " + sourceType.getName() + ". Generated code was not valid: " + body, e);
+        }
+
+        try {
+            return (Getter) ctClass.toClass().newInstance();
+        } catch (CannotCompileException e) {
+            throw new DataObjectGenerationException("Compilation of getter class for expression '" + expression.getExpression()
+                    + "' failed. Check the stack trace for more information.", e);
+        } catch (InstantiationException e) {
+            throw new DataObjectGenerationException("The getter class for expression '" + expression.getExpression()
+                    + "' could not be instantiated", e);
+        } catch (IllegalAccessException e) {
+            throw new DataObjectGenerationException("The getter class for expression '" + expression.getExpression()
+                    + "' did not define a public constructor", e);
+        } finally {
+            ctClass.detach();
+        }
+    }
+
+    protected ClassPool getClassPool(Class<?> sourceType) {
+        ClassPool classPool = new ClassPool(ClassPool.getDefault());
+
+        classPool.appendClassPath(new ClassClassPath(sourceType));
+        classPool.appendClassPath(new ClassClassPath(Getter.class));
+
+        return classPool;
+    }
+}
@@ -0,0 +1,302 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.el.Expression;
+import com.googlecode.bumblebee.dto.el.PropertyExpression;
+import com.googlecode.bumblebee.dto.el.ThisExpression;
+import net.sf.jdpa.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trie of the property paths of a set of expressions, e.g. the expressions of the properties of a
+ * data object. Prefixes that are shared by several paths, e.g. <code>userInfo</code> in
+ * <code>userInfo.firstName</code> and <code>userInfo.lastName</code>, can be evaluated once and the
+ * remainder of each path evaluated against the value of the prefix.
+ * <p/>
+ * Only property paths are split, i.e. expressions that consist of property accesses on the source.
+ * A shared prefix never contains null-safe navigation, so a prefix that evaluates to <code>null</code>
+ * is always an error for the paths that continue with regular navigation. Prefixes are nested if paths
+ * share a longer prefix, e.g. <code>a.b</code> is evaluated against the value of <code>a</code> if both
+ * <code>a.b.c</code>, <code>a.b.d</code> and <code>a.e</code> are added. A prefix that is shared by the
+ * same paths as a longer prefix is skipped.
+ * <p/>
+ * The types of the steps aren't known until the paths are evaluated against a source, so a prefix may
+ * evaluate to a collection, array or map, through which the paths are flattened. Paths whose prefix is
+ * {@link #isAggregate aggregate} must be evaluated in full against the source, since the remainder of a
+ * path is evaluated against the aggregate as a whole rather than per element.
+ */
+public class ExpressionTrie {
+
+    private Node root = new Node(null, null);
+
+    private List<Prefix> prefixes = new ArrayList<Prefix>();
+
+    private List<Node> ends = new ArrayList<Node>();
+
+    private List<List<PropertyExpression>> paths = new ArrayList<List<PropertyExpression>>();
+
+    private List<Expression> expressions = null;
+
+    /**
+     * Creates the trie of the provided expressions. The expressions are referred to by their index in
+     * the list.
+     *
+     * @param expressions The expressions.
+     */
+    public ExpressionTrie(@NotNull List<Expression> expressions) {
+        this.expressions = expressions;
+
+        for (Expression expression : expressions) {
+            List<PropertyExpression> path = getPath(expression);
+            Node node = root;
+
+            if (path != null) {
+                // Paths are only shared up to the first null-safe navigation
+                for (PropertyExpression step : path) {
+                    if (step.isNullSafeNavigation()) {
+                        break;
+                    }
+
+                    node = node.getChild(step);
+                    node.count++;
+                }
+            }
+
+            paths.add(path);
+            ends.add(node);
+        }
+
+        addPrefixes(root, null);
+    }
+
+    /**
+     * Returns the shared prefixes in the order they should be evaluated, i.e. a prefix precedes the
+     * prefixes that are evaluated against its value.
+     *
+     * @return The shared prefixes.
+     */
+    public List<Prefix> getPrefixes() {
+        return Collections.unmodifiableList(prefixes);
+    }
+
+    /**
+     * Returns the prefix that the expression with the provided index should be evaluated against.
+     *
+     * @param index The index of the expression.
+     * @return The longest shared prefix of the expression, or <code>null</code> if the expression should
+     *         be evaluated against the source.
+     */
+    public Prefix getPrefix(int index) {
+        for (Node node = ends.get(index); node != root; node = node.parent) {
+            if (node.prefix != null) {
+                return node.prefix;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the expression with the provided index relative to its prefix, e.g. <code>firstName</code>
+     * for <code>userInfo.firstName</code> if <code>userInfo</code> is shared. The expression is
+     * <code>this</code> if it's equal to the prefix.
+     *
+     * @param index The index of the expression.
+     * @return The relative expression, or the expression itself if it doesn't have a prefix.
+     */
+    public Expression getRelativeExpression(int index) {
+        Prefix prefix = getPrefix(index);
+
+        if (prefix == null) {
+            return expressions.get(index);
+        } else {
+            return getRelativePath(paths.get(index), prefix.getLength());
+        }
+    }
+
+    /**
+     * Checks whether or not the remainder of the expression with the provided index navigates from its
+     * prefix null-safely, i.e. whether the expression evaluates to <code>null</code> rather than failing
+     * if the prefix evaluates to <code>null</code>.
+     *
+     * @param index The index of the expression.
+     * @return Whether or not the prefix is navigated null-safely.
+     */
+    public boolean isNullSafeNavigation(int index) {
+        Prefix prefix = getPrefix(index);
+        List<PropertyExpression> path = paths.get(index);
+
+        return prefix != null && path.size() > prefix.getLength() && path.get(prefix.getLength()).isNullSafeNavigation();
+    }
+
+    /**
+     * Checks whether or not the value of a prefix is an aggregate, i.e. a collection, array or map that
+     * the paths that share the prefix are flattened through.
+     *
+     * @param value The value of a prefix.
+     * @return Whether or not the paths must be evaluated in full instead of against the value.
+     */
+    public static boolean isAggregate(Object value) {
+        return value instanceof Collection || value instanceof Map || (value != null && value.getClass().isArray());
+    }
+
+    private void addPrefixes(Node node, Prefix parent) {
+        Prefix prefix = parent;
+
+        if (node != root && node.count >= 2 && !(node.children.size() == 1
+                && node.children.values().iterator().next().count == node.count)) {
+            prefix = new Prefix(prefixes.size(), node.step, parent);
+            node.prefix = prefix;
+            prefixes.add(prefix);
+        }
+
+        for (Node child : node.children.values()) {
+            addPrefixes(child, prefix);
+        }
+    }
+
+    /**
+     * Returns the property steps of an expression, starting with the property of the source.
+     *
+     * @param expression The expression.
+     * @return The steps of the path, or <code>null</code> if the expression isn't a property path.
+     */
+    protected static List<PropertyExpression> getPath(Expression expression) {
+        LinkedList<PropertyExpression> path = new LinkedList<PropertyExpression>();
+        Expression current = expression;
+
+        while (current instanceof PropertyExpression) {
+            path.addFirst((PropertyExpression) current);
+            current = ((PropertyExpression) current).getTarget();
+        }
+
+        return (current instanceof ThisExpression ? path : null);
+    }
+
+    protected static Expression getRelativePath(List<PropertyExpression> path, int length) {
+        Expression expression = ThisExpression.INSTANCE;
+
+        for (int i = length; i < path.size(); i++) {
+            // The navigation from the prefix is handled by the caller, since the prefix is evaluated separately
+            expression = new PropertyExpression(expression, path.get(i).getProperty(),
+                    i > length && path.get(i).isNullSafeNavigation());
+        }
+
+        return expression;
+    }
+
+    /**
+     * A prefix that is shared by several property paths.
+     */
+    public static class Prefix {
+
+        private int index;
+
+        private PropertyExpression expression;
+
+        private Prefix parent;
+
+        private int length;
+
+        private boolean shared = false;
+
+        private Prefix(int index, PropertyExpression expression, Prefix parent) {
+            this.index = index;
+            this.expression = expression;
+            this.parent = parent;
+            this.length = getPath(expression).size();
+
+            if (parent != null) {
+                parent.shared = true;
+            }
+        }
+
+        /**
+         * Returns the index of the prefix in the evaluation order.
+         *
+         * @return The index of the prefix.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public PropertyExpression getExpression() {
+            return expression;
+        }
+
+        /**
+         * Returns the prefix that this prefix is evaluated against.
+         *
+         * @return The enclosing prefix, or <code>null</code> if the prefix is evaluated against the source.
+         */
+        public Prefix getParent() {
+            return parent;
+        }
+
+        public Expression getRelativeExpression() {
+            return getRelativePath(getPath(expression), parent == null ? 0 : parent.length);
+        }
+
+        /**
+         * Checks whether or not other prefixes are evaluated against the value of this prefix.
+         *
+         * @return Whether or not the prefix encloses other prefixes.
+         */
+        public boolean hasNestedPrefixes() {
+            return shared;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+
+    private static class Node {
+
+        private PropertyExpression step;
+
+        private Node parent;
+
+        private int count = 0;
+
+        private Prefix prefix = null;
+
+        private Map<String, Node> children = new LinkedHashMap<String, Node>();
+
+        private Node(PropertyExpression step, Node parent) {
+            this.step = step;
+            this.parent = parent;
+        }
+
+        private Node getChild(PropertyExpression step) {
+            Node child = children.get(step.getProperty());
+
+            if (child == null) {
+                child = new Node(step, this);
+                children.put(step.getProperty(), child);
+            }
+
+            return child;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.Layout;
+import com.googlecode.bumblebee.dto.Storage;
+import com.googlecode.bumblebee.dto.ValueDescriptor;
+import net.sf.jdpa.NotNull;
+
+import java.util.*;
+
+/**
+ * Describes the fields that hold the properties of a data object implementation class. With the
+ * {@link Layout#COMPACT compact} layout the <code>boolean</code> properties are packed into
+ * <code>int</code> bit fields, and with {@link Storage#SPARSE sparse} storage the properties of
+ * reference types are held by an array of the values that are set. The code that reads and writes a
+ * property is therefore provided by {@link #getReadCode} and {@link #getWriteCode} rather than being a
+ * plain field access.
+ * <p/>
+ * The sparse properties are numbered in declaration order, and a property is set iff its bit in the
+ * <code>long</code> presence bitmap is set. The position of a set property in the value array is the
+ * number of set properties that precede it, which is computed with {@link Long#bitCount} and masks that
+ * are precomputed when the code is generated.
+ * <p/>
+ * Constructors don't insert the values one by one. They {@link #getInitializationCode prepare} an array
+ * that holds the values by the number of their property, {@link #getInitializationWriteCode write} each
+ * value by that number and {@link #getCompletionCode complete} the initialization by compacting the array
+ * to the number of set properties, so the values are copied once.
+ */
+public class FieldLayout {
+
+    private static final String BIT_FIELD_PREFIX = "flags_";
+
+    private static final String PRESENCE_FIELD_PREFIX = "sparse_";
+
+    private static final String VALUES_FIELD = "sparse_values";
+
+    private Map<String, Class<?>> fields = new LinkedHashMap<String, Class<?>>();
+
+    private Map<String, Integer> bits = new LinkedHashMap<String, Integer>();
+
+    private Map<String, Integer> sparseIndices = new LinkedHashMap<String, Integer>();
+
+    private Map<String, ValueDescriptor> values = new HashMap<String, ValueDescriptor>();
+
+    public FieldLayout(@NotNull List<ValueDescriptor> values, @NotNull Layout layout) {
+        this(values, layout, Storage.FIELDS);
+    }
+
+    public FieldLayout(@NotNull List<ValueDescriptor> values, @NotNull Layout layout, @NotNull Storage storage) {
+        List<ValueDescriptor> fieldValues = new ArrayList<ValueDescriptor>();
+
+        for (ValueDescriptor value : values) {
+            this.values.put(value.getProperty(), value);
+
+            if (storage == Storage.SPARSE && !value.getPropertyType().isPrimitive()) {
+                sparseIndices.put(value.getProperty(), sparseIndices.size());
+            } else if (layout == Layout.COMPACT && value.getPropertyType() == boolean.class) {
+                bits.put(value.getProperty(), bits.size());
+            } else {
+                fieldValues.add(value);
+            }
+        }
+
+        if (layout == Layout.COMPACT) {
+            for (int width : new int[]{8, 4, 2, 1}) {
+                if (width == 8) {
+                    addPresenceFields();
+                }
+
+                for (ValueDescriptor value : fieldValues) {
+                    if (getWidth(value.getPropertyType()) == width) {
+                        fields.put(value.getProperty(), value.getPropertyType());
+                    }
+                }
+
+                if (width == 4) {
+                    for (int i = 0; i < (bits.size() + 31) / 32; i++) {
+                        fields.put(BIT_FIELD_PREFIX + i, int.class);
+                    }
+                }
+            }
+
+            for (ValueDescriptor value : fieldValues) {
+                if (!value.getPropertyType().isPrimitive()) {
+                    fields.put(value.getProperty(), value.getPropertyType());
+                }
+            }
+
+            addValuesField();
+        } else {
+            for (ValueDescriptor value : fieldValues) {
+                fields.put(value.getProperty(), value.getPropertyType());
+            }
+
+            addPresenceFields();
+            addValuesField();
+        }
+    }
+
+    private void addPresenceFields() {
+        for (int i = 0; i < (sparseIndices.size() + 63) / 64; i++) {
+            fields.put(PRESENCE_FIELD_PREFIX + i, long.class);
+        }
+    }
+
+    private void addValuesField() {
+        if (!sparseIndices.isEmpty()) {
+            fields.put(VALUES_FIELD, Object[].class);
+        }
+    }
+
+    /**
+     * Returns the fields of the implementation class by name, in the order in which they should be
+     * declared. The packed <code>boolean</code> properties are held by <code>int</code> bit fields, and
+     * the sparse properties by <code>long</code> presence bitmaps and an array of values.
+     *
+     * @return The types of the fields by name.
+     */
+    public Map<String, Class<?>> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Returns the properties that aren't held by fields of their own, i.e. the packed and the sparse
+     * properties.
+     *
+     * @return The properties that aren't held by fields of their own.
+     */
+    public List<ValueDescriptor> getEncodedProperties() {
+        List<ValueDescriptor> encodedProperties = new ArrayList<ValueDescriptor>();
+
+        for (String property : bits.keySet()) {
+            encodedProperties.add(values.get(property));
+        }
+
+        for (String property : sparseIndices.keySet()) {
+            encodedProperties.add(values.get(property));
+        }
+
+        return encodedProperties;
+    }
+
+    /**
+     * Returns whether a property is held by a field of its own, named as the property.
+     *
+     * @param property The name of the property.
+     * @return Whether the property is held by a field with the same name.
+     */
+    public boolean hasField(@NotNull String property) {
+        return !bits.containsKey(property) && !sparseIndices.containsKey(property);
+    }
+
+    /**
+     * Returns whether a field holds the values of the sparse properties. The values may be arrays, so
+     * the field should be compared with {@link Arrays#deepEquals}.
+     *
+     * @param field The name of the field.
+     * @return Whether the field holds the values of the sparse properties.
+     */
+    public boolean isValueArray(@NotNull String field) {
+        return field.equals(VALUES_FIELD) && !sparseIndices.isEmpty();
+    }
+
+    /**
+     * Returns an expression that reads a property of a data object.
+     *
+     * @param target The expression that evaluates to the data object, e.g. <code>this</code>.
+     * @param property The name of the property.
+     * @return An expression that evaluates to the value of the property.
+     */
+    public String getReadCode(@NotNull String target, @NotNull String property) {
+        Integer bit = bits.get(property);
+        Integer sparseIndex = sparseIndices.get(property);
+
+        if (bit != null) {
+            return "((" + target + "." + BIT_FIELD_PREFIX + (bit / 32) + " & " + getMask(bit, false) + ") != 0)";
+        } else if (sparseIndex != null) {
+            return "((" + getPresenceTest(target, sparseIndex) + ") ? (" + ExpressionCodeGenerator.getTypeImage(values.get(property).getPropertyType())
+                    + ") " + target + "." + VALUES_FIELD + "[" + getPosition(target, sparseIndex) + "] : null)";
+        } else {
+            return target + "." + property;
+        }
+    }
+
+    /**
+     * Returns a statement that writes a property of a data object.
+     *
+     * @param target The expression that evaluates to the data object, e.g. <code>this</code>.
+     * @param property The name of the property.
+     * @param value An expression that evaluates to the value of the property.
+     * @return A statement that assigns the value to the property.
+     */
+    public String getWriteCode(@NotNull String target, @NotNull String property, @NotNull String value) {
+        Integer bit = bits.get(property);
+        Integer sparseIndex = sparseIndices.get(property);
+
+        if (bit != null) {
+            String field = target + "." + BIT_FIELD_PREFIX + (bit / 32);
+
+            return "if (" + value + ") " + field + " |= " + getMask(bit, false) + "; else " + field + " &= " + getMask(bit, true) + ";";
+        } else if (sparseIndex != null) {
+            String presence = target + "." + PRESENCE_FIELD_PREFIX + (sparseIndex / 64);
+            String values = target + "." + VALUES_FIELD;
+            String support = SparseValues.class.getName();
+
+            // The value is inserted into or removed from the array if the presence of the property changes
+            return "{ java.lang.Object sparseValue = " + value + ";"
+                    + "int sparsePosition = " + getPosition(target, sparseIndex) + ";"
+                    + "if (" + getPresenceTest(target, sparseIndex) + ") {"
+                    + "if (sparseValue != null) " + values + "[sparsePosition] = sparseValue;"
+                    + "else { " + values + " = " + support + ".remove(" + values + ", sparsePosition); "
+                    + presence + " &= " + getLongMask(sparseIndex, true) + "; }"
+                    + "} else if (sparseValue != null) {"
+                    + values + " = " + support + ".insert(" + values + ", sparsePosition, sparseValue); "
+                    + presence + " |= " + getLongMask(sparseIndex, false) + ";"
+                    + "} }";
+        } else {
+            return target + "." + property + " = " + value + ";";
+        }
+    }
+
+    /**
+     * Returns the statements that precede the initialization of the properties of a data object by a
+     * constructor, e.g. that allocate the array of the values of the sparse properties.
+     *
+     * @param target The expression that evaluates to the data object, e.g. <code>this</code>.
+     * @return The statements, or an empty string if none are needed.
+     */
+    public String getInitializationCode(@NotNull String target) {
+        if (sparseIndices.isEmpty()) {
+            return "";
+        }
+
+        return target + "." + VALUES_FIELD + " = new java.lang.Object[" + sparseIndices.size() + "];";
+    }
+
+    /**
+     * Returns a statement that writes a property of a data object that is being initialized by a
+     * constructor. A sparse property is written by its number rather than by its position, so each write
+     * takes constant time regardless of the properties that are set before it.
+     *
+     * @param target The expression that evaluates to the data object, e.g. <code>this</code>.
+     * @param property The name of the property.
+     * @param value An expression that evaluates to the value of the property.
+     * @return A statement that assigns the value to the property.
+     * @see #getInitializationCode(String)
+     */
+    public String getInitializationWriteCode(@NotNull String target, @NotNull String property, @NotNull String value) {
+        Integer sparseIndex = sparseIndices.get(property);
+
+        if (sparseIndex == null) {
+            return getWriteCode(target, property, value);
+        } else {
+            String presence = target + "." + PRESENCE_FIELD_PREFIX + (sparseIndex / 64);
+
+            return "{ java.lang.Object sparseValue = " + value + ";"
+                    + target + "." + VALUES_FIELD + "[" + sparseIndex + "] = sparseValue;"
+                    + "if (sparseValue != null) " + presence + " |= " + getLongMask(sparseIndex, false) + ";"
+                    + "else " + presence + " &= " + getLongMask(sparseIndex, true) + "; }";
+        }
+    }
+
+    /**
+     * Returns the statements that complete the initialization of the properties of a data object by a
+     * constructor, e.g. that compact the values of the sparse properties to the number of set properties.
+     *
+     * @param target The expression that evaluates to the data object, e.g. <code>this</code>.
+     * @return The statements, or an empty string if none are needed.
+     */
+    public String getCompletionCode(@NotNull String target) {
+        StringBuilder count = new StringBuilder();
+
+        if (sparseIndices.isEmpty()) {
+            return "";
+        }
+
+        for (int i = 0; i < (sparseIndices.size() + 63) / 64; i++) {
+            count.append(i == 0 ? "" : " + ").append("java.lang.Long.bitCount(").append(target).append('.')
+                    .append(PRESENCE_FIELD_PREFIX).append(i).append(')');
+        }
+
+        return target + "." + VALUES_FIELD + " = " + SparseValues.class.getName() + ".compact(" + target + "."
+                + VALUES_FIELD + ", " + count + ");";
+    }
+
+    private static String getPresenceTest(String target, int sparseIndex) {
+        return "(" + target + "." + PRESENCE_FIELD_PREFIX + (sparseIndex / 64) + " & " + getLongMask(sparseIndex, false) + ") != 0L";
+    }
+
+    /**
+     * Returns an expression that evaluates to the position of a sparse property in the value array,
+     * i.e. the number of set properties that precede it.
+     */
+    private static String getPosition(String target, int sparseIndex) {
+        StringBuilder position = new StringBuilder();
+
+        for (int i = 0; i < sparseIndex / 64; i++) {
+            position.append("java.lang.Long.bitCount(").append(target).append('.').append(PRESENCE_FIELD_PREFIX).append(i).append(") + ");
+        }
+
+        if (sparseIndex % 64 == 0) {
+            position.append('0');
+        } else {
+            position.append("java.lang.Long.bitCount(").append(target).append('.').append(PRESENCE_FIELD_PREFIX).append(sparseIndex / 64)
+                    .append(" & 0x").append(Long.toHexString((1L << (sparseIndex % 64)) - 1)).append("L)");
+        }
+
+        return position.toString();
+    }
+
+    private static String getMask(int bit, boolean inverted) {
+        int mask = 1 << (bit % 32);
+
+        return "0x" + Integer.toHexString(inverted ? ~mask : mask);
+    }
+
+    private static String getLongMask(int bit, boolean inverted) {
+        long mask = 1L << (bit % 64);
+
+        return "0x" + Long.toHexString(inverted ? ~mask : mask) + "L";
+    }
+
+    private static int getWidth(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A future of the results of several futures, in the order of the futures. The future fails with the
+ * failure of the first future that fails, in the order of the futures.
+ */
+class FutureList<T> implements Future<List<T>> {
+
+    private List<Future<T>> futures;
+
+    FutureList(List<Future<T>> futures) {
+        this.futures = futures;
+    }
+
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = false;
+
+        for (Future<T> future : futures) {
+            cancelled |= future.cancel(mayInterruptIfRunning);
+        }
+
+        return cancelled;
+    }
+
+    public boolean isCancelled() {
+        for (Future<T> future : futures) {
+            if (future.isCancelled()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean isDone() {
+        for (Future<T> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public List<T> get() throws InterruptedException, ExecutionException {
+        List<T> results = new ArrayList<T>(futures.size());
+
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+
+        return results;
+    }
+
+    public List<T> get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        List<T> results = new ArrayList<T>(futures.size());
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (Future<T> future : futures) {
+            results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        }
+
+        return results;
+    }
+
+}
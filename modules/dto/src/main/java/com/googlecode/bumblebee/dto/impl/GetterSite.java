@@ -0,0 +1,80 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.Getter;
+import net.sf.jdpa.NotNull;
+
+/**
+ * The getter field of a generated data object implementation. The site is bound to the getter that is
+ * specialized for the class of the first source object it's evaluated against, so each call of a getter
+ * in the generated code sees a single getter class. Source objects of other classes are evaluated by the
+ * compiled expression, which looks up the specialization of their class.
+ */
+public final class GetterSite {
+
+    private final Getter getter;
+
+    private volatile Binding binding;
+
+    public GetterSite(@NotNull Getter getter) {
+        this.getter = getter;
+    }
+
+    public Getter getGetter() {
+        return getter;
+    }
+
+    /**
+     * Returns the getter that should evaluate the expression against a source object.
+     *
+     * @param source The source object.
+     * @return The getter specialized for the class of the source object if it's the class the site is
+     * bound to, otherwise the compiled expression.
+     */
+    public Getter bind(Object source) {
+        Binding binding = this.binding;
+
+        if (source == null || !(getter instanceof CompiledExpression)) {
+            return getter;
+        }
+
+        if (binding == null) {
+            binding = bind(source.getClass());
+        }
+
+        return (binding.sourceType == source.getClass() ? binding.getter : getter);
+    }
+
+    private synchronized Binding bind(Class<?> sourceType) {
+        if (binding == null) {
+            binding = new Binding(sourceType, ((CompiledExpression) getter).getSpecialization(sourceType));
+        }
+
+        return binding;
+    }
+
+    private static final class Binding {
+
+        private final Class<?> sourceType;
+
+        private final Getter getter;
+
+        private Binding(Class<?> sourceType, Getter getter) {
+            this.sourceType = sourceType;
+            this.getter = getter;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import net.sf.jdpa.NotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A pool of canonical data objects, which replaces a data object by the first data object that was interned
+ * and is equal to it. The pool holds the canonical data objects weakly, so they're reclaimed once they're no
+ * longer referenced outside the pool. The pool is split into segments that are locked separately, so that
+ * threads that intern data objects of different hashes rarely contend.
+ */
+class InternPool {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private Map<Object, WeakReference<Object>>[] segments;
+
+    @SuppressWarnings("unchecked")
+    InternPool() {
+        segments = new Map[SEGMENT_COUNT];
+
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new WeakHashMap<Object, WeakReference<Object>>();
+        }
+    }
+
+    /**
+     * Returns the canonical data object that is equal to a data object. The data object becomes the
+     * canonical data object if no data object that is equal to it is pooled.
+     *
+     * @param dataObject The data object.
+     * @return The canonical data object.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T intern(@NotNull T dataObject) {
+        Map<Object, WeakReference<Object>> segment = getSegment(dataObject);
+
+        synchronized (segment) {
+            WeakReference<Object> reference = segment.get(dataObject);
+            Object canonical = (reference == null ? null : reference.get());
+
+            if (canonical != null) {
+                return (T) canonical;
+            }
+
+            // The value must not reference the key strongly, or the entry would never be reclaimed
+            segment.put(dataObject, new WeakReference<Object>(dataObject));
+        }
+
+        return dataObject;
+    }
+
+    /**
+     * Returns the number of canonical data objects that haven't been reclaimed.
+     *
+     * @return The number of pooled data objects.
+     */
+    public int size() {
+        int size = 0;
+
+        for (Map<Object, WeakReference<Object>> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    private Map<Object, WeakReference<Object>> getSegment(Object dataObject) {
+        int hash = dataObject.hashCode();
+
+        // Spread the high bits, since the low bits of the generated hash codes are dominated by the last property
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+}
@@ -0,0 +1,180 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.DataObjectGenerationException;
+import com.googlecode.bumblebee.dto.Layout;
+import com.googlecode.bumblebee.dto.ValueDescriptor;
+import net.sf.jdpa.NotNull;
+
+import java.util.*;
+
+/**
+ * The layout of an off-heap data object implementation, whose properties are held by a fixed-width
+ * record in a slab of an {@link com.googlecode.bumblebee.dto.OffHeapArena arena}. The implementation only
+ * holds the arena, the slab and the offset of the record. Primitives are held by the record, and strings
+ * are referenced by the record and held elsewhere in the arena. The properties are ordered by width, so
+ * that they're aligned within the record.
+ */
+public class OffHeapLayout extends FieldLayout {
+
+    private static final Map<Class<?>, Integer> WIDTHS = new HashMap<Class<?>, Integer>();
+
+    static {
+        WIDTHS.put(long.class, 8);
+        WIDTHS.put(double.class, 8);
+        WIDTHS.put(String.class, 8);
+        WIDTHS.put(int.class, 4);
+        WIDTHS.put(float.class, 4);
+        WIDTHS.put(short.class, 2);
+        WIDTHS.put(char.class, 2);
+        WIDTHS.put(byte.class, 1);
+        WIDTHS.put(boolean.class, 1);
+    }
+
+    private Map<String, Class<?>> types = new HashMap<String, Class<?>>();
+
+    private Map<String, Integer> offsets = new LinkedHashMap<String, Integer>();
+
+    private int recordSize = 0;
+
+    public OffHeapLayout(@NotNull List<ValueDescriptor> values) {
+        super(values, Layout.DECLARATION);
+
+        List<ValueDescriptor> orderedValues = new ArrayList<ValueDescriptor>(values);
+
+        for (ValueDescriptor value : values) {
+            if (!WIDTHS.containsKey(value.getPropertyType())) {
+                throw new DataObjectGenerationException("Property '" + value.getProperty() + "' of type " +
+                        value.getPropertyType().getName() + " can't be held off heap; only primitives and strings can");
+            }
+
+            types.put(value.getProperty(), value.getPropertyType());
+        }
+
+        Collections.sort(orderedValues, new Comparator<ValueDescriptor>() {
+            public int compare(ValueDescriptor left, ValueDescriptor right) {
+                return WIDTHS.get(right.getPropertyType()) - WIDTHS.get(left.getPropertyType());
+            }
+        });
+
+        for (ValueDescriptor value : orderedValues) {
+            offsets.put(value.getProperty(), recordSize);
+            recordSize += WIDTHS.get(value.getPropertyType());
+        }
+    }
+
+    /**
+     * Returns the size of the record that holds the properties.
+     *
+     * @return The size of the record, in bytes.
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Returns the offsets of the properties within the record, in the order of the record.
+     *
+     * @return The offsets by property name.
+     */
+    public Map<String, Integer> getOffsets() {
+        return Collections.unmodifiableMap(offsets);
+    }
+
+    /**
+     * The fields of an off-heap implementation don't depend on the properties, and are declared by
+     * {@link DataObjectImplementationBuilder#addOffHeapConstructor}.
+     */
+    @Override
+    public Map<String, Class<?>> getFields() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public List<ValueDescriptor> getEncodedProperties() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean hasField(@NotNull String property) {
+        return false;
+    }
+
+    @Override
+    public boolean isValueArray(@NotNull String field) {
+        return false;
+    }
+
+    /**
+     * Returns an expression that reads a property from the record of an off-heap implementation. The
+     * expression fails if the arena of the implementation is closed.
+     *
+     * @param target The expression that evaluates to the implementation, e.g. <code>this</code>.
+     * @param property The name of the property.
+     * @return An expression that evaluates to the value of the property.
+     */
+    @Override
+    public String getReadCode(@NotNull String target, @NotNull String property) {
+        Class<?> type = types.get(property);
+        String position = target + ".offset + " + offsets.get(property);
+
+        if (type == String.class) {
+            return target + ".arena.getString(" + target + ".slab, " + position + ")";
+        }
+
+        String slab = target + ".arena.checkOpen(" + target + ".slab)";
+
+        if (type == boolean.class) {
+            return "(" + slab + ".get(" + position + ") != 0)";
+        } else if (type == byte.class) {
+            return slab + ".get(" + position + ")";
+        } else {
+            return slab + ".get" + getBufferType(type) + "(" + position + ")";
+        }
+    }
+
+    /**
+     * Returns a statement that writes a property to the record of an off-heap implementation.
+     *
+     * @param target The expression that evaluates to the implementation, e.g. <code>this</code>.
+     * @param property The name of the property.
+     * @param value An expression that evaluates to the value of the property.
+     * @return A statement that writes the value to the record.
+     */
+    @Override
+    public String getWriteCode(@NotNull String target, @NotNull String property, @NotNull String value) {
+        Class<?> type = types.get(property);
+        String position = target + ".offset + " + offsets.get(property);
+
+        if (type == String.class) {
+            return target + ".arena.putString(" + target + ".slab, " + position + ", " + value + ");";
+        } else if (type == boolean.class) {
+            return target + ".slab.put(" + position + ", (byte) ((" + value + ") ? 1 : 0));";
+        } else if (type == byte.class) {
+            return target + ".slab.put(" + position + ", " + value + ");";
+        } else {
+            return target + ".slab.put" + getBufferType(type) + "(" + position + ", " + value + ");";
+        }
+    }
+
+    private static String getBufferType(Class<?> type) {
+        String name = type.getName();
+
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+}
@@ -0,0 +1,261 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.InvalidExpressionException;
+import com.googlecode.bumblebee.dto.el.BinaryExpression;
+import net.sf.jdpa.NotNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * Implementations of the operators of the expression language for operands whose types aren't known
+ * when an expression is compiled. Operands of known numeric types are computed with primitives by the
+ * generated code instead.
+ * <p/>
+ * Numbers are promoted as in Java, i.e. to the widest of <code>int</code>, <code>long</code> and
+ * <code>double</code>, except that <code>java.math.BigDecimal</code> and <code>java.math.BigInteger</code>
+ * operands are computed as <code>java.math.BigDecimal</code>, unless the other operand is not a finite
+ * number, in which case they're computed as <code>double</code>.
+ */
+public class Operators {
+
+    private Operators() {
+    }
+
+    /**
+     * Adds two numbers, or concatenates the operands if either of them is a string. A <code>null</code>
+     * operand of a concatenation is omitted.
+     *
+     * @param left  The left operand.
+     * @param right The right operand.
+     * @return The sum or the concatenated string, <code>null</code> if a number is added to <code>null</code>.
+     */
+    public static Object add(Object left, Object right) {
+        if (left instanceof String || right instanceof String) {
+            return (left == null ? "" : left.toString()).concat(right == null ? "" : right.toString());
+        } else {
+            return calculate(BinaryExpression.Operator.ADD, left, right);
+        }
+    }
+
+    public static Object subtract(Object left, Object right) {
+        return calculate(BinaryExpression.Operator.SUBTRACT, left, right);
+    }
+
+    public static Object multiply(Object left, Object right) {
+        return calculate(BinaryExpression.Operator.MULTIPLY, left, right);
+    }
+
+    public static Object divide(Object left, Object right) {
+        return calculate(BinaryExpression.Operator.DIVIDE, left, right);
+    }
+
+    public static Object remainder(Object left, Object right) {
+        return calculate(BinaryExpression.Operator.REMAINDER, left, right);
+    }
+
+    public static Object negate(Object value) {
+        return calculate(BinaryExpression.Operator.SUBTRACT, 0, value);
+    }
+
+    /**
+     * Compares two values. Numbers are compared by value and other values must be comparable to each other.
+     *
+     * @param left       The left operand.
+     * @param right      The right operand.
+     * @param expression The expression that compares the values, which is reported if they can't be compared.
+     * @return A negative number, zero or a positive number if the left operand is less than, equal to or
+     *         greater than the right operand.
+     * @throws InvalidExpressionException If the values can't be compared.
+     */
+    @SuppressWarnings("unchecked")
+    public static int compare(@NotNull Object left, @NotNull Object right, String expression) {
+        if (left instanceof Number && right instanceof Number) {
+            Number leftNumber = (Number) left;
+            Number rightNumber = (Number) right;
+
+            if (isExact(leftNumber, rightNumber)) {
+                return toBigDecimal(leftNumber).compareTo(toBigDecimal(rightNumber));
+            } else if (isFloatingPoint(leftNumber) || isFloatingPoint(rightNumber)) {
+                return Double.compare(leftNumber.doubleValue(), rightNumber.doubleValue());
+            } else {
+                long leftValue = leftNumber.longValue();
+                long rightValue = rightNumber.longValue();
+
+                return (leftValue < rightValue ? -1 : (leftValue == rightValue ? 0 : 1));
+            }
+        } else if (left instanceof Comparable && !(left instanceof Number) && !(right instanceof Number)) {
+            try {
+                return ((Comparable<Object>) left).compareTo(right);
+            } catch (ClassCastException e) {
+                throw new InvalidExpressionException(getComparisonMessage(left, right, expression), e);
+            }
+        } else {
+            throw new InvalidExpressionException(getComparisonMessage(left, right, expression));
+        }
+    }
+
+    private static String getComparisonMessage(Object left, Object right, String expression) {
+        return "Expression '" + expression + "' can't compare values of type " + left.getClass().getName()
+                + " and " + right.getClass().getName();
+    }
+
+    /**
+     * Checks whether or not two values are equal. Numbers are equal if their values are equal, regardless
+     * of their types, as by the <code>==</code> operator of the promoted primitives, i.e. <code>0.0</code>
+     * and <code>-0.0</code> are equal and <code>NaN</code> isn't equal to itself.
+     *
+     * @param left  The left operand.
+     * @param right The right operand.
+     * @return Whether or not the values are equal.
+     */
+    public static boolean equal(Object left, Object right) {
+        if (left == right) {
+            return true;
+        } else if (left == null || right == null) {
+            return false;
+        } else if (left instanceof Number && right instanceof Number) {
+            Number leftNumber = (Number) left;
+            Number rightNumber = (Number) right;
+
+            if (isExact(leftNumber, rightNumber)) {
+                return toBigDecimal(leftNumber).compareTo(toBigDecimal(rightNumber)) == 0;
+            } else if (isFloatingPoint(leftNumber) || isFloatingPoint(rightNumber)) {
+                return leftNumber.doubleValue() == rightNumber.doubleValue();
+            } else {
+                return leftNumber.longValue() == rightNumber.longValue();
+            }
+        } else {
+            return left.equals(right);
+        }
+    }
+
+    protected static Object calculate(BinaryExpression.Operator operator, Object left, Object right) {
+        Number leftNumber = null;
+        Number rightNumber = null;
+
+        if (left == null || right == null) {
+            return null;
+        } else if (!(left instanceof Number) || !(right instanceof Number)) {
+            throw new IllegalArgumentException("Operator '" + operator.getSymbol() + "' can't be applied to values of type "
+                    + left.getClass().getName() + " and " + right.getClass().getName());
+        }
+
+        leftNumber = (Number) left;
+        rightNumber = (Number) right;
+
+        if (isExact(leftNumber, rightNumber)) {
+            BigDecimal leftValue = toBigDecimal(leftNumber);
+            BigDecimal rightValue = toBigDecimal(rightNumber);
+
+            switch (operator) {
+                case ADD:
+                    return leftValue.add(rightValue);
+                case SUBTRACT:
+                    return leftValue.subtract(rightValue);
+                case MULTIPLY:
+                    return leftValue.multiply(rightValue);
+                case DIVIDE:
+                    return leftValue.divide(rightValue, MathContext.DECIMAL128);
+                default:
+                    return leftValue.remainder(rightValue);
+            }
+        } else if (isFloatingPoint(leftNumber) || isFloatingPoint(rightNumber)) {
+            double leftValue = leftNumber.doubleValue();
+            double rightValue = rightNumber.doubleValue();
+
+            switch (operator) {
+                case ADD:
+                    return leftValue + rightValue;
+                case SUBTRACT:
+                    return leftValue - rightValue;
+                case MULTIPLY:
+                    return leftValue * rightValue;
+                case DIVIDE:
+                    return leftValue / rightValue;
+                default:
+                    return leftValue % rightValue;
+            }
+        } else if (leftNumber instanceof Long || rightNumber instanceof Long) {
+            long leftValue = leftNumber.longValue();
+            long rightValue = rightNumber.longValue();
+
+            switch (operator) {
+                case ADD:
+                    return leftValue + rightValue;
+                case SUBTRACT:
+                    return leftValue - rightValue;
+                case MULTIPLY:
+                    return leftValue * rightValue;
+                case DIVIDE:
+                    return leftValue / rightValue;
+                default:
+                    return leftValue % rightValue;
+            }
+        } else {
+            int leftValue = leftNumber.intValue();
+            int rightValue = rightNumber.intValue();
+
+            switch (operator) {
+                case ADD:
+                    return leftValue + rightValue;
+                case SUBTRACT:
+                    return leftValue - rightValue;
+                case MULTIPLY:
+                    return leftValue * rightValue;
+                case DIVIDE:
+                    return leftValue / rightValue;
+                default:
+                    return leftValue % rightValue;
+            }
+        }
+    }
+
+    /**
+     * Checks whether two numbers are computed as <code>java.math.BigDecimal</code>, i.e. if either of them is
+     * a <code>java.math.BigDecimal</code> or a <code>java.math.BigInteger</code> and neither of them is
+     * <code>NaN</code> or infinite, which can't be represented by a <code>java.math.BigDecimal</code>.
+     */
+    private static boolean isExact(Number left, Number right) {
+        return (isDecimal(left) || isDecimal(right)) && isFinite(left) && isFinite(right);
+    }
+
+    private static boolean isDecimal(Number number) {
+        return number instanceof BigDecimal || number instanceof BigInteger;
+    }
+
+    private static boolean isFinite(Number number) {
+        return !isFloatingPoint(number) || !(Double.isNaN(number.doubleValue()) || Double.isInfinite(number.doubleValue()));
+    }
+
+    private static boolean isFloatingPoint(Number number) {
+        return number instanceof Double || number instanceof Float;
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        } else if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        } else if (isFloatingPoint(number)) {
+            return BigDecimal.valueOf(number.doubleValue());
+        } else {
+            return BigDecimal.valueOf(number.longValue());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+/**
+ * Maintains the value arrays of data objects with {@link com.googlecode.bumblebee.dto.Storage#SPARSE sparse}
+ * storage. The arrays are kept exactly as long as the number of properties that are set, so a value is
+ * inserted or removed by a setter by copying the array. Constructors collect the values by the number of
+ * their property instead and {@link #compact} them once all properties are initialized.
+ *
+ * @see FieldLayout
+ */
+public class SparseValues {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private SparseValues() {
+    }
+
+    /**
+     * Inserts a value into a value array.
+     *
+     * @param values The value array, <code>null</code> if no properties are set.
+     * @param position The position of the value.
+     * @param value The value.
+     * @return A new value array that contains the value.
+     */
+    public static Object[] insert(Object[] values, int position, Object value) {
+        Object[] newValues = new Object[values == null ? 1 : values.length + 1];
+
+        if (values != null) {
+            System.arraycopy(values, 0, newValues, 0, position);
+            System.arraycopy(values, position, newValues, position + 1, values.length - position);
+        }
+
+        newValues[position] = value;
+
+        return newValues;
+    }
+
+    /**
+     * Compacts the values of the sparse properties of a data object that has been initialized, i.e. drops
+     * the values of the properties that aren't set.
+     *
+     * @param values The values by the number of their property.
+     * @param count The number of values that aren't <code>null</code>.
+     * @return The value array, which is the provided array if all properties are set, or <code>null</code>
+     * if no properties are set.
+     */
+    public static Object[] compact(Object[] values, int count) {
+        Object[] newValues = null;
+        int position = 0;
+
+        if (count == 0) {
+            return null;
+        } else if (count == values.length) {
+            return values;
+        }
+
+        newValues = new Object[count];
+
+        for (Object value : values) {
+            if (value != null) {
+                newValues[position++] = value;
+            }
+        }
+
+        return newValues;
+    }
+
+    /**
+     * Removes a value from a value array.
+     *
+     * @param values The value array.
+     * @param position The position of the value.
+     * @return A new value array without the value.
+     */
+    public static Object[] remove(Object[] values, int position) {
+        Object[] newValues = (values.length == 1 ? EMPTY : new Object[values.length - 1]);
+
+        System.arraycopy(values, 0, newValues, 0, position);
+        System.arraycopy(values, position + 1, newValues, position, values.length - position - 1);
+
+        return newValues;
+    }
+
+}
@@ -14,10 +14,24 @@
 
 package com.googlecode.bumblebee.dto;
 
+import com.googlecode.bumblebee.beans.PropertyAccessException;
 import static com.googlecode.bumblebee.dto.Bumblebee.*;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * @author Andreas Nilsson
  */
@@ -126,6 +140,559 @@ public class BumblebeeTest {
         assertFalse(obj1.equals(obj3));
     }
 
+    @Test
+    public void compileShouldReturnGetterForPropertyPath() {
+        Getter getter = compile("objectWithPrimitives.intProperty");
+
+        assertEquals("objectWithPrimitives.intProperty", getter.getExpression());
+        assertEquals(3, getter.get(new ObjectWithOneToOneRelationship()));
+        assertEquals(4, getter.get(new ObjectWithOneToOneRelationship(1)));
+    }
+
+    @Test
+    public void compileShouldReuseGetterForSameExpression() {
+        assertSame(compile("objectWithPrimitives.stringProperty"), compile("objectWithPrimitives.stringProperty"));
+    }
+
+    @Test
+    public void compiledGetterShouldSupportDifferentSourceClasses() {
+        Getter getter = compile("intProperty");
+
+        assertEquals(3, getter.get(new ObjectWithPrimitives()));
+        assertEquals(3, getter.get(new ObjectWithPrimitives() {}));
+    }
+
+    @Test
+    public void compiledNullSafeGetterShouldReturnNullForNullTarget() {
+        Getter getter = compile("objectWithPrimitives?.stringProperty");
+
+        assertEquals("StringIsNotReallyAPrimitive", getter.get(new ObjectWithOneToOneRelationship()));
+        assertNull(getter.get(new ObjectWithNullRelationship()));
+    }
+
+    @Test
+    public void assembleShouldSkipNullSafePathsWithNullTarget() {
+        DataObjectWithNullSafePath dataObject = assemble(DataObjectWithNullSafePath.class).from(new ObjectWithNullRelationship());
+
+        assertNull(dataObject.getStringValue());
+        assertEquals(0, dataObject.getIntValue());
+    }
+
+    @Test
+    public void assembleShouldEvaluateNullSafePathsWithNonNullTarget() {
+        DataObjectWithNullSafePath dataObject = assemble(DataObjectWithNullSafePath.class).from(new ObjectWithOneToOneRelationship());
+
+        assertEquals("StringIsNotReallyAPrimitive", dataObject.getStringValue());
+        assertEquals(3, dataObject.getIntValue());
+    }
+
+    @Test
+    public void compiledGetterShouldFlattenPathsThroughNestedCollections() {
+        Getter getter = compile("relationships.objects.objectWithPrimitives.intProperty");
+
+        assertEquals(Arrays.asList(3, 4, 5, 3, 4, 5), getter.get(new ObjectWithNestedCollections()));
+    }
+
+    @Test
+    public void compiledGetterShouldEvaluatePathsThroughSetsToSets() {
+        Getter getter = compile("uniqueObjects.intProperty");
+
+        assertEquals(new HashSet<Integer>(Arrays.asList(3, 4)), getter.get(new ObjectWithNestedCollections()));
+    }
+
+    @Test
+    public void compiledGetterShouldCollectPathsIntoTargetType() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+        String path = "relationships.objects.objectWithPrimitives.intProperty";
+        List<?> uniqueIntegers = (List<?>) compile("uniqueObjects.intProperty", List.class, Integer.class).get(source);
+
+        assertArrayEquals(new long[]{3, 4, 5, 3, 4, 5}, (long[]) compile(path, long[].class, long.class).get(source));
+        assertArrayEquals(new Integer[]{3, 4, 5, 3, 4, 5}, (Integer[]) compile(path, Integer[].class, Integer.class).get(source));
+        assertEquals(Arrays.asList(3L, 4L, 5L, 3L, 4L, 5L), compile(path, List.class, Long.class).get(source));
+        assertEquals(new HashSet<Integer>(Arrays.asList(3, 4, 5)), compile(path, Set.class, Integer.class).get(source));
+        assertEquals(2, uniqueIntegers.size());
+        assertEquals(new HashSet<Integer>(Arrays.asList(3, 4)), new HashSet<Object>(uniqueIntegers));
+    }
+
+    @Test
+    public void compiledGetterShouldCopyValuesThatAreNotCollected() {
+        Object emptyObjects = compile("emptyObjects", List.class, Object.class).get(new ObjectWithNestedCollections());
+
+        assertTrue(emptyObjects instanceof ArrayList);
+        assertEquals(Collections.emptyList(), emptyObjects);
+    }
+
+    @Test
+    public void assembleShouldCopyPathsThroughNestedCollections() {
+        DataObjectWithFlattenedCollection dataObject = assemble(DataObjectWithFlattenedCollection.class)
+                .from(new ObjectWithNestedCollections());
+
+        assertArrayEquals(new int[]{3, 4, 5, 3, 4, 5}, dataObject.getIntegers());
+        assertEquals(Arrays.asList("StringIsNotReallyAPrimitive"), dataObject.getStrings());
+    }
+
+    @Test
+    public void sharedPrefixesShouldNotStopPathsFromFlattening() {
+        DataObjectWithSharedCollectionPrefix dataObject = assemble(DataObjectWithSharedCollectionPrefix.class)
+                .from(new ObjectWithNestedCollections());
+
+        assertArrayEquals(new int[]{3, 4, 5, 3, 4, 5}, dataObject.getIntegers());
+        assertEquals(Arrays.asList(4L, 5L, 6L, 4L, 5L, 6L), dataObject.getLongs());
+        assertEquals(2, dataObject.getRelationships().size());
+        assertEquals(new HashSet<Integer>(Arrays.asList(3, 4)), dataObject.getUniqueIntegers());
+        assertEquals(Arrays.asList("StringIsNotReallyAPrimitive"), dataObject.getUniqueStrings());
+    }
+
+    @Test
+    public void compiledGetterShouldComputeAggregates() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(2, compile("count(relationships)").get(source));
+        assertEquals(6, compile("count(relationships.objects)").get(source));
+        assertEquals(24L, compile("sum(relationships.objects.objectWithPrimitives.intProperty)").get(source));
+        assertEquals(3, compile("min(relationships.objects.objectWithPrimitives.intProperty)").get(source));
+        assertEquals(8.0D, compile("max(relationships.objects.objectWithPrimitives.doubleProperty)").get(source));
+        assertEquals(4.0D, compile("avg(relationships.objects.objectWithPrimitives.intProperty)").get(source));
+        assertEquals("StringIsNotReallyAPrimitive", compile("max(uniqueObjects.stringProperty)").get(source));
+    }
+
+    @Test
+    public void compiledGetterShouldReturnNullForAggregatesOfNoValues() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(0, compile("count(emptyObjects)").get(source));
+        assertEquals(0L, compile("sum(emptyObjects.intProperty)").get(source));
+        assertNull(compile("min(emptyObjects.intProperty)").get(source));
+        assertNull(compile("avg(emptyObjects.intProperty)").get(source));
+    }
+
+    @Test
+    public void compiledGetterShouldTreatNullCollectionsAsEmpty() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(0, compile("count(missingObjects)").get(source));
+        assertEquals(0, compile("size(missingObjects)").get(source));
+        assertEquals(true, compile("empty(missingArray)").get(source));
+        assertEquals(0L, compile("sum(missingObjects.intProperty)").get(source));
+        assertNull(compile("avg(missingObjects.intProperty)").get(source));
+        assertNull(compile("min(missingArray.intProperty)").get(source));
+        assertNull(compile("missingObjects[0]").get(source));
+        assertNull(compile("missingArray[0].intProperty").get(source));
+        assertEquals(Collections.emptyList(), compile("missingObjects[0..2]").get(source));
+        assertEquals(0, ((ObjectWithPrimitives[]) compile("missingArray[0..2]").get(source)).length);
+        assertEquals(Collections.emptyList(), compile("missingObjects top 2 by intProperty").get(source));
+    }
+
+    @Test
+    public void compiledGetterShouldIgnoreNullValuesOfAggregates() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(1, compile("count(relationshipsWithNulls.objectWithPrimitives)").get(source));
+        assertEquals(4L, compile("sum(relationshipsWithNulls.objectWithPrimitives.intProperty)").get(source));
+        assertEquals(4, compile("max(relationshipsWithNulls.objectWithPrimitives.intProperty)").get(source));
+        assertEquals(1, ((List<?>) compile("relationshipsWithNulls.objectWithPrimitives top 2 by intProperty").get(source)).size());
+    }
+
+    @Test(expected = PropertyAccessException.class)
+    public void compiledGetterShouldNotNavigateNullElementsOutsideAggregates() {
+        compile("relationshipsWithNulls.objectWithPrimitives.intProperty").get(new ObjectWithNestedCollections());
+    }
+
+    @Test
+    public void compiledGetterShouldComputeSizes() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(2, compile("size(relationships)").get(source));
+        assertEquals(3, compile("size(relationships[0].objects)").get(source));
+        assertEquals(6, compile("size(relationships.objects)").get(source));
+        assertEquals(false, compile("empty(relationships.objects)").get(source));
+        assertEquals(true, compile("empty(emptyObjects)").get(source));
+    }
+
+    @Test
+    public void assembleShouldComputeSizes() {
+        DataObjectWithSizes dataObject = assemble(DataObjectWithSizes.class).from(new ObjectWithNestedCollections());
+
+        assertEquals(2, dataObject.getSize());
+        assertTrue(dataObject.isEmpty());
+    }
+
+    @Test
+    public void assembleShouldComputeAggregates() {
+        DataObjectWithAggregates dataObject = assemble(DataObjectWithAggregates.class).from(new ObjectWithNestedCollections());
+
+        assertEquals(6, dataObject.getCount());
+        assertEquals(24, dataObject.getSum());
+        assertEquals(new Integer(5), dataObject.getMax());
+        assertEquals(0, dataObject.getMin());
+    }
+
+    @Test
+    public void compiledGetterShouldEvaluateIndexedPaths() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(5, compile("relationships[1].objects[2].objectWithPrimitives.intProperty").get(source));
+        assertEquals(Arrays.asList(3, 3), compile("relationships.objects[0].objectWithPrimitives.intProperty").get(source));
+        assertNull(compile("relationships[2].objects").get(source));
+        assertNull(compile("emptyObjects[0]").get(source));
+    }
+
+    @Test
+    public void compiledGetterShouldEvaluateKeyedPaths() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(4, compile("attributes['second'].intProperty").get(source));
+        assertNull(compile("attributes['third'].intProperty").get(source));
+    }
+
+    @Test
+    public void assembleShouldCopyIndexedPaths() {
+        DataObjectWithIndexedPaths dataObject = assemble(DataObjectWithIndexedPaths.class).from(new ObjectWithNestedCollections());
+
+        assertEquals(4, dataObject.getSecond());
+        assertEquals(3, dataObject.getFirst());
+        assertEquals(0, dataObject.getMissing());
+    }
+
+    @Test
+    public void compiledGetterShouldEvaluateParameters() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(4, compile("attributes[{0}].intProperty").get(source, "second"));
+        assertEquals(3, compile("attributes[{0}].intProperty").get(source, "first"));
+        assertEquals(5, compile("relationships[{0}].objects[{1}].objectWithPrimitives.intProperty").get(source, 1, 2L));
+        assertEquals("label", compile("{0}").get(source, "label"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compiledGetterShouldNotAcceptMissingParameters() {
+        compile("attributes[{1}]").get(new ObjectWithNestedCollections(), "first");
+    }
+
+    @Test
+    public void assembleShouldBindParameters() {
+        DataObjectWithParameters dataObject = assemble(DataObjectWithParameters.class).with("second", "label")
+                .from(new ObjectWithNestedCollections());
+
+        assertEquals(4, dataObject.getSelected().getIntProperty());
+        assertEquals(2, dataObject.getLabeled().size());
+        assertEquals("label", dataObject.getLabeled().get(0).getLabel());
+    }
+
+    @Test
+    public void compiledGetterShouldEvaluateSlices() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals(Arrays.asList(4, 5), compile("relationships[0].objects[1..3].objectWithPrimitives.intProperty").get(source));
+        assertEquals(Arrays.asList(3, 4, 3, 4), compile("relationships.objects[0..2].objectWithPrimitives.intProperty").get(source));
+        assertEquals(1, ((List<?>) compile("relationships[1..10]").get(source)).size());
+        assertEquals(0, ((List<?>) compile("emptyObjects[2..4]").get(source)).size());
+    }
+
+    @Test
+    public void compiledGetterShouldCopySlicesOfLists() {
+        List<Integer> list = new ArrayList<Integer>(Arrays.asList(1, 2, 3));
+        List<?> slice = (List<?>) compile("this[0..2]").get(list);
+
+        list.set(0, 4);
+        list.add(5);
+
+        assertEquals(Arrays.asList(1, 2), slice);
+    }
+
+    @Test
+    public void compiledGetterShouldSelectTopElements() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+        List<?> top = (List<?>) compile("relationships.objects top 3 by objectWithPrimitives.intProperty").get(source);
+
+        assertEquals(3, top.size());
+        assertEquals(5, ((ObjectWithOneToOneRelationship) top.get(0)).getObjectWithPrimitives().getIntProperty());
+        assertEquals(5, ((ObjectWithOneToOneRelationship) top.get(1)).getObjectWithPrimitives().getIntProperty());
+        assertEquals(4, ((ObjectWithOneToOneRelationship) top.get(2)).getObjectWithPrimitives().getIntProperty());
+        assertEquals(0, ((List<?>) compile("emptyObjects top 3 by intProperty").get(source)).size());
+    }
+
+    @Test
+    public void assembleShouldCopySelectedElements() {
+        DataObjectWithSelections dataObject = assemble(DataObjectWithSelections.class).from(new ObjectWithNestedCollections());
+
+        assertEquals(2, dataObject.getLargest().size());
+        assertEquals(5, dataObject.getLargest().get(0).getDataObjectWithPrimitives().getIntProperty());
+        assertEquals(4, dataObject.getLargest().get(1).getDataObjectWithPrimitives().getIntProperty());
+        assertEquals(1, dataObject.getFirst().length);
+        assertEquals(3, dataObject.getFirst()[0].getDataObjectWithPrimitives().getIntProperty());
+    }
+
+    @Test
+    public void compiledGetterShouldComputeArithmetic() {
+        ObjectWithPrimitives source = new ObjectWithPrimitives();
+
+        assertEquals(10L, compile("intProperty * 2 + longProperty").get(source));
+        assertEquals(-1, compile("-intProperty % 2").get(source));
+        assertEquals(Integer.MIN_VALUE, compile("-2147483648").get(source));
+        assertEquals(Long.MIN_VALUE + 1, compile("-9223372036854775808L + intProperty - 2").get(source));
+        assertEquals(3.5D, compile("doubleProperty / 2 + 0.5").get(source));
+        assertEquals(Arrays.asList(30, 40, 50, 30, 40, 50),
+                compile("relationships.objects.objectWithPrimitives.intProperty * 10").get(new ObjectWithNestedCollections()));
+        assertNull(compile("attributes['third'].intProperty + 1").get(new ObjectWithNestedCollections()));
+    }
+
+    @Test
+    public void compiledGetterShouldConcatenateStrings() {
+        ObjectWithPrimitives source = new ObjectWithPrimitives();
+
+        assertEquals("StringIsNotReallyAPrimitive 3!", compile("stringProperty + ' ' + intProperty + '!'").get(source));
+        assertEquals("7X", compile("intProperty + longProperty + '' + charProperty").get(source));
+        assertEquals("none", compile("attributes['third']?.stringProperty + 'none'").get(new ObjectWithNestedCollections()));
+    }
+
+    @Test
+    public void compiledGetterShouldCompareValues() {
+        ObjectWithPrimitives source = new ObjectWithPrimitives();
+
+        assertEquals(true, compile("intProperty == 3").get(source));
+        assertEquals(true, compile("longProperty > intProperty && !(doubleProperty <= 5)").get(source));
+        assertEquals(false, compile("stringProperty == 'foo' || intProperty != 3").get(source));
+        assertEquals(true, compile("count(uniqueObjects) == 2L").get(new ObjectWithNestedCollections()));
+        assertEquals(true, compile("attributes['third'] == null").get(new ObjectWithNestedCollections()));
+    }
+
+    @Test
+    public void compiledGetterShouldCompareNumbersOfUnknownTypesAsPrimitives() {
+        ObjectWithPrimitives source = new ObjectWithPrimitives();
+
+        assertEquals(true, compile("{0} == {1}").get(source, 0.0D, -0.0D));
+        assertEquals(false, compile("{0} == {1}").get(source, Double.NaN, Double.NaN));
+        assertEquals(true, compile("{0} == {1}").get(source, new BigDecimal("2.50"), 2.5F));
+        assertEquals(false, compile("{0} == {1}").get(source, BigDecimal.ONE, Double.NaN));
+        assertEquals(true, compile("{0} < {1}").get(source, BigDecimal.ONE, Double.POSITIVE_INFINITY));
+        assertTrue(Double.isNaN((Double) compile("{0} + {1}").get(source, BigDecimal.ONE, Double.NaN)));
+    }
+
+    @Test
+    public void compiledGetterShouldNotCompareNumbersToStrings() {
+        try {
+            compile("intProperty > 'a'").get(new ObjectWithPrimitives());
+            fail("Expected the comparison to be rejected");
+        } catch (InvalidExpressionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("intProperty > 'a'"));
+        }
+
+        try {
+            compile("{0} > 'a'").get(new ObjectWithPrimitives(), 1);
+            fail("Expected the comparison to be rejected");
+        } catch (InvalidExpressionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("{0} > 'a'"));
+        }
+    }
+
+    @Test
+    public void compiledGetterShouldEvaluateConditionals() {
+        ObjectWithNestedCollections source = new ObjectWithNestedCollections();
+
+        assertEquals("big", compile("attributes['second'].intProperty > 3 ? 'big' : 'small'").get(source));
+        assertEquals(4L, compile("empty(emptyObjects) ? attributes['first'].longProperty : 0").get(source));
+        assertEquals("StringIsNotReallyAPrimitive", compile("attributes['third']?.stringProperty ?: attributes['first'].stringProperty").get(source));
+        assertEquals(7, compile("attributes['third'].intProperty ?: 7").get(source));
+        assertEquals(3, compile("attributes['first'].intProperty ?: 7").get(source));
+    }
+
+    @Test
+    public void assembleShouldComputeOperators() {
+        DataObjectWithOperators dataObject = assemble(DataObjectWithOperators.class).from(new ObjectWithPrimitives(1));
+
+        assertEquals("StringIsNotReallyAPrimitive #4", dataObject.getLabel());
+        assertEquals(9L, dataObject.getTotal());
+        assertTrue(dataObject.isLarge());
+    }
+
+    @Test
+    public void assembleShouldEvaluateSharedPrefixesOnce() {
+        ObjectWithCountedRelationship source = new ObjectWithCountedRelationship();
+        DataObjectWithSharedPrefix dataObject = assemble(DataObjectWithSharedPrefix.class).from(source);
+
+        assertEquals(3, dataObject.getIntValue());
+        assertEquals(4L, dataObject.getLongValue());
+        assertEquals("StringIsNotReallyAPrimitive", dataObject.getStringValue());
+        assertEquals(3, dataObject.getDataObjectWithPrimitives().getIntProperty());
+        assertEquals(1, source.getCount());
+    }
+
+    @Test(expected = PropertyAccessException.class)
+    public void assembleShouldFailIfSharedPrefixIsNull() {
+        assemble(DataObjectWithSharedPrefix.class).from(new ObjectWithNullRelationship());
+    }
+
+    @Test
+    public void fieldsShouldBeDeclaredInDeclarationOrder() {
+        assertEquals(Arrays.asList("byteProperty", "shortProperty", "charProperty", "intProperty", "longProperty",
+                "floatProperty", "doubleProperty", "stringProperty"), getFieldNames(implementationOf(DataObjectWithPrimitives.class)));
+    }
+
+    @Test
+    public void compactLayoutShouldGroupFieldsByWidthAndPackBooleans() {
+        assertEquals(Arrays.asList("longProperty", "flags_0", "byteProperty", "stringProperty"),
+                getFieldNames(implementationOf(DataObjectWithCompactLayout.class)));
+    }
+
+    @Test
+    public void assembleShouldCopyPackedBooleans() {
+        DataObjectWithCompactLayout dataObject = assemble(DataObjectWithCompactLayout.class).from(new ObjectWithPrimitives());
+
+        assertEquals(4L, dataObject.getLongProperty());
+        assertTrue(dataObject.isLarge());
+        assertFalse(dataObject.isSmall());
+        assertEquals((byte) 1, dataObject.getByteProperty());
+        assertEquals("StringIsNotReallyAPrimitive", dataObject.getStringProperty());
+        assertEquals(dataObject, assemble(DataObjectWithCompactLayout.class).from(new ObjectWithPrimitives()));
+        assertFalse(dataObject.equals(assemble(DataObjectWithCompactLayout.class).from(new ObjectWithPrimitives(-2))));
+    }
+
+    @Test
+    public void createShouldSetPackedBooleans() {
+        DataObjectWithCompactLayout dataObject = create(DataObjectWithCompactLayout.class, with("small", true), with("longProperty", 5L));
+
+        assertTrue(dataObject.isSmall());
+        assertFalse(dataObject.isLarge());
+        assertEquals(5L, dataObject.getLongProperty());
+    }
+
+    @Test
+    public void sparseStorageShouldOnlyHoldSetProperties() throws Exception {
+        DataObjectWithSparseStorage dataObject = assemble(DataObjectWithSparseStorage.class).from(new ObjectWithPrimitives());
+        Field values = dataObject.getClass().getDeclaredField("sparse_values");
+
+        assertEquals(Arrays.asList("intProperty", "sparse_0", "sparse_values"), getFieldNames(dataObject.getClass()));
+        assertEquals("StringIsNotReallyAPrimitive", dataObject.getStringProperty());
+        assertNull(dataObject.getMissingProperty());
+        assertEquals(new Long(4), dataObject.getLongProperty());
+        assertEquals(3, dataObject.getIntProperty());
+
+        values.setAccessible(true);
+        assertEquals(2, ((Object[]) values.get(dataObject)).length);
+        assertEquals(dataObject, assemble(DataObjectWithSparseStorage.class).from(new ObjectWithPrimitives()));
+        assertFalse(dataObject.equals(assemble(DataObjectWithSparseStorage.class).from(new ObjectWithPrimitives(1))));
+    }
+
+    @Test
+    public void createShouldSetSparseProperties() {
+        DataObjectWithSparseStorage dataObject = create(DataObjectWithSparseStorage.class, with("longProperty", 7L));
+
+        assertEquals(new Long(7), dataObject.getLongProperty());
+        assertNull(dataObject.getStringProperty());
+    }
+
+    @Test
+    public void assembleAllShouldBindParameters() {
+        List<DataObjectWithParameter> dataObjects = assemble(DataObjectWithParameter.class).with("first", "label")
+                .allFrom(new Object[] { new ObjectWithPrimitives(), new ObjectWithPrimitives() });
+
+        assertEquals(2, dataObjects.size());
+        assertEquals("label", dataObjects.get(1).getLabel());
+    }
+
+    @Test
+    public void columnarAssemblyShouldReturnViewsOfTheRows() {
+        List<DataObjectWithPrimitives> dataObjects = assemble(DataObjectWithPrimitives.class)
+                .columnarFrom(Arrays.asList(new ObjectWithPrimitives(0), new ObjectWithPrimitives(10)));
+
+        assertEquals(2, dataObjects.size());
+        assertEquals(3, dataObjects.get(0).getIntProperty());
+        assertEquals(14L, dataObjects.get(1).getLongProperty());
+        assertEquals(16D, dataObjects.get(1).getDoubleProperty(), 0.1D);
+        assertEquals("StringIsNotReallyAPrimitive", dataObjects.get(1).getStringProperty());
+        assertEquals(dataObjects.get(0), dataObjects.get(0));
+        assertFalse(dataObjects.get(0).equals(dataObjects.get(1)));
+    }
+
+    @Test
+    public void columnarAssemblyShouldTrimColumnsOfIterables() throws Exception {
+        final List<Object> sources = new ArrayList<Object>();
+        List<DataObjectWithSharedPrefix> dataObjects = null;
+        Field column = null;
+
+        for (int i = 0; i < 20; i++) {
+            sources.add(new ObjectWithOneToOneRelationship(i));
+        }
+
+        dataObjects = assemble(DataObjectWithSharedPrefix.class).columnarFrom(new Iterable<Object>() {
+            public Iterator<Object> iterator() {
+                return sources.iterator();
+            }
+        });
+        column = dataObjects.getClass().getDeclaredField("column_intValue");
+        column.setAccessible(true);
+
+        assertEquals(20, dataObjects.size());
+        assertEquals(20, ((int[]) column.get(dataObjects)).length);
+        assertEquals(22, dataObjects.get(19).getIntValue());
+        assertEquals(22, dataObjects.get(19).getDataObjectWithPrimitives().getIntProperty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void columnarAssemblyShouldNotAcceptNullSources() {
+        assemble(DataObjectWithPrimitives.class).columnarFrom(Arrays.asList(new ObjectWithPrimitives(), null));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void columnarAssemblyShouldBeUnmodifiable() {
+        assemble(DataObjectWithPrimitives.class).columnarFrom(Arrays.asList(new ObjectWithPrimitives()))
+                .add(create(DataObjectWithPrimitives.class));
+    }
+
+    @Test
+    public void offHeapAssemblyShouldHoldPropertiesInArena() {
+        OffHeapArena arena = new OffHeapStore().newArena();
+        DataObjectWithPrimitives dataObject = assemble(DataObjectWithPrimitives.class).offHeapFrom(new ObjectWithPrimitives(), arena);
+
+        assertEquals(Arrays.asList("arena", "slab", "offset"), getFieldNames(dataObject.getClass()));
+        assertEquals((byte) 1, dataObject.getByteProperty());
+        assertEquals((short) 2, dataObject.getShortProperty());
+        assertEquals('X', dataObject.getCharProperty());
+        assertEquals(3, dataObject.getIntProperty());
+        assertEquals(4L, dataObject.getLongProperty());
+        assertEquals(5F, dataObject.getFloatProperty(), 0.1F);
+        assertEquals(6D, dataObject.getDoubleProperty(), 0.1D);
+        assertEquals("StringIsNotReallyAPrimitive", dataObject.getStringProperty());
+        assertEquals(dataObject, assemble(DataObjectWithPrimitives.class).offHeapFrom(new ObjectWithPrimitives(), arena));
+        assertFalse(dataObject.equals(assemble(DataObjectWithPrimitives.class).offHeapFrom(new ObjectWithPrimitives(1), arena)));
+    }
+
+    @Test
+    public void offHeapAssemblyShouldHoldBooleans() {
+        OffHeapArena arena = new OffHeapStore().newArena();
+        DataObjectWithCompactLayout dataObject = assemble(DataObjectWithCompactLayout.class).offHeapFrom(new ObjectWithPrimitives(), arena);
+
+        assertFalse(dataObject.isSmall());
+        assertTrue(dataObject.isLarge());
+        assertEquals((byte) 1, dataObject.getByteProperty());
+        assertEquals(4L, dataObject.getLongProperty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void offHeapDataObjectShouldNotBeReadOnceArenaIsClosed() {
+        OffHeapArena arena = new OffHeapStore().newArena();
+        DataObjectWithPrimitives dataObject = assemble(DataObjectWithPrimitives.class).offHeapFrom(new ObjectWithPrimitives(), arena);
+
+        arena.close();
+        dataObject.getIntProperty();
+    }
+
+    @Test(expected = DataObjectGenerationException.class)
+    public void offHeapAssemblyShouldNotAcceptNestedDataObjects() {
+        assemble(DataObjectWithOneToOneRelationship.class).offHeapFrom(new ObjectWithOneToOneRelationship(), new OffHeapStore().newArena());
+    }
+
+    @Test(expected = InvalidExpressionException.class)
+    public void compileShouldNotAcceptArithmeticOnStrings() {
+        compile("stringProperty - 1").get(new ObjectWithPrimitives());
+    }
+
+    @Test(expected = InvalidExpressionException.class)
+    public void compileShouldNotAcceptInvalidExpression() {
+        compile("objectWithPrimitives.");
+    }
+
     // Support classes
 
     @DataObject
@@ -144,6 +711,188 @@ public class BumblebeeTest {
 
     }
 
+    @DataObject
+    public interface DataObjectWithNullSafePath {
+
+        @Value("objectWithPrimitives?.stringProperty")
+        public String getStringValue();
+
+        @Value("objectWithPrimitives?.intProperty")
+        public int getIntValue();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithFlattenedCollection {
+
+        @Value("relationships.objects.objectWithPrimitives.intProperty")
+        public int[] getIntegers();
+
+        @Value("uniqueObjects.stringProperty")
+        public List<String> getStrings();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithSharedCollectionPrefix {
+
+        @Value("relationships.objects.objectWithPrimitives.intProperty")
+        public int[] getIntegers();
+
+        @Value("relationships.objects.objectWithPrimitives.longProperty")
+        public List<Long> getLongs();
+
+        @Value("relationships")
+        public List<Object> getRelationships();
+
+        @Value("uniqueObjects.intProperty")
+        public Set<Integer> getUniqueIntegers();
+
+        @Value("uniqueObjects.stringProperty")
+        public List<String> getUniqueStrings();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithAggregates {
+
+        @Value("count(relationships.objects)")
+        public int getCount();
+
+        @Value("sum(relationships.objects.objectWithPrimitives.intProperty)")
+        public int getSum();
+
+        @Value("max(relationships.objects.objectWithPrimitives.intProperty)")
+        public Integer getMax();
+
+        @Value("min(emptyObjects.intProperty)")
+        public int getMin();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithIndexedPaths {
+
+        @Value("relationships[0].objects[1].objectWithPrimitives.intProperty")
+        public int getSecond();
+
+        @Value("attributes['first'].intProperty")
+        public int getFirst();
+
+        @Value("attributes['third'].intProperty")
+        public int getMissing();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithSelections {
+
+        @Value("relationships[0].objects top 2 by objectWithPrimitives.intProperty")
+        public List<DataObjectWithOneToOneRelationship> getLargest();
+
+        @Value("relationships[0].objects[0..1]")
+        public DataObjectWithOneToOneRelationship[] getFirst();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithSizes {
+
+        @Value("size(relationships)")
+        public int getSize();
+
+        @Value("empty(emptyObjects)")
+        public boolean isEmpty();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithParameters {
+
+        @Value("attributes[{0}]")
+        public DataObjectWithPrimitives getSelected();
+
+        @Value("relationships")
+        public List<DataObjectWithParameter> getLabeled();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithParameter {
+
+        @Value("{1}")
+        public String getLabel();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithSharedPrefix {
+
+        @Value("objectWithPrimitives.intProperty")
+        public int getIntValue();
+
+        @Value("objectWithPrimitives.longProperty")
+        public long getLongValue();
+
+        @Value("objectWithPrimitives?.stringProperty")
+        public String getStringValue();
+
+        @Value("objectWithPrimitives")
+        public DataObjectWithPrimitives getDataObjectWithPrimitives();
+
+    }
+
+    @DataObject(storage = Storage.SPARSE)
+    public interface DataObjectWithSparseStorage {
+
+        @Value
+        public String getStringProperty();
+
+        @Value("null")
+        public String getMissingProperty();
+
+        @Value
+        public int getIntProperty();
+
+        @Value
+        public Long getLongProperty();
+
+    }
+
+    @DataObject(layout = Layout.COMPACT)
+    public interface DataObjectWithCompactLayout {
+
+        @Value("intProperty > 2")
+        public boolean isLarge();
+
+        @Value
+        public String getStringProperty();
+
+        @Value
+        public byte getByteProperty();
+
+        @Value("intProperty < 2")
+        public boolean isSmall();
+
+        @Value
+        public long getLongProperty();
+
+    }
+
+    @DataObject
+    public interface DataObjectWithOperators {
+
+        @Value("stringProperty + ' #' + intProperty")
+        public String getLabel();
+
+        @Value("intProperty + longProperty")
+        public long getTotal();
+
+        @Value("doubleProperty > 6 ? true : false")
+        public boolean isLarge();
+
+    }
+
     @DataObject
     public interface DataObjectWithPropertyPath {
 
@@ -196,6 +945,77 @@ public class BumblebeeTest {
         }
     }
 
+    public class ObjectWithNestedCollections {
+
+        public List<ObjectWithOneToManyRelationship> getRelationships() {
+            return Arrays.asList(new ObjectWithOneToManyRelationship(), new ObjectWithOneToManyRelationship());
+        }
+
+        public List<ObjectWithPrimitives> getEmptyObjects() {
+            return Collections.emptyList();
+        }
+
+        public List<ObjectWithPrimitives> getMissingObjects() {
+            return null;
+        }
+
+        public ObjectWithPrimitives[] getMissingArray() {
+            return null;
+        }
+
+        public List<ObjectWithOneToOneRelationship> getRelationshipsWithNulls() {
+            return Arrays.asList(new ObjectWithOneToOneRelationship(1), new ObjectWithNullRelationship(), null);
+        }
+
+        public Set<ObjectWithPrimitives> getUniqueObjects() {
+            return new HashSet<ObjectWithPrimitives>(Arrays.asList(new ObjectWithPrimitives(0), new ObjectWithPrimitives(1)));
+        }
+
+        public Map<String, ObjectWithPrimitives> getAttributes() {
+            Map<String, ObjectWithPrimitives> attributes = new LinkedHashMap<String, ObjectWithPrimitives>();
+
+            attributes.put("first", new ObjectWithPrimitives(0));
+            attributes.put("second", new ObjectWithPrimitives(1));
+
+            return attributes;
+        }
+    }
+
+    public class ObjectWithCountedRelationship extends ObjectWithOneToOneRelationship {
+
+        private int count = 0;
+
+        @Override
+        public ObjectWithPrimitives getObjectWithPrimitives() {
+            count++;
+            return super.getObjectWithPrimitives();
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    public class ObjectWithNullRelationship extends ObjectWithOneToOneRelationship {
+
+        @Override
+        public ObjectWithPrimitives getObjectWithPrimitives() {
+            return null;
+        }
+    }
+
+    private static List<String> getFieldNames(Class<?> type) {
+        List<String> fieldNames = new ArrayList<String>();
+
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                fieldNames.add(field.getName());
+            }
+        }
+
+        return fieldNames;
+    }
+
     @DataObject
     public interface DataObjectWithPrimitiveWrappers {
 
@@ -0,0 +1,96 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class OffHeapArenaTest {
+
+    @Test
+    public void allocationsShouldBeAlignedWithinSlab() {
+        OffHeapArena arena = new OffHeapStore(64).newArena();
+
+        assertEquals(0L, arena.allocate(3));
+        assertEquals(8L, arena.allocate(8));
+        assertEquals(11L, arena.getAllocatedBytes());
+    }
+
+    @Test
+    public void allocationsShouldContinueInNewSlabWhenSlabIsFull() {
+        OffHeapArena arena = new OffHeapStore(16).newArena();
+
+        arena.allocate(12);
+
+        assertEquals(1L << 32, arena.allocate(8));
+        assertEquals(2L << 32, arena.allocate(40));
+        assertEquals(40, arena.getSlab(2L << 32).capacity());
+    }
+
+    @Test
+    public void stringsShouldBeReadAsWritten() {
+        OffHeapArena arena = new OffHeapStore(32).newArena();
+        ByteBuffer slab = arena.getSlab(arena.allocate(16));
+
+        arena.putString(slab, 0, "a string that doesn't fit in the slab");
+        arena.putString(slab, 8, null);
+
+        assertEquals("a string that doesn't fit in the slab", arena.getString(slab, 0));
+        assertNull(arena.getString(slab, 8));
+    }
+
+    @Test
+    public void closedArenaShouldReturnSlabsToStore() {
+        OffHeapStore store = new OffHeapStore(16);
+        OffHeapArena arena = store.newArena();
+
+        arena.allocate(8);
+        arena.allocate(16);
+        arena.allocate(32);
+        arena.close();
+
+        assertFalse(arena.isOpen());
+        assertEquals(2, store.getFreeSlabCount());
+        assertEquals(32L, store.getReservedBytes());
+
+        store.trim();
+        assertEquals(0L, store.getReservedBytes());
+    }
+
+    @Test
+    public void reusedSlabsShouldBeCleared() {
+        OffHeapStore store = new OffHeapStore(12);
+        OffHeapArena arena = store.newArena();
+
+        arena.getSlab(arena.allocate(12)).putInt(8, 42);
+        arena.close();
+
+        arena = store.newArena();
+        assertEquals(0, arena.getSlab(arena.allocate(12)).getInt(8));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedArenaShouldNotBeRead() {
+        OffHeapArena arena = new OffHeapStore().newArena();
+        ByteBuffer slab = arena.getSlab(arena.allocate(8));
+
+        arena.close();
+        arena.checkOpen(slab);
+    }
+
+}
@@ -14,10 +14,19 @@
 
 package com.googlecode.bumblebee.dto.el.parser;
 
-import com.googlecode.bumblebee.beans.BeanUtil;
-import static net.sf.jdpa.cg.Code.*;
-import net.sf.jdpa.cg.model.Expression;
-import static org.junit.Assert.assertEquals;
+import com.googlecode.bumblebee.dto.el.AggregateExpression;
+import com.googlecode.bumblebee.dto.el.BinaryExpression;
+import com.googlecode.bumblebee.dto.el.ConditionalExpression;
+import com.googlecode.bumblebee.dto.el.Expression;
+import com.googlecode.bumblebee.dto.el.IndexExpression;
+import com.googlecode.bumblebee.dto.el.LiteralExpression;
+import com.googlecode.bumblebee.dto.el.ParameterExpression;
+import com.googlecode.bumblebee.dto.el.PropertyExpression;
+import com.googlecode.bumblebee.dto.el.SliceExpression;
+import com.googlecode.bumblebee.dto.el.ThisExpression;
+import com.googlecode.bumblebee.dto.el.TopExpression;
+import com.googlecode.bumblebee.dto.el.UnaryExpression;
+import static org.junit.Assert.*;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
@@ -29,16 +38,202 @@ public class DTOELParserTest {
 
     @Test
     public void testParseProperty() throws Exception {
-        assertEquals(call("getProperty").of(BeanUtil.class).with($(0), constant("foo")), parse("foo"));
+        assertEquals(new PropertyExpression(ThisExpression.INSTANCE, "foo"), parse("foo"));
     }
 
     @Test
     public void testParsePropertyPath() throws Exception {
-        assertEquals(call("getProperty").of(BeanUtil.class).with(
-                call("getProperty").of(BeanUtil.class).with($(0), constant("foo")), constant("bar")
+        assertEquals(new PropertyExpression(
+                new PropertyExpression(ThisExpression.INSTANCE, "foo"), "bar"
         ), parse("foo.bar"));
     }
 
+    @Test
+    public void testParseNullSafePropertyPath() throws Exception {
+        Expression expression = parse("foo?.bar.baz");
+
+        assertEquals(new PropertyExpression(new PropertyExpression(
+                new PropertyExpression(ThisExpression.INSTANCE, "foo"), "bar", true), "baz"
+        ), expression);
+        assertEquals("foo?.bar.baz", expression.toString());
+        assertTrue(expression.isNullSafe());
+        assertFalse(parse("foo.bar").isNullSafe());
+    }
+
+    @Test
+    public void testParseAggregate() throws Exception {
+        assertEquals(new AggregateExpression(AggregateExpression.Function.SUM, new PropertyExpression(
+                new PropertyExpression(ThisExpression.INSTANCE, "orders"), "amount")
+        ), parse("sum(orders.amount)"));
+    }
+
+    @Test
+    public void testParseIndex() throws Exception {
+        Expression expression = parse("items[0].name");
+
+        assertEquals(new PropertyExpression(new IndexExpression(
+                new PropertyExpression(ThisExpression.INSTANCE, "items"), new LiteralExpression(0)), "name"
+        ), expression);
+        assertEquals("items[0].name", expression.toString());
+        assertTrue(expression.isNullSafe());
+    }
+
+    @Test
+    public void testParseKey() throws Exception {
+        Expression expression = parse("attributes['it\\'s']");
+
+        assertEquals(new IndexExpression(new PropertyExpression(ThisExpression.INSTANCE, "attributes"),
+                new LiteralExpression("it's")), expression);
+        assertEquals("attributes['it\\'s']", expression.toString());
+    }
+
+    @Test
+    public void testParseParameter() throws Exception {
+        Expression expression = parse("prices[{1}]");
+
+        assertEquals(new IndexExpression(new PropertyExpression(ThisExpression.INSTANCE, "prices"),
+                new ParameterExpression(1)), expression);
+        assertEquals("prices[{1}]", expression.toString());
+        assertEquals(new ParameterExpression(0), parse("{0}"));
+    }
+
+    @Test
+    public void testParseSlice() throws Exception {
+        Expression expression = parse("orders[0..5].amount");
+
+        assertEquals(new PropertyExpression(new SliceExpression(
+                new PropertyExpression(ThisExpression.INSTANCE, "orders"), 0, 5), "amount"
+        ), expression);
+        assertEquals("orders[0..5].amount", expression.toString());
+    }
+
+    @Test
+    public void testParseTop() throws Exception {
+        Expression expression = parse("customer.orders top 5 by date.time");
+
+        assertEquals(new TopExpression(
+                new PropertyExpression(new PropertyExpression(ThisExpression.INSTANCE, "customer"), "orders"), 5,
+                new PropertyExpression(new PropertyExpression(ThisExpression.INSTANCE, "date"), "time")
+        ), expression);
+        assertEquals("customer.orders top 5 by date.time", expression.toString());
+    }
+
+    @Test
+    public void keywordsShouldBeAcceptedAsProperties() throws Exception {
+        assertEquals(new PropertyExpression(new PropertyExpression(ThisExpression.INSTANCE, "top"), "by"), parse("top.by"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void topWithoutKeyShouldNotBeAccepted() throws Exception {
+        parse("orders top 5 date");
+    }
+
+    @Test
+    public void testParseSize() throws Exception {
+        assertEquals(new AggregateExpression(AggregateExpression.Function.SIZE,
+                new PropertyExpression(ThisExpression.INSTANCE, "orders")), parse("size(orders)"));
+        assertEquals(new AggregateExpression(AggregateExpression.Function.EMPTY,
+                new PropertyExpression(ThisExpression.INSTANCE, "orders")), parse("empty(orders)"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void unknownFunctionShouldNotBeAccepted() throws Exception {
+        parse("median(orders.amount)");
+    }
+
+    @Test
+    public void testParseLiterals() throws Exception {
+        assertEquals(new LiteralExpression(5L), parse("5L"));
+        assertEquals(new LiteralExpression(1.5D), parse("1.5"));
+        assertEquals(new LiteralExpression(Boolean.TRUE), parse("true"));
+        assertEquals(LiteralExpression.NULL, parse("null"));
+    }
+
+    @Test
+    public void operatorsShouldHaveJavaPrecedence() throws Exception {
+        Expression expression = parse("a + b * -c > 0 || !d && e == f");
+
+        assertEquals(new BinaryExpression(BinaryExpression.Operator.OR,
+                new BinaryExpression(BinaryExpression.Operator.GREATER,
+                        new BinaryExpression(BinaryExpression.Operator.ADD, property("a"),
+                                new BinaryExpression(BinaryExpression.Operator.MULTIPLY, property("b"),
+                                        new UnaryExpression(UnaryExpression.Operator.NEGATE, property("c")))),
+                        new LiteralExpression(0)),
+                new BinaryExpression(BinaryExpression.Operator.AND,
+                        new UnaryExpression(UnaryExpression.Operator.NOT, property("d")),
+                        new BinaryExpression(BinaryExpression.Operator.EQUAL, property("e"), property("f")))
+        ), expression);
+        assertEquals("a + b * -c > 0 || !d && e == f", expression.toString());
+    }
+
+    @Test
+    public void operatorsShouldBeLeftAssociative() throws Exception {
+        Expression expression = parse("a - (b - c) - d");
+
+        assertEquals(new BinaryExpression(BinaryExpression.Operator.SUBTRACT,
+                new BinaryExpression(BinaryExpression.Operator.SUBTRACT, property("a"),
+                        new BinaryExpression(BinaryExpression.Operator.SUBTRACT, property("b"), property("c"))),
+                property("d")), expression);
+        assertEquals("a - (b - c) - d", expression.toString());
+    }
+
+    @Test
+    public void testParseConditional() throws Exception {
+        Expression expression = parse("a ?: b ? 'x' : c ? 'y' : 'z'");
+
+        assertEquals(new ConditionalExpression(
+                new BinaryExpression(BinaryExpression.Operator.COALESCE, property("a"), property("b")),
+                new LiteralExpression("x"),
+                new ConditionalExpression(property("c"), new LiteralExpression("y"), new LiteralExpression("z"))
+        ), expression);
+        assertEquals("a ?: b ? 'x' : c ? 'y' : 'z'", expression.toString());
+    }
+
+    @Test
+    public void nullSafeOperandsShouldPropagate() throws Exception {
+        assertTrue(parse("a?.b + 1").isNullSafe());
+        assertTrue(parse("a ?: b?.c").isNullSafe());
+        assertFalse(parse("a?.b ?: c").isNullSafe());
+        assertFalse(parse("a?.b == null").isNullSafe());
+    }
+
+    @Test(expected = ParseException.class)
+    public void incompleteConditionalShouldNotBeAccepted() throws Exception {
+        new DTOELParser(new ByteArrayInputStream("a ? b".getBytes()), "UTF-8").Input();
+    }
+
+    @Test(expected = ParseException.class)
+    public void trailingInputShouldNotBeAccepted() throws Exception {
+        new DTOELParser(new ByteArrayInputStream("foo bar".getBytes()), "UTF-8").Input();
+    }
+
+    @Test
+    public void integersOutOfRangeShouldNotBeAccepted() throws Exception {
+        String[] expressions = {"99999999999", "2147483648", "-2147483649", "99999999999999999999L", "9223372036854775808L",
+                "-9223372036854775809L", "items[2147483648]", "items[0..99999999999]", "orders top 99999999999 by date", "{99999999999}"};
+
+        for (String expression : expressions) {
+            try {
+                parse(expression);
+                fail("Expected '" + expression + "' to be rejected");
+            } catch (ParseException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("out of range at column"));
+            }
+        }
+    }
+
+    @Test
+    public void minusShouldBeFoldedIntoIntegerLiterals() throws Exception {
+        assertEquals(new LiteralExpression(Integer.MIN_VALUE), parse("-2147483648"));
+        assertEquals(new LiteralExpression(Long.MIN_VALUE), parse("-9223372036854775808L"));
+        assertEquals(new BinaryExpression(BinaryExpression.Operator.SUBTRACT, property("a"), new LiteralExpression(-1)), parse("a - -1"));
+        assertEquals(new UnaryExpression(UnaryExpression.Operator.NEGATE, new PropertyExpression(new LiteralExpression(1), "b")), parse("-1.b"));
+    }
+
+    protected Expression property(String property) {
+        return new PropertyExpression(ThisExpression.INSTANCE, property);
+    }
+
     protected Expression parse(String text) throws Exception {
         DTOELParser parser = new DTOELParser(new ByteArrayInputStream(text.getBytes()), "UTF-8");
         return parser.Expression();
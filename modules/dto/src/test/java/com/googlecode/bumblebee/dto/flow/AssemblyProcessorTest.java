@@ -0,0 +1,268 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.googlecode.bumblebee.dto.flow;
+
+import com.googlecode.bumblebee.dto.AssemblyException;
+import com.googlecode.bumblebee.dto.DataObject;
+import com.googlecode.bumblebee.dto.Value;
+import com.googlecode.bumblebee.dto.impl.AssemblerImpl;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AssemblyProcessorTest {
+
+    private AssemblerImpl assembler = new AssemblerImpl();
+
+    @Test
+    public void sourcesShouldOnlyBeRequestedAsDataObjectsAreRequested() {
+        SourcePublisher publisher = new SourcePublisher(5);
+        AssemblyProcessor<NumberData> processor = new AssemblyProcessor<NumberData>(assembler, NumberData.class);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+
+        assertEquals(0, publisher.requested);
+
+        subscriber.subscription.request(2);
+        assertEquals(2, publisher.requested);
+        assertEquals(2, subscriber.dataObjects.size());
+        assertFalse(subscriber.completed.getCount() == 0);
+
+        subscriber.subscription.request(10);
+        assertEquals(5, subscriber.dataObjects.size());
+        assertEquals(0, subscriber.completed.getCount());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, subscriber.dataObjects.get(i).getNumber());
+        }
+    }
+
+    @Test
+    public void parallelAssemblyShouldEmitInOrderWithinWindow() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        SourcePublisher publisher = new SourcePublisher(200);
+        AssemblyProcessor<NumberData> processor = new AssemblyProcessor<NumberData>(assembler, NumberData.class, executor, 8);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        try {
+            publisher.subscribe(processor);
+            processor.subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+
+            assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertNull(subscriber.error);
+        assertEquals(200, subscriber.dataObjects.size());
+        assertTrue(publisher.maxOutstanding <= 8);
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, subscriber.dataObjects.get(i).getNumber());
+        }
+    }
+
+    @Test
+    public void failedAssemblyShouldCancelUpstream() {
+        SourcePublisher publisher = new SourcePublisher(3);
+        AssemblyProcessor<NumberData> processor = new AssemblyProcessor<NumberData>(assembler, NumberData.class);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.failAt = 1;
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.subscription.request(3);
+
+        assertEquals(1, subscriber.dataObjects.size());
+        assertTrue(subscriber.error instanceof AssemblyException);
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void errorOfAssemblyShouldTerminateSubscriber() {
+        final Error failure = new Error("Assembly failed");
+        AssemblerImpl failingAssembler = new AssemblerImpl() {
+            @Override
+            public <T> T assemble(Object source, Class<T> dataObjectType) {
+                if (((NumberSource) source).getNumber() == 1) {
+                    throw failure;
+                }
+
+                return super.assemble(source, dataObjectType);
+            }
+        };
+        SourcePublisher publisher = new SourcePublisher(3);
+        AssemblyProcessor<NumberData> processor = new AssemblyProcessor<NumberData>(failingAssembler, NumberData.class);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        subscriber.subscription.request(3);
+
+        assertEquals(1, subscriber.dataObjects.size());
+        assertSame(failure, subscriber.error);
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void secondSubscriberShouldBeRejected() {
+        AssemblyProcessor<NumberData> processor = new AssemblyProcessor<NumberData>(assembler, NumberData.class);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        processor.subscribe(new RecordingSubscriber());
+        processor.subscribe(subscriber);
+
+        assertTrue(subscriber.error instanceof IllegalStateException);
+    }
+
+    // Support classes
+
+    @DataObject
+    public interface NumberData {
+
+        @Value
+        public int getNumber();
+
+    }
+
+    public static class NumberSource {
+
+        private Integer number;
+
+        public NumberSource(Integer number) {
+            this.number = number;
+        }
+
+        public Integer getNumber() {
+            return number;
+        }
+
+    }
+
+    /**
+     * Publishes numbered sources synchronously as they're requested.
+     */
+    private static class SourcePublisher implements Flow.Publisher<Object> {
+
+        private int count;
+
+        private int next = 0;
+
+        private long requested = 0;
+
+        private long maxOutstanding = 0;
+
+        private int failAt = -1;
+
+        private boolean cancelled = false;
+
+        private boolean completed = false;
+
+        private boolean emitting = false;
+
+        private SourcePublisher(int count) {
+            this.count = count;
+        }
+
+        public void subscribe(final Flow.Subscriber<? super Object> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                    synchronized (SourcePublisher.this) {
+                        requested += n;
+                        maxOutstanding = Math.max(maxOutstanding, requested - next);
+
+                        if (emitting) {
+                            return;
+                        }
+
+                        emitting = true;
+                    }
+
+                    for (;;) {
+                        int number = 0;
+
+                        synchronized (SourcePublisher.this) {
+                            if (cancelled || completed || next == count || next == requested) {
+                                emitting = false;
+                                break;
+                            }
+
+                            number = next++;
+                        }
+
+                        subscriber.onNext(new NumberSource(number == failAt ? null : number));
+                    }
+
+                    synchronized (SourcePublisher.this) {
+                        if (next == count && !cancelled && !completed) {
+                            completed = true;
+                        } else {
+                            return;
+                        }
+                    }
+
+                    subscriber.onComplete();
+                }
+
+                public void cancel() {
+                    synchronized (SourcePublisher.this) {
+                        cancelled = true;
+                    }
+                }
+            });
+        }
+
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<NumberData> {
+
+        private Flow.Subscription subscription = null;
+
+        private List<NumberData> dataObjects = new ArrayList<NumberData>();
+
+        private Throwable error = null;
+
+        private CountDownLatch completed = new CountDownLatch(1);
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        public void onNext(NumberData item) {
+            dataObjects.add(item);
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        public void onComplete() {
+            completed.countDown();
+        }
+
+    }
+
+}
@@ -15,13 +15,14 @@
 package com.googlecode.bumblebee.dto.impl;
 
 import com.googlecode.bumblebee.beans.BeanUtil;
+import com.googlecode.bumblebee.dto.AssemblyContext;
+import com.googlecode.bumblebee.dto.Bumblebee;
 import com.googlecode.bumblebee.dto.AssemblyException;
 import com.googlecode.bumblebee.dto.DataObject;
 import com.googlecode.bumblebee.dto.Value;
 import com.googlecode.bumblebee.dto.PropertyValue;
 import javassist.ClassPool;
 import javassist.CtClass;
-import javassist.CtMethod;
 import static net.sf.jdpa.cg.Code.*;
 import static org.junit.Assert.*;
 import org.junit.Before;
@@ -34,6 +35,15 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 import javax.xml.bind.annotation.XmlAttribute;
 import java.util.*;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.lang.annotation.Annotation;
 
 /**
@@ -81,24 +91,17 @@ public class AssemblerImplTestBase {
             verify(implementationBuilder).addInterface((CtClass) anyObject(), eq(DataObjectWithSingleStringProperty2.class));
 
             // Check that a field with a corresponding accessor is added for the property
-            verify(implementationBuilder).addField((CtClass) anyObject(), eq(String.class), eq("property"));
+            verify(implementationBuilder).addFields((CtClass) anyObject(), (FieldLayout) anyObject());
             verify(implementationBuilder).addAccessor((CtClass) anyObject(), eq("getProperty"), eq("property"));
 
-            // Check that an init-method is added for the property
-            verify(implementationBuilder).addInitializer((CtClass) anyObject(), eq("property"),
-                    eq(set("property").of($this()).to(
-                            cast(
-                                    call("copy").of(BeanUtil.class).with(
-                                            call("getProperty").of(BeanUtil.class).with($(0), constant("property")),
-                                            $("class").of(String.class),
-                                            $("class").of(String.class),
-                                            $(1)
-                                    )
-                            ).to(String.class)
-                    )));
+            // Check that a getter is compiled for the expression of the property
+            verify(implementationBuilder).addGetterField((CtClass) anyObject(), eq("property"), eq("property"));
 
-            // Check that a constructor is added
-            verify(implementationBuilder).addConversionConstructor((CtClass) anyObject(), (Collection<CtMethod>) anyObject());
+            // Check that the initialization of the property is inlined into the constructor
+            verify(implementationBuilder).addConversionConstructor((CtClass) anyObject(), eq(Arrays.asList(
+                    "this.property = (java.lang.String) com.googlecode.bumblebee.beans.BeanUtil.copy(" +
+                            "getter_property.bind($1).get($1, $3), java.lang.String.class, java.lang.String.class, $2);")),
+                    (ExpressionTrie) anyObject());
         }
 
         @Test
@@ -198,6 +201,18 @@ public class AssemblerImplTestBase {
             assertNotNull(dataObjectClass.getMethod("getProperty").getAnnotation(XmlAttribute.class));
         }
 
+        @Test
+        public void methodSizesShouldBeReported() {
+            Map<String, Integer> methodSizes = assembler.getMethodSizes(MeasuredDataObject.class);
+
+            assertTrue(methodSizes.containsKey("<init>(Ljava/lang/Object;Lcom/googlecode/bumblebee/dto/Assembler;[Ljava/lang/Object;)V"));
+            assertTrue(methodSizes.containsKey("getProperty()Ljava/lang/String;"));
+
+            for (int size : methodSizes.values()) {
+                assertTrue(size > 0 && size <= DataObjectImplementationBuilder.HUGE_METHOD_LIMIT);
+            }
+        }
+
         // Local support classes
 
         @DataObject(inheritedAnnotations = { XmlType.class, XmlAttribute.class })
@@ -211,6 +226,14 @@ public class AssemblerImplTestBase {
 
         }
 
+        @DataObject
+        public interface MeasuredDataObject {
+
+            @Value
+            public String getProperty();
+
+        }
+
         @DataObject
         public interface DummyDataObjectWithSingleProperty {
 
@@ -242,6 +265,854 @@ public class AssemblerImplTestBase {
 
     }
 
+    public static class AssembleAllTest extends AssemblerImplTestBase {
+
+        @Test
+        public void dataObjectsShouldBeAssembledInOrder() {
+            List<DataObjectWithSinglePrimitiveProperty> dataObjects = assembler.assembleAll(Arrays.asList(
+                    new SourceWithSingleWrapperType(1), new SourceWithSingleWrapperType(2)), DataObjectWithSinglePrimitiveProperty.class);
+
+            assertEquals(2, dataObjects.size());
+            assertEquals(1, dataObjects.get(0).getProperty());
+            assertEquals(2, dataObjects.get(1).getProperty());
+        }
+
+        @Test
+        public void arraysShouldBeAssembled() {
+            List<DataObjectWithSingleStringProperty> dataObjects = assembler.assembleAll(new Object[] {
+                    new SourceWithSingleStringProperty() }, DataObjectWithSingleStringProperty.class);
+
+            assertEquals(1, dataObjects.size());
+            assertEquals("foobar", dataObjects.get(0).getProperty());
+        }
+
+        @Test
+        public void implementationShouldBeResolvedOnce() {
+            final int[] resolutions = new int[1];
+            AssemblerImpl countingAssembler = new AssemblerImpl() {
+                @Override
+                public <T> Class<? extends T> getDataObjectImplementation(Class<T> descriptorType) {
+                    resolutions[0]++;
+                    return super.getDataObjectImplementation(descriptorType);
+                }
+            };
+
+            countingAssembler.assembleAll(Arrays.asList(new SourceWithSinglePrimitive(), new SourceWithSinglePrimitive(),
+                    new SourceWithSinglePrimitive()), DataObjectWithSinglePrimitiveProperty.class);
+
+            assertEquals(1, resolutions[0]);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void nullSourcesShouldNotBeAccepted() {
+            assembler.assembleAll(Arrays.asList(new SourceWithSinglePrimitive(), null), DataObjectWithSinglePrimitiveProperty.class);
+        }
+
+        @Test
+        public void largeCollectionsShouldBeAssembledInParallelInOrder() {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<SourceWithSingleWrapperType> sources = new ArrayList<SourceWithSingleWrapperType>();
+            List<DataObjectWithSinglePrimitiveProperty> dataObjects = null;
+
+            for (int i = 0; i < 100; i++) {
+                sources.add(new SourceWithSingleWrapperType(i));
+            }
+
+            assembler.setExecutor(executor);
+            assembler.setParallelThreshold(10);
+            assembler.setParallelChunkSize(7);
+
+            try {
+                dataObjects = assembler.assembleAll(sources, DataObjectWithSinglePrimitiveProperty.class);
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(100, dataObjects.size());
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, dataObjects.get(i).getProperty());
+            }
+        }
+
+        @Test
+        public void smallCollectionsShouldBeAssembledSequentially() {
+            ExecutorService executor = mock(ExecutorService.class);
+
+            assembler.setExecutor(executor);
+            assembler.setParallelThreshold(3);
+            assembler.assembleAll(Arrays.asList(new SourceWithSinglePrimitive(), new SourceWithSinglePrimitive()),
+                    DataObjectWithSinglePrimitiveProperty.class);
+
+            verifyZeroInteractions(executor);
+        }
+
+        @Test
+        public void chunksThatAreNotStartedShouldBeAssembledByCaller() {
+            ExecutorService saturatedExecutor = mock(ExecutorService.class);
+            ExecutorService rejectingExecutor = mock(ExecutorService.class);
+            List<SourceWithSingleWrapperType> sources = Arrays.asList(new SourceWithSingleWrapperType(1),
+                    new SourceWithSingleWrapperType(2), new SourceWithSingleWrapperType(3));
+
+            doThrow(new RejectedExecutionException()).when(rejectingExecutor).execute(any(Runnable.class));
+            assembler.setParallelThreshold(1);
+            assembler.setParallelChunkSize(2);
+
+            for (ExecutorService executor : Arrays.asList(saturatedExecutor, rejectingExecutor)) {
+                List<DataObjectWithSinglePrimitiveProperty> dataObjects = null;
+
+                assembler.setExecutor(executor);
+                dataObjects = assembler.assembleAll(sources, DataObjectWithSinglePrimitiveProperty.class);
+
+                assertEquals(3, dataObjects.size());
+                assertEquals(3, dataObjects.get(2).getProperty());
+                verify(executor, times(2)).execute(any(Runnable.class));
+            }
+        }
+
+        @Test(expected = AssemblyException.class)
+        public void failuresOfParallelAssemblyShouldBePropagated() {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+
+            assembler.setExecutor(executor);
+            assembler.setParallelThreshold(1);
+            assembler.setParallelChunkSize(1);
+
+            try {
+                assembler.assembleAll(Arrays.asList(new SourceWithSingleWrapperType(1), new SourceWithSingleWrapperType(null)),
+                        DataObjectWithSinglePrimitiveProperty.class);
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+    }
+
+    public static class StreamTest extends AssemblerImplTestBase {
+
+        @Test
+        public void sourcesShouldBeAssembledAsTheyAreIterated() {
+            final List<Integer> pulled = new ArrayList<Integer>();
+            Iterator<DataObjectWithSinglePrimitiveProperty> dataObjects = assembler.stream(new Iterator<Object>() {
+
+                private int n = 0;
+
+                public boolean hasNext() {
+                    return n < 3;
+                }
+
+                public Object next() {
+                    pulled.add(n);
+                    return new SourceWithSingleWrapperType(n++);
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+            }, DataObjectWithSinglePrimitiveProperty.class);
+
+            assertTrue(pulled.isEmpty());
+            assertEquals(0, dataObjects.next().getProperty());
+            assertEquals(Arrays.asList(0), pulled);
+            assertEquals(1, dataObjects.next().getProperty());
+            assertEquals(2, dataObjects.next().getProperty());
+            assertFalse(dataObjects.hasNext());
+        }
+
+        @Test
+        public void removeShouldRemoveSource() {
+            List<Object> sources = new ArrayList<Object>(Arrays.asList(new SourceWithSinglePrimitive(), new SourceWithSingleStringProperty()));
+            Iterator<DataObjectWithSinglePrimitiveProperty> dataObjects = assembler.stream(sources.iterator(), DataObjectWithSinglePrimitiveProperty.class);
+
+            dataObjects.next();
+            dataObjects.remove();
+
+            assertEquals(1, sources.size());
+            assertTrue(sources.get(0) instanceof SourceWithSingleStringProperty);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void nullSourcesShouldNotBeAccepted() {
+            assembler.stream(Arrays.asList((Object) null).iterator(), DataObjectWithSinglePrimitiveProperty.class).next();
+        }
+
+    }
+
+    public static class AssembleAsyncTest extends AssemblerImplTestBase {
+
+        @Test
+        public void dataObjectShouldBeAssembledAsynchronously() throws Exception {
+            Future<DataObjectWithSingleStringProperty> dataObject = assembler.assembleAsync(new SourceWithSingleStringProperty(),
+                    DataObjectWithSingleStringProperty.class);
+
+            assertEquals("foobar", dataObject.get(10, TimeUnit.SECONDS).getProperty());
+        }
+
+        @Test
+        public void dataObjectsShouldBeAssembledAsynchronouslyInOrder() throws Exception {
+            List<SourceWithSingleWrapperType> sources = new ArrayList<SourceWithSingleWrapperType>();
+            List<DataObjectWithSinglePrimitiveProperty> dataObjects = null;
+
+            for (int i = 0; i < 50; i++) {
+                sources.add(new SourceWithSingleWrapperType(i));
+            }
+
+            dataObjects = assembler.assembleAllAsync(sources, DataObjectWithSinglePrimitiveProperty.class).get(10, TimeUnit.SECONDS);
+
+            assertEquals(50, dataObjects.size());
+
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, dataObjects.get(i).getProperty());
+            }
+        }
+
+        @Test
+        public void failuresShouldBeReportedByFuture() throws Exception {
+            Future<List<DataObjectWithSinglePrimitiveProperty>> dataObjects = assembler.assembleAllAsync(Arrays.asList(
+                    new SourceWithSingleWrapperType(1), new SourceWithSingleWrapperType(null)), DataObjectWithSinglePrimitiveProperty.class);
+
+            try {
+                dataObjects.get(10, TimeUnit.SECONDS);
+                fail("Expected assembly to fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof AssemblyException);
+            }
+        }
+
+        @Test
+        public void providedExecutorShouldBeUsed() throws Exception {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+
+            assembler.setAsyncExecutor(executor);
+
+            try {
+                assertSame(executor, assembler.getAsyncExecutor());
+                assertEquals(314, assembler.assembleAsync(new SourceWithSinglePrimitive(), DataObjectWithSinglePrimitiveProperty.class)
+                        .get(10, TimeUnit.SECONDS).getProperty());
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        @Test
+        public void asyncPoolSizeShouldDefaultToAvailableProcessors() {
+            assertEquals(Runtime.getRuntime().availableProcessors(), assembler.getAsyncPoolSize());
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void asyncPoolSizeShouldBePositive() {
+            assembler.setAsyncPoolSize(0);
+        }
+
+    }
+
+    public static class ConcurrentNestedAssemblyTest extends AssemblerImplTestBase {
+
+        @Test
+        public void largeNestedPropertiesShouldBeAssembledConcurrently() {
+            OrderData order = null;
+
+            assembler.setExecutor(new NestedThreadExecutor());
+            order = assembler.assemble(new Order(), OrderData.class);
+
+            assertEquals(3, order.getLines().size());
+            assertEquals("line2", order.getLines().get(2).getName());
+            assertEquals("nested", order.getLines().get(0).getThread());
+            assertEquals(2, order.getShipments().length);
+            assertEquals("line1", order.getShipments()[1].getName());
+            assertEquals(Thread.currentThread().getName(), order.getShipments()[0].getThread());
+            assertNull(order.getMissing());
+            assertEquals("line0", order.getLine().getName());
+        }
+
+        @Test
+        public void nestedPropertiesShouldBeAssembledSequentiallyWithoutExecutor() {
+            OrderData order = assembler.assemble(new Order(), OrderData.class);
+
+            assertEquals(Thread.currentThread().getName(), order.getLines().get(0).getThread());
+            assertEquals(2, order.getShipments().length);
+        }
+
+        // Local support classes
+
+        /**
+         * Runs each task by a thread named "nested", and waits for it to finish, so that the tasks are never
+         * run by the thread that joins them.
+         */
+        public static class NestedThreadExecutor extends AbstractExecutorService {
+
+            public void execute(Runnable command) {
+                Thread thread = new Thread(command, "nested");
+
+                thread.start();
+
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            public void shutdown() {
+            }
+
+            public List<Runnable> shutdownNow() {
+                return Collections.emptyList();
+            }
+
+            public boolean isShutdown() {
+                return false;
+            }
+
+            public boolean isTerminated() {
+                return false;
+            }
+
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return true;
+            }
+
+        }
+
+        @DataObject(concurrencyThreshold = 2)
+        public interface OrderData {
+
+            @Value
+            public List<LineData> getLines();
+
+            @Value
+            public LineData[] getShipments();
+
+            @Value("missing?.lines")
+            public List<LineData> getMissing();
+
+            @Value("lines[0]")
+            public LineData getLine();
+
+        }
+
+        @DataObject
+        public interface LineData {
+
+            @Value
+            public String getName();
+
+            @Value
+            public String getThread();
+
+        }
+
+        public static class Order {
+
+            public List<Line> getLines() {
+                return Arrays.asList(new Line(0), new Line(1), new Line(2));
+            }
+
+            public List<Line> getShipments() {
+                return Arrays.asList(new Line(0), new Line(1));
+            }
+
+            public Order getMissing() {
+                return null;
+            }
+
+        }
+
+        public static class Line {
+
+            private int n;
+
+            public Line(int n) {
+                this.n = n;
+            }
+
+            public String getName() {
+                return "line" + n;
+            }
+
+            public String getThread() {
+                return Thread.currentThread().getName();
+            }
+
+        }
+
+    }
+
+    public static class AssemblyContextTest extends AssemblerImplTestBase {
+
+        @Test
+        public void sharedSourcesShouldBeAssembledOncePerContext() {
+            Customer customer = new Customer();
+            List<Account> accounts = Arrays.asList(new Account(customer), new Account(customer), new Account(customer));
+            List<AccountData> dataObjects = assembler.newContext().assembleAll(accounts, AccountData.class);
+
+            assertSame(dataObjects.get(0).getCustomer(), dataObjects.get(1).getCustomer());
+            assertSame(dataObjects.get(0).getCustomer(), dataObjects.get(2).getCustomer());
+            assertEquals("customer", dataObjects.get(0).getCustomer().getName());
+        }
+
+        @Test
+        public void sharedSourcesShouldNotBeMemoizedWithoutContext() {
+            Customer customer = new Customer();
+            List<AccountData> dataObjects = assembler.assembleAll(Arrays.asList(new Account(customer), new Account(customer)), AccountData.class);
+
+            assertNotSame(dataObjects.get(0).getCustomer(), dataObjects.get(1).getCustomer());
+        }
+
+        @Test
+        public void sameSourceShouldBeAssembledPerDataObjectType() {
+            AssemblyContext context = assembler.newContext();
+            Customer customer = new Customer();
+
+            assertSame(context.assemble(customer, CustomerData.class), context.assemble(customer, CustomerData.class));
+            assertEquals("customer", context.assemble(customer, CustomerNameData.class).getName());
+        }
+
+        @Test
+        public void cyclicReferencesShouldResolveToSameInstance() {
+            Customer customer = new Customer();
+            CustomerData dataObject = null;
+
+            customer.getAccounts().add(new Account(customer));
+            customer.getAccounts().add(new Account(customer));
+            dataObject = assembler.newContext().assemble(customer, CustomerData.class);
+
+            assertEquals(2, dataObject.getAccounts().size());
+            assertSame(dataObject, dataObject.getAccounts().get(0).getCustomer());
+            assertSame(dataObject, dataObject.getAccounts().get(1).getCustomer());
+        }
+
+        @Test
+        public void streamShouldShareContext() {
+            Customer customer = new Customer();
+            Iterator<AccountData> dataObjects = assembler.newContext().stream(
+                    Arrays.asList(new Account(customer), new Account(customer)).iterator(), AccountData.class);
+
+            assertSame(dataObjects.next().getCustomer(), dataObjects.next().getCustomer());
+        }
+
+        @Test
+        public void concurrentAssembliesShouldAssembleSourceOnce() throws Exception {
+            final AssemblyContext context = assembler.newContext();
+            final Customer customer = new Customer();
+            final CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<CustomerData>> dataObjects = new ArrayList<Future<CustomerData>>();
+
+            try {
+                for (int i = 0; i < 8; i++) {
+                    dataObjects.add(executor.submit(new Callable<CustomerData>() {
+                        public CustomerData call() throws Exception {
+                            start.await();
+                            return context.assemble(customer, CustomerData.class);
+                        }
+                    }));
+                }
+
+                start.countDown();
+
+                for (Future<CustomerData> dataObject : dataObjects) {
+                    assertSame(dataObjects.get(0).get(), dataObject.get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        @Test
+        public void memoizedAssemblyShouldUseContextPerAssembly() {
+            Customer customer = new Customer();
+            List<Account> accounts = Arrays.asList(new Account(customer), new Account(customer));
+            List<AccountData> dataObjects = Bumblebee.assemble(AccountData.class).memoized().allFrom(accounts);
+            List<AccountData> otherDataObjects = Bumblebee.assemble(AccountData.class).memoized().allFrom(accounts);
+
+            assertSame(dataObjects.get(0).getCustomer(), dataObjects.get(1).getCustomer());
+            assertNotSame(dataObjects.get(0).getCustomer(), otherDataObjects.get(0).getCustomer());
+        }
+
+        @Test
+        public void cyclicReferencesShouldResolveToSameInstanceWithParameters() {
+            Customer customer = new Customer();
+            LabeledCustomerData dataObject = null;
+
+            customer.getAccounts().add(new Account(customer));
+            customer.getAccounts().add(new Account(customer));
+            dataObject = assembler.newContext().assemble(customer, LabeledCustomerData.class, new Object[] { "label" });
+
+            assertEquals("label", dataObject.getLabel());
+            assertEquals("label", dataObject.getAccounts().get(0).getLabel());
+            assertSame(dataObject, dataObject.getAccounts().get(0).getCustomer());
+            assertSame(dataObject, dataObject.getAccounts().get(1).getCustomer());
+        }
+
+        @Test
+        public void sourcesShouldBeAssembledOncePerParameters() {
+            AssemblyContext context = assembler.newContext();
+            Customer customer = new Customer();
+            LabeledCustomerData dataObject = context.assemble(customer, LabeledCustomerData.class, new Object[] { "label" });
+
+            assertSame(dataObject, context.assemble(customer, LabeledCustomerData.class, new Object[] { "label" }));
+            assertNotSame(dataObject, context.assemble(customer, LabeledCustomerData.class, new Object[] { "other" }));
+            assertEquals("other", context.assemble(customer, LabeledCustomerData.class, new Object[] { "other" }).getLabel());
+        }
+
+        @Test
+        public void assembleAllAndStreamShouldShareContextWithParameters() {
+            AssemblyContext context = assembler.newContext();
+            Customer customer = new Customer();
+            List<Account> accounts = Arrays.asList(new Account(customer), new Account(customer));
+            List<LabeledAccountData> dataObjects = context.assembleAll(accounts, LabeledAccountData.class, new Object[] { "label" });
+            Iterator<LabeledAccountData> streamedDataObjects = context.stream(accounts.iterator(), LabeledAccountData.class, new Object[] { "label" });
+
+            assertSame(dataObjects.get(0).getCustomer(), dataObjects.get(1).getCustomer());
+            assertSame(dataObjects.get(0), streamedDataObjects.next());
+            assertSame(dataObjects.get(1), streamedDataObjects.next());
+        }
+
+        @Test
+        public void asynchronousAssembliesShouldNotBeMemoized() throws Exception {
+            AssemblyContext context = assembler.newContext();
+            Customer customer = new Customer();
+            CustomerData dataObject = context.assemble(customer, CustomerData.class);
+
+            assertNotSame(dataObject, context.assembleAsync(customer, CustomerData.class).get());
+            assertSame(dataObject, context.assemble(customer, CustomerData.class));
+        }
+
+        // Local support classes
+
+        @DataObject
+        public interface CustomerData {
+
+            @Value
+            public String getName();
+
+            @Value
+            public List<AccountData> getAccounts();
+
+        }
+
+        @DataObject
+        public interface CustomerNameData {
+
+            @Value
+            public String getName();
+
+        }
+
+        @DataObject
+        public interface AccountData {
+
+            @Value
+            public CustomerData getCustomer();
+
+        }
+
+        @DataObject
+        public interface LabeledCustomerData {
+
+            @Value("{0}")
+            public String getLabel();
+
+            @Value
+            public List<LabeledAccountData> getAccounts();
+
+        }
+
+        @DataObject
+        public interface LabeledAccountData {
+
+            @Value("{0}")
+            public String getLabel();
+
+            @Value
+            public LabeledCustomerData getCustomer();
+
+        }
+
+        public static class Customer {
+
+            private List<Account> accounts = new ArrayList<Account>();
+
+            public String getName() {
+                return "customer";
+            }
+
+            public List<Account> getAccounts() {
+                return accounts;
+            }
+
+        }
+
+        public static class Account {
+
+            private Customer customer;
+
+            public Account(Customer customer) {
+                this.customer = customer;
+            }
+
+            public Customer getCustomer() {
+                return customer;
+            }
+
+        }
+
+    }
+
+    public static class InternTest extends AssemblerImplTestBase {
+
+        @Test
+        public void equalDataObjectsShouldBeInterned() {
+            CurrencyData first = assembler.assemble(new Currency("SEK", 2), CurrencyData.class);
+
+            assertSame(first, assembler.assemble(new Currency("SEK", 2), CurrencyData.class));
+            assertNotSame(first, assembler.assemble(new Currency("SEK", 0), CurrencyData.class));
+            assertNotSame(first, assembler.assemble(new Currency("EUR", 2), CurrencyData.class));
+        }
+
+        @Test
+        public void assembleAllShouldInternDataObjects() {
+            List<CurrencyData> dataObjects = assembler.assembleAll(Arrays.asList(new Currency("SEK", 2), new Currency("EUR", 2),
+                    new Currency("SEK", 2)), CurrencyData.class);
+
+            assertSame(dataObjects.get(0), dataObjects.get(2));
+            assertSame(dataObjects.get(0), assembler.stream(Arrays.asList(new Currency("SEK", 2)).iterator(), CurrencyData.class).next());
+        }
+
+        @Test
+        public void nestedDataObjectsShouldBeInterned() {
+            PriceData first = assembler.assemble(new Price(new Currency("SEK", 2)), PriceData.class);
+            PriceData second = assembler.assemble(new Price(new Currency("SEK", 2)), PriceData.class);
+
+            assertNotSame(first, second);
+            assertSame(first.getCurrency(), second.getCurrency());
+        }
+
+        @Test(expected = NoSuchMethodException.class)
+        public void internedDataObjectsShouldNotDefineMutators() throws NoSuchMethodException {
+            assembler.getDataObjectImplementation(CurrencyData.class).getMethod("setCode", String.class);
+        }
+
+        @Test
+        public void equalDataObjectsShouldHaveEqualHashCodes() {
+            PriceData first = assembler.assemble(new Price(new Currency("SEK", 2)), PriceData.class);
+            PriceData second = assembler.assemble(new Price(new Currency("SEK", 2)), PriceData.class);
+
+            assertEquals(first, second);
+            assertEquals(first.hashCode(), second.hashCode());
+        }
+
+        // Local support classes
+
+        @DataObject(interned = true)
+        public interface CurrencyData {
+
+            @Value
+            public String getCode();
+
+            @Value
+            public int getDecimals();
+
+        }
+
+        @DataObject
+        public interface PriceData {
+
+            @Value
+            public CurrencyData getCurrency();
+
+            @Value
+            public double getAmount();
+
+        }
+
+        public static class Currency {
+
+            private String code;
+
+            private int decimals;
+
+            public Currency(String code, int decimals) {
+                this.code = code;
+                this.decimals = decimals;
+            }
+
+            public String getCode() {
+                return code;
+            }
+
+            public int getDecimals() {
+                return decimals;
+            }
+
+        }
+
+        public static class Price {
+
+            private Currency currency;
+
+            public Price(Currency currency) {
+                this.currency = currency;
+            }
+
+            public Currency getCurrency() {
+                return currency;
+            }
+
+            public double getAmount() {
+                return 1.5;
+            }
+
+        }
+
+    }
+
+    public static class CacheTest extends AssemblerImplTestBase {
+
+        @Test
+        public void identifiedSourcesShouldBeAssembledOncePerVersion() {
+            AssemblyCache cache = new AssemblyCache(100);
+            Entity entity = new Entity(1, 1, "first");
+            EntityData first = null;
+
+            assembler.setCache(cache);
+            first = assembler.assemble(entity, EntityData.class);
+            entity.name = "changed";
+
+            assertSame(first, assembler.assemble(entity, EntityData.class));
+            assertEquals("first", assembler.assemble(new Entity(1, 1, "copy"), EntityData.class).getName());
+
+            entity.version = 2;
+
+            assertEquals("changed", assembler.assemble(entity, EntityData.class).getName());
+            assertEquals(2, cache.getHitCount());
+            assertEquals(2, cache.getMissCount());
+        }
+
+        @Test
+        public void nestedDataObjectsShouldBeCached() {
+            Entity entity = new Entity(1, 1, "entity");
+
+            assembler.setCache(new AssemblyCache(100));
+
+            assertSame(assembler.assemble(new Reference(entity), ReferenceData.class).getEntity(),
+                    assembler.assemble(new Reference(entity), ReferenceData.class).getEntity());
+        }
+
+        @Test
+        public void dataObjectsShouldNotBeCachedWithoutCache() {
+            Entity entity = new Entity(1, 1, "entity");
+
+            assertEquals("entity", assembler.assemble(entity, EntityData.class).getName());
+
+            entity.name = "changed";
+
+            assertEquals("changed", assembler.assemble(entity, EntityData.class).getName());
+        }
+
+        @Test
+        public void unidentifiedSourcesShouldNotBeCached() {
+            AssemblyCache cache = new AssemblyCache(100);
+            Reference reference = new Reference(new Entity(null, 1, "entity"));
+
+            assembler.setCache(cache);
+
+            assertNotSame(assembler.assemble(reference, ReferenceData.class), assembler.assemble(reference, ReferenceData.class));
+            assertEquals("entity", assembler.assemble(reference.getEntity(), EntityData.class).getName());
+
+            reference.getEntity().name = "changed";
+
+            assertEquals("changed", assembler.assemble(reference.getEntity(), EntityData.class).getName());
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        public void dataObjectsWithMutatorsShouldNotBeCached() throws Exception {
+            AssemblyCache cache = new AssemblyCache(100);
+            Entity entity = new Entity(1, 1, "entity");
+            MutableEntityData dataObject = null;
+
+            assembler.setCache(cache);
+            dataObject = assembler.assemble(entity, MutableEntityData.class);
+            dataObject.getClass().getMethod("setName", String.class).invoke(dataObject, "modified");
+
+            assertNotSame(dataObject, assembler.assemble(entity, MutableEntityData.class));
+            assertEquals("entity", assembler.assemble(entity, MutableEntityData.class).getName());
+            assertEquals(0, cache.size());
+        }
+
+        // Local support classes
+
+        @DataObject(id = "id", version = "version", interned = true)
+        public interface EntityData {
+
+            @Value
+            public String getName();
+
+        }
+
+        @DataObject(id = "id", version = "version")
+        public interface MutableEntityData {
+
+            @Value
+            public String getName();
+
+        }
+
+        @DataObject
+        public interface ReferenceData {
+
+            @Value
+            public EntityData getEntity();
+
+        }
+
+        public static class Entity {
+
+            private Integer id;
+
+            private int version;
+
+            private String name;
+
+            public Entity(Integer id, int version, String name) {
+                this.id = id;
+                this.version = version;
+                this.name = name;
+            }
+
+            public Integer getId() {
+                return id;
+            }
+
+            public int getVersion() {
+                return version;
+            }
+
+            public String getName() {
+                return name;
+            }
+
+        }
+
+        public static class Reference {
+
+            private Entity entity;
+
+            public Reference(Entity entity) {
+                this.entity = entity;
+            }
+
+            public Entity getEntity() {
+                return entity;
+            }
+
+        }
+
+    }
+
     public static class AssembleFromPropertiesTest extends AssemblerImplTestBase {
 
         @Test(expected = IllegalArgumentException.class)
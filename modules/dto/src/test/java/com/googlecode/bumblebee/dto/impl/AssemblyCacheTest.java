@@ -0,0 +1,102 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AssemblyCacheTest {
+
+    @Test
+    public void cachedDataObjectShouldBeReturnedForSameVersion() {
+        AssemblyCache cache = new AssemblyCache(10);
+
+        cache.put(String.class, 1, 1, "a");
+
+        assertEquals("a", cache.get(String.class, 1, 1));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void changedVersionShouldMiss() {
+        AssemblyCache cache = new AssemblyCache(10);
+
+        cache.put(String.class, 1, 1, "a");
+
+        assertNull(cache.get(String.class, 1, 2));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void entriesShouldBeKeyedByDataObjectType() {
+        AssemblyCache cache = new AssemblyCache(10);
+
+        cache.put(String.class, 1, null, "a");
+
+        assertNull(cache.get(Integer.class, 1, null));
+        assertEquals("a", cache.get(String.class, 1, null));
+    }
+
+    @Test
+    public void entriesThatAreReadRepeatedlyShouldSurviveEviction() {
+        AssemblyCache cache = new AssemblyCache(5);
+
+        cache.put(String.class, 0, null, "frequent");
+        cache.get(String.class, 0, null);
+
+        for (int i = 1; i <= 10; i++) {
+            cache.put(String.class, i, null, "once" + i);
+        }
+
+        assertEquals(5, cache.size());
+        assertEquals(6, cache.getEvictionCount());
+        assertEquals("frequent", cache.get(String.class, 0, null));
+        assertNull(cache.get(String.class, 1, null));
+        assertEquals("once10", cache.get(String.class, 10, null));
+    }
+
+    @Test
+    public void expiredEntriesShouldMiss() throws InterruptedException {
+        AssemblyCache cache = new AssemblyCache(10, 1, TimeUnit.MILLISECONDS);
+
+        cache.put(String.class, 1, null, "a");
+        Thread.sleep(5);
+
+        assertNull(cache.get(String.class, 1, null));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidatedEntriesShouldMiss() {
+        AssemblyCache cache = new AssemblyCache(10);
+
+        cache.put(String.class, 1, null, "a");
+        cache.get(String.class, 1, null);
+        cache.invalidate(String.class, 1);
+
+        assertNull(cache.get(String.class, 1, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maximumSizeMustBePositive() {
+        new AssemblyCache(0);
+    }
+
+}
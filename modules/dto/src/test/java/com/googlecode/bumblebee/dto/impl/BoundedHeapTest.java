@@ -0,0 +1,63 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class BoundedHeapTest {
+
+    @Test
+    public void heapShouldRetainElementsWithLargestKeys() {
+        BoundedHeap heap = new BoundedHeap(3);
+
+        for (int n : new int[]{5, 1, 9, 3, 7, 2, 8}) {
+            heap.offer(n, "e" + n);
+        }
+
+        assertEquals(3, heap.size());
+        assertEquals(Arrays.<Object>asList("e9", "e8", "e7"), heap.toList());
+        assertEquals(0, heap.size());
+    }
+
+    @Test
+    public void nullKeysShouldBeSmallest() {
+        BoundedHeap heap = new BoundedHeap(2);
+
+        heap.offer(null, "a");
+        heap.offer(1, "b");
+        heap.offer(null, "c");
+
+        assertEquals(Arrays.<Object>asList("b", "a"), heap.toList());
+    }
+
+    @Test
+    public void heapWithoutCapacityShouldSelectNothing() {
+        BoundedHeap heap = new BoundedHeap(0);
+
+        heap.offer(1, "a");
+
+        assertEquals(Collections.emptyList(), heap.toList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorShouldNotAcceptNegativeCapacity() {
+        new BoundedHeap(-1);
+    }
+
+}
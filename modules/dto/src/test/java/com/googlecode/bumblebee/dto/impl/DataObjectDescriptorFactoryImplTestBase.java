@@ -134,6 +134,21 @@ public class DataObjectDescriptorFactoryImplTestBase {
             assertArrayEquals(new Class[] { XmlType.class, XmlElement.class }, descriptor.getInheritedAnnotations());
         }
 
+        @Test
+        public void valuesShouldBeOrderedByDeclaration() throws Exception {
+            List<ValueDescriptor> values = descriptorFactory.createDataObjectDescriptor(DataObjectWithOrderedValues.class).getValueDescriptors();
+
+            assertEquals("zulu", values.get(0).getProperty());
+            assertEquals("alpha", values.get(1).getProperty());
+            assertEquals("mike", values.get(2).getProperty());
+        }
+
+        @Test
+        public void layoutShouldBeIncluded() {
+            assertEquals(Layout.DECLARATION, descriptorFactory.createDataObjectDescriptor(DataObjectWithOrderedValues.class).getLayout());
+            assertEquals(Layout.COMPACT, descriptorFactory.createDataObjectDescriptor(DataObjectWithCompactLayout.class).getLayout());
+        }
+
         protected List<ValueDescriptor> sortByProperty(List<ValueDescriptor> values) {
             Collections.sort(values, new Comparator<ValueDescriptor>() {
                 public int compare(ValueDescriptor v1, ValueDescriptor v2) {
@@ -149,6 +164,25 @@ public class DataObjectDescriptorFactoryImplTestBase {
     // Support classes
     //
 
+    @DataObject
+    public static interface DataObjectWithOrderedValues {
+
+        @Value
+        public String getZulu();
+
+        @Value
+        public String getAlpha();
+
+        @Value
+        public String getMike();
+
+    }
+
+    @DataObject(layout = Layout.COMPACT)
+    public static interface DataObjectWithCompactLayout {
+
+    }
+
     @DataObject(inheritedAnnotations = { XmlType.class, XmlElement.class})
     public static interface DataObjectWithInheritedAnnotations {
 
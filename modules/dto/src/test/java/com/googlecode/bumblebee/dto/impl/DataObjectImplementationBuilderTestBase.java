@@ -25,8 +25,11 @@ import org.junit.Test;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
@@ -62,6 +65,20 @@ public class DataObjectImplementationBuilderTestBase {
         public void nullClassShouldNotBeAccepted() {
             dataObjectImplementationBuilder.newDataObjectImplementation(null);
         }
+
+        @Test
+        public void implementationClassShouldBeFinal() {
+            CtClass ctClass = dataObjectImplementationBuilder.newDataObjectImplementation(FinalDataObject.class);
+
+            assertTrue(Modifier.isPublic(ctClass.getModifiers()));
+            assertTrue(Modifier.isFinal(ctClass.getModifiers()));
+        }
+
+        // Local support classes
+
+        public static interface FinalDataObject {
+
+        }
     }
 
     public static class AddInterfaceTest extends DataObjectImplementationBuilderTestBase {
@@ -202,14 +219,14 @@ public class DataObjectImplementationBuilderTestBase {
 
             Class clazz = implementationClass.toClass();
             Object instance = clazz.newInstance();
-            Method method = clazz.getDeclaredMethod("init_foo", Object.class, Assembler.class);
+            Method method = clazz.getDeclaredMethod("init_foo", Object.class, Assembler.class, Object[].class);
             Field field = clazz.getDeclaredField("foo");
 
             field.setAccessible(true);
             assertNull(field.get(instance));
 
             method.setAccessible(true);
-            method.invoke(instance, new Object(), null);
+            method.invoke(instance, new Object(), null, null);
 
             assertEquals("foobar", field.get(instance));
         }
@@ -232,9 +249,9 @@ public class DataObjectImplementationBuilderTestBase {
             dataObjectImplementationBuilder.addConversionConstructor(implementationClass, Collections.<CtMethod>emptyList());
 
             CtConstructor[] constructors = implementationClass.getConstructors();
-            assertEquals(1, constructors.length);
+            assertEquals(2, constructors.length);
 
-            CtConstructor constructor = constructors[0];
+            CtConstructor constructor = implementationClass.getConstructor("(Ljava/lang/Object;Lcom/googlecode/bumblebee/dto/Assembler;)V");
             CtClass[] parameterTypes = constructor.getParameterTypes();
             assertEquals(2, parameterTypes.length);
 
@@ -242,6 +259,17 @@ public class DataObjectImplementationBuilderTestBase {
             assertEquals(Assembler.class.getName(), parameterTypes[1].getName());
         }
 
+        @Test
+        public void constructorWithParametersShouldBeDeclared() throws Exception {
+            CtConstructor constructor = dataObjectImplementationBuilder.addConversionConstructor(implementationClass, Collections.<CtMethod>emptyList());
+            CtClass[] parameterTypes = constructor.getParameterTypes();
+
+            assertEquals(3, parameterTypes.length);
+            assertEquals(Object.class.getName(), parameterTypes[0].getName());
+            assertEquals(Assembler.class.getName(), parameterTypes[1].getName());
+            assertEquals("java.lang.Object[]", parameterTypes[2].getName());
+        }
+
         @Test
         public void generatedConstructorShouldCallInitializers() throws Exception {
             CtMethod ctMethod = null;
@@ -265,6 +293,94 @@ public class DataObjectImplementationBuilderTestBase {
             assertEquals("foobar", field.get(instance));
         }
 
+        @Test
+        public void statementsShouldBeInlinedIntoConstructor() throws Exception {
+            dataObjectImplementationBuilder.addField(implementationClass, String.class, "foo");
+            dataObjectImplementationBuilder.addConversionConstructor(implementationClass,
+                    Arrays.asList("java.lang.Object value = $1; this.foo = (java.lang.String) value;"), null);
+
+            Class clazz = implementationClass.toClass();
+            Object instance = clazz.getConstructor(Object.class, Assembler.class).newInstance("source", null);
+            Field field = clazz.getDeclaredField("foo");
+
+            field.setAccessible(true);
+            assertEquals("source", field.get(instance));
+            assertEquals(0, implementationClass.getDeclaredMethods().length);
+        }
+
+        @Test
+        public void statementsShouldBeSplitIfConstructorExceedsMaximumMethodSize() throws Exception {
+            List<String> statements = new ArrayList<String>();
+
+            dataObjectImplementationBuilder.addField(implementationClass, String.class, "foo");
+
+            for (int i = 0; i < 10000; i++) {
+                statements.add("this.foo = java.lang.String.valueOf($1);");
+            }
+
+            dataObjectImplementationBuilder.addConversionConstructor(implementationClass, statements, null);
+
+            Class clazz = implementationClass.toClass();
+            Object instance = clazz.getConstructor(Object.class, Assembler.class).newInstance("source", null);
+            Field field = clazz.getDeclaredField("foo");
+
+            field.setAccessible(true);
+            assertEquals("source", field.get(instance));
+
+            Map<String, Integer> methodSizes = dataObjectImplementationBuilder.getMethodSizes(implementationClass);
+            assertTrue(implementationClass.getDeclaredMethods().length > 1);
+            assertEquals(implementationClass.getDeclaredMethods().length + 2, methodSizes.size());
+
+            for (int size : methodSizes.values()) {
+                assertTrue(size <= DataObjectImplementationBuilder.HUGE_METHOD_LIMIT);
+            }
+        }
+
+        @Test
+        public void statementsShouldBeSplitIntoBalancedMethods() throws Exception {
+            List<String> statements = new ArrayList<String>();
+            List<Integer> sizes = new ArrayList<Integer>();
+
+            dataObjectImplementationBuilder.setMaxMethodSize(1000);
+            dataObjectImplementationBuilder.addField(implementationClass, String.class, "foo");
+
+            for (int i = 0; i < 300; i++) {
+                statements.add("this.foo = java.lang.String.valueOf($1);");
+            }
+
+            dataObjectImplementationBuilder.addConversionConstructor(implementationClass, statements, null);
+
+            for (CtMethod method : implementationClass.getDeclaredMethods()) {
+                sizes.add(method.getMethodInfo2().getCodeAttribute().getCodeLength());
+            }
+
+            assertEquals(3, sizes.size());
+            assertTrue(Collections.max(sizes) <= 1000);
+            assertTrue(Collections.max(sizes) - Collections.min(sizes) < 20);
+        }
+
+        @Test
+        public void statementExceedingMaximumMethodSizeShouldBeMovedToOwnMethod() throws Exception {
+            dataObjectImplementationBuilder.setMaxMethodSize(10);
+            dataObjectImplementationBuilder.addField(implementationClass, String.class, "foo");
+            dataObjectImplementationBuilder.addConversionConstructor(implementationClass, Arrays.asList(
+                    "this.foo = java.lang.String.valueOf($1) + java.lang.String.valueOf($1);",
+                    "this.foo = java.lang.String.valueOf($1);"), null);
+
+            Class clazz = implementationClass.toClass();
+            Object instance = clazz.getConstructor(Object.class, Assembler.class).newInstance("source", null);
+            Field field = clazz.getDeclaredField("foo");
+
+            field.setAccessible(true);
+            assertEquals("source", field.get(instance));
+            assertEquals(2, implementationClass.getDeclaredMethods().length);
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void maximumMethodSizeShouldNotExceedLimitOfClassFile() {
+            dataObjectImplementationBuilder.setMaxMethodSize(DataObjectImplementationBuilder.MAX_METHOD_SIZE + 1);
+        }
+
     }
 
 }
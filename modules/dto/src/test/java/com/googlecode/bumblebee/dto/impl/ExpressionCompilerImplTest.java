@@ -0,0 +1,102 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ExpressionCompilerImplTest {
+
+    @Test
+    public void gettersShouldBeGeneratedOncePerSourceClass() {
+        ExpressionCompilerImpl compiler = new ExpressionCompilerImpl();
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("entity", compiler.compile("name").get(new Entity()));
+            assertEquals("proxy", compiler.compile("name").get(new EntityProxy()));
+        }
+
+        assertEquals(2, compiler.getGetterCount());
+    }
+
+    @Test
+    public void gettersShouldBeRetainedWhenExpressionsAreEvicted() {
+        ExpressionCompilerImpl compiler = new ExpressionCompilerImpl(1);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("entity", compiler.compile("name").get(new Entity()));
+            assertEquals("Entity", compiler.compile("class.simpleName").get(new Entity()));
+        }
+
+        assertEquals(2, compiler.getGetterCount());
+    }
+
+    @Test
+    public void gettersOfLeastRecentlyUsedSourceClassesShouldBeEvicted() {
+        ExpressionCompilerImpl compiler = new ExpressionCompilerImpl(ExpressionCompilerImpl.DEFAULT_CACHE_SIZE, 2);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("entity", compiler.compile("name").get(new Entity()));
+            assertEquals("proxy", compiler.compile("name").get(new EntityProxy()));
+            assertEquals("other", compiler.compile("name").get(new OtherEntity()));
+            assertTrue(compiler.getGetterCount() <= 2);
+        }
+
+        assertEquals(2, compiler.getGetterCount());
+    }
+
+    @Test
+    public void getterSitesShouldBindToTheGetterOfTheFirstSourceClass() {
+        ExpressionCompilerImpl compiler = new ExpressionCompilerImpl();
+        CompiledExpression expression = (CompiledExpression) compiler.compile("name");
+        GetterSite site = new GetterSite(expression);
+        Entity entity = new Entity();
+        EntityProxy proxy = new EntityProxy();
+
+        assertSame(expression.getSpecialization(Entity.class), site.bind(entity));
+        assertSame(expression, site.bind(proxy));
+        assertSame(expression, site.bind(null));
+        assertEquals("entity", site.bind(entity).get(entity));
+        assertEquals("proxy", site.bind(proxy).get(proxy));
+    }
+
+    // Support classes
+
+    public static class Entity {
+
+        public String getName() {
+            return "entity";
+        }
+
+    }
+
+    public static class EntityProxy extends Entity {
+
+        @Override
+        public String getName() {
+            return "proxy";
+        }
+
+    }
+
+    public static class OtherEntity {
+
+        public String getName() {
+            return "other";
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.el.Expression;
+import com.googlecode.bumblebee.dto.el.ThisExpression;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExpressionTrieTest {
+
+    @Test
+    public void sharedPrefixShouldBeEvaluatedOnce() {
+        ExpressionTrie trie = trie("userInfo.firstName", "userInfo.lastName", "id");
+
+        assertEquals(1, trie.getPrefixes().size());
+        assertEquals("userInfo", trie.getPrefixes().get(0).getExpression().toString());
+        assertSame(trie.getPrefixes().get(0), trie.getPrefix(0));
+        assertSame(trie.getPrefixes().get(0), trie.getPrefix(1));
+        assertNull(trie.getPrefix(2));
+        assertEquals("firstName", trie.getRelativeExpression(0).toString());
+        assertEquals("lastName", trie.getRelativeExpression(1).toString());
+        assertEquals("id", trie.getRelativeExpression(2).toString());
+    }
+
+    @Test
+    public void sharedPrefixesShouldBeNested() {
+        ExpressionTrie trie = trie("a.b.c", "a.b.d", "a.e", "a.b");
+        List<ExpressionTrie.Prefix> prefixes = trie.getPrefixes();
+
+        assertEquals(2, prefixes.size());
+        assertEquals("a", prefixes.get(0).getExpression().toString());
+        assertTrue(prefixes.get(0).hasNestedPrefixes());
+        assertEquals("a.b", prefixes.get(1).getExpression().toString());
+        assertSame(prefixes.get(0), prefixes.get(1).getParent());
+        assertEquals("b", prefixes.get(1).getRelativeExpression().toString());
+        assertFalse(prefixes.get(1).hasNestedPrefixes());
+        assertEquals("c", trie.getRelativeExpression(0).toString());
+        assertEquals("e", trie.getRelativeExpression(2).toString());
+        assertEquals(ThisExpression.INSTANCE, trie.getRelativeExpression(3));
+    }
+
+    @Test
+    public void prefixSharedBySamePathsShouldBeSkipped() {
+        ExpressionTrie trie = trie("a.b.c.d", "a.b.c.e");
+
+        assertEquals(1, trie.getPrefixes().size());
+        assertEquals("a.b.c", trie.getPrefixes().get(0).getExpression().toString());
+        assertNull(trie.getPrefixes().get(0).getParent());
+    }
+
+    @Test
+    public void prefixesShouldEndAtNullSafeNavigation() {
+        ExpressionTrie trie = trie("a.b?.c.d", "a.b?.c.e", "a.f?.g");
+
+        assertEquals(2, trie.getPrefixes().size());
+        assertEquals("a.b", trie.getPrefixes().get(1).getExpression().toString());
+        assertEquals("c.d", trie.getRelativeExpression(0).toString());
+        assertTrue(trie.isNullSafeNavigation(0));
+        assertEquals("f?.g", trie.getRelativeExpression(2).toString());
+        assertFalse(trie.isNullSafeNavigation(2));
+        assertTrue(trie("a?.b", "a?.c").isNullSafeNavigation(1));
+    }
+
+    @Test
+    public void navigationFromPrefixShouldBeReported() {
+        ExpressionTrie trie = trie("a.b?.c", "a.b.d");
+
+        assertEquals("c", trie.getRelativeExpression(0).toString());
+        assertTrue(trie.isNullSafeNavigation(0));
+        assertFalse(trie.isNullSafeNavigation(1));
+    }
+
+    @Test
+    public void onlyPropertyPathsShouldBeShared() {
+        ExpressionTrie trie = trie("count(a.b)", "a.c[0]", "a.d");
+
+        assertTrue(trie.getPrefixes().isEmpty());
+        assertEquals("count(a.b)", trie.getRelativeExpression(0).toString());
+    }
+
+    protected ExpressionTrie trie(String ... expressions) {
+        List<Expression> parsedExpressions = new ArrayList<Expression>();
+
+        for (String expression : expressions) {
+            parsedExpressions.add(Expression.parse(expression));
+        }
+
+        return new ExpressionTrie(parsedExpressions);
+    }
+}
@@ -0,0 +1,198 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import com.googlecode.bumblebee.dto.Layout;
+import com.googlecode.bumblebee.dto.Storage;
+import com.googlecode.bumblebee.dto.ValueDescriptor;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FieldLayoutTest {
+
+    @Test
+    public void declarationLayoutShouldDeclareFieldsInOrder() {
+        FieldLayout layout = new FieldLayout(values(String.class, boolean.class, long.class), Layout.DECLARATION);
+
+        assertEquals(Arrays.asList("p0", "p1", "p2"), new ArrayList<String>(layout.getFields().keySet()));
+        assertTrue(layout.hasField("p1"));
+        assertEquals("this.p1", layout.getReadCode("this", "p1"));
+        assertEquals("this.p1 = $1;", layout.getWriteCode("this", "p1", "$1"));
+    }
+
+    @Test
+    public void compactLayoutShouldGroupFieldsByWidth() {
+        FieldLayout layout = new FieldLayout(values(String.class, byte.class, boolean.class, short.class, double.class, int.class), Layout.COMPACT);
+
+        assertEquals(Arrays.asList("p4", "p5", "flags_0", "p3", "p1", "p0"), new ArrayList<String>(layout.getFields().keySet()));
+        assertEquals(int.class, layout.getFields().get("flags_0"));
+        assertFalse(layout.hasField("p2"));
+        assertEquals("p2", layout.getEncodedProperties().get(0).getProperty());
+    }
+
+    @Test
+    public void compactLayoutShouldPackBooleansIntoBitFields() throws Exception {
+        Class<?>[] types = new Class<?>[33];
+        Arrays.fill(types, boolean.class);
+
+        FieldLayout layout = new FieldLayout(values(types), Layout.COMPACT);
+        DataObjectImplementationBuilder builder = new DataObjectImplementationBuilder(ClassPool.getDefault());
+        CtClass implementationClass = ClassPool.getDefault().makeClass("com.googlecode.bumblebee.dto.impl.PackedBooleans");
+
+        assertEquals(Arrays.asList("flags_0", "flags_1"), new ArrayList<String>(layout.getFields().keySet()));
+        assertEquals("((this.flags_1 & 0x1) != 0)", layout.getReadCode("this", "p32"));
+
+        builder.addFields(implementationClass, layout);
+        builder.addAccessorCode(implementationClass, "isP31", boolean.class, layout.getReadCode("this", "p31"));
+        builder.addAccessorCode(implementationClass, "isP32", boolean.class, layout.getReadCode("this", "p32"));
+        implementationClass.addMethod(CtNewMethod.make("public void set(boolean value) { "
+                + layout.getWriteCode("this", "p31", "value") + layout.getWriteCode("this", "p32", "!value") + " }", implementationClass));
+
+        Class<?> clazz = implementationClass.toClass();
+        Object instance = clazz.newInstance();
+        Method set = clazz.getMethod("set", boolean.class);
+
+        set.invoke(instance, true);
+        assertEquals(true, clazz.getMethod("isP31").invoke(instance));
+        assertEquals(false, clazz.getMethod("isP32").invoke(instance));
+
+        set.invoke(instance, false);
+        assertEquals(false, clazz.getMethod("isP31").invoke(instance));
+        assertEquals(true, clazz.getMethod("isP32").invoke(instance));
+    }
+
+    @Test
+    public void sparseStorageShouldHoldReferencesInValueArray() {
+        FieldLayout layout = new FieldLayout(values(String.class, int.class, Integer.class), Layout.DECLARATION, Storage.SPARSE);
+
+        assertEquals(Arrays.asList("p1", "sparse_0", "sparse_values"), new ArrayList<String>(layout.getFields().keySet()));
+        assertEquals(Object[].class, layout.getFields().get("sparse_values"));
+        assertTrue(layout.hasField("p1"));
+        assertFalse(layout.hasField("p0"));
+        assertTrue(layout.isValueArray("sparse_values"));
+        assertEquals("(((this.sparse_0 & 0x2L) != 0L) ? (java.lang.Integer) this.sparse_values[java.lang.Long.bitCount(this.sparse_0 & 0x1L)] : null)",
+                layout.getReadCode("this", "p2"));
+    }
+
+    @Test
+    public void sparsePropertiesShouldBeInsertedAndRemoved() throws Exception {
+        Class<?>[] types = new Class<?>[66];
+        Arrays.fill(types, String.class);
+
+        FieldLayout layout = new FieldLayout(values(types), Layout.COMPACT, Storage.SPARSE);
+        DataObjectImplementationBuilder builder = new DataObjectImplementationBuilder(ClassPool.getDefault());
+        CtClass implementationClass = ClassPool.getDefault().makeClass("com.googlecode.bumblebee.dto.impl.SparseStrings");
+
+        assertEquals(Arrays.asList("sparse_0", "sparse_1", "sparse_values"), new ArrayList<String>(layout.getFields().keySet()));
+
+        builder.addFields(implementationClass, layout);
+
+        for (int i : new int[]{0, 63, 64, 65}) {
+            builder.addAccessorCode(implementationClass, "getP" + i, String.class, layout.getReadCode("this", "p" + i));
+            implementationClass.addMethod(CtNewMethod.make("public void setP" + i + "(java.lang.String value) { "
+                    + layout.getWriteCode("this", "p" + i, "value") + " }", implementationClass));
+        }
+
+        Class<?> clazz = implementationClass.toClass();
+        Object instance = clazz.newInstance();
+        Field values = clazz.getDeclaredField("sparse_values");
+
+        values.setAccessible(true);
+
+        clazz.getMethod("setP65", String.class).invoke(instance, "65");
+        clazz.getMethod("setP0", String.class).invoke(instance, "0");
+        clazz.getMethod("setP64", String.class).invoke(instance, "64");
+        clazz.getMethod("setP63", String.class).invoke(instance, "63");
+        assertArrayEquals(new Object[]{"0", "63", "64", "65"}, (Object[]) values.get(instance));
+
+        clazz.getMethod("setP63", String.class).invoke(instance, (Object) null);
+        clazz.getMethod("setP64", String.class).invoke(instance, "sixty-four");
+        assertArrayEquals(new Object[]{"0", "sixty-four", "65"}, (Object[]) values.get(instance));
+        assertNull(clazz.getMethod("getP63").invoke(instance));
+        assertEquals("sixty-four", clazz.getMethod("getP64").invoke(instance));
+        assertEquals("65", clazz.getMethod("getP65").invoke(instance));
+        assertEquals("0", clazz.getMethod("getP0").invoke(instance));
+    }
+
+    @Test
+    public void sparsePropertiesShouldBeInitializedByNumber() throws Exception {
+        Class<?>[] types = new Class<?>[66];
+        Arrays.fill(types, String.class);
+
+        FieldLayout layout = new FieldLayout(values(types), Layout.COMPACT, Storage.SPARSE);
+        DataObjectImplementationBuilder builder = new DataObjectImplementationBuilder(ClassPool.getDefault());
+        CtClass implementationClass = ClassPool.getDefault().makeClass("com.googlecode.bumblebee.dto.impl.InitializedSparseStrings");
+        StringBuilder initialization = new StringBuilder(layout.getInitializationCode("this"));
+
+        builder.addFields(implementationClass, layout);
+
+        for (int i : new int[]{65, 0, 64, 1}) {
+            initialization.append(layout.getInitializationWriteCode("this", "p" + i, i == 1 ? "null" : "\"" + i + "\""));
+        }
+
+        for (int i : new int[]{0, 1, 64, 65}) {
+            builder.addAccessorCode(implementationClass, "getP" + i, String.class, layout.getReadCode("this", "p" + i));
+        }
+
+        implementationClass.addMethod(CtNewMethod.make("public void initialize() { " + initialization
+                + layout.getCompletionCode("this") + " }", implementationClass));
+
+        Class<?> clazz = implementationClass.toClass();
+        Object instance = clazz.newInstance();
+        Field values = clazz.getDeclaredField("sparse_values");
+
+        values.setAccessible(true);
+        clazz.getMethod("initialize").invoke(instance);
+
+        assertArrayEquals(new Object[]{"0", "64", "65"}, (Object[]) values.get(instance));
+        assertEquals("0", clazz.getMethod("getP0").invoke(instance));
+        assertNull(clazz.getMethod("getP1").invoke(instance));
+        assertEquals("64", clazz.getMethod("getP64").invoke(instance));
+        assertEquals("65", clazz.getMethod("getP65").invoke(instance));
+    }
+
+    @Test
+    public void compactShouldDropUnsetValues() {
+        Object[] values = new Object[]{"a", "b"};
+
+        assertSame(values, SparseValues.compact(values, 2));
+        assertArrayEquals(new Object[]{"b"}, SparseValues.compact(new Object[]{null, "b", null}, 1));
+        assertNull(SparseValues.compact(new Object[3], 0));
+    }
+
+    private static List<ValueDescriptor> values(Class<?>... types) {
+        List<ValueDescriptor> values = new ArrayList<ValueDescriptor>();
+
+        for (int i = 0; i < types.length; i++) {
+            try {
+                values.add(new ValueDescriptorImpl(types[i], Object.class.getMethod("toString"), "p" + i, "p" + i));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        return values;
+    }
+
+}
@@ -0,0 +1,43 @@
+// Copyright 2009 The original authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlecode.bumblebee.dto.impl;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class InternPoolTest {
+
+    @Test
+    public void internShouldReturnFirstEqualObject() {
+        InternPool pool = new InternPool();
+        String first = new String("value");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(new String("value")));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void objectsThatAreNotEqualShouldBeInternedSeparately() {
+        InternPool pool = new InternPool();
+        String first = new String("first");
+        String second = new String("second");
+
+        assertSame(first, pool.intern(first));
+        assertSame(second, pool.intern(second));
+        assertEquals(2, pool.size());
+    }
+
+}